@@ -22,6 +22,7 @@ import org.apache.hadoop.gateway.config.Optional;
 import org.apache.hadoop.gateway.dispatch.DefaultDispatch;
 import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
 import org.apache.hadoop.gateway.ha.dispatch.i18n.HaDispatchMessages;
+import org.apache.hadoop.gateway.ha.provider.FailoverBackoff;
 import org.apache.hadoop.gateway.ha.provider.HaProvider;
 import org.apache.hadoop.gateway.ha.provider.HaServiceConfig;
 import org.apache.hadoop.gateway.ha.provider.impl.HaServiceConfigConstants;
@@ -49,6 +50,8 @@ public class DefaultHaDispatch extends DefaultDispatch {
 
   private int failoverSleep = HaServiceConfigConstants.DEFAULT_FAILOVER_SLEEP;
 
+  private FailoverBackoff backoff = new FailoverBackoff(HaServiceConfigConstants.DEFAULT_MAX_CONCURRENT_RETRIES);
+
   private HaProvider haProvider;
 
   @Optional
@@ -63,6 +66,7 @@ public class DefaultHaDispatch extends DefaultDispatch {
       HaServiceConfig serviceConfig = haProvider.getHaDescriptor().getServiceConfig(getServiceRole());
       maxFailoverAttempts = serviceConfig.getMaxFailoverAttempts();
       failoverSleep = serviceConfig.getFailoverSleep();
+      backoff = haProvider.getFailoverBackoff(getServiceRole());
     }
   }
 
@@ -85,16 +89,47 @@ public class DefaultHaDispatch extends DefaultDispatch {
 
   @Override
   protected void executeRequest(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse) throws IOException {
+    if ( !acquireServiceGuard(outboundRequest) ) {
+      writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, createServiceUnavailableResponse());
+      return;
+    }
     HttpResponse inboundResponse = null;
+    IOException failure = null;
     try {
-      inboundResponse = executeOutboundRequest(outboundRequest);
+      inboundResponse = executeTrackedRequest(outboundRequest);
       writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
     } catch ( IOException e ) {
-      LOG.errorConnectingToServer(outboundRequest.getURI().toString(), e);
-      failoverRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, e);
+      failure = e;
+    } finally {
+      releaseServiceGuard();
+    }
+    // fail over only after giving back the guard slot, the next attempt takes its own
+    if ( failure != null ) {
+      LOG.errorConnectingToServer(outboundRequest.getURI().toString(), failure);
+      failoverRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
     }
   }
 
+  /**
+   * Executes the outbound request while reporting it to the HA provider so that
+   * load and latency aware URL managers can take it into account.
+   */
+  protected HttpResponse executeTrackedRequest(HttpUriRequest outboundRequest) throws IOException {
+    if ( haProvider == null ) {
+      return executeGuardedRequest(outboundRequest);
+    }
+    String url = outboundRequest.getURI().toString();
+    haProvider.markRequestStarted(getServiceRole(), url);
+    long start = System.currentTimeMillis();
+    boolean failed = true;
+    try {
+      HttpResponse inboundResponse = executeGuardedRequest(outboundRequest);
+      failed = isServerError(inboundResponse);
+      return inboundResponse;
+    } finally {
+      haProvider.markRequestCompleted(getServiceRole(), url, System.currentTimeMillis() - start, failed);
+    }
+  }
 
   private void failoverRequest(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse, Exception exception) throws IOException {
     LOG.failingOverRequest(outboundRequest.getURI().toString());
@@ -109,22 +144,31 @@ public class DefaultHaDispatch extends DefaultDispatch {
       inboundRequest.setAttribute(AbstractGatewayFilter.TARGET_REQUEST_URL_ATTRIBUTE_NAME, null);
       URI uri = getDispatchUrl(inboundRequest);
       ((HttpRequestBase) outboundRequest).setURI(uri);
-      if ( failoverSleep > 0 ) {
-        try {
-          Thread.sleep(failoverSleep);
-        } catch ( InterruptedException e ) {
-          LOG.failoverSleepFailed(getServiceRole(), e);
-        }
+      if ( awaitFailover(uri, counter.get()) ) {
+        executeRequest(outboundRequest, inboundRequest, outboundResponse);
+        return;
       }
-      executeRequest(outboundRequest, inboundRequest, outboundResponse);
     } else {
       LOG.maxFailoverAttemptsReached(maxFailoverAttempts, getServiceRole());
-      if ( inboundResponse != null ) {
-        writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
-      } else {
-        throw new IOException(exception);
+    }
+    if ( inboundResponse != null ) {
+      writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
+    } else {
+      throw new IOException(exception);
+    }
+  }
+
+  private boolean awaitFailover(URI uri, int attempt) {
+    try {
+      if ( backoff.await(failoverSleep, attempt) ) {
+        return true;
       }
+      LOG.retryBudgetExhausted(getServiceRole(), uri.toString());
+    } catch ( InterruptedException e ) {
+      LOG.failoverSleepFailed(getServiceRole(), e);
+      Thread.currentThread().interrupt();
     }
+    return false;
   }
 
 }
@@ -38,4 +38,7 @@ public interface HaDispatchMessages {
 
   @Message(level = MessageLevel.INFO, text = "Error occurred while trying to sleep for failover : {0} {1}")
   void failoverSleepFailed(String service, @StackTrace(level = MessageLevel.DEBUG) Exception e);
+
+  @Message(level = MessageLevel.WARN, text = "Too many requests waiting to retry for service: {0}, failing request to {1} without retrying")
+  void retryBudgetExhausted(String service, String uri);
 }
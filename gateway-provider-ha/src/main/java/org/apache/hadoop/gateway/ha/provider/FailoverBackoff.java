@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider;
+
+import org.apache.hadoop.gateway.ha.provider.impl.HaServiceConfigConstants;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Paces failover and retry attempts of one HA service. The {@link HaProvider} keeps one per service,
+ * shared by all dispatches of the service in the topology.
+ * <p>
+ * The wait before an attempt grows exponentially with the attempts of the request, from a quarter of the
+ * configured sleep up to the configured sleep, and the upper half of each wait is random jitter so that
+ * requests that failed together do not all hit the next backend at the same instant. No wait is longer than
+ * the configured sleep.
+ * <p>
+ * The wait blocks the request thread, as the dispatch is synchronous. The number of requests that may be
+ * waiting at the same time is therefore capped, so that a service stuck in failover or safe mode can only
+ * park a bounded number of gateway threads; requests beyond that budget fail right away instead of waiting.
+ */
+public class FailoverBackoff {
+
+  /* the first attempt waits up to sleep / 2^GROWTH_STEPS */
+  private static final int GROWTH_STEPS = 2;
+
+  private final int maxConcurrentRetries;
+
+  private final Semaphore budget;
+
+  /**
+   * @param maxConcurrentRetries the number of requests that may wait at the same time,
+   *                             {@link HaServiceConfigConstants#DEFAULT_MAX_CONCURRENT_RETRIES} if not positive
+   */
+  public FailoverBackoff(int maxConcurrentRetries) {
+    this.maxConcurrentRetries = maxConcurrentRetries > 0 ? maxConcurrentRetries : HaServiceConfigConstants.DEFAULT_MAX_CONCURRENT_RETRIES;
+    budget = new Semaphore(this.maxConcurrentRetries);
+  }
+
+  public int getMaxConcurrentRetries() {
+    return maxConcurrentRetries;
+  }
+
+  /**
+   * Waits before the next attempt.
+   *
+   * @param sleep   the configured sleep in milliseconds, the longest the wait can be
+   * @param attempt the number of the attempt about to be made, starting at 1
+   * @return false if the retry budget is exhausted and the attempt should not be made
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  public boolean await(int sleep, int attempt) throws InterruptedException {
+    if (!budget.tryAcquire()) {
+      return false;
+    }
+    try {
+      long delay = delay(sleep, attempt);
+      if (delay > 0) {
+        Thread.sleep(delay);
+      }
+      return true;
+    } finally {
+      budget.release();
+    }
+  }
+
+  static long delay(int sleep, int attempt) {
+    if (sleep <= 0) {
+      return 0;
+    }
+    long ceiling = Math.max(1, sleep >> Math.max(0, GROWTH_STEPS - Math.max(0, attempt - 1)));
+    long floor = ceiling / 2;
+    return floor + ThreadLocalRandom.current().nextLong(ceiling - floor + 1);
+  }
+
+}
@@ -31,6 +31,14 @@ public interface HaProvider {
     */
    public void addHaService(String serviceName, List<String> urls);
 
+   /**
+    * Replace the URLs of a HA service, keeping what is known about the URLs that remain
+    *
+    * @param serviceName the name of the service
+    * @param urls        the list of urls that can now be used for that service
+    */
+   public void updateHaService(String serviceName, List<String> urls);
+
    /**
     * Returns whether the service is enabled for HA
     *
@@ -56,4 +64,35 @@ public interface HaProvider {
     */
    public void markFailedURL(String serviceName, String url);
 
+   /**
+    * Returns the failover and retry budget of the service, shared by all dispatches of the service
+    *
+    * @param serviceName the name of the service
+    * @return the backoff of the service, created on first use
+    */
+   public FailoverBackoff getFailoverBackoff(String serviceName);
+
+   /**
+    * Tell the URL manager of the service that a request was sent to the URL.
+    *
+    * @param serviceName the name of the service
+    * @param url         the URL the request was dispatched to
+    */
+   public void markRequestStarted(String serviceName, String url);
+
+   /**
+    * Tell the URL manager of the service that a request to the URL has received its response or failed.
+    *
+    * @param serviceName   the name of the service
+    * @param url           the URL the request was dispatched to
+    * @param elapsedMillis the time until the response was received
+    * @param failed        whether the request failed
+    */
+   public void markRequestCompleted(String serviceName, String url, long elapsedMillis, boolean failed);
+
+   /**
+    * Release background resources, such as health checks, held by the URL managers.
+    */
+   public void stop();
+
 }
@@ -43,6 +43,10 @@ public interface HaServiceConfig {
 
    public int getRetrySleep();
 
+   public void setMaxConcurrentRetries(int limit);
+
+   public int getMaxConcurrentRetries();
+
    public String getZookeeperEnsemble();
 
    public void setZookeeperEnsemble(String zookeeperEnsemble);
@@ -50,4 +54,24 @@ public interface HaServiceConfig {
    public String getZookeeperNamespace();
 
    public void setZookeeperNamespace(String zookeeperNamespace);
+
+   public int getHealthCheckInterval();
+
+   public void setHealthCheckInterval(int interval);
+
+   public int getHealthCheckTimeout();
+
+   public void setHealthCheckTimeout(int timeout);
+
+   public String getHealthCheckPath();
+
+   public void setHealthCheckPath(String path);
+
+   public String getHealthCheckContent();
+
+   public void setHealthCheckContent(String content);
+
+   public String getSelectionPolicy();
+
+   public void setSelectionPolicy(String policy);
 }
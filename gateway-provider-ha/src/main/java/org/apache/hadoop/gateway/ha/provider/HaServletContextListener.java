@@ -17,12 +17,15 @@
  */
 package org.apache.hadoop.gateway.ha.provider;
 
+import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.ha.provider.impl.DefaultHaProvider;
 import org.apache.hadoop.gateway.ha.provider.impl.HaDescriptorManager;
+import org.apache.hadoop.gateway.ha.provider.impl.HaServiceConfigConstants;
 import org.apache.hadoop.gateway.ha.provider.impl.i18n.HaMessages;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.services.GatewayServices;
 import org.apache.hadoop.gateway.services.registry.ServiceRegistry;
+import org.apache.hadoop.gateway.services.registry.ServiceRegistryListener;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
@@ -38,6 +41,8 @@ public class HaServletContextListener implements ServletContextListener {
 
    public static final String PROVIDER_ATTRIBUTE_NAME = "haProvider";
 
+   private static final String REGISTRY_LISTENER_ATTRIBUTE_NAME = "haProviderRegistryListener";
+
    public static final String DESCRIPTOR_LOCATION_INIT_PARAM_NAME = "haDescriptorLocation";
 
    public static final String DESCRIPTOR_DEFAULT_FILE_NAME = "ha.xml";
@@ -57,11 +62,23 @@ public class HaServletContextListener implements ServletContextListener {
       } catch (IOException e) {
          throw new IllegalStateException(e);
       }
+      resolveRetryBudgets(descriptor, servletContext);
       setupHaProvider(descriptor, servletContext);
    }
 
    @Override
    public void contextDestroyed(ServletContextEvent event) {
+      HaProvider provider = getHaProvider(event.getServletContext());
+      if (provider != null) {
+         provider.stop();
+      }
+      ServiceRegistryListener listener = (ServiceRegistryListener) event.getServletContext().getAttribute(REGISTRY_LISTENER_ATTRIBUTE_NAME);
+      if (listener != null) {
+         GatewayServices services = (GatewayServices) event.getServletContext().getAttribute(GatewayServices.GATEWAY_SERVICES_ATTRIBUTE);
+         ServiceRegistry serviceRegistry = services.getService(GatewayServices.SERVICE_REGISTRY_SERVICE);
+         serviceRegistry.removeServiceRegistryListener(listener);
+         event.getServletContext().removeAttribute(REGISTRY_LISTENER_ATTRIBUTE_NAME);
+      }
       event.getServletContext().removeAttribute(PROVIDER_ATTRIBUTE_NAME);
    }
 
@@ -69,15 +86,43 @@ public class HaServletContextListener implements ServletContextListener {
       return (HaProvider) context.getAttribute(PROVIDER_ATTRIBUTE_NAME);
    }
 
+   /**
+    * Services that do not configure maxConcurrentRetries may park a fixed share of the
+    * gateway's request threads waiting to fail over or retry.
+    */
+   private static void resolveRetryBudgets(HaDescriptor descriptor, ServletContext servletContext) {
+      GatewayConfig config = (GatewayConfig) servletContext.getAttribute(GatewayConfig.GATEWAY_CONFIG_ATTRIBUTE);
+      if (config == null) {
+         return;
+      }
+      int budget = Math.max(1, config.getThreadPoolMax() / HaServiceConfigConstants.MAX_CONCURRENT_RETRIES_POOL_DIVISOR);
+      for (HaServiceConfig serviceConfig : descriptor.getServiceConfigs()) {
+         if (serviceConfig.getMaxConcurrentRetries() <= 0) {
+            serviceConfig.setMaxConcurrentRetries(budget);
+         }
+      }
+   }
+
    private void setupHaProvider(HaDescriptor descriptor, ServletContext servletContext) {
       GatewayServices services = (GatewayServices) servletContext.getAttribute(GatewayServices.GATEWAY_SERVICES_ATTRIBUTE);
-      String clusterName = (String) servletContext.getAttribute(GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE);
+      final String clusterName = (String) servletContext.getAttribute(GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE);
       ServiceRegistry serviceRegistry = services.getService(GatewayServices.SERVICE_REGISTRY_SERVICE);
-      HaProvider provider = new DefaultHaProvider(descriptor);
+      final HaProvider provider = new DefaultHaProvider(descriptor);
       List<String> serviceNames = descriptor.getEnabledServiceNames();
       for (String serviceName : serviceNames) {
          provider.addHaService(serviceName, serviceRegistry.lookupServiceURLs(clusterName, serviceName));
       }
+      // Follow URL changes made to the topology while it stays deployed.
+      ServiceRegistryListener listener = new ServiceRegistryListener() {
+         @Override
+         public void serviceRegistered(String cluster, String serviceName, List<String> urls) {
+            if (cluster.equals(clusterName) && provider.isHaEnabled(serviceName)) {
+               provider.updateHaService(serviceName, urls);
+            }
+         }
+      };
+      serviceRegistry.addServiceRegistryListener(listener);
+      servletContext.setAttribute(REGISTRY_LISTENER_ATTRIBUTE_NAME, listener);
       servletContext.setAttribute(PROVIDER_ATTRIBUTE_NAME, provider);
    }
 
@@ -0,0 +1,34 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider;
+
+/**
+ * A URL manager that keeps track of the health and load of its backends.
+ * It is told about every dispatched request so that selection can take
+ * outstanding requests and latency into account, and it owns background
+ * resources that are released by {@link #stop()}.
+ */
+public interface MonitoredURLManager extends URLManager {
+
+  public void requestStarted(String url);
+
+  public void requestCompleted(String url, long elapsedMillis, boolean failed);
+
+  public void stop();
+
+}
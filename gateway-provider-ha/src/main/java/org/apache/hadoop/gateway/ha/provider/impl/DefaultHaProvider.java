@@ -17,9 +17,11 @@
  */
 package org.apache.hadoop.gateway.ha.provider.impl;
 
+import org.apache.hadoop.gateway.ha.provider.FailoverBackoff;
 import org.apache.hadoop.gateway.ha.provider.HaDescriptor;
 import org.apache.hadoop.gateway.ha.provider.HaProvider;
 import org.apache.hadoop.gateway.ha.provider.HaServiceConfig;
+import org.apache.hadoop.gateway.ha.provider.MonitoredURLManager;
 import org.apache.hadoop.gateway.ha.provider.URLManager;
 import org.apache.hadoop.gateway.ha.provider.URLManagerLoader;
 import org.apache.hadoop.gateway.ha.provider.impl.i18n.HaMessages;
@@ -27,21 +29,32 @@ import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DefaultHaProvider implements HaProvider {
 
   private static final HaMessages LOG = MessagesFactory.get(HaMessages.class);
 
+  private static final int PROBE_THREADS = 2;
+
   private HaDescriptor descriptor;
 
   private ConcurrentHashMap<String, URLManager> haServices;
 
+  private ConcurrentHashMap<String, FailoverBackoff> backoffs;
+
+  private ScheduledExecutorService probes;
+
   public DefaultHaProvider(HaDescriptor descriptor) {
     if ( descriptor == null ) {
       throw new IllegalArgumentException("Descriptor can not be null");
     }
     this.descriptor = descriptor;
     haServices = new ConcurrentHashMap<>();
+    backoffs = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -53,8 +66,24 @@ public class DefaultHaProvider implements HaProvider {
   public void addHaService(String serviceName, List<String> urls) {
     HaServiceConfig haServiceConfig = descriptor.getServiceConfig(serviceName);
     URLManager manager = URLManagerLoader.loadURLManager(haServiceConfig);
+    if ( manager instanceof HealthCheckingURLManager ) {
+      ((HealthCheckingURLManager) manager).setScheduler(getProbes());
+    }
     manager.setURLs(urls);
-    haServices.put(serviceName, manager);
+    URLManager previous = haServices.put(serviceName, manager);
+    if ( previous instanceof MonitoredURLManager ) {
+      ((MonitoredURLManager) previous).stop();
+    }
+  }
+
+  @Override
+  public void updateHaService(String serviceName, List<String> urls) {
+    URLManager manager = haServices.get(serviceName);
+    if ( manager == null ) {
+      addHaService(serviceName, urls);
+    } else {
+      manager.setURLs(urls);
+    }
   }
 
   @Override
@@ -83,4 +112,68 @@ public class DefaultHaProvider implements HaProvider {
       LOG.noServiceFound(serviceName);
     }
   }
+
+  @Override
+  public FailoverBackoff getFailoverBackoff(String serviceName) {
+    FailoverBackoff backoff = backoffs.get(serviceName);
+    if ( backoff == null ) {
+      HaServiceConfig config = descriptor.getServiceConfig(serviceName);
+      backoff = new FailoverBackoff(config == null ? 0 : config.getMaxConcurrentRetries());
+      FailoverBackoff existing = backoffs.putIfAbsent(serviceName, backoff);
+      if ( existing != null ) {
+        backoff = existing;
+      }
+    }
+    return backoff;
+  }
+
+  @Override
+  public void markRequestStarted(String serviceName, String url) {
+    URLManager manager = haServices.get(serviceName);
+    if ( manager instanceof MonitoredURLManager ) {
+      ((MonitoredURLManager) manager).requestStarted(url);
+    }
+  }
+
+  @Override
+  public void markRequestCompleted(String serviceName, String url, long elapsedMillis, boolean failed) {
+    URLManager manager = haServices.get(serviceName);
+    if ( manager instanceof MonitoredURLManager ) {
+      ((MonitoredURLManager) manager).requestCompleted(url, elapsedMillis, failed);
+    }
+  }
+
+  @Override
+  public void stop() {
+    for ( URLManager manager : haServices.values() ) {
+      if ( manager instanceof MonitoredURLManager ) {
+        ((MonitoredURLManager) manager).stop();
+      }
+    }
+    synchronized ( this ) {
+      if ( probes != null ) {
+        probes.shutdownNow();
+        probes = null;
+      }
+    }
+  }
+
+  /**
+   * The health checks of all services of the topology share these threads, they end with the topology.
+   */
+  private synchronized ScheduledExecutorService getProbes() {
+    if ( probes == null ) {
+      probes = Executors.newScheduledThreadPool(PROBE_THREADS, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "ha-health-check-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return probes;
+  }
 }
@@ -33,10 +33,22 @@ public class DefaultHaServiceConfig implements HaServiceConfig, HaServiceConfigC
 
   private int retrySleep = DEFAULT_RETRY_SLEEP;
 
+  private int maxConcurrentRetries;
+
   private String zookeeperEnsemble;
 
   private String zookeeperNamespace;
 
+  private int healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+
+  private int healthCheckTimeout = DEFAULT_HEALTH_CHECK_TIMEOUT;
+
+  private String healthCheckPath = DEFAULT_HEALTH_CHECK_PATH;
+
+  private String healthCheckContent;
+
+  private String selectionPolicy = DEFAULT_SELECTION_POLICY;
+
   public DefaultHaServiceConfig(String name) {
     this.name = name;
   }
@@ -102,6 +114,16 @@ public class DefaultHaServiceConfig implements HaServiceConfig, HaServiceConfigC
     this.retrySleep = retrySleep;
   }
 
+  @Override
+  public int getMaxConcurrentRetries() {
+    return maxConcurrentRetries;
+  }
+
+  @Override
+  public void setMaxConcurrentRetries(int maxConcurrentRetries) {
+    this.maxConcurrentRetries = maxConcurrentRetries;
+  }
+
   @Override
   public String getZookeeperEnsemble() {
     return zookeeperEnsemble;
@@ -121,4 +143,54 @@ public class DefaultHaServiceConfig implements HaServiceConfig, HaServiceConfigC
   public void setZookeeperNamespace(String zookeeperNamespace) {
     this.zookeeperNamespace = zookeeperNamespace;
   }
+
+  @Override
+  public int getHealthCheckInterval() {
+    return healthCheckInterval;
+  }
+
+  @Override
+  public void setHealthCheckInterval(int healthCheckInterval) {
+    this.healthCheckInterval = healthCheckInterval;
+  }
+
+  @Override
+  public int getHealthCheckTimeout() {
+    return healthCheckTimeout;
+  }
+
+  @Override
+  public void setHealthCheckTimeout(int healthCheckTimeout) {
+    this.healthCheckTimeout = healthCheckTimeout;
+  }
+
+  @Override
+  public String getHealthCheckPath() {
+    return healthCheckPath;
+  }
+
+  @Override
+  public void setHealthCheckPath(String healthCheckPath) {
+    this.healthCheckPath = healthCheckPath;
+  }
+
+  @Override
+  public String getHealthCheckContent() {
+    return healthCheckContent;
+  }
+
+  @Override
+  public void setHealthCheckContent(String healthCheckContent) {
+    this.healthCheckContent = healthCheckContent;
+  }
+
+  @Override
+  public String getSelectionPolicy() {
+    return selectionPolicy;
+  }
+
+  @Override
+  public void setSelectionPolicy(String selectionPolicy) {
+    this.selectionPolicy = selectionPolicy;
+  }
 }
@@ -40,10 +40,22 @@ public interface HaDescriptorConstants {
 
    public static final String RETRY_SLEEP = "retrySleep";
 
+   public static final String MAX_CONCURRENT_RETRIES = "maxConcurrentRetries";
+
    public static final String ENABLED_ATTRIBUTE = "enabled";
 
    public static final String ZOOKEEPER_ENSEMBLE = "zookeeperEnsemble";
 
    public static final String ZOOKEEPER_NAMESPACE = "zookeeperNamespace";
 
+   public static final String HEALTH_CHECK_INTERVAL = "healthCheckInterval";
+
+   public static final String HEALTH_CHECK_TIMEOUT = "healthCheckTimeout";
+
+   public static final String HEALTH_CHECK_PATH = "healthCheckPath";
+
+   public static final String HEALTH_CHECK_CONTENT = "healthCheckContent";
+
+   public static final String SELECTION_POLICY = "selectionPolicy";
+
 }
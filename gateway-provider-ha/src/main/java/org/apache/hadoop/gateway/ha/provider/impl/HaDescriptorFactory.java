@@ -38,9 +38,14 @@ public abstract class HaDescriptorFactory implements HaServiceConfigConstants {
       String retrySleep = configMap.get(CONFIG_PARAM_RETRY_SLEEP);
       String zookeeperEnsemble = configMap.get(CONFIG_PARAM_ZOOKEEPER_ENSEMBLE);
       String zookeeperNamespace = configMap.get(CONFIG_PARAM_ZOOKEEPER_NAMESPACE);
-      return createServiceConfig(serviceName, enabledValue, maxFailoverAttempts,
+      HaServiceConfig serviceConfig = createServiceConfig(serviceName, enabledValue, maxFailoverAttempts,
           failoverSleep, maxRetryAttempts, retrySleep,
           zookeeperEnsemble, zookeeperNamespace);
+      configureMaxConcurrentRetries(serviceConfig, configMap.get(CONFIG_PARAM_MAX_CONCURRENT_RETRIES));
+      configureHealthCheck(serviceConfig, configMap.get(CONFIG_PARAM_HEALTH_CHECK_INTERVAL),
+          configMap.get(CONFIG_PARAM_HEALTH_CHECK_TIMEOUT), configMap.get(CONFIG_PARAM_HEALTH_CHECK_PATH),
+          configMap.get(CONFIG_PARAM_HEALTH_CHECK_CONTENT), configMap.get(CONFIG_PARAM_SELECTION_POLICY));
+      return serviceConfig;
    }
 
    public static HaServiceConfig createServiceConfig(String serviceName, String enabledValue,
@@ -78,12 +83,38 @@ public abstract class HaDescriptorFactory implements HaServiceConfigConstants {
       return serviceConfig;
    }
 
+   public static void configureMaxConcurrentRetries(HaServiceConfig serviceConfig, String maxConcurrentRetriesValue) {
+      if (maxConcurrentRetriesValue != null && maxConcurrentRetriesValue.trim().length() > 0) {
+         serviceConfig.setMaxConcurrentRetries(Integer.parseInt(maxConcurrentRetriesValue.trim()));
+      }
+   }
+
+   public static void configureHealthCheck(HaServiceConfig serviceConfig, String intervalValue, String timeoutValue,
+                                           String path, String content, String policy) {
+      if (intervalValue != null && intervalValue.trim().length() > 0) {
+         serviceConfig.setHealthCheckInterval(Integer.parseInt(intervalValue.trim()));
+      }
+      if (timeoutValue != null && timeoutValue.trim().length() > 0) {
+         serviceConfig.setHealthCheckTimeout(Integer.parseInt(timeoutValue.trim()));
+      }
+      if (path != null && path.trim().length() > 0) {
+         serviceConfig.setHealthCheckPath(path.trim());
+      }
+      if (content != null && content.length() > 0) {
+         serviceConfig.setHealthCheckContent(content);
+      }
+      if (policy != null && policy.trim().length() > 0) {
+         serviceConfig.setSelectionPolicy(policy.trim());
+      }
+   }
+
    private static Map<String, String> parseHaConfiguration(String configuration) {
       Map<String, String> parameters = new HashMap<String, String>();
       if (configuration != null) {
          String[] pairs = configuration.split(CONFIG_PAIRS_DELIMITER);
          for (String pair : pairs) {
-            String[] tokens = pair.split(CONFIG_PAIR_DELIMITER);
+            // values such as health check paths may carry their own query string
+            String[] tokens = pair.split(CONFIG_PAIR_DELIMITER, 2);
             if (tokens.length == 2) {
                parameters.put(tokens[0], tokens[1]);
             }
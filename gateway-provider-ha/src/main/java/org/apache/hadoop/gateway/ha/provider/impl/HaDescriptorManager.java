@@ -55,6 +55,7 @@ public class HaDescriptorManager implements HaDescriptorConstants {
                serviceElement.setAttribute(FAILOVER_SLEEP, Integer.toString(config.getFailoverSleep()));
                serviceElement.setAttribute(MAX_RETRY_ATTEMPTS, Integer.toString(config.getMaxRetryAttempts()));
                serviceElement.setAttribute(RETRY_SLEEP, Integer.toString(config.getRetrySleep()));
+               serviceElement.setAttribute(MAX_CONCURRENT_RETRIES, Integer.toString(config.getMaxConcurrentRetries()));
                serviceElement.setAttribute(ENABLED_ATTRIBUTE, Boolean.toString(config.isEnabled()));
                if (config.getZookeeperEnsemble() != null) {
                  serviceElement.setAttribute(ZOOKEEPER_ENSEMBLE, config.getZookeeperEnsemble());
@@ -62,6 +63,17 @@ public class HaDescriptorManager implements HaDescriptorConstants {
                if (config.getZookeeperNamespace() != null) {
                  serviceElement.setAttribute(ZOOKEEPER_NAMESPACE, config.getZookeeperNamespace());
                }
+               if (config.getHealthCheckInterval() > 0) {
+                 serviceElement.setAttribute(HEALTH_CHECK_INTERVAL, Integer.toString(config.getHealthCheckInterval()));
+                 serviceElement.setAttribute(HEALTH_CHECK_TIMEOUT, Integer.toString(config.getHealthCheckTimeout()));
+                 serviceElement.setAttribute(HEALTH_CHECK_PATH, config.getHealthCheckPath());
+                 if (config.getHealthCheckContent() != null) {
+                   serviceElement.setAttribute(HEALTH_CHECK_CONTENT, config.getHealthCheckContent());
+                 }
+               }
+               if (config.getSelectionPolicy() != null) {
+                 serviceElement.setAttribute(SELECTION_POLICY, config.getSelectionPolicy());
+               }
                root.appendChild(serviceElement);
             }
          }
@@ -93,6 +105,13 @@ public class HaDescriptorManager implements HaDescriptorConstants {
                      element.getAttribute(RETRY_SLEEP),
                      element.getAttribute(ZOOKEEPER_ENSEMBLE),
                      element.getAttribute(ZOOKEEPER_NAMESPACE));
+               HaDescriptorFactory.configureMaxConcurrentRetries(config, element.getAttribute(MAX_CONCURRENT_RETRIES));
+               HaDescriptorFactory.configureHealthCheck(config,
+                     element.getAttribute(HEALTH_CHECK_INTERVAL),
+                     element.getAttribute(HEALTH_CHECK_TIMEOUT),
+                     element.getAttribute(HEALTH_CHECK_PATH),
+                     element.getAttribute(HEALTH_CHECK_CONTENT),
+                     element.getAttribute(SELECTION_POLICY));
                descriptor.addServiceConfig(config);
             }
          }
@@ -31,12 +31,24 @@ public interface HaServiceConfigConstants {
 
    public static final String CONFIG_PARAM_RETRY_SLEEP = "retrySleep";
 
+   public static final String CONFIG_PARAM_MAX_CONCURRENT_RETRIES = "maxConcurrentRetries";
+
    public static final String CONFIG_PARAM_ENABLED = "enabled";
 
    public static final String CONFIG_PARAM_ZOOKEEPER_ENSEMBLE = "zookeeperEnsemble";
 
    public static final String CONFIG_PARAM_ZOOKEEPER_NAMESPACE = "zookeeperNamespace";
 
+   public static final String CONFIG_PARAM_HEALTH_CHECK_INTERVAL = "healthCheckInterval";
+
+   public static final String CONFIG_PARAM_HEALTH_CHECK_TIMEOUT = "healthCheckTimeout";
+
+   public static final String CONFIG_PARAM_HEALTH_CHECK_PATH = "healthCheckPath";
+
+   public static final String CONFIG_PARAM_HEALTH_CHECK_CONTENT = "healthCheckContent";
+
+   public static final String CONFIG_PARAM_SELECTION_POLICY = "selectionPolicy";
+
    public static final int DEFAULT_MAX_FAILOVER_ATTEMPTS = 3;
 
    public static final int DEFAULT_FAILOVER_SLEEP = 1000;
@@ -45,6 +57,22 @@ public interface HaServiceConfigConstants {
 
    public static final int DEFAULT_RETRY_SLEEP = 1000;
 
+   /* a service that does not configure maxConcurrentRetries gets a share of the gateway thread pool,
+      see MAX_CONCURRENT_RETRIES_POOL_DIVISOR, or this many if the pool is not known */
+   public static final int DEFAULT_MAX_CONCURRENT_RETRIES = 16;
+
+   /* a service may park at most this fraction of the gateway threads waiting to retry */
+   public static final int MAX_CONCURRENT_RETRIES_POOL_DIVISOR = 8;
+
    public static final boolean DEFAULT_ENABLED = true;
 
+   /* health checking is off unless an interval is configured */
+   public static final int DEFAULT_HEALTH_CHECK_INTERVAL = 0;
+
+   public static final int DEFAULT_HEALTH_CHECK_TIMEOUT = 2000;
+
+   public static final String DEFAULT_HEALTH_CHECK_PATH = "";
+
+   public static final String DEFAULT_SELECTION_POLICY = "active-standby";
+
 }
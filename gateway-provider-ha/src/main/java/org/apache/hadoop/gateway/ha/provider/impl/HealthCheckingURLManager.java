@@ -0,0 +1,442 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import org.apache.hadoop.gateway.ha.provider.HaServiceConfig;
+import org.apache.hadoop.gateway.ha.provider.MonitoredURLManager;
+import org.apache.hadoop.gateway.ha.provider.impl.i18n.HaMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * URL manager that probes every configured URL in the background and selects among the healthy ones
+ * according to a {@link SelectionPolicy}. It is used for any HA service configured with a positive
+ * {@code healthCheckInterval}, e.g.
+ * <pre>
+ * WEBHDFS=enabled=true;healthCheckInterval=5000;healthCheckPath=/v1/?op=GETFILESTATUS;selectionPolicy=active-standby
+ * </pre>
+ * The health check path is appended to each service URL and a backend is healthy when it answers with a
+ * 2xx or 3xx status and, if {@code healthCheckContent} is configured, a body containing that text.
+ * Failures reported by the dispatch take a backend out of rotation immediately; only a successful probe
+ * brings it back, so requests never have to discover a dead backend themselves.
+ */
+public class HealthCheckingURLManager implements MonitoredURLManager {
+
+  private static final HaMessages LOG = MessagesFactory.get(HaMessages.class);
+
+  private static final double EWMA_WEIGHT = 0.3;
+
+  private static final double MAX_ERROR_RATE = 0.9;
+
+  private static final int MAX_CONTENT_LENGTH = 64 * 1024;
+
+  private volatile Backend[] backends = new Backend[0];
+
+  private volatile int preferred;
+
+  private final AtomicInteger next = new AtomicInteger();
+
+  private String serviceName;
+
+  private SelectionPolicy policy = SelectionPolicy.ACTIVE_STANDBY;
+
+  private int interval;
+
+  private int timeout = HaServiceConfigConstants.DEFAULT_HEALTH_CHECK_TIMEOUT;
+
+  private String path = HaServiceConfigConstants.DEFAULT_HEALTH_CHECK_PATH;
+
+  private String content;
+
+  private ScheduledFuture<?> probe;
+
+  private ScheduledExecutorService scheduler;
+
+  private boolean ownsScheduler;
+
+  public HealthCheckingURLManager() {
+  }
+
+  HealthCheckingURLManager(ScheduledExecutorService scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Runs the probes on the threads of the HA provider, which shuts them down with the topology.
+   * A manager that is not given one probes on a thread of its own until it is stopped.
+   */
+  synchronized void setScheduler(ScheduledExecutorService scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  public boolean supportsConfig(HaServiceConfig config) {
+    return config.getHealthCheckInterval() > 0;
+  }
+
+  @Override
+  public void setConfig(HaServiceConfig config) {
+    serviceName = config.getServiceName();
+    policy = SelectionPolicy.fromName(config.getSelectionPolicy());
+    interval = config.getHealthCheckInterval();
+    timeout = config.getHealthCheckTimeout();
+    path = config.getHealthCheckPath() == null ? "" : config.getHealthCheckPath();
+    content = config.getHealthCheckContent();
+  }
+
+  @Override
+  public String getActiveURL() {
+    Backend[] current = backends;
+    if (current.length == 0) {
+      return null;
+    }
+    Backend selected = select(current);
+    return selected.url;
+  }
+
+  @Override
+  public List<String> getURLs() {
+    Backend[] current = backends;
+    List<String> urls = new ArrayList<>(current.length);
+    for (Backend backend : current) {
+      urls.add(backend.url);
+    }
+    return urls;
+  }
+
+  @Override
+  public synchronized void setURLs(List<String> urls) {
+    if (urls == null || urls.isEmpty()) {
+      return;
+    }
+    Backend[] previous = backends;
+    Backend[] updated = new Backend[urls.size()];
+    for (int i = 0; i < updated.length; i++) {
+      String url = urls.get(i);
+      updated[i] = new Backend(url);
+      for (Backend backend : previous) {
+        if (backend.url.equals(url)) {
+          updated[i] = backend;
+        }
+      }
+    }
+    // keep the active backend if it remains, an update of the URLs is not a failure
+    int active = indexOf(updated, previous.length == 0 ? null : previous[preferred % previous.length]);
+    backends = updated;
+    preferred = Math.max(active, 0);
+    if (probe == null && interval > 0) {
+      if (scheduler == null) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ProbeThreadFactory(serviceName));
+        ownsScheduler = true;
+      }
+      probe = scheduler.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          checkHealth();
+        }
+      }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public synchronized void markFailed(String url) {
+    Backend[] current = backends;
+    Backend failed = find(current, url);
+    if (failed == null) {
+      return;
+    }
+    failed.recordOutcome(true);
+    setHealthy(failed, false);
+    if (current[preferred % current.length] == failed) {
+      preferred = (preferred + 1) % current.length;
+      LOG.markedFailedUrl(failed.url, getActiveURL());
+    }
+  }
+
+  @Override
+  public void requestStarted(String url) {
+    Backend backend = find(backends, url);
+    if (backend != null) {
+      backend.outstanding.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void requestCompleted(String url, long elapsedMillis, boolean failed) {
+    Backend backend = find(backends, url);
+    if (backend != null) {
+      backend.outstanding.decrementAndGet();
+      backend.recordOutcome(failed);
+      if (!failed) {
+        backend.recordLatency(elapsedMillis);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (probe != null) {
+      probe.cancel(false);
+      probe = null;
+    }
+    if (ownsScheduler) {
+      scheduler.shutdownNow();
+      scheduler = null;
+      ownsScheduler = false;
+    }
+  }
+
+  /**
+   * Probes every backend once. Runs on the health check threads, never on a request thread.
+   */
+  void checkHealth() {
+    for (Backend backend : backends) {
+      long start = System.nanoTime();
+      boolean healthy = probe(backend.url + path);
+      if (healthy) {
+        backend.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      }
+      setHealthy(backend, healthy);
+    }
+  }
+
+  boolean isHealthy(String url) {
+    Backend backend = find(backends, url);
+    return backend != null && backend.healthy;
+  }
+
+  double getLatency(String url) {
+    Backend backend = find(backends, url);
+    return backend == null ? -1 : backend.latency;
+  }
+
+  double getErrorRate(String url) {
+    Backend backend = find(backends, url);
+    return backend == null ? -1 : backend.errorRate;
+  }
+
+  private boolean probe(String target) {
+    HttpURLConnection connection = null;
+    try {
+      connection = (HttpURLConnection) new URL(target).openConnection();
+      connection.setConnectTimeout(timeout);
+      connection.setReadTimeout(timeout);
+      connection.setUseCaches(false);
+      connection.setInstanceFollowRedirects(false);
+      int status = connection.getResponseCode();
+      boolean healthy = status >= 200 && status < 400;
+      InputStream stream = healthy ? connection.getInputStream() : connection.getErrorStream();
+      if (stream != null) {
+        try {
+          if (healthy && content != null) {
+            healthy = contains(stream, content);
+          }
+        } finally {
+          stream.close();
+        }
+      }
+      return healthy;
+    } catch (IOException e) {
+      LOG.healthCheckFailed(serviceName, target, e);
+      return false;
+    } finally {
+      if (connection != null) {
+        connection.disconnect();
+      }
+    }
+  }
+
+  private static boolean contains(InputStream stream, String expected) throws IOException {
+    byte[] buffer = new byte[MAX_CONTENT_LENGTH];
+    int length = 0;
+    int read;
+    while (length < buffer.length && (read = stream.read(buffer, length, buffer.length - length)) != -1) {
+      length += read;
+    }
+    return new String(buffer, 0, length, StandardCharsets.UTF_8).contains(expected);
+  }
+
+  private void setHealthy(Backend backend, boolean healthy) {
+    if (backend.healthy != healthy) {
+      backend.healthy = healthy;
+      LOG.backendHealthChanged(serviceName, backend.url, healthy);
+    }
+  }
+
+  private Backend select(Backend[] current) {
+    int start = preferred % current.length;
+    Backend selected = null;
+    switch (policy) {
+      case ROUND_ROBIN:
+        start = (next.getAndIncrement() & Integer.MAX_VALUE) % current.length;
+        selected = firstHealthy(current, start);
+        break;
+      case LEAST_OUTSTANDING:
+        for (int i = 0; i < current.length; i++) {
+          Backend candidate = current[(start + i) % current.length];
+          if (candidate.healthy && (selected == null || candidate.outstanding.get() < selected.outstanding.get())) {
+            selected = candidate;
+          }
+        }
+        break;
+      case EWMA_LATENCY:
+        for (int i = 0; i < current.length; i++) {
+          Backend candidate = current[(start + i) % current.length];
+          if (candidate.healthy && (selected == null || candidate.score() < selected.score())) {
+            selected = candidate;
+          }
+        }
+        break;
+      default:
+        selected = firstHealthy(current, start);
+        // the backend that took over stays active until it fails itself, the recovered one becomes its standby
+        if (selected != null && selected != current[start]) {
+          preferred = indexOf(current, selected);
+        }
+    }
+    // nothing is known to be healthy, stay with the preferred backend rather than fail outright
+    return selected == null ? current[start] : selected;
+  }
+
+  private static int indexOf(Backend[] current, Backend backend) {
+    if (backend != null) {
+      for (int i = 0; i < current.length; i++) {
+        if (current[i].url.equals(backend.url)) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static Backend firstHealthy(Backend[] current, int start) {
+    for (int i = 0; i < current.length; i++) {
+      Backend candidate = current[(start + i) % current.length];
+      if (candidate.healthy) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /*
+   * Finds the backend a dispatched URL was sent to: the one with the same scheme, host and port whose
+   * path is the longest one the URL's path starts with, on a path segment boundary.
+   */
+  private static Backend find(Backend[] current, String url) {
+    if (url == null) {
+      return null;
+    }
+    URI incoming;
+    try {
+      incoming = new URI(url);
+    } catch (URISyntaxException e) {
+      return null;
+    }
+    String origin = origin(incoming);
+    String path = path(incoming);
+    Backend found = null;
+    for (Backend backend : current) {
+      if (backend.origin.equals(origin) && isPathPrefix(backend.path, path)
+          && (found == null || backend.path.length() > found.path.length())) {
+        found = backend;
+      }
+    }
+    return found;
+  }
+
+  private static boolean isPathPrefix(String prefix, String path) {
+    return prefix.isEmpty() || path.equals(prefix) || (path.startsWith(prefix) && path.charAt(prefix.length()) == '/');
+  }
+
+  private static String origin(URI uri) {
+    String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+    String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+    int port = uri.getPort();
+    if (port < 0) {
+      port = "https".equals(scheme) ? 443 : 80;
+    }
+    return scheme + "://" + host + ":" + port;
+  }
+
+  private static String path(URI uri) {
+    String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+    return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+  }
+
+  private static class ProbeThreadFactory implements ThreadFactory {
+    private final String serviceName;
+
+    ProbeThreadFactory(String serviceName) {
+      this.serviceName = serviceName;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "ha-health-check-" + serviceName);
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+  private static class Backend {
+    final String url;
+    final String origin;
+    final String path;
+    final AtomicInteger outstanding = new AtomicInteger();
+    volatile boolean healthy = true;
+    volatile double latency;
+    volatile double errorRate;
+
+    Backend(String url) {
+      this.url = url;
+      URI uri = URI.create(url);
+      this.origin = origin(uri);
+      this.path = path(uri);
+    }
+
+    synchronized void recordLatency(long millis) {
+      latency = latency == 0 ? millis : EWMA_WEIGHT * millis + (1 - EWMA_WEIGHT) * latency;
+    }
+
+    synchronized void recordOutcome(boolean failed) {
+      errorRate = EWMA_WEIGHT * (failed ? 1 : 0) + (1 - EWMA_WEIGHT) * errorRate;
+    }
+
+    double score() {
+      return latency / (1 - Math.min(errorRate, MAX_ERROR_RATE));
+    }
+  }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+/**
+ * Strategies for picking a backend among the ones currently considered healthy.
+ */
+public enum SelectionPolicy {
+
+  /** Stay on the preferred backend until it fails, then move to the next healthy one. */
+  ACTIVE_STANDBY("active-standby"),
+
+  /** Spread requests evenly across healthy backends. */
+  ROUND_ROBIN("round-robin"),
+
+  /** Pick the healthy backend with the fewest requests in flight. */
+  LEAST_OUTSTANDING("least-outstanding"),
+
+  /** Pick the healthy backend with the lowest exponentially weighted moving average latency. */
+  EWMA_LATENCY("ewma-latency");
+
+  private final String name;
+
+  SelectionPolicy(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public static SelectionPolicy fromName(String name) {
+    if (name != null) {
+      for (SelectionPolicy policy : values()) {
+        if (policy.name.equalsIgnoreCase(name.trim())) {
+          return policy;
+        }
+      }
+    }
+    return ACTIVE_STANDBY;
+  }
+
+}
@@ -42,4 +42,10 @@ public interface HaMessages {
   @Message(level = MessageLevel.ERROR, text = "Failed to get Zookeeper URLs : {0}")
   void failedToGetZookeeperUrls(Exception e);
 
+  @Message(level = MessageLevel.DEBUG, text = "Health check of {0} at {1} failed: {2}")
+  void healthCheckFailed(String serviceName, String url, Exception e);
+
+  @Message(level = MessageLevel.INFO, text = "Backend {1} of service {0} is now healthy: {2}")
+  void backendHealthChanged(String serviceName, String url, boolean healthy);
+
 }
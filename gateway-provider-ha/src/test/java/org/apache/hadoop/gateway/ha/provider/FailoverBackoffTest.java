@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider;
+
+import org.apache.hadoop.gateway.ha.provider.impl.HaServiceConfigConstants;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class FailoverBackoffTest {
+
+  @Test
+  public void testDelayGrowsUpToSleep() {
+    for ( int i = 0; i < 100; i++ ) {
+      assertThat( FailoverBackoff.delay( 100, 1 ), greaterThanOrEqualTo( 12L ) );
+      assertThat( FailoverBackoff.delay( 100, 1 ), lessThanOrEqualTo( 25L ) );
+      assertThat( FailoverBackoff.delay( 100, 2 ), greaterThanOrEqualTo( 25L ) );
+      assertThat( FailoverBackoff.delay( 100, 2 ), lessThanOrEqualTo( 50L ) );
+      assertThat( FailoverBackoff.delay( 100, 3 ), greaterThanOrEqualTo( 50L ) );
+      assertThat( FailoverBackoff.delay( 100, 3 ), lessThanOrEqualTo( 100L ) );
+      assertThat( FailoverBackoff.delay( 100, 10 ), greaterThanOrEqualTo( 50L ) );
+      assertThat( FailoverBackoff.delay( 100, 10 ), lessThanOrEqualTo( 100L ) );
+    }
+    assertThat( FailoverBackoff.delay( 0, 1 ), is( 0L ) );
+  }
+
+  @Test( timeout = 10000 )
+  public void testBudgetExhausted() throws Exception {
+    final FailoverBackoff backoff = new FailoverBackoff( 1 );
+    final CountDownLatch started = new CountDownLatch( 1 );
+    Thread waiter = new Thread() {
+      @Override
+      public void run() {
+        try {
+          started.countDown();
+          backoff.await( 2000, 3 );
+        } catch ( InterruptedException e ) {
+          // expected
+        }
+      }
+    };
+    waiter.start();
+    started.await( 5, TimeUnit.SECONDS );
+    // give the waiter time to take the only permit
+    Thread.sleep( 200 );
+    assertThat( backoff.await( 10, 1 ), is( false ) );
+    waiter.interrupt();
+    waiter.join();
+    assertThat( backoff.await( 10, 1 ), is( true ) );
+  }
+
+  @Test
+  public void testDefaultBudgetIsFinite() throws Exception {
+    FailoverBackoff backoff = new FailoverBackoff( 0 );
+    assertThat( backoff.getMaxConcurrentRetries(), is( HaServiceConfigConstants.DEFAULT_MAX_CONCURRENT_RETRIES ) );
+    assertThat( backoff.await( 0, 1 ), is( true ) );
+  }
+
+}
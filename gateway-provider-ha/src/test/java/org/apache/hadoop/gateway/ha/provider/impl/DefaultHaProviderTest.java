@@ -22,6 +22,7 @@ import org.apache.hadoop.gateway.ha.provider.HaProvider;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.isIn;
@@ -74,4 +75,15 @@ public class DefaultHaProviderTest {
       provider.markFailedURL(serviceName, url2);
       assertEquals(url1, provider.getActiveURL(serviceName));
    }
+
+   @Test
+   public void testUpdatingService() {
+      HaDescriptor descriptor = new DefaultHaDescriptor();
+      HaProvider provider = new DefaultHaProvider(descriptor);
+      String serviceName = "foo";
+      provider.updateHaService(serviceName, Arrays.asList("http://host1", "http://host2"));
+      assertEquals("http://host1", provider.getActiveURL(serviceName));
+      provider.updateHaService(serviceName, Arrays.asList("http://host3"));
+      assertEquals("http://host3", provider.getActiveURL(serviceName));
+   }
 }
@@ -50,4 +50,19 @@ public class HaDescriptorFactoryTest {
       assertEquals(3000, serviceConfig.getRetrySleep());
 
    }
+
+   @Test
+   public void testCreateServiceConfigWithHealthCheck() {
+      HaServiceConfig serviceConfig = HaDescriptorFactory.createServiceConfig("NAMENODE",
+          "enabled=true;healthCheckInterval=5000;healthCheckTimeout=500;" +
+          "healthCheckPath=/jmx?qry=Hadoop:service=NameNode,name=NameNodeStatus;selectionPolicy=ewma-latency");
+      assertEquals(5000, serviceConfig.getHealthCheckInterval());
+      assertEquals(500, serviceConfig.getHealthCheckTimeout());
+      assertEquals("/jmx?qry=Hadoop:service=NameNode,name=NameNodeStatus", serviceConfig.getHealthCheckPath());
+      assertEquals("ewma-latency", serviceConfig.getSelectionPolicy());
+
+      serviceConfig = HaDescriptorFactory.createServiceConfig("foo", "enabled=true");
+      assertEquals(HaServiceConfigConstants.DEFAULT_HEALTH_CHECK_INTERVAL, serviceConfig.getHealthCheckInterval());
+      assertEquals(HaServiceConfigConstants.DEFAULT_SELECTION_POLICY, serviceConfig.getSelectionPolicy());
+   }
 }
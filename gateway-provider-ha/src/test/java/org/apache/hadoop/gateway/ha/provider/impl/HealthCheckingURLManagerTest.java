@@ -0,0 +1,252 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import org.apache.hadoop.gateway.ha.provider.URLManager;
+import org.apache.hadoop.gateway.ha.provider.URLManagerLoader;
+import org.apache.hadoop.test.mock.MockServer;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HealthCheckingURLManagerTest {
+
+  private MockServer healthy;
+  private MockServer broken;
+  private String healthyUrl;
+  private String brokenUrl;
+
+  @Before
+  public void setUp() throws Exception {
+    healthy = new MockServer("HEALTHY", true);
+    broken = new MockServer("BROKEN", true);
+    healthyUrl = "http://localhost:" + healthy.getPort() + "/webhdfs";
+    brokenUrl = "http://localhost:" + broken.getPort() + "/webhdfs";
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    healthy.stop();
+    broken.stop();
+  }
+
+  @Test
+  public void testLoadedWhenHealthCheckConfigured() {
+    URLManager manager = URLManagerLoader.loadURLManager(
+        HaDescriptorFactory.createServiceConfig("WEBHDFS", "enabled=true;healthCheckInterval=5000"));
+    try {
+      assertTrue(manager instanceof HealthCheckingURLManager);
+    } finally {
+      ((HealthCheckingURLManager) manager).stop();
+    }
+    manager = URLManagerLoader.loadURLManager(HaDescriptorFactory.createServiceConfig("WEBHDFS", "enabled=true"));
+    assertTrue(manager instanceof DefaultURLManager);
+  }
+
+  @Test
+  public void testActiveStandbySkipsUnhealthyBackend() throws Exception {
+    respondOk(healthy, 5);
+    HealthCheckingURLManager manager = createManager("active-standby", brokenUrl, healthyUrl);
+    try {
+      manager.checkHealth();
+      assertFalse(manager.isHealthy(brokenUrl));
+      assertTrue(manager.isHealthy(healthyUrl));
+      assertEquals(healthyUrl, manager.getActiveURL());
+      assertEquals(healthyUrl, manager.getActiveURL());
+    } finally {
+      manager.stop();
+    }
+  }
+
+  @Test
+  public void testFailedBackendReturnsAfterSuccessfulProbe() throws Exception {
+    respondOk(healthy, 5);
+    respondOk(broken, 5);
+    HealthCheckingURLManager manager = createManager("active-standby", healthyUrl, brokenUrl);
+    try {
+      assertEquals(healthyUrl, manager.getActiveURL());
+      manager.markFailed(healthyUrl + "/v1/tmp?op=LISTSTATUS");
+      assertFalse(manager.isHealthy(healthyUrl));
+      assertEquals(brokenUrl, manager.getActiveURL());
+      manager.checkHealth();
+      assertTrue(manager.isHealthy(healthyUrl));
+      // the backend that took over stays active until it fails itself
+      assertEquals(brokenUrl, manager.getActiveURL());
+    } finally {
+      manager.stop();
+    }
+  }
+
+  @Test
+  public void testRecoveredBackendDoesNotTakeOver() throws Exception {
+    respondOk(healthy, 5);
+    HealthCheckingURLManager manager = createManager("active-standby", brokenUrl, healthyUrl);
+    try {
+      manager.checkHealth();
+      assertEquals(healthyUrl, manager.getActiveURL());
+      respondOk(broken, 5);
+      manager.checkHealth();
+      assertTrue(manager.isHealthy(brokenUrl));
+      assertEquals(healthyUrl, manager.getActiveURL());
+      // nor does an update of the URLs move the active backend
+      manager.setURLs(Arrays.asList(brokenUrl, healthyUrl));
+      assertEquals(healthyUrl, manager.getActiveURL());
+    } finally {
+      manager.stop();
+    }
+  }
+
+  @Test
+  public void testUrlsAreMatchedExactly() throws Exception {
+    HealthCheckingURLManager manager = createManager("least-outstanding", "http://host:5007", "http://HOST:50070/");
+    try {
+      manager.requestStarted("http://host:50070/webhdfs/v1/tmp");
+      assertEquals("http://host:5007", manager.getActiveURL());
+      manager.requestStarted("http://host:5007/webhdfs/v1/tmp");
+      manager.requestStarted("http://host:5007");
+      assertEquals("http://HOST:50070/", manager.getActiveURL());
+      manager.markFailed("http://host:500/webhdfs");
+      assertTrue(manager.isHealthy("http://host:5007"));
+      assertTrue(manager.isHealthy("http://host:50070"));
+    } finally {
+      manager.stop();
+    }
+  }
+
+  @Test
+  public void testStoppedBackendIsUnhealthy() throws Exception {
+    respondOk(healthy, 5);
+    broken.stop();
+    HealthCheckingURLManager manager = createManager("round-robin", brokenUrl, healthyUrl);
+    try {
+      manager.checkHealth();
+      for (int i = 0; i < 4; i++) {
+        assertEquals(healthyUrl, manager.getActiveURL());
+      }
+    } finally {
+      manager.stop();
+      broken.start();
+    }
+  }
+
+  @Test
+  public void testRoundRobin() throws Exception {
+    HealthCheckingURLManager manager = createManager("round-robin", healthyUrl, brokenUrl);
+    try {
+      String first = manager.getActiveURL();
+      String second = manager.getActiveURL();
+      assertFalse(first.equals(second));
+      assertEquals(first, manager.getActiveURL());
+    } finally {
+      manager.stop();
+    }
+  }
+
+  @Test
+  public void testLeastOutstanding() throws Exception {
+    HealthCheckingURLManager manager = createManager("least-outstanding", healthyUrl, brokenUrl);
+    try {
+      manager.requestStarted(healthyUrl + "/v1/a");
+      assertEquals(brokenUrl, manager.getActiveURL());
+      manager.requestStarted(brokenUrl + "/v1/b");
+      manager.requestStarted(brokenUrl + "/v1/c");
+      assertEquals(healthyUrl, manager.getActiveURL());
+      manager.requestCompleted(brokenUrl + "/v1/b", 5, false);
+      manager.requestCompleted(brokenUrl + "/v1/c", 5, false);
+      assertEquals(brokenUrl, manager.getActiveURL());
+    } finally {
+      manager.stop();
+    }
+  }
+
+  @Test
+  public void testEwmaLatency() throws Exception {
+    HealthCheckingURLManager manager = createManager("ewma-latency", healthyUrl, brokenUrl);
+    try {
+      manager.requestStarted(healthyUrl);
+      manager.requestCompleted(healthyUrl, 100, false);
+      manager.requestStarted(brokenUrl);
+      manager.requestCompleted(brokenUrl, 20, false);
+      assertEquals(brokenUrl, manager.getActiveURL());
+      assertTrue(manager.getLatency(healthyUrl) > manager.getLatency(brokenUrl));
+      for (int i = 0; i < 5; i++) {
+        manager.requestStarted(brokenUrl);
+        manager.requestCompleted(brokenUrl, 20, true);
+      }
+      assertTrue(manager.getErrorRate(brokenUrl) > 0.5);
+      assertEquals(healthyUrl, manager.getActiveURL());
+    } finally {
+      manager.stop();
+    }
+  }
+
+  @Test
+  public void testHealthCheckContent() throws Exception {
+    healthy.expect().pathInfo("/jmx").respond().status(200)
+        .content("{\"State\" : \"active\"}", StandardCharsets.UTF_8);
+    broken.expect().pathInfo("/jmx").respond().status(200)
+        .content("{\"State\" : \"standby\"}", StandardCharsets.UTF_8);
+    DefaultHaServiceConfig config = new DefaultHaServiceConfig("NAMENODE");
+    config.setHealthCheckInterval(Integer.MAX_VALUE);
+    config.setHealthCheckPath("/jmx");
+    config.setHealthCheckContent("\"State\" : \"active\"");
+    HealthCheckingURLManager manager = new HealthCheckingURLManager(scheduler());
+    manager.setConfig(config);
+    manager.setURLs(Arrays.asList("http://localhost:" + broken.getPort(), "http://localhost:" + healthy.getPort()));
+    try {
+      manager.checkHealth();
+      assertEquals("http://localhost:" + healthy.getPort(), manager.getActiveURL());
+    } finally {
+      manager.stop();
+    }
+  }
+
+  private static void respondOk(MockServer server, int count) {
+    for (int i = 0; i < count; i++) {
+      server.expect().respond().status(200);
+    }
+  }
+
+  private static HealthCheckingURLManager createManager(String policy, String... urls) {
+    DefaultHaServiceConfig config = new DefaultHaServiceConfig("WEBHDFS");
+    config.setHealthCheckInterval(Integer.MAX_VALUE);
+    config.setHealthCheckTimeout(1000);
+    config.setSelectionPolicy(policy);
+    HealthCheckingURLManager manager = new HealthCheckingURLManager(scheduler());
+    manager.setConfig(config);
+    manager.setURLs(Arrays.asList(urls));
+    return manager;
+  }
+
+  /* probes are run explicitly by the tests */
+  private static ScheduledExecutorService scheduler() {
+    ScheduledExecutorService scheduler = EasyMock.createNiceMock(ScheduledExecutorService.class);
+    EasyMock.replay(scheduler);
+    return scheduler;
+  }
+
+}
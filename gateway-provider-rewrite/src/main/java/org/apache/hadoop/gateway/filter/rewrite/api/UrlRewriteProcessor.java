@@ -22,6 +22,7 @@ import org.apache.hadoop.gateway.filter.rewrite.i18n.UrlRewriteMessages;
 import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteContextImpl;
 import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteFunctionProcessorFactory;
 import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteRuleProcessorHolder;
+import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteRuleProcessorRegistry;
 import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteStepProcessorHolder;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
@@ -31,10 +32,13 @@ import org.apache.hadoop.gateway.util.urltemplate.Matcher;
 import org.apache.hadoop.gateway.util.urltemplate.Resolver;
 import org.apache.hadoop.gateway.util.urltemplate.Template;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter.Direction.IN;
 import static org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter.Direction.OUT;
@@ -49,6 +53,8 @@ public class UrlRewriteProcessor implements UrlRewriter {
   ScopedMatcher inbound = new ScopedMatcher();
   ScopedMatcher outbound = new ScopedMatcher();
   Map<String,UrlRewriteFunctionProcessor> functions = new HashMap<String,UrlRewriteFunctionProcessor>();
+  List<String> sharedRuleKeys = new ArrayList<String>();
+  Set<UrlRewriteRuleProcessorHolder> sharedRules = new HashSet<UrlRewriteRuleProcessorHolder>();
 
   public UrlRewriteProcessor() {
   }
@@ -83,8 +89,16 @@ public class UrlRewriteProcessor implements UrlRewriter {
   private void initializeRules( UrlRewriteRulesDescriptor descriptor ) {
     for( UrlRewriteRuleDescriptor ruleDescriptor : descriptor.getRules() ) {
       try {
-        UrlRewriteRuleProcessorHolder ruleProcessor = new UrlRewriteRuleProcessorHolder();
-        ruleProcessor.initialize( environment, ruleDescriptor );
+        UrlRewriteRuleProcessorHolder ruleProcessor;
+        String key = UrlRewriteRuleProcessorRegistry.getKey( environment, ruleDescriptor );
+        if( key != null ) {
+          ruleProcessor = UrlRewriteRuleProcessorRegistry.acquire( key, environment, ruleDescriptor );
+          sharedRuleKeys.add( key );
+          sharedRules.add( ruleProcessor );
+        } else {
+          ruleProcessor = new UrlRewriteRuleProcessorHolder();
+          ruleProcessor.initialize( environment, ruleDescriptor );
+        }
         if( !rules.containsKey( ruleDescriptor.name() ) ) {
           rules.put( ruleDescriptor.name(), ruleProcessor );
         }
@@ -108,12 +122,24 @@ public class UrlRewriteProcessor implements UrlRewriter {
 
   public void destroy() {
     for( UrlRewriteStepProcessorHolder rule : rules.values() ) {
+      // Shared rules are destroyed by the registry once no processor uses them.
+      if( sharedRules.contains( rule ) ) {
+        continue;
+      }
       try {
         rule.destroy();
       } catch ( Exception e ) {
         LOG.failedToDestroyRewriteStepProcessor( e );
       }
     }
+    for( String key : sharedRuleKeys ) {
+      try {
+        UrlRewriteRuleProcessorRegistry.release( key );
+      } catch ( Exception e ) {
+        LOG.failedToDestroyRewriteStepProcessor( e );
+      }
+    }
+    sharedRuleKeys.clear();
     for( UrlRewriteFunctionProcessor function : functions.values() ) {
       try {
         function.destroy();
@@ -38,18 +38,22 @@ public class UrlRewriteServletContextListener implements ServletContextListener
   public static final String DESCRIPTOR_LOCATION_INIT_PARAM_NAME = "rewriteDescriptorLocation";
   public static final String DESCRIPTOR_DEFAULT_FILE_NAME = "rewrite.xml";
   public static final String DESCRIPTOR_DEFAULT_LOCATION = "/WEB-INF/" + DESCRIPTOR_DEFAULT_FILE_NAME;
+  public static final String DESCRIPTOR_ATTRIBUTE_NAME = UrlRewriteRulesDescriptor.class.getName();
   private static final UrlRewriteMessages LOG = MessagesFactory.get( UrlRewriteMessages.class );
 
   @Override
   public void contextInitialized( ServletContextEvent event ) {
-    UrlRewriteRulesDescriptor descriptor = null;
-    try {
-      URL url = locateDescriptor( event.getServletContext() );
-      descriptor = loadDescriptor( url );
-    } catch( IOException e ) {
-      throw new IllegalStateException( e );
-    }
     ServletContext context = event.getServletContext();
+    // A deployment activated from memory provides the descriptor itself.
+    UrlRewriteRulesDescriptor descriptor = (UrlRewriteRulesDescriptor)context.getAttribute( DESCRIPTOR_ATTRIBUTE_NAME );
+    if( descriptor == null ) {
+      try {
+        URL url = locateDescriptor( context );
+        descriptor = loadDescriptor( url );
+      } catch( IOException e ) {
+        throw new IllegalStateException( e );
+      }
+    }
     UrlRewriteEnvironment environment = new UrlRewriteServletEnvironment( context );
     UrlRewriteProcessor processor = new UrlRewriteProcessor();
     processor.initialize( environment, descriptor );
@@ -33,6 +33,11 @@ public class UrlRewriteRuleProcessorHolder extends UrlRewriteStepProcessorHolder
   public void initialize( UrlRewriteEnvironment environment, UrlRewriteRuleDescriptor descriptor ) throws Exception {
     super.initialize( environment, descriptor );
     ruleName = descriptor.name();
+    scope = resolveScope( environment, descriptor );
+  }
+
+  static String resolveScope( UrlRewriteEnvironment environment, UrlRewriteRuleDescriptor descriptor ) {
+    String scope = null;
     //if a scope is set in the rewrite file, use that
     if (descriptor.scope() != null) {
       scope = descriptor.scope();
@@ -40,7 +45,8 @@ public class UrlRewriteRuleProcessorHolder extends UrlRewriteStepProcessorHolder
       //by convention the name of the rules start with ROLENAME/servicename/direction
       //use the first part of the name to determine the scope, therefore setting the scope of a rule to
       //be local to that service
-      int slashIndex = ruleName.indexOf('/');
+      String ruleName = descriptor.name();
+      int slashIndex = ruleName == null ? -1 : ruleName.indexOf('/');
       if (slashIndex > 0) {
         scope = ruleName.substring( 0, slashIndex );
       }
@@ -53,6 +59,7 @@ public class UrlRewriteRuleProcessorHolder extends UrlRewriteStepProcessorHolder
         }
       }
     }
+    return scope;
   }
 
   public String getRuleName() {
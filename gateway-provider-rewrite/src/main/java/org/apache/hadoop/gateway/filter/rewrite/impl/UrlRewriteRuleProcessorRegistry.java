@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter.rewrite.impl;
+
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteEnvironment;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteFlowDescriptor;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRuleDescriptor;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteStepDescriptor;
+import org.apache.hadoop.gateway.filter.rewrite.ext.UrlRewriteActionRewriteDescriptorExt;
+import org.apache.hadoop.gateway.filter.rewrite.ext.UrlRewriteCheckDescriptorExt;
+import org.apache.hadoop.gateway.filter.rewrite.ext.UrlRewriteControlDescriptorExt;
+import org.apache.hadoop.gateway.filter.rewrite.ext.UrlRewriteMatchDescriptorExt;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shares compiled rules between the rewrite processors of all deployed topologies.
+ * Topologies exposing the same service definitions carry identical copies of its rules,
+ * so each distinct rule is compiled once and reference counted by the processors using it.
+ * Only rules made of the built-in steps are shared since they do not depend on the topology.
+ * Rules with other steps, which may bind to topology specific services such as the
+ * encryption keys of the cluster, and all functions are still compiled per topology.
+ */
+public class UrlRewriteRuleProcessorRegistry {
+
+  private static final Map<String,Entry> RULES = new HashMap<String,Entry>();
+
+  private static class Entry {
+    private final UrlRewriteRuleProcessorHolder holder;
+    private int references;
+
+    private Entry( UrlRewriteRuleProcessorHolder holder ) {
+      this.holder = holder;
+    }
+  }
+
+  private UrlRewriteRuleProcessorRegistry() {
+  }
+
+  /**
+   * Returns the key identifying the compiled form of a rule or null if the rule can not be shared.
+   */
+  public static String getKey( UrlRewriteEnvironment environment, UrlRewriteRuleDescriptor descriptor ) {
+    StringBuilder key = new StringBuilder();
+    append( key, UrlRewriteRuleProcessorHolder.resolveScope( environment, descriptor ) );
+    append( key, descriptor.name() );
+    append( key, descriptor.pattern() );
+    append( key, descriptor.directions() == null ? null : descriptor.directions().toString() );
+    if( !appendFlow( key, descriptor ) ) {
+      return null;
+    }
+    return key.toString();
+  }
+
+  public static synchronized UrlRewriteRuleProcessorHolder acquire(
+      String key, UrlRewriteEnvironment environment, UrlRewriteRuleDescriptor descriptor ) throws Exception {
+    Entry entry = RULES.get( key );
+    if( entry == null ) {
+      UrlRewriteRuleProcessorHolder holder = new UrlRewriteRuleProcessorHolder();
+      holder.initialize( environment, descriptor );
+      entry = new Entry( holder );
+      RULES.put( key, entry );
+    }
+    entry.references++;
+    return entry.holder;
+  }
+
+  public static synchronized void release( String key ) throws Exception {
+    Entry entry = RULES.get( key );
+    if( entry != null && --entry.references <= 0 ) {
+      RULES.remove( key );
+      entry.holder.destroy();
+    }
+  }
+
+  // For unit testing.
+  static synchronized int size() {
+    return RULES.size();
+  }
+
+  private static boolean appendFlow( StringBuilder key, UrlRewriteFlowDescriptor<?> flow ) {
+    append( key, flow.flow() == null ? null : flow.flow().name() );
+    key.append( '[' );
+    for( UrlRewriteStepDescriptor step : flow.steps() ) {
+      if( !appendStep( key, step ) ) {
+        return false;
+      }
+    }
+    key.append( ']' );
+    return true;
+  }
+
+  private static boolean appendStep( StringBuilder key, UrlRewriteStepDescriptor step ) {
+    Class<?> type = step.getClass();
+    append( key, step.type() );
+    if( type == UrlRewriteActionRewriteDescriptorExt.class ) {
+      UrlRewriteActionRewriteDescriptorExt action = (UrlRewriteActionRewriteDescriptorExt)step;
+      append( key, action.operation() );
+      append( key, action.parameter() );
+      return true;
+    } else if( type == UrlRewriteMatchDescriptorExt.class ) {
+      UrlRewriteMatchDescriptorExt match = (UrlRewriteMatchDescriptorExt)step;
+      append( key, match.operation() );
+      append( key, match.pattern() );
+      return appendFlow( key, match );
+    } else if( type == UrlRewriteCheckDescriptorExt.class ) {
+      UrlRewriteCheckDescriptorExt check = (UrlRewriteCheckDescriptorExt)step;
+      append( key, check.operation() );
+      append( key, check.input() );
+      append( key, check.value() );
+      return appendFlow( key, check );
+    } else if( type == UrlRewriteControlDescriptorExt.class ) {
+      return appendFlow( key, (UrlRewriteControlDescriptorExt)step );
+    }
+    return false;
+  }
+
+  // Length prefixed so that values can not run into each other.
+  private static void append( StringBuilder key, String value ) {
+    if( value == null ) {
+      key.append( '-' );
+    } else {
+      key.append( value.length() ).append( ':' ).append( value );
+    }
+  }
+
+}
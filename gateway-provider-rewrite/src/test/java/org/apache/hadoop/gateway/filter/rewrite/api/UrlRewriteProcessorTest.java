@@ -18,6 +18,8 @@
 package org.apache.hadoop.gateway.filter.rewrite.api;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
@@ -89,6 +91,37 @@ public class UrlRewriteProcessorTest {
     processor.destroy();
   }
 
+  @Test
+  public void testRulesAreSharedBetweenProcessors() throws IOException, URISyntaxException {
+    UrlRewriteEnvironment environment = EasyMock.createNiceMock( UrlRewriteEnvironment.class );
+    EasyMock.replay( environment );
+
+    UrlRewriteProcessor first = new UrlRewriteProcessor();
+    first.initialize( environment, UrlRewriteRulesDescriptorFactory.load(
+        "xml", getTestResourceReader( "rewrite.xml", "UTF-8" ) ) );
+    UrlRewriteProcessor second = new UrlRewriteProcessor();
+    second.initialize( environment, UrlRewriteRulesDescriptorFactory.load(
+        "xml", getTestResourceReader( "rewrite.xml", "UTF-8" ) ) );
+    assertThat( second.rules.get( "test-rule-1" ), sameInstance( first.rules.get( "test-rule-1" ) ) );
+    assertThat( second.rules.get( "test-rule-2" ), sameInstance( first.rules.get( "test-rule-2" ) ) );
+
+    // The remaining processor keeps working with the shared rules.
+    first.destroy();
+    Template inputUrl = Parser.parseLiteral( "test-scheme://test-host:1/test-input-path" );
+    Template outputUrl = second.rewrite( null, inputUrl, UrlRewriter.Direction.IN, null );
+    assertThat( outputUrl.toString(), is( "test-scheme://test-host:1/test-output-path" ) );
+    second.destroy();
+
+    // A changed rule is compiled separately.
+    UrlRewriteRulesDescriptor changed = UrlRewriteRulesDescriptorFactory.load(
+        "xml", getTestResourceReader( "rewrite.xml", "UTF-8" ) );
+    changed.getRule( "test-rule-1" ).pattern( "{scheme=*}://{host=*}:{port=*}/other/{path=**}" );
+    UrlRewriteProcessor third = new UrlRewriteProcessor();
+    third.initialize( environment, changed );
+    assertThat( third.rules.get( "test-rule-1" ), not( sameInstance( second.rules.get( "test-rule-1" ) ) ) );
+    third.destroy();
+  }
+
   @Test
   public void testMultipleIdenticalRewriteOutputRules() throws IOException, URISyntaxException {
     UrlRewriteEnvironment environment = EasyMock.createNiceMock( UrlRewriteEnvironment.class );
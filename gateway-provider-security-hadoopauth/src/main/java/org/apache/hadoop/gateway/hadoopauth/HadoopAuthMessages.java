@@ -20,6 +20,7 @@ package org.apache.hadoop.gateway.hadoopauth;
 import org.apache.hadoop.gateway.i18n.messages.Message;
 import org.apache.hadoop.gateway.i18n.messages.MessageLevel;
 import org.apache.hadoop.gateway.i18n.messages.Messages;
+import org.apache.hadoop.gateway.i18n.messages.StackTrace;
 
 @Messages(logger="org.apache.hadoop.gateway.provider.global.hadoopauth")
 public interface HadoopAuthMessages {
@@ -30,4 +31,16 @@ public interface HadoopAuthMessages {
   @Message( level = MessageLevel.DEBUG, text = "Hadoop Authentication Asserted Principal: {0}" )
   void hadoopAuthAssertedPrincipal(String name);
   
+  @Message( level = MessageLevel.WARN, text = "Invalid value for {0}: {1}, using the default" )
+  void invalidParameterValue(String name, String value);
+
+  @Message( level = MessageLevel.WARN, text = "Unable to cache verified hadoop.auth tokens: {0}" )
+  void unableToCacheTokens(@StackTrace( level = MessageLevel.DEBUG ) Exception e);
+
+  @Message( level = MessageLevel.INFO, text = "Signer secret changed, cleared the hadoop.auth token cache: {0}" )
+  void tokenCacheInvalidated(String statistics);
+
+  @Message( level = MessageLevel.INFO, text = "Hadoop Auth token cache statistics: {0}" )
+  void tokenCacheStatistics(String statistics);
+
 }
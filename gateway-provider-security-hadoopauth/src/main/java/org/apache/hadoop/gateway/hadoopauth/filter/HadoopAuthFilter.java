@@ -17,14 +17,27 @@
  */
 package org.apache.hadoop.gateway.hadoopauth.filter;
 
+import java.io.IOException;
+import java.lang.reflect.Field;
 import java.util.Enumeration;
 import java.util.Properties;
 
 import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
 
+import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.hadoopauth.HadoopAuthMessages;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.services.GatewayServices;
+import org.apache.hadoop.gateway.services.metrics.MetricsService;
+import org.apache.hadoop.security.authentication.client.AuthenticatedURL;
+import org.apache.hadoop.security.authentication.client.AuthenticationException;
+import org.apache.hadoop.security.authentication.server.AuthenticationFilter;
+import org.apache.hadoop.security.authentication.server.AuthenticationToken;
+import org.apache.hadoop.security.authentication.util.SignerSecretProvider;
 
 /*
  * see http://hadoop.apache.org/docs/current/hadoop-auth/Configuration.html
@@ -43,13 +56,120 @@ import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
  * hadoop.auth.config.cookie.path=PATH (default: null)
  * hadoop.auth.config.kerberos.principal=HTTP/localhost@LOCALHOST (default: null)
  * hadoop.auth.config.kerberos.keytab=/etc/knox/conf/knox.service.keytab (default: null)
+ *
+ * hadoop.auth.token.cache.size=SIZE (default: 1000, 0 disables the cache of verified cookies)
  */
 
 public class HadoopAuthFilter extends 
     org.apache.hadoop.security.authentication.server.AuthenticationFilter {
   
   private static HadoopAuthMessages log = MessagesFactory.get( HadoopAuthMessages.class );
-  
+
+  public static final String TOKEN_CACHE_SIZE = "hadoop.auth.token.cache.size";
+
+  public static final int DEFAULT_TOKEN_CACHE_SIZE = 1000;
+
+  private SignerSecretProvider secretProvider;
+
+  private HadoopAuthTokenCache tokenCache;
+
+  @Override
+  public void init(FilterConfig filterConfig) throws ServletException {
+    super.init(filterConfig);
+    int size = DEFAULT_TOKEN_CACHE_SIZE;
+    String value = filterConfig.getInitParameter(TOKEN_CACHE_SIZE);
+    if (value != null) {
+      try {
+        size = Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        log.invalidParameterValue(TOKEN_CACHE_SIZE, value);
+      }
+    }
+    if (size > 0) {
+      secretProvider = getSecretProvider();
+      if (secretProvider != null) {
+        tokenCache = createTokenCache(filterConfig, size);
+      }
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (tokenCache != null) {
+      log.tokenCacheStatistics(tokenCache.toString());
+      tokenCache.close();
+    }
+    super.destroy();
+  }
+
+  /*
+   * Verifying the signature of the cookie and parsing the token is repeated for every request
+   * so the verified tokens are cached until they expire or the signer secret changes.
+   */
+  @Override
+  protected AuthenticationToken getToken(HttpServletRequest request) throws IOException, AuthenticationException {
+    if (tokenCache == null) {
+      return super.getToken(request);
+    }
+    String signedToken = getSignedToken(request);
+    if (signedToken == null) {
+      return null;
+    }
+    if (tokenCache.validate(secretProvider.getCurrentSecret())) {
+      log.tokenCacheInvalidated(tokenCache.toString());
+    }
+    AuthenticationToken token = tokenCache.get(signedToken);
+    if (token == null) {
+      token = super.getToken(request);
+      if (token != null) {
+        tokenCache.put(signedToken, token);
+      }
+    }
+    return token;
+  }
+
+  private static HadoopAuthTokenCache createTokenCache(FilterConfig filterConfig, int size) {
+    ServletContext context = filterConfig.getServletContext();
+    HadoopAuthTokenCache cache = new HadoopAuthTokenCache(
+        (String) context.getAttribute(GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE), size);
+    GatewayConfig gatewayConfig = (GatewayConfig) context.getAttribute(GatewayConfig.GATEWAY_CONFIG_ATTRIBUTE);
+    if (gatewayConfig != null && gatewayConfig.isMetricsEnabled()) {
+      GatewayServices services = (GatewayServices) context.getAttribute(GatewayServices.GATEWAY_SERVICES_ATTRIBUTE);
+      MetricsService metricsService = services.getService(GatewayServices.METRICS_SERVICE);
+      metricsService.getInstrumented(cache);
+    }
+    return cache;
+  }
+
+  HadoopAuthTokenCache getTokenCache() {
+    return tokenCache;
+  }
+
+  // The same cookie AuthenticationFilter.getToken reads.
+  private static String getSignedToken(HttpServletRequest request) {
+    Cookie[] cookies = request.getCookies();
+    if (cookies != null) {
+      for (Cookie cookie : cookies) {
+        if (cookie.getName().equals(AuthenticatedURL.AUTH_COOKIE)) {
+          return cookie.getValue();
+        }
+      }
+    }
+    return null;
+  }
+
+  // AuthenticationFilter does not expose the provider the cookies are verified with.
+  private SignerSecretProvider getSecretProvider() {
+    try {
+      Field field = AuthenticationFilter.class.getDeclaredField("secretProvider");
+      field.setAccessible(true);
+      return (SignerSecretProvider) field.get(this);
+    } catch (NoSuchFieldException | IllegalAccessException | ClassCastException e) {
+      log.unableToCacheTokens(e);
+      return null;
+    }
+  }
+
   @Override
   protected Properties getConfiguration(String configPrefix, FilterConfig filterConfig) throws ServletException {
     Properties props = new Properties();
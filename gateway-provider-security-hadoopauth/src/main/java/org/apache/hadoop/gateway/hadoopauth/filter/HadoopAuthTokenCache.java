@@ -0,0 +1,227 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.hadoopauth.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hadoop.security.authentication.server.AuthenticationToken;
+
+/**
+ * The tokens of recently verified hadoop.auth cookies, keyed by the signed cookie value.
+ * <p>
+ * An entry is kept until the token it holds expires or it is evicted as one of the least recently used
+ * once the cache grows past its size, and all entries are dropped when the current signer secret changes.
+ * Lookups do not lock; only the thread that evicts or clears the cache does.
+ * <p>
+ * The cache is closed with its filter, which runs the listeners added with {@link #addCloseListener(Runnable)},
+ * e.g. to unregister its metrics.
+ */
+public class HadoopAuthTokenCache {
+
+  private final ConcurrentMap<String, Entry> tokens = new ConcurrentHashMap<>();
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final String topology;
+
+  private final int size;
+
+  private volatile byte[] secret;
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  private final AtomicLong invalidations = new AtomicLong();
+
+  private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * @param size the number of tokens to keep
+   */
+  public HadoopAuthTokenCache(int size) {
+    this(null, size);
+  }
+
+  /**
+   * @param topology the topology the cache belongs to
+   * @param size the number of tokens to keep
+   */
+  public HadoopAuthTokenCache(String topology, int size) {
+    this.topology = topology;
+    this.size = size;
+  }
+
+  /**
+   * Drops the cached tokens if they may have been verified with a secret other than the current one.
+   * @param currentSecret the secret the cookies are signed with
+   * @return true if the cached tokens were dropped
+   */
+  public boolean validate(byte[] currentSecret) {
+    if (Arrays.equals(secret, currentSecret)) {
+      return false;
+    }
+    lock.lock();
+    try {
+      if (Arrays.equals(secret, currentSecret)) {
+        return false;
+      }
+      boolean invalidated = secret != null;
+      secret = currentSecret == null ? null : currentSecret.clone();
+      tokens.clear();
+      if (invalidated) {
+        invalidations.incrementAndGet();
+      }
+      return invalidated;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @param signedToken the value of a hadoop.auth cookie
+   * @return the token of the cookie if it was verified before and has not expired, null otherwise
+   */
+  public AuthenticationToken get(String signedToken) {
+    Entry entry = tokens.get(signedToken);
+    if (entry != null && entry.token.isExpired()) {
+      tokens.remove(signedToken, entry);
+      entry = null;
+    }
+    if (entry == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    entry.accessed = System.nanoTime();
+    hits.incrementAndGet();
+    return entry.token;
+  }
+
+  /**
+   * @param signedToken the value of a hadoop.auth cookie whose signature has been verified
+   * @param token the token of the cookie
+   */
+  public void put(String signedToken, AuthenticationToken token) {
+    if (!token.isExpired()) {
+      tokens.put(signedToken, new Entry(token));
+      if (tokens.size() > size) {
+        evict();
+      }
+    }
+  }
+
+  /*
+   * Drops the expired tokens and then the least recently used ones. A tenth of the cache is freed at once
+   * so that the entries are not sorted on every put once the cache is full, and the puts that find another
+   * thread evicting carry on instead of waiting for it.
+   */
+  private void evict() {
+    if (!lock.tryLock()) {
+      return;
+    }
+    try {
+      List<Map.Entry<String, Entry>> entries = new ArrayList<>(tokens.size());
+      for (Iterator<Map.Entry<String, Entry>> it = tokens.entrySet().iterator(); it.hasNext(); ) {
+        Map.Entry<String, Entry> entry = it.next();
+        if (entry.getValue().token.isExpired()) {
+          it.remove();
+        } else {
+          entries.add(entry);
+        }
+      }
+      int excess = tokens.size() - (size - size / 10);
+      if (excess > 0) {
+        Collections.sort(entries, new Comparator<Map.Entry<String, Entry>>() {
+          @Override
+          public int compare(Map.Entry<String, Entry> e1, Map.Entry<String, Entry> e2) {
+            return Long.compare(e1.getValue().accessed, e2.getValue().accessed);
+          }
+        });
+        for (int i = 0; i < excess && i < entries.size(); i++) {
+          Map.Entry<String, Entry> entry = entries.get(i);
+          tokens.remove(entry.getKey(), entry.getValue());
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public String getTopology() {
+    return topology;
+  }
+
+  public int size() {
+    return tokens.size();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getInvalidations() {
+    return invalidations.get();
+  }
+
+  public void addCloseListener(Runnable listener) {
+    closeListeners.add(listener);
+  }
+
+  /**
+   * Drops the cached tokens and runs the close listeners.
+   */
+  public void close() {
+    tokens.clear();
+    for (Runnable listener : closeListeners) {
+      listener.run();
+    }
+    closeListeners.clear();
+  }
+
+  @Override
+  public String toString() {
+    return "size=" + tokens.size() + ", hits=" + hits + ", misses=" + misses + ", invalidations=" + invalidations;
+  }
+
+  private static class Entry {
+
+    private final AuthenticationToken token;
+
+    private volatile long accessed = System.nanoTime();
+
+    private Entry(AuthenticationToken token) {
+      this.token = token;
+    }
+  }
+
+}
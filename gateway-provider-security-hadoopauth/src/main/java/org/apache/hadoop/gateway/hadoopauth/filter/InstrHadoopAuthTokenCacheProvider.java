@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.hadoopauth.filter;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.hadoop.gateway.services.metrics.InstrumentationProvider;
+import org.apache.hadoop.gateway.services.metrics.MetricsContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reports the verified hadoop.auth token cache of a topology as gauges named
+ * {@code hadoopauth-token-cache.<topology>.*}. A redeployed topology replaces the gauges of its previous cache.
+ * The gauges are removed when the cache is closed, unless a redeployment has replaced them already.
+ */
+public class InstrHadoopAuthTokenCacheProvider implements InstrumentationProvider<HadoopAuthTokenCache> {
+
+  static final String PREFIX = "hadoopauth-token-cache";
+
+  @Override
+  public HadoopAuthTokenCache getInstrumented(MetricsContext metricsContext) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public HadoopAuthTokenCache getInstrumented(final HadoopAuthTokenCache cache, MetricsContext metricsContext) {
+    final MetricRegistry registry = (MetricRegistry) metricsContext.getProperty(MetricsContext.METRICS_REGISTRY);
+    String prefix = MetricRegistry.name(PREFIX, cache.getTopology());
+    final Map<String, Gauge<?>> gauges = new HashMap<>();
+    gauges.put(MetricRegistry.name(prefix, "hits"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return cache.getHits();
+      }
+    });
+    gauges.put(MetricRegistry.name(prefix, "misses"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return cache.getMisses();
+      }
+    });
+    gauges.put(MetricRegistry.name(prefix, "size"), new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return cache.size();
+      }
+    });
+    gauges.put(MetricRegistry.name(prefix, "invalidations"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return cache.getInvalidations();
+      }
+    });
+    synchronized (registry) {
+      for (Map.Entry<String, Gauge<?>> gauge : gauges.entrySet()) {
+        registry.remove(gauge.getKey());
+        registry.register(gauge.getKey(), gauge.getValue());
+      }
+    }
+    cache.addCloseListener(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (registry) {
+          Map<String, Metric> metrics = registry.getMetrics();
+          for (Map.Entry<String, Gauge<?>> gauge : gauges.entrySet()) {
+            if (metrics.get(gauge.getKey()) == gauge.getValue()) {
+              registry.remove(gauge.getKey());
+            }
+          }
+        }
+      }
+    });
+    return cache;
+  }
+}
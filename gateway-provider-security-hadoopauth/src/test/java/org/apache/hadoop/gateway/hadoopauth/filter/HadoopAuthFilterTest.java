@@ -0,0 +1,233 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.hadoopauth.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.hadoop.gateway.services.metrics.MetricsContext;
+import org.apache.hadoop.security.authentication.client.AuthenticatedURL;
+import org.apache.hadoop.security.authentication.client.AuthenticationException;
+import org.apache.hadoop.security.authentication.server.AuthenticationFilter;
+import org.apache.hadoop.security.authentication.server.AuthenticationToken;
+import org.apache.hadoop.security.authentication.server.PseudoAuthenticationHandler;
+import org.apache.hadoop.security.authentication.util.Signer;
+import org.apache.hadoop.security.authentication.util.SignerSecretProvider;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HadoopAuthFilterTest {
+
+  private TestSignerSecretProvider secretProvider;
+  private HadoopAuthFilter filter;
+
+  @Before
+  public void setUp() throws Exception {
+    secretProvider = new TestSignerSecretProvider("secret");
+    filter = new HadoopAuthFilter();
+    filter.init(createFilterConfig(secretProvider, "10"));
+  }
+
+  @After
+  public void tearDown() {
+    filter.destroy();
+  }
+
+  @Test
+  public void testVerifiedTokensAreCached() throws Exception {
+    String cookie = sign("guest", System.currentTimeMillis() + 60000);
+
+    AuthenticationToken token = filter.getToken(createRequest(cookie));
+    assertEquals("guest", token.getUserName());
+    assertSame(token, filter.getToken(createRequest(cookie)));
+
+    HadoopAuthTokenCache cache = filter.getTokenCache();
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    assertNull(filter.getToken(createRequest(null)));
+    try {
+      filter.getToken(createRequest(cookie.replace("guest", "admin")));
+      fail("A tampered cookie must not be accepted");
+    } catch (AuthenticationException e) {
+      // Expected.
+    }
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testSecretRotationClearsTheCache() throws Exception {
+    String cookie = sign("guest", System.currentTimeMillis() + 60000);
+    assertNotNull(filter.getToken(createRequest(cookie)));
+    assertEquals(1, filter.getTokenCache().size());
+
+    secretProvider.secret = "rotated".getBytes(StandardCharsets.UTF_8);
+    try {
+      filter.getToken(createRequest(cookie));
+      fail("A cookie signed with a retired secret must not be accepted");
+    } catch (AuthenticationException e) {
+      // Expected.
+    }
+    assertEquals(0, filter.getTokenCache().size());
+    assertEquals(1, filter.getTokenCache().getInvalidations());
+  }
+
+  @Test
+  public void testExpiredTokensAreNotReturned() throws Exception {
+    HadoopAuthTokenCache cache = new HadoopAuthTokenCache(2);
+    AuthenticationToken token = new AuthenticationToken("guest", "guest", PseudoAuthenticationHandler.TYPE);
+    token.setExpires(System.currentTimeMillis() + 60000);
+    cache.put("a", token);
+    assertSame(token, cache.get("a"));
+    token.setExpires(System.currentTimeMillis() - 1);
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedTokensAreEvicted() throws Exception {
+    HadoopAuthTokenCache cache = new HadoopAuthTokenCache(10);
+    for (int i = 0; i < 10; i++) {
+      cache.put("token" + i, createToken("user" + i));
+    }
+    assertNotNull(cache.get("token0"));
+    cache.put("token10", createToken("user10"));
+    assertEquals(9, cache.size());
+    assertNotNull(cache.get("token0"));
+    assertNotNull(cache.get("token10"));
+  }
+
+  @Test
+  public void testCacheIsInstrumented() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    MetricsContext metricsContext = EasyMock.createNiceMock(MetricsContext.class);
+    EasyMock.expect(metricsContext.getProperty(MetricsContext.METRICS_REGISTRY)).andReturn(registry).anyTimes();
+    EasyMock.replay(metricsContext);
+
+    HadoopAuthTokenCache cache = new HadoopAuthTokenCache("sandbox", 10);
+    assertSame(cache, new InstrHadoopAuthTokenCacheProvider().getInstrumented(cache, metricsContext));
+    cache.validate("secret".getBytes(StandardCharsets.UTF_8));
+    cache.put("a", createToken("guest"));
+    cache.get("a");
+    cache.get("b");
+    cache.validate("rotated".getBytes(StandardCharsets.UTF_8));
+
+    Map<String, Gauge> gauges = registry.getGauges();
+    assertEquals(1L, gauges.get("hadoopauth-token-cache.sandbox.hits").getValue());
+    assertEquals(1L, gauges.get("hadoopauth-token-cache.sandbox.misses").getValue());
+    assertEquals(0, gauges.get("hadoopauth-token-cache.sandbox.size").getValue());
+    assertEquals(1L, gauges.get("hadoopauth-token-cache.sandbox.invalidations").getValue());
+
+    // closing a cache replaced by a redeployment leaves the gauges of the new one, closing that removes them
+    HadoopAuthTokenCache redeployed = new HadoopAuthTokenCache("sandbox", 10);
+    new InstrHadoopAuthTokenCacheProvider().getInstrumented(redeployed, metricsContext);
+    cache.close();
+    assertEquals(0L, registry.getGauges().get("hadoopauth-token-cache.sandbox.hits").getValue());
+    redeployed.close();
+    assertNull(registry.getGauges().get("hadoopauth-token-cache.sandbox.hits"));
+  }
+
+  @Test
+  public void testCacheCanBeDisabled() throws Exception {
+    HadoopAuthFilter disabled = new HadoopAuthFilter();
+    disabled.init(createFilterConfig(secretProvider, "0"));
+    assertNull(disabled.getTokenCache());
+    assertEquals("guest", disabled.getToken(createRequest(sign("guest", System.currentTimeMillis() + 60000))).getUserName());
+    disabled.destroy();
+  }
+
+  private static AuthenticationToken createToken(String user) {
+    AuthenticationToken token = new AuthenticationToken(user, user, PseudoAuthenticationHandler.TYPE);
+    token.setExpires(System.currentTimeMillis() + 60000);
+    return token;
+  }
+
+  private String sign(String user, long expires) {
+    AuthenticationToken token = new AuthenticationToken(user, user, PseudoAuthenticationHandler.TYPE);
+    token.setExpires(expires);
+    return new Signer(secretProvider).sign(token.toString());
+  }
+
+  private static HttpServletRequest createRequest(String cookie) {
+    HttpServletRequest request = EasyMock.createNiceMock(HttpServletRequest.class);
+    EasyMock.expect(request.getCookies())
+        .andReturn(cookie == null ? null : new Cookie[] { new Cookie(AuthenticatedURL.AUTH_COOKIE, cookie) }).anyTimes();
+    EasyMock.replay(request);
+    return request;
+  }
+
+  private static FilterConfig createFilterConfig(SignerSecretProvider secretProvider, String cacheSize) {
+    ServletContext context = EasyMock.createNiceMock(ServletContext.class);
+    EasyMock.expect(context.getAttribute(AuthenticationFilter.SIGNER_SECRET_PROVIDER_ATTRIBUTE))
+        .andReturn(secretProvider).anyTimes();
+    EasyMock.replay(context);
+
+    FilterConfig config = EasyMock.createNiceMock(FilterConfig.class);
+    EasyMock.expect(config.getServletContext()).andReturn(context).anyTimes();
+    EasyMock.expect(config.getInitParameter(AuthenticationFilter.CONFIG_PREFIX)).andReturn("hadoop.auth.config").anyTimes();
+    EasyMock.expect(config.getInitParameterNames())
+        .andReturn(Collections.enumeration(Arrays.asList("hadoop.auth.config.type", HadoopAuthFilter.TOKEN_CACHE_SIZE))).anyTimes();
+    EasyMock.expect(config.getInitParameter("hadoop.auth.config.type")).andReturn(PseudoAuthenticationHandler.TYPE).anyTimes();
+    EasyMock.expect(config.getInitParameter(HadoopAuthFilter.TOKEN_CACHE_SIZE)).andReturn(cacheSize).anyTimes();
+    EasyMock.replay(config);
+    return config;
+  }
+
+  private static class TestSignerSecretProvider extends SignerSecretProvider {
+
+    private volatile byte[] secret;
+
+    private TestSignerSecretProvider(String secret) {
+      this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void init(Properties config, ServletContext servletContext, long tokenValidity) {
+    }
+
+    @Override
+    public byte[] getCurrentSecret() {
+      return secret;
+    }
+
+    @Override
+    public byte[][] getAllSecrets() {
+      return new byte[][] { secret };
+    }
+  }
+
+}
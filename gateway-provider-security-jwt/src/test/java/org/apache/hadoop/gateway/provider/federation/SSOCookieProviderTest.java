@@ -61,6 +61,7 @@ import com.nimbusds.jose.*;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.util.Base64URL;
 
 public class SSOCookieProviderTest  {
@@ -571,6 +572,11 @@ public class SSOCookieProviderTest  {
       // TODO Auto-generated method stub
       return null;
     }
+
+    @Override
+    public JWKSet getJWKSet() throws TokenServiceException {
+      return new JWKSet();
+    }
     
   }
   
@@ -47,4 +47,7 @@ public interface Pac4jMessages {
   @Message( level = MessageLevel.INFO, text = 
       "No private key passphrase alias found. Defaulting to master. Exception encountered: {0}")
   public void noPrivateKeyPasshraseProvisioned(Exception e);
+
+  @Message( level = MessageLevel.WARN, text = "Invalid value {1} for pac4j parameter {0} - using default.")
+  public void invalidParameterValue(String name, String value);
 }
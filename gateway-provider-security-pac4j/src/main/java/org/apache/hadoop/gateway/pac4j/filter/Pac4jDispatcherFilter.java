@@ -72,6 +72,12 @@ public class Pac4jDispatcherFilter implements Filter {
 
   private static final String PAC4J_COOKIE_DOMAIN_SUFFIX_PARAM = "pac4j.cookie.domain.suffix";
 
+  public static final String PAC4J_SESSION_CACHE_SIZE = "pac4j.session.cache.size";
+
+  public static final String PAC4J_SESSION_CACHE_TTL = "pac4j.session.cache.ttl";
+
+  public static final String PAC4J_COOKIE_FORMAT = "pac4j.cookie.format";
+
   private CallbackFilter callbackFilter;
 
   private RequiresAuthenticationFilter requiresAuthenticationFilter;
@@ -159,10 +165,26 @@ public class Pac4jDispatcherFilter implements Filter {
     requiresAuthenticationFilter.setConfig(config);
 
     final String domainSuffix = context.getInitParameter(PAC4J_COOKIE_DOMAIN_SUFFIX_PARAM);
-    config.setSessionStore(new KnoxSessionStore(cryptoService, clusterName, domainSuffix));
+    final int cacheSize = (int) getLongParam(filterConfig, PAC4J_SESSION_CACHE_SIZE, KnoxSessionStore.DEFAULT_CACHE_SIZE);
+    final long cacheTtl = getLongParam(filterConfig, PAC4J_SESSION_CACHE_TTL, KnoxSessionStore.DEFAULT_CACHE_TTL);
+    // cookies are only written in the compact format when asked to, as older gateways cannot read them
+    final boolean compact = "compact".equalsIgnoreCase(filterConfig.getInitParameter(PAC4J_COOKIE_FORMAT));
+    config.setSessionStore(new KnoxSessionStore(cryptoService, clusterName, domainSuffix, cacheSize, cacheTtl, compact));
     ConfigSingleton.setConfig(config);
   }
 
+  private static long getLongParam(FilterConfig filterConfig, String name, long defaultValue) {
+    String value = filterConfig.getInitParameter(name);
+    if (value != null) {
+      try {
+        return Long.parseLong(value.trim());
+      } catch (NumberFormatException e) {
+        log.invalidParameterValue(name, value);
+      }
+    }
+    return defaultValue;
+  }
+
   private void addDefaultConfig(String clientNameParameter, Map<String, String> properties) {
     // add default saml params
     if (clientNameParameter.contains("SAML2Client")) {
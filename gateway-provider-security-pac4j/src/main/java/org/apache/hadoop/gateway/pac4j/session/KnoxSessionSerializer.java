@@ -0,0 +1,234 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.pac4j.session;
+
+import org.pac4j.core.profile.UserProfile;
+import org.pac4j.core.util.JavaSerializationHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes the values kept in the session cookies.
+ * <p>
+ * The compact format writes strings, numbers, booleans, lists, maps and pac4j user profiles
+ * with a one byte type tag instead of Java serialization's class descriptors, which makes the
+ * cookies considerably smaller.  Lists and maps are read back as array lists and linked hash maps.  Values of other types are always written with Java
+ * serialization.  Both formats are read, as the compact format starts with a marker that
+ * cannot start a Java serialization stream.
+ */
+final class KnoxSessionSerializer {
+
+    private static final byte MARKER = 'K';
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte LIST = 6;
+    private static final byte MAP = 7;
+    private static final byte PROFILE = 8;
+
+    private final JavaSerializationHelper javaSerializationHelper = new JavaSerializationHelper();
+
+    private final boolean compact;
+
+    KnoxSessionSerializer(final boolean compact) {
+        this.compact = compact;
+    }
+
+    byte[] serialize(final Serializable value) {
+        if (compact) {
+            try {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final CompactOutput out = new CompactOutput(bytes);
+                out.writeByte(MARKER);
+                out.writeByte(VERSION);
+                out.writeObject(value);
+                out.flush();
+                return bytes.toByteArray();
+            } catch (final IOException e) {
+                // The value holds a type the compact format does not support.
+            }
+        }
+        return javaSerializationHelper.serializeToBytes(value);
+    }
+
+    Serializable deserialize(final byte[] bytes) {
+        if (bytes.length < 2 || bytes[0] != MARKER) {
+            return javaSerializationHelper.unserializeFromBytes(bytes);
+        }
+        try {
+            final CompactInput in = new CompactInput(new ByteArrayInputStream(bytes, 2, bytes.length - 2));
+            if (bytes[1] != VERSION) {
+                throw new StreamCorruptedException("Unsupported session format version " + bytes[1]);
+            }
+            return (Serializable) in.readObject();
+        } catch (final IOException | ClassNotFoundException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    private static final class CompactOutput extends DataOutputStream implements ObjectOutput {
+
+        private CompactOutput(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void writeObject(final Object value) throws IOException {
+            if (value == null) {
+                writeByte(NULL);
+            } else if (value instanceof String) {
+                writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                writeByte(BOOLEAN);
+                writeBoolean((Boolean) value);
+            } else if (value instanceof Integer) {
+                writeByte(INTEGER);
+                writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                writeByte(LONG);
+                writeLong((Long) value);
+            } else if (value instanceof Double) {
+                writeByte(DOUBLE);
+                writeDouble((Double) value);
+            } else if (value instanceof List) {
+                final List<?> list = (List<?>) value;
+                writeByte(LIST);
+                writeInt(list.size());
+                for (final Object element : list) {
+                    writeObject(element);
+                }
+            } else if (value instanceof Map) {
+                final Map<?, ?> map = (Map<?, ?>) value;
+                writeByte(MAP);
+                writeInt(map.size());
+                for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeObject(entry.getKey());
+                    writeObject(entry.getValue());
+                }
+            } else if (value instanceof UserProfile) {
+                writeByte(PROFILE);
+                writeString(value.getClass().getName());
+                ((UserProfile) value).writeExternal(this);
+            } else {
+                throw new NotSerializableException(value.getClass().getName());
+            }
+        }
+
+        private void writeString(final String value) throws IOException {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            write(bytes);
+        }
+    }
+
+    private static final class CompactInput extends DataInputStream implements ObjectInput {
+
+        private CompactInput(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public Object readObject() throws ClassNotFoundException, IOException {
+            final byte type = readByte();
+            switch (type) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readString();
+                case BOOLEAN:
+                    return readBoolean();
+                case INTEGER:
+                    return readInt();
+                case LONG:
+                    return readLong();
+                case DOUBLE:
+                    return readDouble();
+                case LIST:
+                    final int length = readLength();
+                    final List<Object> list = new ArrayList<>(length);
+                    for (int i = 0; i < length; i++) {
+                        list.add(readObject());
+                    }
+                    return list;
+                case MAP:
+                    final int size = readLength();
+                    final Map<Object, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        map.put(readObject(), readObject());
+                    }
+                    return map;
+                case PROFILE:
+                    return readProfile(readString());
+                default:
+                    throw new StreamCorruptedException("Unknown session value type " + type);
+            }
+        }
+
+        private UserProfile readProfile(final String className) throws ClassNotFoundException, IOException {
+            // Only profile classes are ever instantiated from the cookie.
+            final Class<?> type = Class.forName(className, false, UserProfile.class.getClassLoader());
+            if (!UserProfile.class.isAssignableFrom(type)) {
+                throw new StreamCorruptedException("Not a profile class " + className);
+            }
+            final UserProfile profile;
+            try {
+                profile = (UserProfile) type.newInstance();
+            } catch (final InstantiationException | IllegalAccessException e) {
+                throw new StreamCorruptedException("Cannot create profile " + className);
+            }
+            profile.readExternal(this);
+            return profile;
+        }
+
+        private String readString() throws IOException {
+            final byte[] bytes = new byte[readLength()];
+            readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int readLength() throws IOException {
+            final int length = readInt();
+            if (length < 0 || length > available()) {
+                throw new StreamCorruptedException("Invalid length " + length);
+            }
+            return length;
+        }
+    }
+}
@@ -26,15 +26,22 @@ import org.pac4j.core.context.Cookie;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.context.session.SessionStore;
 import org.pac4j.core.exception.TechnicalException;
-import org.pac4j.core.util.JavaSerializationHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Specific session store where data are saved into cookies (and not in memory).
  * Each data is encrypted and base64 encoded before being saved as a cookie (for security reasons).
+ * As decrypting a cookie is expensive, the values of recently seen cookies are cached by a digest
+ * of the cookie value for a limited time.  Like in an in-memory session, the cached values are
+ * shared by the requests presenting the same cookie.
  *
  * @since 0.8.0
  */
@@ -46,7 +53,11 @@ public class KnoxSessionStore implements SessionStore {
 
     public static final String PAC4J_SESSION_PREFIX = "pac4j.session.";
 
-    private final JavaSerializationHelper javaSerializationHelper;
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    public static final long DEFAULT_CACHE_TTL = 300000;
+
+    private final KnoxSessionSerializer serializer;
 
     private final CryptoService cryptoService;
 
@@ -54,11 +65,34 @@ public class KnoxSessionStore implements SessionStore {
 
     private final String domainSuffix;
 
+    private final long cacheTtl;
+
+    // decrypted values by cookie value digest, least recently used first
+    private final Map<String, CachedValue> cache;
+
     public KnoxSessionStore(final CryptoService cryptoService, final String clusterName, final String domainSuffix) {
-        javaSerializationHelper = new JavaSerializationHelper();
+        this(cryptoService, clusterName, domainSuffix, DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL, false);
+    }
+
+    /**
+     * @param cacheSize the number of decrypted cookies to keep, 0 disables the cache
+     * @param cacheTtl how long a decrypted cookie is kept in milliseconds
+     * @param compact whether new cookies are written in the compact format rather than
+     *                with Java serialization; cookies in either format are read
+     */
+    public KnoxSessionStore(final CryptoService cryptoService, final String clusterName, final String domainSuffix,
+                            final int cacheSize, final long cacheTtl, final boolean compact) {
+        serializer = new KnoxSessionSerializer(compact);
         this.cryptoService = cryptoService;
         this.clusterName = clusterName;
         this.domainSuffix = domainSuffix;
+        this.cacheTtl = cacheTtl;
+        this.cache = cacheSize <= 0 || cacheTtl <= 0 ? null : new LinkedHashMap<String, CachedValue>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedValue> eldest) {
+                return size() > cacheSize;
+            }
+        };
     }
 
     public String getOrCreateSessionId(WebContext context) {
@@ -67,20 +101,55 @@ public class KnoxSessionStore implements SessionStore {
 
     private Serializable decryptBase64(final String v) {
         if (v != null && v.length() > 0) {
-            byte[] bytes = Base64.decodeBase64(v);
-            EncryptionResult result = EncryptionResult.fromByteArray(bytes);
-            byte[] clear = cryptoService.decryptForCluster(this.clusterName,
-                    PAC4J_PASSWORD,
-                    result.cipher,
-                    result.iv,
-                    result.salt);
-            if (clear != null) {
-                return javaSerializationHelper.unserializeFromBytes(clear);
+            if (cache == null) {
+                return decrypt(v);
             }
+            final String digest = digest(v);
+            final long now = System.currentTimeMillis();
+            synchronized (cache) {
+                final CachedValue cached = cache.get(digest);
+                if (cached != null && cached.expires > now) {
+                    return cached.value;
+                }
+            }
+            final Serializable value = decrypt(v);
+            if (value != null) {
+                cache(digest, value, now);
+            }
+            return value;
         }
         return null;
     }
 
+    private Serializable decrypt(final String v) {
+        byte[] bytes = Base64.decodeBase64(v);
+        EncryptionResult result = EncryptionResult.fromByteArray(bytes);
+        byte[] clear = cryptoService.decryptForCluster(this.clusterName,
+                PAC4J_PASSWORD,
+                result.cipher,
+                result.iv,
+                result.salt);
+        if (clear != null) {
+            return serializer.deserialize(clear);
+        }
+        return null;
+    }
+
+    private void cache(final String digest, final Serializable value, final long now) {
+        synchronized (cache) {
+            cache.put(digest, new CachedValue(value, now + cacheTtl));
+        }
+    }
+
+    private static String digest(final String v) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.encodeBase64String(digest.digest(v.getBytes(StandardCharsets.US_ASCII)));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new TechnicalException(e);
+        }
+    }
+
     public Object get(WebContext context, String key) {
         final Cookie cookie = ContextHelper.getCookie(context, PAC4J_SESSION_PREFIX + key);
         Object value = null;
@@ -95,9 +164,14 @@ public class KnoxSessionStore implements SessionStore {
         if (o == null || o.equals("")) {
             return null;
         } else {
-            final byte[] bytes = javaSerializationHelper.serializeToBytes((Serializable) o);
+            final byte[] bytes = serializer.serialize((Serializable) o);
             EncryptionResult result = cryptoService.encryptForCluster(this.clusterName, PAC4J_PASSWORD, bytes);
-            return Base64.encodeBase64String(result.toByteAray());
+            final String v = Base64.encodeBase64String(result.toByteAray());
+            // the cookie is presented with the next request
+            if (cache != null) {
+                cache(digest(v), (Serializable) o, System.currentTimeMillis());
+            }
+            return v;
         }
     }
 
@@ -117,4 +191,16 @@ public class KnoxSessionStore implements SessionStore {
         cookie.setSecure(ContextHelper.isHttpsOrSecure(context));
         context.addResponseCookie(cookie);
     }
+
+    private static final class CachedValue {
+
+        private final Serializable value;
+
+        private final long expires;
+
+        private CachedValue(final Serializable value, final long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
 }
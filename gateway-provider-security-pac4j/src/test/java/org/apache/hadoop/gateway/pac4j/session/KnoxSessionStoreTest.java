@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.pac4j.session;
+
+import org.apache.hadoop.gateway.services.security.AliasService;
+import org.apache.hadoop.gateway.services.security.impl.DefaultCryptoService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.pac4j.core.context.Cookie;
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.profile.CommonProfile;
+import org.pac4j.core.util.JavaSerializationHelper;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class KnoxSessionStoreTest {
+
+    private static final String CLUSTER_NAME = "knox";
+    private static final String PAC4J_PASSWORD = "pwdfortest";
+
+    private DefaultCryptoService cryptoService;
+
+    @Before
+    public void setUp() throws Exception {
+        final AliasService aliasService = mock(AliasService.class);
+        when(aliasService.getPasswordFromAliasForCluster(CLUSTER_NAME, KnoxSessionStore.PAC4J_PASSWORD)).thenReturn(PAC4J_PASSWORD.toCharArray());
+        cryptoService = spy(new DefaultCryptoService());
+        cryptoService.setAliasService(aliasService);
+    }
+
+    @Test
+    public void testCompactProfileRoundTrip() throws Exception {
+        final CommonProfile profile = createProfile();
+        final KnoxSessionSerializer compact = new KnoxSessionSerializer(true);
+        final byte[] bytes = compact.serialize(profile);
+        assertEquals('K', bytes[0]);
+        assertTrue(bytes.length < new JavaSerializationHelper().serializeToBytes(profile).length);
+
+        final CommonProfile restored = (CommonProfile) compact.deserialize(bytes);
+        assertEquals(profile.getId(), restored.getId());
+        assertEquals(profile.getAttributes(), restored.getAttributes());
+        assertEquals(profile.getRoles(), restored.getRoles());
+        assertTrue(restored.isRemembered());
+        assertEquals("http://localhost/original", compact.deserialize(compact.serialize("http://localhost/original")));
+    }
+
+    @Test
+    public void testJavaSerializationRemainsReadable() throws Exception {
+        final CommonProfile profile = createProfile();
+        final byte[] bytes = new KnoxSessionSerializer(false).serialize(profile);
+        final CommonProfile restored = (CommonProfile) new KnoxSessionSerializer(true).deserialize(bytes);
+        assertEquals(profile.getAttributes(), restored.getAttributes());
+
+        // values the compact format does not support are written with Java serialization
+        profile.addAttribute("login", new Date());
+        assertEquals((byte) 0xAC, new KnoxSessionSerializer(true).serialize(profile)[0]);
+    }
+
+    @Test
+    public void testDecryptedCookiesAreCached() throws Exception {
+        final WebContext context = mock(WebContext.class);
+        when(context.getFullRequestURL()).thenReturn("https://localhost:8443/gateway/knoxsso/api/v1/websso");
+        when(context.getServerName()).thenReturn("localhost");
+        new KnoxSessionStore(cryptoService, CLUSTER_NAME, null, 10, 60000, true)
+            .set(context, "pac4jUserProfile", createProfile());
+        final ArgumentCaptor<Cookie> cookie = ArgumentCaptor.forClass(Cookie.class);
+        verify(context).addResponseCookie(cookie.capture());
+        when(context.getRequestCookies()).thenReturn(Collections.singletonList(cookie.getValue()));
+
+        final KnoxSessionStore store = new KnoxSessionStore(cryptoService, CLUSTER_NAME, null, 10, 60000, false);
+        final Object value = store.get(context, "pac4jUserProfile");
+        assertEquals("john.doe", ((CommonProfile) value).getId());
+        assertSame(value, store.get(context, "pac4jUserProfile"));
+        verify(cryptoService, times(1)).decryptForCluster(eq(CLUSTER_NAME), eq(KnoxSessionStore.PAC4J_PASSWORD),
+            any(byte[].class), any(byte[].class), any(byte[].class));
+
+        final KnoxSessionStore uncached = new KnoxSessionStore(cryptoService, CLUSTER_NAME, null, 0, 60000, false);
+        assertNotSame(uncached.get(context, "pac4jUserProfile"), uncached.get(context, "pac4jUserProfile"));
+    }
+
+    private static CommonProfile createProfile() {
+        final CommonProfile profile = new CommonProfile();
+        profile.setId("john.doe");
+        profile.addAttribute("email", "john.doe@example.com");
+        profile.addAttribute("groups", Arrays.asList("users", "admin"));
+        profile.addRole("ROLE_USER");
+        profile.setRemembered(true);
+        return profile;
+    }
+}
@@ -23,4 +23,8 @@ import org.apache.hadoop.gateway.i18n.messages.Messages;
 
 @Messages(logger="org.apache.hadoop.gateway.provider.global.csrf")
 public interface PreAuthMessages {
+
+  @Message( level = MessageLevel.WARN, text = "Invalid value for {0}: {1}, using the default" )
+  void invalidParameterValue(String name, String value);
+
 }
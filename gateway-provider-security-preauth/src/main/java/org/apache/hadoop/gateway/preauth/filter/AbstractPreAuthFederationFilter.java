@@ -69,10 +69,7 @@ public abstract class AbstractPreAuthFederationFilter implements Filter {
     String principal = getPrimaryPrincipal(httpRequest);
     if (principal != null) {
       if (isValid(httpRequest)) {
-        Subject subject = new Subject();
-        subject.getPrincipals().add(new PrimaryPrincipal(principal));
-        addGroupPrincipals(httpRequest, subject.getPrincipals());
-        doAs(httpRequest, response, chain, subject);
+        doAs(httpRequest, response, chain, createSubject(httpRequest, principal));
       }
       else {
         // TODO: log preauthenticated SSO validation failure
@@ -127,6 +124,18 @@ public abstract class AbstractPreAuthFederationFilter implements Filter {
     }
   }
   
+  /**
+   * @param httpRequest
+   * @param principal the primary principal of the request
+   * @return the subject to process the request as
+   */
+  protected Subject createSubject(HttpServletRequest httpRequest, String principal) {
+    Subject subject = new Subject();
+    subject.getPrincipals().add(new PrimaryPrincipal(principal));
+    addGroupPrincipals(httpRequest, subject.getPrincipals());
+    return subject;
+  }
+
   /**
    * @param httpRequest
    */
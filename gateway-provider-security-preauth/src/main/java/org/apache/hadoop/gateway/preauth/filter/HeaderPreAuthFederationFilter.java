@@ -18,20 +18,34 @@
 package org.apache.hadoop.gateway.preauth.filter;
 
 import java.security.Principal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import javax.security.auth.Subject;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.preauth.PreAuthMessages;
 import org.apache.hadoop.gateway.security.GroupPrincipal;
 
 
 public class HeaderPreAuthFederationFilter extends AbstractPreAuthFederationFilter {
   static final String CUSTOM_HEADER_PARAM = "preauth.custom.header";
   static final String CUSTOM_GROUP_HEADER_PARAM = "preauth.custom.group.header";
+  static final String SUBJECT_CACHE_SIZE_PARAM = "preauth.subject.cache.size";
+  private static PreAuthMessages log = MessagesFactory.get( PreAuthMessages.class );
   String headerName = "SM_USER";
   String groupHeaderName = null;
+
+  /**
+   * The subjects of recent requests by their user and group headers, null if not enabled
+   */
+  private Map<List<String>, Subject> subjects = null;
   
   @Override
   public void init(FilterConfig filterConfig) throws ServletException {
@@ -44,6 +58,47 @@ public class HeaderPreAuthFederationFilter extends AbstractPreAuthFederationFilt
     if (customGroupHeader != null) {
       groupHeaderName = customGroupHeader;
     }
+    String subjectCacheSize = filterConfig.getInitParameter(SUBJECT_CACHE_SIZE_PARAM);
+    if (subjectCacheSize != null) {
+      try {
+        final int size = Integer.parseInt(subjectCacheSize.trim());
+        if (size > 0) {
+          subjects = new LinkedHashMap<List<String>, Subject>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<String>, Subject> eldest) {
+              return size() > size;
+            }
+          };
+        }
+      } catch (NumberFormatException e) {
+        log.invalidParameterValue(SUBJECT_CACHE_SIZE_PARAM, subjectCacheSize);
+      }
+    }
+  }
+
+  /**
+   * The subject only depends on the user and group headers so that, when enabled, a read-only
+   * subject is shared by the requests with the same headers. The requests are still validated.
+   */
+  @Override
+  protected Subject createSubject(HttpServletRequest httpRequest, String principal) {
+    if (subjects == null) {
+      return super.createSubject(httpRequest, principal);
+    }
+    String groups = groupHeaderName == null ? null : httpRequest.getHeader(groupHeaderName);
+    List<String> key = Arrays.asList(principal, groups);
+    Subject subject;
+    synchronized (subjects) {
+      subject = subjects.get(key);
+    }
+    if (subject == null) {
+      subject = super.createSubject(httpRequest, principal);
+      subject.setReadOnly();
+      synchronized (subjects) {
+        subjects.put(key, subject);
+      }
+    }
+    return subject;
   }
 
   /**
@@ -17,6 +17,9 @@
  */
 package org.apache.hadoop.gateway.preauth.filter;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.servlet.FilterConfig;
 import javax.servlet.http.HttpServletRequest;
 
@@ -29,6 +32,13 @@ public class IPValidator implements PreAuthValidator {
   public static final String IP_ADDRESSES_PARAM = "preauth.ip.addresses";
   public static final String IP_VALIDATION_METHOD_VALUE = "preauth.ip.validation";
 
+  private static final IpAddressValidator ANY_IP = new IpAddressValidator(null);
+
+  /**
+   * The validator is shared by all the filters so the address lists are compiled once per list
+   */
+  private final ConcurrentMap<String, IpAddressValidator> validators = new ConcurrentHashMap<>();
+
   public IPValidator() {
   }
 
@@ -42,8 +52,22 @@ public class IPValidator implements PreAuthValidator {
   public boolean validate(HttpServletRequest httpRequest, FilterConfig filterConfig)
       throws PreAuthValidationException {
     String ipParam = filterConfig.getInitParameter(IP_ADDRESSES_PARAM);
-    IpAddressValidator ipv = new IpAddressValidator(ipParam);
-    return ipv.validateIpAddress(httpRequest.getRemoteAddr());
+    return getIpAddressValidator(ipParam).validateIpAddress(httpRequest.getRemoteAddr());
+  }
+
+  private IpAddressValidator getIpAddressValidator(String ipParam) {
+    if (ipParam == null) {
+      return ANY_IP;
+    }
+    IpAddressValidator ipv = validators.get(ipParam);
+    if (ipv == null) {
+      ipv = new IpAddressValidator(ipParam);
+      IpAddressValidator existing = validators.putIfAbsent(ipParam, ipv);
+      if (existing != null) {
+        ipv = existing;
+      }
+    }
+    return ipv;
   }
 
   /**
@@ -19,11 +19,20 @@ package org.apache.hadoop.gateway.provider.federation;
 
 import junit.framework.TestCase;
 import org.apache.hadoop.gateway.preauth.filter.*;
+import org.apache.hadoop.gateway.security.GroupPrincipal;
 import org.junit.Test;
 
+import javax.security.auth.Subject;
+import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.security.AccessController;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -61,6 +70,58 @@ public class HeaderPreAuthFederationFilterTest extends TestCase {
     assertFalse(validator.validate(request, filterConfig));
   }
 
+  @Test
+  public void testIPValidatorRanges() throws ServletException, PreAuthValidationException {
+    HeaderPreAuthFederationFilter hpaff = new HeaderPreAuthFederationFilter();
+    final HttpServletRequest request = mock(HttpServletRequest.class);
+    final FilterConfig filterConfig = mock(FilterConfig.class);
+    when(filterConfig.getInitParameter(IPValidator.IP_ADDRESSES_PARAM)).thenReturn("10.1.0.0/16,fd00::/8");
+    when(filterConfig.getInitParameter(PreAuthService.VALIDATION_METHOD_PARAM)).thenReturn(IPValidator
+        .IP_VALIDATION_METHOD_VALUE);
+    hpaff.init(filterConfig);
+    PreAuthValidator validator = hpaff.getValidator();
+    when(request.getRemoteAddr()).thenReturn("10.1.23.42");
+    assertTrue(validator.validate(request, filterConfig));
+    when(request.getRemoteAddr()).thenReturn("fd00::42");
+    assertTrue(validator.validate(request, filterConfig));
+    when(request.getRemoteAddr()).thenReturn("10.2.23.42");
+    assertFalse(validator.validate(request, filterConfig));
+  }
+
+  @Test
+  public void testSubjectCache() throws Exception {
+    HeaderPreAuthFederationFilter hpaff = new HeaderPreAuthFederationFilter();
+    final FilterConfig filterConfig = mock(FilterConfig.class);
+    when(filterConfig.getInitParameter("preauth.custom.group.header")).thenReturn("SM_GROUPS");
+    when(filterConfig.getInitParameter("preauth.subject.cache.size")).thenReturn("10");
+    hpaff.init(filterConfig);
+
+    final List<Subject> subjects = new ArrayList<>();
+    FilterChain chain = new FilterChain() {
+      @Override
+      public void doFilter(ServletRequest request, ServletResponse response) {
+        subjects.add(Subject.getSubject(AccessController.getContext()));
+      }
+    };
+    hpaff.doFilter(createRequest("guest", "users,admins"), mock(HttpServletResponse.class), chain);
+    hpaff.doFilter(createRequest("guest", "users,admins"), mock(HttpServletResponse.class), chain);
+    hpaff.doFilter(createRequest("guest", "users"), mock(HttpServletResponse.class), chain);
+
+    assertEquals(3, subjects.size());
+    assertSame(subjects.get(0), subjects.get(1));
+    assertTrue(subjects.get(0).isReadOnly());
+    assertEquals(2, subjects.get(0).getPrincipals(GroupPrincipal.class).size());
+    assertNotSame(subjects.get(0), subjects.get(2));
+    assertEquals(1, subjects.get(2).getPrincipals(GroupPrincipal.class).size());
+  }
+
+  private static HttpServletRequest createRequest(String user, String groups) {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getHeader("SM_USER")).thenReturn(user);
+    when(request.getHeader("SM_GROUPS")).thenReturn(groups);
+    return request;
+  }
+
   @Test
   public void testCustomValidatorPositive() throws ServletException, PreAuthValidationException {
     HeaderPreAuthFederationFilter hpaff = new HeaderPreAuthFederationFilter();
@@ -53,7 +53,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
 
 /**
  *
@@ -208,7 +207,7 @@ public class GatewayFilter implements Filter {
     }
     String requestId = correlationContext.getRequestId();
     if( requestId == null ) {
-      correlationContext.setRequestId( UUID.randomUUID().toString() );
+      correlationContext.setRequestId( CorrelationServiceFactory.getIdGenerator().generateId() );
     }
   }
 
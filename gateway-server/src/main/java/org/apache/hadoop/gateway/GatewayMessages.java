@@ -80,6 +80,15 @@ public interface GatewayMessages {
   @Message( level = MessageLevel.INFO, text = "Deploying topology {0} to {1}" )
   void deployingTopology( String clusterName, String warDirName );
 
+  @Message( level = MessageLevel.INFO, text = "Deploying topology {0} in memory" )
+  void deployingTopologyInMemory( String clusterName );
+
+  @Message( level = MessageLevel.INFO, text = "Updating the URLs of service {1} in deployed topology {0}" )
+  void updatingServiceUrls( String clusterName, String serviceRole );
+
+  @Message( level = MessageLevel.INFO, text = "Deploying {0} topologies using {1} threads" )
+  void deployingTopologiesInParallel( int count, int threads );
+
   @Message( level = MessageLevel.DEBUG, text = "Deployed topology {0}." )
   void deployedTopology( String clusterName );
 
@@ -113,6 +122,15 @@ public interface GatewayMessages {
   @Message( level = MessageLevel.ERROR, text = "Failed to redeploy topologies: {0}" )
   void failedToRedeployTopologies( @StackTrace(level=MessageLevel.DEBUG) Throwable e );
 
+  @Message( level = MessageLevel.WARN, text = "Keeping the active deployment at {0} because its replacement failed to start" )
+  void keepingActiveDeployment( String contextPath );
+
+  @Message( level = MessageLevel.DEBUG, text = "Draining deployment {0} with {1} active requests" )
+  void drainingDeployment( String contextPath, int activeRequests );
+
+  @Message( level = MessageLevel.WARN, text = "Stopping deployment {0} with {1} requests still active after the drain timeout" )
+  void drainTimeoutExpired( String contextPath, int activeRequests );
+
   @Message( level = MessageLevel.ERROR, text = "Failed to undeploy topology {0}: {1}" )
   void failedToUndeployTopology( String name, @StackTrace(level=MessageLevel.DEBUG) Exception e );
 
@@ -218,8 +236,20 @@ public interface GatewayMessages {
   @Message( level = MessageLevel.ERROR, text = "Failed to load topology {0}: {1}")
   void failedToLoadTopology( String fileName, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
 
-  @Message( level = MessageLevel.ERROR, text = "Failed to load topology {0}, retrying after {1}ms: {2}")
-  void failedToLoadTopologyRetrying( String friendlyURI, String delay, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+  @Message( level = MessageLevel.WARN, text = "Keeping the previously loaded topology {0} until its file can be loaded" )
+  void keepingPreviousTopology( String fileName );
+
+  @Message( level = MessageLevel.WARN, text = "Unable to watch topology directory {0} for changes: {1}" )
+  void topologyDirectoryWatchUnavailable( String directory, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.WARN, text = "Topology directory {0} can no longer be watched for changes" )
+  void topologyDirectoryWatchLost( String directory );
+
+  @Message( level = MessageLevel.INFO, text = "Polling topology directory {0} for changes every {1}ms" )
+  void pollingTopologyDirectory( String directory, long interval );
+
+  @Message( level = MessageLevel.ERROR, text = "Failed to monitor topology directory {0}: {1}" )
+  void failedToMonitorTopologyDirectory( String directory, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
 
   @Message( level = MessageLevel.ERROR, text = "Failed to handle topology events: {0}" )
   void failedToHandleTopologyEvents( @StackTrace( level = MessageLevel.DEBUG ) Exception e );
@@ -295,6 +325,12 @@ public interface GatewayMessages {
 
   @Message( level = MessageLevel.ERROR, text = "Failed to get map from Json string {0}: {1}" )
   void failedToGetMapFromJsonString( String json, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.ERROR, text = "Failed to persist the service registry to {0}: {1}" )
+  void failedToPersistServiceRegistry( String fileName, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.WARN, text = "Dropped an incomplete record at the end of the service registry journal {0}: {1}" )
+  void droppedIncompleteRegistryJournalRecord( String fileName, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
   
   @Message( level = MessageLevel.DEBUG, text = "Successful Knox->Hadoop SPNegotiation authentication for URL: {0}" )
   void successfulSPNegoAuthn(String uri);
@@ -433,4 +469,16 @@ public interface GatewayMessages {
 
   @Message( level = MessageLevel.DEBUG, text = "Failed to stop metrics reporter {0}  : {1}" )
   void failedToStopReporter( String name,  @StackTrace( level = MessageLevel.DEBUG ) Exception e);
+
+  @Message( level = MessageLevel.INFO, text = "Delivering audit records asynchronously with queue size {0} and overflow policy {1}" )
+  void startedAsyncAudit( int queueSize, String policy );
+
+  @Message( level = MessageLevel.ERROR, text = "Failed to start asynchronous audit delivery, auditing synchronously : {0}" )
+  void failedToStartAsyncAudit( @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.ERROR, text = "Failed to create correlation id generator {0}, using the default : {1}" )
+  void failedToCreateCorrelationIdGenerator( String className, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.WARN, text = "Metric {0} is not exported to Prometheus, its name collides with metric {1}" )
+  void prometheusMetricNameCollision( String name, String other );
 }
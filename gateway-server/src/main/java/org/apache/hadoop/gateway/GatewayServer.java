@@ -27,20 +27,36 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -53,22 +69,32 @@ import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.gateway.audit.api.Action;
 import org.apache.hadoop.gateway.audit.api.ActionOutcome;
 import org.apache.hadoop.gateway.audit.api.AuditServiceFactory;
+import org.apache.hadoop.gateway.audit.api.CorrelationIdGenerator;
+import org.apache.hadoop.gateway.audit.api.CorrelationServiceFactory;
 import org.apache.hadoop.gateway.audit.api.Auditor;
 import org.apache.hadoop.gateway.audit.api.ResourceType;
 import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditDispatcher;
+import org.apache.hadoop.gateway.audit.log4j.audit.Log4jAuditService;
 import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.config.impl.GatewayConfigImpl;
+import org.apache.hadoop.gateway.deploy.ArchiveResource;
+import org.apache.hadoop.gateway.deploy.DeploymentContext;
 import org.apache.hadoop.gateway.deploy.DeploymentException;
 import org.apache.hadoop.gateway.deploy.DeploymentFactory;
 import org.apache.hadoop.gateway.filter.CorrelationHandler;
 import org.apache.hadoop.gateway.filter.DefaultTopologyHandler;
+import org.apache.hadoop.gateway.filter.TopologyRoutingHandler;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteServletContextListener;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.i18n.resources.ResourcesFactory;
 import org.apache.hadoop.gateway.services.GatewayServices;
 import org.apache.hadoop.gateway.services.registry.ServiceRegistry;
 import org.apache.hadoop.gateway.services.security.SSLService;
 import org.apache.hadoop.gateway.services.topology.TopologyService;
+import org.apache.hadoop.gateway.services.trace.TraceService;
 import org.apache.hadoop.gateway.topology.Application;
+import org.apache.hadoop.gateway.topology.Service;
 import org.apache.hadoop.gateway.topology.Topology;
 import org.apache.hadoop.gateway.topology.TopologyEvent;
 import org.apache.hadoop.gateway.topology.TopologyListener;
@@ -90,6 +116,7 @@ import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.server.handler.HandlerCollection;
 import org.eclipse.jetty.server.handler.RequestLogHandler;
+import org.eclipse.jetty.server.handler.StatisticsHandler;
 import org.eclipse.jetty.servlets.gzip.GzipHandler;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
@@ -97,6 +124,7 @@ import org.eclipse.jetty.webapp.Configuration;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.jboss.shrinkwrap.api.exporter.ExplodedExporter;
 import org.jboss.shrinkwrap.api.spec.EnterpriseArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -108,6 +136,8 @@ public class GatewayServer {
   private static final GatewayMessages log = MessagesFactory.get(GatewayMessages.class);
   private static final Auditor auditor = AuditServiceFactory.getAuditService().getAuditor(AuditConstants.DEFAULT_AUDITOR_NAME,
       AuditConstants.KNOX_SERVICE_NAME, AuditConstants.KNOX_COMPONENT_NAME);
+  private static final long DRAIN_POLL_INTERVAL = 100L;
+
   private static GatewayServer server;
   private static GatewayServices services;
 
@@ -115,10 +145,12 @@ public class GatewayServer {
 
   private Server jetty;
   private GatewayConfig config;
-  private ContextHandlerCollection contexts;
+  private TopologyRoutingHandler contexts;
   private TopologyService monitor;
   private TopologyListener listener;
   private Map<String, WebAppContext> deployments;
+  private Set<WebAppContext> draining;
+  private ScheduledExecutorService drainer;
 
   public static void main( String[] args ) {
     try {
@@ -292,6 +324,8 @@ public class GatewayServer {
       //KM]
       services.start();
       DeploymentFactory.setGatewayServices(services);
+      startAuditDispatch( config );
+      configureCorrelationIdGenerator( config );
       server.start();
       // Coverity CID 1352654
       URI uri = server.jetty.getURI();
@@ -300,6 +334,34 @@ public class GatewayServer {
     }
   }
 
+  private static void startAuditDispatch( GatewayConfig config ) {
+    int queueSize = config.getAuditQueueSize();
+    if( queueSize > 0 ) {
+      try {
+        AuditDispatcher.OverflowPolicy policy = AuditDispatcher.OverflowPolicy.parse( config.getAuditOverflowPolicy() );
+        File spillFile = new File( config.getGatewayDataDir(), "audit-spill" );
+        Log4jAuditService.startAsyncDispatch( queueSize, policy, spillFile );
+        log.startedAsyncAudit( queueSize, policy.name() );
+      } catch( IOException | IllegalArgumentException e ) {
+        log.failedToStartAsyncAudit( e );
+      }
+    }
+  }
+
+  private static void configureCorrelationIdGenerator( GatewayConfig config ) {
+    CorrelationIdGenerator generator = null;
+    String className = config.getCorrelationIdGenerator();
+    if( className != null && !className.trim().isEmpty() ) {
+      try {
+        generator = (CorrelationIdGenerator)GatewayServer.class.getClassLoader()
+            .loadClass( className.trim() ).newInstance();
+      } catch( ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e ) {
+        log.failedToCreateCorrelationIdGenerator( className, e );
+      }
+    }
+    CorrelationServiceFactory.setIdGenerator( generator );
+  }
+
   public GatewayServer( GatewayConfig config ) {
     this(config, null);
   }
@@ -351,8 +413,11 @@ public class GatewayServer {
     TraceHandler traceHandler = new TraceHandler();
     traceHandler.setHandler( contexts );
     traceHandler.setTracedBodyFilter( System.getProperty( "org.apache.knox.gateway.trace.body.status.filter" ) );
+    traceHandler.setTraceService( (TraceService)services.getService( GatewayServices.TRACE_SERVICE ) );
 
     CorrelationHandler correlationHandler = new CorrelationHandler();
+    correlationHandler.setAuditCoalescing( config.isAuditCoalescingEnabled() );
+    correlationHandler.setAcceptRequestHeaders( config.isCorrelationHeadersEnabled() );
     correlationHandler.setHandler( traceHandler );
 
     /* KNOX-732: Handler for GZip compression */
@@ -395,9 +460,12 @@ public class GatewayServer {
 
   private synchronized void start() throws Exception {
     // Create the global context handler.
-    contexts = new ContextHandlerCollection();
+    contexts = new TopologyRoutingHandler( config.getGatewayPath(), config.getTopologyVirtualHosts() );
      // A map to keep track of current deployments by cluster name.
     deployments = new ConcurrentHashMap<String, WebAppContext>();
+    // Replaced deployments that are completing their in-flight requests.
+    draining = Collections.newSetFromMap( new ConcurrentHashMap<WebAppContext, Boolean>() );
+    drainer = Executors.newSingleThreadScheduledExecutor( new DaemonThreadFactory( "gateway-drainer-" ) );
 
     // Start Jetty.
     jetty = new Server( new QueuedThreadPool( config.getThreadPoolMax() ) );
@@ -410,13 +478,6 @@ public class GatewayServer {
         "org.eclipse.jetty.webapp.JettyWebXmlConfiguration",
         "org.eclipse.jetty.annotations.AnnotationConfiguration" );
 
-    // Load the current topologies.
-    File topologiesDir = calculateAbsoluteTopologiesDir();
-    log.loadingTopologiesFromDirectory(topologiesDir.getAbsolutePath());
-    monitor = services.getService(GatewayServices.TOPOLOGY_SERVICE);
-    monitor.addTopologyChangeListener(listener);
-    monitor.reloadTopologies();
-
     try {
       jetty.start();
     }
@@ -425,6 +486,13 @@ public class GatewayServer {
       throw e;
     }
 
+    // Load the current topologies. Each one serves requests as soon as it is activated.
+    File topologiesDir = calculateAbsoluteTopologiesDir();
+    log.loadingTopologiesFromDirectory(topologiesDir.getAbsolutePath());
+    monitor = services.getService(GatewayServices.TOPOLOGY_SERVICE);
+    monitor.addTopologyChangeListener(listener);
+    monitor.reloadTopologies();
+
     cleanupTopologyDeployments();
 
     // Start the topology monitor.
@@ -436,8 +504,13 @@ public class GatewayServer {
     log.stoppingGateway();
     services.stop();
     monitor.stopMonitor();
+    drainer.shutdownNow();
     jetty.stop();
     jetty.join();
+    for( WebAppContext context : draining ) {
+      stopRetiredContext( context );
+    }
+    Log4jAuditService.stopAsyncDispatch();
     log.stoppedGateway();
   }
 
@@ -466,13 +539,37 @@ public class GatewayServer {
     return errorHandler;
   }
 
-  private WebAppContext createWebAppContext( Topology topology, File warFile, String warPath ) throws IOException, ZipException, TransformerException, SAXException, ParserConfigurationException {
+  private WebAppContext createWebAppContext( Topology topology, File warFile, String warPath ) {
+    WebAppContext context = createWebAppContext( topology, warPath );
+    context.setWar( warFile.getAbsolutePath() );
+    context.setTempDirectory( FileUtils.getFile( warFile, "META-INF", "temp" ) );
+    // A redeployed context shares this directory with the one it replaces, so stopping that one must not remove it.
+    context.setPersistTempDirectory( true );
+    return context;
+  }
+
+  private WebAppContext createWebAppContext( Topology topology, DeploymentContext deployment ) {
+    WebArchive war = deployment.getWebArchive();
+    WebAppContext context = createWebAppContext( topology, Urls.decode( war.getName() ) );
+    context.setBaseResource( new ArchiveResource( war ) );
+    // Unlike an exported archive nothing else holds this directory, so it is deleted when the context is stopped.
+    context.setTempDirectory( createContextTempDir( topology ) );
+    context.setPersistTempDirectory( false );
+    // Hand over the assembled descriptors so they are not parsed back from the archive.
+    context.setAttribute( GatewayServlet.GATEWAY_DESCRIPTOR_ATTRIBUTE, deployment.getGatewayDescriptor() );
+    Object rules = deployment.getDescriptor( "rewrite" );
+    if( rules != null ) {
+      context.setAttribute( UrlRewriteServletContextListener.DESCRIPTOR_ATTRIBUTE_NAME, rules );
+    }
+    return context;
+  }
+
+  private WebAppContext createWebAppContext( Topology topology, String warPath ) {
     String topoName = topology.getName();
     WebAppContext context = new WebAppContext();
     String contextPath;
     contextPath = "/" + Urls.trimLeadingAndTrailingSlashJoin( config.getGatewayPath(), topoName, warPath );
     context.setContextPath( contextPath );
-    context.setWar( warFile.getAbsolutePath() );
     context.setAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE, topoName );
     context.setAttribute( "org.apache.knox.gateway.frontend.uri", getFrontendUri( context, config ) );
     context.setAttribute( GatewayConfig.GATEWAY_CONFIG_ATTRIBUTE, config );
@@ -480,9 +577,10 @@ public class GatewayServer {
     context.setAttribute(
         "org.eclipse.jetty.server.webapp.ContainerIncludeJarPattern",
         ".*/[^/]*servlet-api-[^/]*\\.jar$|.*/javax.servlet.jsp.jstl-.*\\.jar$|.*/[^/]*taglibs.*\\.jar$" );
-    context.setTempDirectory( FileUtils.getFile( warFile, "META-INF", "temp" ) );
     context.setErrorHandler( createErrorHandler() );
     context.setInitParameter("org.eclipse.jetty.servlet.Default.dirAllowed", "false");
+    // Tracks in-flight requests so a replaced deployment can be drained before it is stopped.
+    context.insertHandler( new StatisticsHandler() );
     return context;
   }
 
@@ -525,7 +623,7 @@ public class GatewayServer {
     }
   }
 
-  private synchronized void internalDeployApplications( Topology topology, File topoDir ) throws IOException, ZipException, ParserConfigurationException, TransformerException, SAXException {
+  private void internalDeployApplications( Topology topology, File topoDir ) throws IOException, ZipException, ParserConfigurationException, TransformerException, SAXException {
     if( topology != null ) {
       Collection<Application> applications = topology.getApplications();
       if( applications != null ) {
@@ -543,7 +641,7 @@ public class GatewayServer {
     }
   }
 
-  private synchronized void internalDeployApplication( Topology topology, File topoDir, Application application, String url ) throws IOException, ZipException, TransformerException, SAXException, ParserConfigurationException {
+  private void internalDeployApplication( Topology topology, File topoDir, Application application, String url ) throws IOException, ZipException, TransformerException, SAXException, ParserConfigurationException {
     File appsDir = new File( config.getGatewayApplicationsDir() );
     File appDir = new File( appsDir, application.getName() );
     File[] implFiles = appDir.listFiles( new RegexFilenameFilter( "app|app\\..*" ) );
@@ -560,97 +658,223 @@ public class GatewayServer {
 
   private synchronized void internalActivateTopology( Topology topology, File topoDir ) throws IOException, ZipException, ParserConfigurationException, TransformerException, SAXException {
     log.activatingTopology( topology.getName() );
+    List<WebAppContext> archives = new ArrayList<WebAppContext>();
     File[] files = topoDir.listFiles( new RegexFilenameFilter( "%.*" ) );
     if( files != null ) {
       for( File file : files ) {
-        internalActivateArchive( topology, file );
+        log.activatingTopologyArchive( topology.getName(), file.getName() );
+        archives.add( createWebAppContext( topology, file, Urls.decode( file.getName() ) ) );
       }
     }
+    internalActivateContexts( topology, archives );
   }
 
-  private synchronized void internalActivateArchive( Topology topology, File warDir ) throws IOException, ZipException, ParserConfigurationException, TransformerException, SAXException {
-    log.activatingTopologyArchive( topology.getName(), warDir.getName() );
+  private synchronized void internalActivateTopology( Topology topology, List<DeploymentContext> assembled ) {
+    log.activatingTopology( topology.getName() );
+    List<WebAppContext> archives = new ArrayList<WebAppContext>();
+    for( DeploymentContext deployment : assembled ) {
+      log.activatingTopologyArchive( topology.getName(), deployment.getWebArchive().getName() );
+      archives.add( createWebAppContext( topology, deployment ) );
+    }
+    internalActivateContexts( topology, archives );
+  }
+
+  private synchronized void internalActivateContexts( Topology topology, List<WebAppContext> archives ) {
+    Set<String> active = new HashSet<String>();
+    for( WebAppContext archive : archives ) {
+      String contextPath = internalActivateArchive( topology, archive );
+      if( contextPath != null ) {
+        active.add( contextPath );
+      }
+    }
+    // Retire the contexts of a previous deployment that are not part of this one (KNOX-152).
+    for( WebAppContext context : findTopologyContexts( topology ) ) {
+      if( !active.contains( context.getContextPath() ) ) {
+        deployments.remove( context.getContextPath() );
+        swapContext( context, null );
+        retireContext( topology, context );
+      }
+    }
+  }
+
+  /**
+   * Starts the context for an archive off to the side and then replaces any context deployed at the same path
+   * in a single routing update. The replaced context is drained rather than stopped so in-flight requests complete.
+   * A replacement that fails to start leaves the current context in place.
+   * @return The path of the context serving the archive after activation or null if there is none.
+   */
+  private synchronized String internalActivateArchive( Topology topology, WebAppContext newContext ) {
     try {
-      WebAppContext newContext = createWebAppContext( topology, warDir, Urls.decode( warDir.getName() ) );
-      WebAppContext oldContext = deployments.get( newContext.getContextPath() );
-      deployments.put( newContext.getContextPath(), newContext );
-      if( oldContext != null ) {
-        contexts.removeHandler( oldContext );
+      String contextPath = newContext.getContextPath();
+      WebAppContext oldContext = deployments.get( contextPath );
+      if( contexts.isRunning() ) {
+        newContext.setServer( jetty );
+        newContext.start();
+        if( !newContext.isAvailable() && oldContext != null ) {
+          log.keepingActiveDeployment( contextPath );
+          stopRetiredContext( newContext );
+          auditor.audit( Action.DEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.FAILURE );
+          return contextPath;
+        }
       }
-      contexts.addHandler( newContext );
-      if( contexts.isRunning() && !newContext.isRunning() ) {
-          newContext.start();
+      deployments.put( contextPath, newContext );
+      swapContext( oldContext, newContext );
+      if( oldContext != null ) {
+        retireContext( topology, oldContext );
       }
+      return contextPath;
     } catch( Exception e ) {
       auditor.audit( Action.DEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.FAILURE );
       log.failedToDeployTopology( topology.getName(), e );
+      return null;
     }
   }
 
-  private synchronized void internalDeactivateTopology( Topology topology ) {
-
-    log.deactivatingTopology( topology.getName() );
+  /**
+   * Replaces one context with another in the routing table. Either may be null.
+   * Routing switches with a single update so requests never find the path unmapped.
+   */
+  private void swapContext( WebAppContext oldContext, WebAppContext newContext ) {
+    if( oldContext != null ) {
+      // Otherwise the collection stops the context as soon as it is removed.
+      contexts.unmanage( oldContext );
+    }
+    List<Handler> handlers = new ArrayList<Handler>();
+    Handler[] current = contexts.getHandlers();
+    if( current != null ) {
+      for( Handler handler : current ) {
+        if( handler != oldContext ) {
+          handlers.add( handler );
+        }
+      }
+    }
+    if( newContext != null ) {
+      handlers.add( newContext );
+    }
+    contexts.setHandlers( handlers.toArray( new Handler[ handlers.size() ] ) );
+    contexts.swapRoute( oldContext, newContext );
+    if( newContext != null ) {
+      // A context that was started before being added is not otherwise stopped with the server.
+      contexts.manage( newContext );
+    }
+  }
 
-    String topoName = topology.getName();
-    String topoPath = "/" + Urls.trimLeadingAndTrailingSlashJoin( config.getGatewayPath(), topoName );
-    String topoPathSlash = topoPath + "/";
+  /**
+   * Stops a context that no longer receives requests once its in-flight requests complete
+   * or the drain timeout expires.
+   */
+  private void retireContext( final Topology topology, final WebAppContext context ) {
+    final StatisticsHandler stats = context.getChildHandlerByClass( StatisticsHandler.class );
+    final long deadline = System.currentTimeMillis() + config.getGatewayDeploymentDrainTimeout();
+    draining.add( context );
+    Runnable drain = new Runnable() {
+      @Override
+      public void run() {
+        int active = ( stats == null ) ? 0 : stats.getRequestsActive();
+        if( active > 0 && System.currentTimeMillis() < deadline ) {
+          drainer.schedule( this, DRAIN_POLL_INTERVAL, TimeUnit.MILLISECONDS );
+          return;
+        }
+        if( active > 0 ) {
+          log.drainTimeoutExpired( context.getContextPath(), active );
+        }
+        if( !stopRetiredContext( context ) ) {
+          auditor.audit( Action.UNDEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.FAILURE );
+        }
+      }
+    };
+    try {
+      log.drainingDeployment( context.getContextPath(), ( stats == null ) ? 0 : stats.getRequestsActive() );
+      drainer.execute( drain );
+    } catch( RejectedExecutionException e ) {
+      // The gateway is stopping.
+      stopRetiredContext( context );
+    }
+  }
 
-    ServiceRegistry sr = getGatewayServices().getService(GatewayServices.SERVICE_REGISTRY_SERVICE);
-    if (sr != null) {
-      sr.removeClusterServices( topoName );
+  private boolean stopRetiredContext( WebAppContext context ) {
+    draining.remove( context );
+    File tempDir = context.getTempDirectory();
+    try {
+      context.stop();
+      return true;
+    } catch( Exception e ) {
+      log.failedToUndeployTopology( (String)context.getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE ), e );
+      return false;
+    } finally {
+      // Jetty only deletes it when the context stops cleanly.
+      if( tempDir != null && !context.isPersistTempDirectory() ) {
+        FileUtils.deleteQuietly( tempDir );
+      }
     }
+  }
 
-    // Find all the deployed contexts we need to deactivate.
-    List<WebAppContext> deactivate = new ArrayList<WebAppContext>();
+  private List<WebAppContext> findTopologyContexts( Topology topology ) {
+    String topoPath = "/" + Urls.trimLeadingAndTrailingSlashJoin( config.getGatewayPath(), topology.getName() );
+    String topoPathSlash = topoPath + "/";
+    List<WebAppContext> found = new ArrayList<WebAppContext>();
     if( deployments != null ) {
       for( WebAppContext app : deployments.values() ) {
         String appPath = app.getContextPath();
         if( appPath.equals( topoPath ) || appPath.startsWith( topoPathSlash ) ) {
-          deactivate.add( app );
+          found.add( app );
         }
       }
     }
-    // Deactivate the required deployed contexts.
-    for( WebAppContext context : deactivate ) {
-      String contextPath = context.getContextPath();
-      deployments.remove( contextPath );
-      contexts.removeHandler( context );
-      try {
-        context.stop();
-      } catch( Exception e ) {
-        auditor.audit(Action.UNDEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.FAILURE);
-        log.failedToUndeployTopology( topology.getName(), e );
-      }
+    return found;
+  }
+
+  private synchronized void internalDeactivateTopology( Topology topology ) {
+
+    log.deactivatingTopology( topology.getName() );
+
+    // Unmap all the deployed contexts of the topology and drain them.
+    for( WebAppContext context : findTopologyContexts( topology ) ) {
+      deployments.remove( context.getContextPath() );
+      swapContext( context, null );
+      retireContext( topology, context );
     }
-    deactivate.clear();
 
   }
 
+  private void removeClusterServices( Topology topology ) {
+    ServiceRegistry sr = getGatewayServices().getService(GatewayServices.SERVICE_REGISTRY_SERVICE);
+    if (sr != null) {
+      sr.removeClusterServices( topology.getName() );
+    }
+  }
+
   // Using an inner class to hide the handleTopologyEvent method from consumers of GatewayServer.
   private class InternalTopologyListener implements TopologyListener {
 
     @Override
     public void handleTopologyEvent( List<TopologyEvent> events ) {
       synchronized ( GatewayServer.this ) {
+        File deployDir = calculateAbsoluteDeploymentsDir();
+        List<Topology> created = new ArrayList<Topology>();
         for( TopologyEvent event : events ) {
           Topology topology = event.getTopology();
-          File deployDir = calculateAbsoluteDeploymentsDir();
           if( event.getType().equals( TopologyEvent.Type.DELETED ) ) {
             handleDeleteDeployment(topology, deployDir);
-          } else {
-            handleCreateDeployment(topology, deployDir);
+          } else if( event.getChangedServices() == null || !handleServiceUrlChanges(topology, event.getChangedServices()) ) {
+            created.add( topology );
           }
         }
+        handleCreateDeployments(created, deployDir);
       }
     }
 
     private void handleDeleteDeployment(Topology topology, File deployDir) {
       log.deletingTopology( topology.getName() );
       File[] files = deployDir.listFiles( new RegexFilenameFilter( topology.getName() + "\\.(war|topo)\\.[0-9A-Fa-f]+" ) );
-      if( files != null ) {
+      // Without an exported deployment the deployments directory may not even exist.
+      if( files != null || !findTopologyContexts( topology ).isEmpty() ) {
         auditor.audit(Action.UNDEPLOY, topology.getName(), ResourceType.TOPOLOGY,
           ActionOutcome.UNAVAILABLE);
+        removeClusterServices( topology );
         internalDeactivateTopology( topology );
+      }
+      if( files != null ) {
         for( File file : files ) {
           log.deletingDeployment( file.getAbsolutePath() );
           FileUtils.deleteQuietly( file );
@@ -658,10 +882,87 @@ public class GatewayServer {
       }
     }
 
-    private void handleCreateDeployment(Topology topology, File deployDir) {
+    /**
+     * Points the running deployment of a topology at the new URLs of some of its services.
+     * Dispatches, rewrite functions and HA providers take service URLs from the service registry,
+     * so registering the new URLs keeps the deployment with its filters and connection pools.
+     */
+    private boolean handleServiceUrlChanges(Topology topology, Collection<Service> services) {
+      ServiceRegistry sr = getGatewayServices().getService(GatewayServices.SERVICE_REGISTRY_SERVICE);
+      if( sr == null || findTopologyContexts( topology ).isEmpty() ) {
+        return false;
+      }
+      for( Service service : services ) {
+        log.updatingServiceUrls( topology.getName(), service.getRole() );
+        String regCode = sr.getRegistrationCode( topology.getName() );
+        if( !sr.registerService( regCode, topology.getName(), service.getRole(), service.getUrls() ) ) {
+          return false;
+        }
+      }
+      auditor.audit( Action.REDEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.SUCCESS );
+      return true;
+    }
+
+    /**
+     * Assembles the deployments of several topologies in parallel and activates each one
+     * as soon as it is ready. Only the activation, which changes the deployed handlers, is serialized.
+     */
+    private void handleCreateDeployments(List<Topology> topologies, final File deployDir) {
+      int threads = Math.min( config.getGatewayDeploymentThreads(), topologies.size() );
+      if( threads <= 1 ) {
+        for( Topology topology : topologies ) {
+          activateDeployment( prepareDeployment( topology, deployDir ), deployDir );
+        }
+        return;
+      }
+      log.deployingTopologiesInParallel( topologies.size(), threads );
+      ExecutorService executor = Executors.newFixedThreadPool( threads, new DaemonThreadFactory( "gateway-deployer-" ) );
+      try {
+        CompletionService<PreparedDeployment> completion = new ExecutorCompletionService<PreparedDeployment>( executor );
+        Map<Future<PreparedDeployment>, Topology> submitted = new HashMap<>();
+        for( final Topology topology : topologies ) {
+          submitted.put( completion.submit( new Callable<PreparedDeployment>() {
+            @Override
+            public PreparedDeployment call() {
+              return prepareDeployment( topology, deployDir );
+            }
+          } ), topology );
+        }
+        for( int i = 0; i < topologies.size(); i++ ) {
+          Future<PreparedDeployment> future;
+          try {
+            future = completion.take();
+          } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+          try {
+            activateDeployment( future.get(), deployDir );
+          } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            break;
+          } catch( ExecutionException e ) {
+            // prepareDeployment reports its own failures, this only catches what escapes it
+            log.failedToDeployTopology( submitted.get( future ).getName(), e.getCause() );
+          }
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+    /**
+     * Assembles and exports the deployment of a topology. Runs concurrently for different topologies:
+     * each writes only its own deployment directory, and DeploymentFactory publishes its service
+     * contributors as immutable snapshots that are read without locking.
+     */
+    private PreparedDeployment prepareDeployment(Topology topology, File deployDir) {
+      PreparedDeployment deployment = new PreparedDeployment( topology, calculateDeploymentDir( topology ) );
       try {
-        File topoDir = calculateDeploymentDir( topology );
-        if( !topoDir.exists() ) {
+        File topoDir = deployment.topoDir;
+        // Applications carry classes and JSPs so topologies hosting them are always exported.
+        boolean inMemory = config.isInMemoryDeploymentEnabled() && topology.getApplications().isEmpty();
+        if( inMemory || !topoDir.exists() ) {
           auditor.audit( Action.DEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.UNAVAILABLE );
 
 //          KNOX-564 - Topology should fail to deploy with no providers configured.
@@ -670,11 +971,17 @@ public class GatewayServer {
             throw new DeploymentException("No providers found inside topology.");
           }
 
-          log.deployingTopology( topology.getName(), topoDir.getAbsolutePath() );
-          internalDeactivateTopology( topology ); // KNOX-152
+          // Services register themselves while the deployment is assembled, so drop stale registrations first.
+          removeClusterServices( topology );
+          if( inMemory ) {
+            log.deployingTopologyInMemory( topology.getName() );
+            deployment.assembled = DeploymentFactory.createDeploymentContexts( config, topology );
+            return deployment;
+          }
 
+          log.deployingTopology( topology.getName(), topoDir.getAbsolutePath() );
           EnterpriseArchive ear = DeploymentFactory.createDeployment( config, topology );
-          if( !deployDir.exists() && !deployDir.mkdirs() ) {
+          if( !deployDir.exists() && !deployDir.mkdirs() && !deployDir.exists() ) {
             throw new DeploymentException( "Failed to create topology deployment temporary directory: " + deployDir.getAbsolutePath() );
           }
           File tmp = ear.as( ExplodedExporter.class ).exportExploded( deployDir, topoDir.getName() + ".tmp" );
@@ -683,12 +990,31 @@ public class GatewayServer {
             throw new DeploymentException( "Failed to create topology deployment directory: " + topoDir.getAbsolutePath() );
           }
           internalDeployApplications( topology, topoDir );
-          internalActivateTopology( topology, topoDir );
+        } else {
+          deployment.redeploy = true;
+        }
+      } catch( Throwable e ) {
+        deployment.failure = e;
+      }
+      return deployment;
+    }
+
+    private void activateDeployment(PreparedDeployment deployment, File deployDir) {
+      Topology topology = deployment.topology;
+      try {
+        if( deployment.failure != null ) {
+          throw deployment.failure;
+        }
+        if( deployment.assembled != null ) {
+          internalActivateTopology( topology, deployment.assembled );
+          log.deployedTopology( topology.getName());
+        } else if( !deployment.redeploy ) {
+          internalActivateTopology( topology, deployment.topoDir );
           log.deployedTopology( topology.getName());
         } else {
           auditor.audit( Action.REDEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.UNAVAILABLE );
-          log.redeployingTopology( topology.getName(), topoDir.getAbsolutePath() );
-          internalActivateTopology( topology, topoDir );
+          log.redeployingTopology( topology.getName(), deployment.topoDir.getAbsolutePath() );
+          internalActivateTopology( topology, deployment.topoDir );
           log.redeployedTopology( topology.getName() );
         }
         cleanupTopologyDeployments( deployDir, topology );
@@ -700,6 +1026,43 @@ public class GatewayServer {
 
   }
 
+  private static class PreparedDeployment {
+    private final Topology topology;
+    private final File topoDir;
+    private List<DeploymentContext> assembled;
+    private boolean redeploy;
+    private Throwable failure;
+
+    private PreparedDeployment( Topology topology, File topoDir ) {
+      this.topology = topology;
+      this.topoDir = topoDir;
+    }
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+    private final String prefix;
+
+    private DaemonThreadFactory( String prefix ) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread( Runnable runnable ) {
+      Thread thread = new Thread( runnable, prefix + count.incrementAndGet() );
+      thread.setDaemon( true );
+      return thread;
+    }
+  }
+
+  private File createContextTempDir( Topology topology ) {
+    try {
+      return Files.createTempDirectory( topology.getName() + ".mem." ).toFile();
+    } catch( IOException e ) {
+      throw new DeploymentException( "Failed to create context temporary directory for topology: " + topology.getName(), e );
+    }
+  }
+
   private File createArchiveTempDir( File warDir ) {
     File tempDir = FileUtils.getFile( warDir, "META-INF", "temp" );
     if( !tempDir.exists() && !tempDir.mkdirs() ) {
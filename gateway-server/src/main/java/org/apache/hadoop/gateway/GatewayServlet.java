@@ -53,6 +53,7 @@ public class GatewayServlet implements Servlet, Filter {
 
   public static final String GATEWAY_DESCRIPTOR_LOCATION_DEFAULT = "gateway.xml";
   public static final String GATEWAY_DESCRIPTOR_LOCATION_PARAM = "gatewayDescriptorLocation";
+  public static final String GATEWAY_DESCRIPTOR_ATTRIBUTE = GatewayDescriptor.class.getName();
 
   private static final GatewayResources res = ResourcesFactory.get( GatewayResources.class );
   private static final GatewayMessages LOG = MessagesFactory.get( GatewayMessages.class );
@@ -205,15 +206,26 @@ public class GatewayServlet implements Servlet, Filter {
   }
 
   private static GatewayFilter createFilter( InputStream stream, ServletContext servletContext ) throws ServletException {
-    try {
-      GatewayFilter filter = null;
-      if( stream != null ) {
+    GatewayDescriptor descriptor = null;
+    if( stream != null ) {
+      try {
         try {
-          GatewayDescriptor descriptor = GatewayDescriptorFactory.load( "xml", new InputStreamReader( stream ) );
-          filter = GatewayFactory.create( descriptor );
+          descriptor = GatewayDescriptorFactory.load( "xml", new InputStreamReader( stream ) );
         } finally {
           stream.close();
         }
+      } catch( IOException e ) {
+        throw new ServletException( e );
+      }
+    }
+    return createFilter( descriptor, servletContext );
+  }
+
+  private static GatewayFilter createFilter( GatewayDescriptor descriptor, ServletContext servletContext ) throws ServletException {
+    try {
+      GatewayFilter filter = null;
+      if( descriptor != null ) {
+        filter = GatewayFactory.create( descriptor );
       }
       GatewayConfig gatewayConfig = (GatewayConfig) servletContext.getAttribute(GatewayConfig.GATEWAY_CONFIG_ATTRIBUTE);
       if (gatewayConfig.isMetricsEnabled()) {
@@ -227,14 +239,17 @@ public class GatewayServlet implements Servlet, Filter {
         }
       }
       return filter;
-    } catch( IOException e ) {
-      throw new ServletException( e );
     } catch( URISyntaxException e ) {
       throw new ServletException( e );
     }
   }
 
   private static GatewayFilter createFilter( FilterConfig filterConfig ) throws ServletException {
+    // A deployment activated from memory provides the descriptor itself.
+    Object descriptor = filterConfig.getServletContext().getAttribute( GATEWAY_DESCRIPTOR_ATTRIBUTE );
+    if( descriptor instanceof GatewayDescriptor ) {
+      return createFilter( (GatewayDescriptor)descriptor, filterConfig.getServletContext() );
+    }
     GatewayFilter filter;
     InputStream stream;
     String location = filterConfig.getInitParameter( GATEWAY_DESCRIPTOR_LOCATION_PARAM );
@@ -251,6 +266,11 @@ public class GatewayServlet implements Servlet, Filter {
   }
 
   private static GatewayFilter createFilter( ServletConfig servletConfig ) throws ServletException {
+    // A deployment activated from memory provides the descriptor itself.
+    Object descriptor = servletConfig.getServletContext().getAttribute( GATEWAY_DESCRIPTOR_ATTRIBUTE );
+    if( descriptor instanceof GatewayDescriptor ) {
+      return createFilter( (GatewayDescriptor)descriptor, servletConfig.getServletContext() );
+    }
     GatewayFilter filter;
     InputStream stream;
     String location = servletConfig.getInitParameter( GATEWAY_DESCRIPTOR_LOCATION_PARAM );
@@ -33,6 +33,7 @@ import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -106,6 +107,20 @@ public class GatewayConfigImpl extends Configuration implements GatewayConfig {
   public static final String HTTP_PORT = GATEWAY_CONFIG_FILE_PREFIX + ".port";
   public static final String HTTP_PATH = GATEWAY_CONFIG_FILE_PREFIX + ".path";
   public static final String DEPLOYMENT_DIR = GATEWAY_CONFIG_FILE_PREFIX + ".deployment.dir";
+  public static final String DEPLOYMENT_THREADS = GATEWAY_CONFIG_FILE_PREFIX + ".deployment.threads";
+  public static final String DEPLOYMENT_DRAIN_TIMEOUT = GATEWAY_CONFIG_FILE_PREFIX + ".deployment.drain.timeout";
+  public static final String DEPLOYMENT_IN_MEMORY = GATEWAY_CONFIG_FILE_PREFIX + ".deployment.in.memory";
+  public static final String TOPOLOGY_MONITOR_POLLING = GATEWAY_CONFIG_FILE_PREFIX + ".topology.monitor.polling.enabled";
+  public static final String TOPOLOGY_VIRTUAL_HOSTS = GATEWAY_CONFIG_FILE_PREFIX + ".topology.virtual.hosts";
+  public static final String TRACE_SAMPLE_RATE = GATEWAY_CONFIG_FILE_PREFIX + ".trace.sample.rate";
+  public static final String TRACE_SAMPLE_PATHS = GATEWAY_CONFIG_FILE_PREFIX + ".trace.sample.paths";
+  public static final String TRACE_SAMPLE_BUFFER_SIZE = GATEWAY_CONFIG_FILE_PREFIX + ".trace.sample.buffer.size";
+  public static final String TRACE_SAMPLE_BODY_LIMIT = GATEWAY_CONFIG_FILE_PREFIX + ".trace.sample.body.limit";
+  public static final String AUDIT_QUEUE_SIZE = GATEWAY_CONFIG_FILE_PREFIX + ".audit.queue.size";
+  public static final String AUDIT_OVERFLOW_POLICY = GATEWAY_CONFIG_FILE_PREFIX + ".audit.overflow.policy";
+  public static final String AUDIT_COALESCING = GATEWAY_CONFIG_FILE_PREFIX + ".audit.coalescing.enabled";
+  public static final String CORRELATION_ID_GENERATOR = GATEWAY_CONFIG_FILE_PREFIX + ".correlation.id.generator";
+  public static final String CORRELATION_HEADERS_ENABLED = GATEWAY_CONFIG_FILE_PREFIX + ".correlation.headers.enabled";
   public static final String SECURITY_DIR = GATEWAY_CONFIG_FILE_PREFIX + ".security.dir";
   public static final String DATA_DIR = GATEWAY_CONFIG_FILE_PREFIX + ".data.dir";
   public static final String STACKS_SERVICES_DIR = GATEWAY_CONFIG_FILE_PREFIX + ".services.dir";
@@ -136,6 +151,9 @@ public class GatewayConfigImpl extends Configuration implements GatewayConfig {
   public static final String GRAPHITE_METRICS_REPORTING_HOST = GATEWAY_CONFIG_FILE_PREFIX + ".graphite.metrics.reporting.host";
   public static final String GRAPHITE_METRICS_REPORTING_PORT = GATEWAY_CONFIG_FILE_PREFIX + ".graphite.metrics.reporting.port";
   public static final String GRAPHITE_METRICS_REPORTING_FREQUENCY = GATEWAY_CONFIG_FILE_PREFIX + ".graphite.metrics.reporting.frequency";
+  public static final String PROMETHEUS_METRICS_REPORTING_ENABLED = GATEWAY_CONFIG_FILE_PREFIX + ".prometheus.metrics.reporting.enabled";
+  public static final String PROMETHEUS_METRICS_REPORTING_HOST = GATEWAY_CONFIG_FILE_PREFIX + ".prometheus.metrics.reporting.host";
+  public static final String PROMETHEUS_METRICS_REPORTING_PORT = GATEWAY_CONFIG_FILE_PREFIX + ".prometheus.metrics.reporting.port";
 
   /* @since 0.10 Websocket config variables */
   public static final String WEBSOCKET_FEATURE_ENABLED =  GATEWAY_CONFIG_FILE_PREFIX + ".websocket.feature.enabled";
@@ -663,6 +681,15 @@ public class GatewayConfigImpl extends Configuration implements GatewayConfig {
     return get(SIGNING_KEY_ALIAS);
   }
 
+  @Override
+  public List<String> getSigningKeyPreviousAliases() {
+    String value = get( SIGNING_KEY_PREVIOUS_ALIASES );
+    if ( value != null && !value.trim().isEmpty() ) {
+      return Arrays.asList( value.trim().split("\\s*,\\s*") );
+    }
+    return new ArrayList<String>();
+  }
+
   @Override
   public List<String> getGlobalRulesServices() {
     String value = get( GLOBAL_RULES_SERVICES );
@@ -708,6 +735,24 @@ public class GatewayConfigImpl extends Configuration implements GatewayConfig {
     return i;
   }
 
+  @Override
+  public boolean isPrometheusMetricsReportingEnabled() {
+    String enabled = get( PROMETHEUS_METRICS_REPORTING_ENABLED, "false" );
+    return "true".equals(enabled);
+  }
+
+  @Override
+  public String getPrometheusHost() {
+    String host = get( PROMETHEUS_METRICS_REPORTING_HOST, "localhost" );
+    return host;
+  }
+
+  @Override
+  public int getPrometheusPort() {
+    int i = getInt( PROMETHEUS_METRICS_REPORTING_PORT, 5556 );
+    return i;
+  }
+
   /* (non-Javadoc)
    * @see org.apache.hadoop.gateway.config.GatewayConfig#isWebsocketEnabled()
    */
@@ -789,6 +834,94 @@ public class GatewayConfigImpl extends Configuration implements GatewayConfig {
     return mimeTypes;
   }
 
+  @Override
+  public int getGatewayDeploymentThreads() {
+    int i = getInt( DEPLOYMENT_THREADS, Math.min( Runtime.getRuntime().availableProcessors(), 8 ) );
+    return i;
+  }
+
+  @Override
+  public long getGatewayDeploymentDrainTimeout() {
+    return getLong( DEPLOYMENT_DRAIN_TIMEOUT, 30000L );
+  }
+
+  @Override
+  public boolean isInMemoryDeploymentEnabled() {
+    return getBoolean( DEPLOYMENT_IN_MEMORY, false );
+  }
+
+  @Override
+  public boolean isTopologyMonitorPollingEnabled() {
+    return getBoolean( TOPOLOGY_MONITOR_POLLING, false );
+  }
+
+  /**
+   * Parses a comma separated list of host=topology pairs.
+   */
+  @Override
+  public Map<String, String> getTopologyVirtualHosts() {
+    Map<String, String> hosts = new HashMap<String, String>();
+    String value = get( TOPOLOGY_VIRTUAL_HOSTS );
+    if ( value != null && !value.trim().isEmpty() ) {
+      for ( String mapping : value.trim().split("\\s*,\\s*") ) {
+        String[] parts = mapping.split("\\s*=\\s*", 2);
+        if ( parts.length == 2 && !parts[0].isEmpty() && !parts[1].isEmpty() ) {
+          hosts.put( parts[0], parts[1] );
+        }
+      }
+    }
+    return hosts;
+  }
+
+  @Override
+  public int getTraceSampleRate() {
+    return getInt( TRACE_SAMPLE_RATE, 0 );
+  }
+
+  @Override
+  public List<String> getTraceSamplePaths() {
+    String value = get( TRACE_SAMPLE_PATHS );
+    if ( value != null && !value.trim().isEmpty() ) {
+      return Arrays.asList( value.trim().split("\\s*,\\s*") );
+    }
+    return new ArrayList<String>();
+  }
+
+  @Override
+  public int getTraceSampleBufferSize() {
+    return getInt( TRACE_SAMPLE_BUFFER_SIZE, 100 );
+  }
+
+  @Override
+  public int getTraceSampleBodyLimit() {
+    return getInt( TRACE_SAMPLE_BODY_LIMIT, 1024 );
+  }
+
+  @Override
+  public int getAuditQueueSize() {
+    return getInt( AUDIT_QUEUE_SIZE, 0 );
+  }
+
+  @Override
+  public String getAuditOverflowPolicy() {
+    return get( AUDIT_OVERFLOW_POLICY, "block" );
+  }
+
+  @Override
+  public boolean isAuditCoalescingEnabled() {
+    return getBoolean( AUDIT_COALESCING, false );
+  }
+
+  @Override
+  public String getCorrelationIdGenerator() {
+    return get( CORRELATION_ID_GENERATOR );
+  }
+
+  @Override
+  public boolean isCorrelationHeadersEnabled() {
+    return getBoolean( CORRELATION_HEADERS_ENABLED, true );
+  }
+
   private static long parseNetworkTimeout(String s ) {
     PeriodFormatter f = new PeriodFormatterBuilder()
         .appendMinutes().appendSuffix("m"," min")
@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.deploy;
+
+import org.eclipse.jetty.util.URIUtil;
+import org.eclipse.jetty.util.resource.Resource;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read only Jetty resource backed by an assembled deployment archive.
+ * This allows a web application to be served straight from memory without exporting the archive to disk.
+ */
+public class ArchiveResource extends Resource {
+
+  public static final String URL_PROTOCOL = "deployment";
+
+  private final Archive<?> archive;
+  private final String path;
+  private final long lastModified;
+  private final URLStreamHandler handler;
+
+  public ArchiveResource( Archive<?> archive ) {
+    this( archive, "/", System.currentTimeMillis(), new ArchiveUrlStreamHandler( archive ) );
+  }
+
+  private ArchiveResource( Archive<?> archive, String path, long lastModified, URLStreamHandler handler ) {
+    this.archive = archive;
+    this.path = path;
+    this.lastModified = lastModified;
+    this.handler = handler;
+  }
+
+  private Node getNode() {
+    return archive.get( path );
+  }
+
+  private Asset getAsset() {
+    Node node = getNode();
+    return node == null ? null : node.getAsset();
+  }
+
+  @Override
+  public boolean isContainedIn( Resource resource ) throws MalformedURLException {
+    return false;
+  }
+
+  @Override
+  public void close() {
+    // Nothing is held open.
+  }
+
+  @Override
+  public boolean exists() {
+    return getNode() != null;
+  }
+
+  @Override
+  public boolean isDirectory() {
+    Node node = getNode();
+    return node != null && node.getAsset() == null;
+  }
+
+  @Override
+  public long lastModified() {
+    return exists() ? lastModified : -1;
+  }
+
+  @Override
+  public long length() {
+    Asset asset = getAsset();
+    if( asset == null ) {
+      return -1;
+    }
+    long length = 0;
+    try {
+      InputStream stream = asset.openStream();
+      try {
+        byte[] buffer = new byte[ 4096 ];
+        for( int n = stream.read( buffer ); n >= 0; n = stream.read( buffer ) ) {
+          length += n;
+        }
+      } finally {
+        stream.close();
+      }
+    } catch( IOException e ) {
+      return -1;
+    }
+    return length;
+  }
+
+  @Override
+  public URL getURL() {
+    try {
+      return new URL( null, URL_PROTOCOL + ":" + archive.getName() + path, handler );
+    } catch( MalformedURLException e ) {
+      throw new IllegalStateException( e );
+    }
+  }
+
+  @Override
+  public File getFile() throws IOException {
+    return null;
+  }
+
+  @Override
+  public String getName() {
+    return archive.getName() + path;
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    Asset asset = getAsset();
+    if( asset == null ) {
+      throw new FileNotFoundException( getName() );
+    }
+    return asset.openStream();
+  }
+
+  @Override
+  public ReadableByteChannel getReadableByteChannel() throws IOException {
+    return Channels.newChannel( getInputStream() );
+  }
+
+  @Override
+  public boolean delete() throws SecurityException {
+    return false;
+  }
+
+  @Override
+  public boolean renameTo( Resource dest ) throws SecurityException {
+    return false;
+  }
+
+  @Override
+  public String[] list() {
+    Node node = getNode();
+    if( node == null || node.getAsset() != null ) {
+      return null;
+    }
+    List<String> names = new ArrayList<String>();
+    for( Node child : node.getChildren() ) {
+      String name = child.getPath().get();
+      name = name.substring( name.lastIndexOf( '/' ) + 1 );
+      names.add( child.getAsset() == null ? name + "/" : name );
+    }
+    return names.toArray( new String[ names.size() ] );
+  }
+
+  @Override
+  public Resource addPath( String relative ) throws IOException, MalformedURLException {
+    if( relative == null ) {
+      throw new MalformedURLException();
+    }
+    String canonical = URIUtil.canonicalPath( relative );
+    if( canonical == null ) {
+      throw new MalformedURLException( relative );
+    }
+    canonical = trimSlashes( canonical );
+    if( canonical.isEmpty() ) {
+      return this;
+    }
+    String child = "/".equals( path ) ? "/" + canonical : path + "/" + canonical;
+    return new ArchiveResource( archive, child, lastModified, handler );
+  }
+
+  private static String trimSlashes( String s ) {
+    int start = 0;
+    int end = s.length();
+    while( start < end && s.charAt( start ) == '/' ) {
+      start++;
+    }
+    while( end > start && s.charAt( end - 1 ) == '/' ) {
+      end--;
+    }
+    return s.substring( start, end );
+  }
+
+  @Override
+  public boolean equals( Object other ) {
+    if( !( other instanceof ArchiveResource ) ) {
+      return false;
+    }
+    ArchiveResource that = (ArchiveResource)other;
+    return archive == that.archive && path.equals( that.path );
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * System.identityHashCode( archive ) + path.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return URL_PROTOCOL + ":" + getName();
+  }
+
+  private static class ArchiveUrlStreamHandler extends URLStreamHandler {
+
+    private final Archive<?> archive;
+
+    private ArchiveUrlStreamHandler( Archive<?> archive ) {
+      this.archive = archive;
+    }
+
+    @Override
+    protected URLConnection openConnection( URL url ) throws IOException {
+      String file = url.getPath();
+      String prefix = archive.getName();
+      final String path = file.startsWith( prefix ) ? file.substring( prefix.length() ) : file;
+      return new URLConnection( url ) {
+        @Override
+        public void connect() throws IOException {
+          connected = true;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+          Node node = archive.get( path );
+          if( node == null || node.getAsset() == null ) {
+            throw new FileNotFoundException( getURL().toString() );
+          }
+          return node.getAsset().openStream();
+        }
+      };
+    }
+
+  }
+
+}
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -70,7 +71,8 @@ public abstract class DeploymentFactory {
   private static final GatewayMessages log = MessagesFactory.get( GatewayMessages.class );
   private static GatewayServices gatewayServices = null;
 
-  private static Map<String,Map<String,Map<Version, ServiceDeploymentContributor>>> SERVICE_CONTRIBUTOR_MAP;
+  // Replaced as a whole, never modified, so deployments assembled in parallel can read it without locking.
+  private static volatile Map<String,Map<String,Map<Version, ServiceDeploymentContributor>>> SERVICE_CONTRIBUTOR_MAP;
   static {
     loadServiceContributors();
   }
@@ -153,27 +155,38 @@ public abstract class DeploymentFactory {
   }
 
   public static EnterpriseArchive createDeployment( GatewayConfig config, Topology topology ) {
+    List<DeploymentContext> contexts = createDeploymentContexts( config, topology );
+    EnterpriseArchive ear = ShrinkWrap.create( EnterpriseArchive.class, topology.getName() );
+    ear.addAsResource( toStringAsset( topology ), "topology.xml" );
+    for( DeploymentContext context : contexts ) {
+      ear.addAsModule( context.getWebArchive() );
+    }
+    return ear;
+  }
+
+  /**
+   * Assembles the web archives of a topology without packaging them into an enterprise archive.
+   * The returned contexts retain the assembled descriptors so a deployment can be activated from memory.
+   */
+  public static List<DeploymentContext> createDeploymentContexts( GatewayConfig config, Topology topology ) {
     validateTopology( topology );
     loadStacksServiceContributors( config );
     Map<String,List<ProviderDeploymentContributor>> providers = selectContextProviders( topology );
     Map<String,List<ServiceDeploymentContributor>> services = selectContextServices( topology );
     Map<String,ServiceDeploymentContributor> applications = selectContextApplications( config, topology );
-    EnterpriseArchive ear = ShrinkWrap.create( EnterpriseArchive.class, topology.getName() );
-    ear.addAsResource( toStringAsset( topology ), "topology.xml" );
+    List<DeploymentContext> contexts = new ArrayList<DeploymentContext>();
     if( !services.isEmpty() ) {
-      WebArchive war = createServicesDeployment( config, topology, providers, services );
-      ear.addAsModule( war );
+      contexts.add( createServicesDeployment( config, topology, providers, services ) );
     }
     if( !applications.isEmpty() ) {
       for( Map.Entry<String, ServiceDeploymentContributor> application : applications.entrySet() ) {
-        WebArchive war = createApplicationDeployment( config, topology, providers, application );
-        ear.addAsModule( war );
+        contexts.add( createApplicationDeploymentContext( config, topology, providers, application ) );
       }
     }
-    return ear;
+    return contexts;
   }
 
-  private static WebArchive createServicesDeployment(
+  private static DeploymentContext createServicesDeployment(
       GatewayConfig config,
       Topology topology,
       Map<String,List<ProviderDeploymentContributor>> providers,
@@ -182,7 +195,7 @@ public abstract class DeploymentFactory {
     initialize( context, providers, services, null );
     contribute( context, providers, services, null );
     finalize( context, providers, services, null );
-    return context.getWebArchive();
+    return context;
   }
 
   public static WebArchive createApplicationDeployment(
@@ -190,12 +203,20 @@ public abstract class DeploymentFactory {
       Topology topology,
       Map<String,List<ProviderDeploymentContributor>> providers,
       Map.Entry<String,ServiceDeploymentContributor> application ) {
+    return createApplicationDeploymentContext( config, topology, providers, application ).getWebArchive();
+  }
+
+  private static DeploymentContext createApplicationDeploymentContext(
+      GatewayConfig config,
+      Topology topology,
+      Map<String,List<ProviderDeploymentContributor>> providers,
+      Map.Entry<String,ServiceDeploymentContributor> application ) {
     String appPath = "/" + Urls.trimLeadingAndTrailingSlash( application.getKey() );
     DeploymentContext context = createDeploymentContext( config, appPath, topology, providers );
     initialize( context, providers, null, application );
     contribute( context, providers, null, application );
     finalize( context, providers, null, application );
-    return context.getWebArchive();
+    return context;
   }
 
   private static Asset toStringAsset( Topology topology ) {
@@ -533,7 +554,8 @@ public abstract class DeploymentFactory {
       }
       if ( versionMap != null && !versionMap.isEmpty()) {
         if( version == null ) {
-          contributor = ((TreeMap<Version, ServiceDeploymentContributor>) versionMap).firstEntry().getValue();
+          // the version maps are sorted so the first value is the lowest version
+          contributor = versionMap.values().iterator().next();
         } else {
           contributor = versionMap.get( version );
         }
@@ -679,13 +701,23 @@ public abstract class DeploymentFactory {
   }
 
   private static void loadServiceContributors() {
-    SERVICE_CONTRIBUTOR_MAP = new HashMap<String, Map<String, Map<Version, ServiceDeploymentContributor>>>();
+    SERVICE_CONTRIBUTOR_MAP = Collections.emptyMap();
     ServiceLoader<ServiceDeploymentContributor> loader = ServiceLoader.load( ServiceDeploymentContributor.class );
     Iterator<ServiceDeploymentContributor> contributors = loader.iterator();
     addServiceDeploymentContributors(contributors);
   }
 
-   private static void addServiceDeploymentContributors(Iterator<ServiceDeploymentContributor> contributors) {
+   // Merges the contributors into a copy of the current map and publishes the copy.
+   private static synchronized void addServiceDeploymentContributors(Iterator<ServiceDeploymentContributor> contributors) {
+      Map<String,Map<String,Map<Version, ServiceDeploymentContributor>>> roleMap
+          = new HashMap<String,Map<String,Map<Version, ServiceDeploymentContributor>>>();
+      for( Entry<String,Map<String,Map<Version, ServiceDeploymentContributor>>> role : SERVICE_CONTRIBUTOR_MAP.entrySet() ) {
+        Map<String,Map<Version, ServiceDeploymentContributor>> nameMap = new HashMap<String,Map<Version, ServiceDeploymentContributor>>();
+        for( Entry<String,Map<Version, ServiceDeploymentContributor>> name : role.getValue().entrySet() ) {
+          nameMap.put( name.getKey(), new TreeMap<Version, ServiceDeploymentContributor>( name.getValue() ) );
+        }
+        roleMap.put( role.getKey(), nameMap );
+      }
       while( contributors.hasNext() ) {
         ServiceDeploymentContributor contributor = contributors.next();
         if( contributor.getName() == null ) {
@@ -700,10 +732,10 @@ public abstract class DeploymentFactory {
           log.ignoringServiceContributorWithMissingVersion(contributor.getClass().getName());
           continue;
         }
-        Map<String,Map<Version, ServiceDeploymentContributor>> nameMap = SERVICE_CONTRIBUTOR_MAP.get( contributor.getRole() );
+        Map<String,Map<Version, ServiceDeploymentContributor>> nameMap = roleMap.get( contributor.getRole() );
         if( nameMap == null ) {
           nameMap = new HashMap<String,Map<Version, ServiceDeploymentContributor>>();
-          SERVICE_CONTRIBUTOR_MAP.put( contributor.getRole(), nameMap );
+          roleMap.put( contributor.getRole(), nameMap );
         }
         Map<Version, ServiceDeploymentContributor> versionMap = nameMap.get(contributor.getName());
         if (versionMap == null) {
@@ -712,6 +744,14 @@ public abstract class DeploymentFactory {
         }
         versionMap.put( contributor.getVersion(), contributor );
       }
+      for( Entry<String,Map<String,Map<Version, ServiceDeploymentContributor>>> role : roleMap.entrySet() ) {
+        Map<String,Map<Version, ServiceDeploymentContributor>> nameMap = role.getValue();
+        for( Entry<String,Map<Version, ServiceDeploymentContributor>> name : nameMap.entrySet() ) {
+          name.setValue( Collections.unmodifiableMap( name.getValue() ) );
+        }
+        role.setValue( Collections.unmodifiableMap( nameMap ) );
+      }
+      SERVICE_CONTRIBUTOR_MAP = Collections.unmodifiableMap( roleMap );
    }
 
    private static void loadProviderContributors() {
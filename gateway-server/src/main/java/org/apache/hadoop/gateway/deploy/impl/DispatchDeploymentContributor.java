@@ -34,6 +34,8 @@ public class DispatchDeploymentContributor extends ProviderDeploymentContributor
   
   private static final String DISPATCH_IMPL_PARAM = "dispatch-impl";
 
+  private static final String SERVICE_ROLE_PARAM = "serviceRole";
+
   @Override
   public String getRole() {
     return "dispatch";
@@ -48,6 +50,7 @@ public class DispatchDeploymentContributor extends ProviderDeploymentContributor
   public void contributeFilter( DeploymentContext context, Provider provider, Service service, ResourceDescriptor resource, List<FilterParamDescriptor> params ) {
     FilterDescriptor filter = resource.addFilter().name( getName() ).role( getRole() ).impl( GatewayDispatchFilter.class );
     filter.param().name(DISPATCH_IMPL_PARAM).value(DefaultDispatch.class.getName());
+    filter.param().name(SERVICE_ROLE_PARAM).value(service.getRole());
     for ( Map.Entry<String,String> serviceParam : service.getParams().entrySet() ) {
       filter.param().name( serviceParam.getKey() ).value( serviceParam.getValue() );
     }
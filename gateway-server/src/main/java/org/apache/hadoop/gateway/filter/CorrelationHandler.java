@@ -17,8 +17,16 @@
  */
 package org.apache.hadoop.gateway.filter;
 
+import org.apache.hadoop.gateway.audit.api.Action;
+import org.apache.hadoop.gateway.audit.api.ActionOutcome;
+import org.apache.hadoop.gateway.audit.api.AuditServiceFactory;
+import org.apache.hadoop.gateway.audit.api.Auditor;
 import org.apache.hadoop.gateway.audit.api.CorrelationContext;
 import org.apache.hadoop.gateway.audit.api.CorrelationServiceFactory;
+import org.apache.hadoop.gateway.audit.api.ResourceType;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditTrail;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationContext;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.handler.HandlerWrapper;
 
@@ -26,20 +34,135 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.UUID;
 
 public class CorrelationHandler extends HandlerWrapper {
 
+  public static final String REQUEST_ID_HEADER = "X-Request-Id";
+  public static final String TRACE_PARENT_HEADER = "traceparent";
+
+  private static final int MAX_REQUEST_ID_LENGTH = 128;
+
+  private static Auditor auditor = AuditServiceFactory.getAuditService().getAuditor(
+      AuditConstants.DEFAULT_AUDITOR_NAME, AuditConstants.KNOX_SERVICE_NAME,
+      AuditConstants.KNOX_COMPONENT_NAME );
+
+  private boolean auditCoalescing;
+  private boolean acceptRequestHeaders = true;
+
+  /**
+   * When enabled the audit events of each request are collected and written as a
+   * single record with per phase timings once the request completes.
+   */
+  public void setAuditCoalescing( boolean auditCoalescing ) {
+    this.auditCoalescing = auditCoalescing;
+  }
+
+  /**
+   * When enabled a well formed X-Request-Id header is used as the request id and a
+   * W3C traceparent header supplies the root and parent request ids, so ids assigned
+   * by a caller carry through the gateway instead of being replaced.
+   */
+  public void setAcceptRequestHeaders( boolean acceptRequestHeaders ) {
+    this.acceptRequestHeaders = acceptRequestHeaders;
+  }
+
   @Override
   public void handle( String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response )
       throws IOException, ServletException {
-    CorrelationContext correlationContext = CorrelationServiceFactory.getCorrelationService().createContext();
-    correlationContext.setRequestId( UUID.randomUUID().toString() );
+    CorrelationContext correlationContext = createContext( request );
+    CorrelationServiceFactory.getCorrelationService().attachContext( correlationContext );
+    AuditTrail trail = auditCoalescing ? AuditTrail.begin() : null;
+    boolean failed = true;
     try {
       super.handle( target, baseRequest, request, response );
+      failed = false;
     } finally {
+      if( trail != null ) {
+        auditRequest( AuditTrail.end(), correlationContext, baseRequest, failed );
+      }
       correlationContext.destroy();
     }
   }
 
+  private CorrelationContext createContext( HttpServletRequest request ) {
+    // Always start from a fresh context so ids from a previous request on this thread do not leak.
+    Log4jCorrelationContext context = new Log4jCorrelationContext();
+    if( acceptRequestHeaders ) {
+      String requestId = request.getHeader( REQUEST_ID_HEADER );
+      if( isValidRequestId( requestId ) ) {
+        context.setRequestId( requestId );
+      }
+      String traceParent = request.getHeader( TRACE_PARENT_HEADER );
+      if( isValidTraceParent( traceParent ) ) {
+        // version "-" trace-id "-" parent-id "-" flags
+        context.setRootRequestId( traceParent.substring( 3, 35 ) );
+        context.setParentRequestId( traceParent.substring( 36, 52 ) );
+      }
+    }
+    if( context.getRequestId() == null ) {
+      context.setRequestId( CorrelationServiceFactory.getIdGenerator().generateId() );
+    }
+    return context;
+  }
+
+  static boolean isValidRequestId( String id ) {
+    if( id == null || id.isEmpty() || id.length() > MAX_REQUEST_ID_LENGTH ) {
+      return false;
+    }
+    for( int i = 0; i < id.length(); i++ ) {
+      char c = id.charAt( i );
+      if( !( ( c >= 'a' && c <= 'z' ) || ( c >= 'A' && c <= 'Z' ) || ( c >= '0' && c <= '9' )
+          || c == '-' || c == '_' || c == '.' || c == ':' ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static boolean isValidTraceParent( String value ) {
+    // Only the 55 character version 00 form is understood.
+    if( value == null || value.length() != 55 || !value.startsWith( "00-" )
+        || value.charAt( 35 ) != '-' || value.charAt( 52 ) != '-' ) {
+      return false;
+    }
+    return isLowerHex( value, 3, 35 ) && isLowerHex( value, 36, 52 ) && isLowerHex( value, 53, 55 )
+        && !isZero( value, 3, 35 ) && !isZero( value, 36, 52 );
+  }
+
+  private static boolean isLowerHex( String value, int start, int end ) {
+    for( int i = start; i < end; i++ ) {
+      char c = value.charAt( i );
+      if( !( ( c >= '0' && c <= '9' ) || ( c >= 'a' && c <= 'f' ) ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isZero( String value, int start, int end ) {
+    for( int i = start; i < end; i++ ) {
+      if( value.charAt( i ) != '0' ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void auditRequest( AuditTrail trail, CorrelationContext correlationContext, Request baseRequest, boolean failed ) {
+    if( trail.isEmpty() ) {
+      return;
+    }
+    String resourceName = trail.getResourceName();
+    if( resourceName == null ) {
+      resourceName = baseRequest.getRequestURI();
+    }
+    String outcome = failed ? ActionOutcome.FAILURE : trail.getOutcome();
+    String message = trail.toMessage(
+        baseRequest.getResponse().getStatus(),
+        baseRequest.getContentRead(),
+        baseRequest.getResponse().getContentCount() );
+    auditor.audit( correlationContext, trail.getAuditContext(),
+        Action.ACCESS, resourceName, ResourceType.URI, outcome, message );
+  }
+
 }
@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.hadoop.gateway.util.Urls;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+
+/**
+ * Routes requests for {@code /{gateway.path}/{topology}/...} to the contexts deployed for the topology
+ * with a hash lookup on the topology path instead of the prefix search over every deployed context.
+ * Requests whose host is mapped to a topology are routed to that topology without naming it in the path,
+ * so {@code /{gateway.path}/webhdfs/v1} on such a host is served as {@code /{gateway.path}/{topology}/webhdfs/v1}.
+ * Contexts are added to and removed from the routing table as topologies are activated and deactivated.
+ * Requests that do not match a routed context are handled by the underlying collection,
+ * except those from a mapped host, which are not found.
+ */
+public class TopologyRoutingHandler extends ContextHandlerCollection {
+
+  private static final Comparator<ContextHandler> LONGEST_PATH_FIRST = new Comparator<ContextHandler>() {
+    @Override
+    public int compare( ContextHandler left, ContextHandler right ) {
+      return right.getContextPath().length() - left.getContextPath().length();
+    }
+  };
+
+  private final String gatewayPath;
+  private final Map<String, String> virtualHosts;
+  private volatile Map<String, ContextHandler[]> routes = Collections.emptyMap();
+
+  /**
+   * @param gatewayPath The gateway path under which topologies are deployed.
+   * @param virtualHosts Host names mapped to the name of the topology serving them; may be null.
+   */
+  public TopologyRoutingHandler( String gatewayPath, Map<String, String> virtualHosts ) {
+    this.gatewayPath = "/" + Urls.trimLeadingAndTrailingSlash( gatewayPath );
+    this.virtualHosts = new HashMap<String, String>();
+    if( virtualHosts != null ) {
+      for( Map.Entry<String, String> entry : virtualHosts.entrySet() ) {
+        this.virtualHosts.put( entry.getKey().toLowerCase( Locale.ROOT ), entry.getValue() );
+      }
+    }
+  }
+
+  /**
+   * Replaces one context with another in the routing table in a single update. Either may be null.
+   * Contexts outside the gateway path are only served by the underlying collection.
+   */
+  public synchronized void swapRoute( ContextHandler oldContext, ContextHandler newContext ) {
+    Map<String, ContextHandler[]> updated = new HashMap<String, ContextHandler[]>( routes );
+    if( oldContext != null ) {
+      String key = getRouteKey( oldContext.getContextPath() );
+      ContextHandler[] current = ( key == null ) ? null : updated.get( key );
+      if( current != null ) {
+        List<ContextHandler> contexts = new ArrayList<ContextHandler>( Arrays.asList( current ) );
+        contexts.remove( oldContext );
+        if( contexts.isEmpty() ) {
+          updated.remove( key );
+        } else {
+          updated.put( key, contexts.toArray( new ContextHandler[ contexts.size() ] ) );
+        }
+      }
+    }
+    if( newContext != null ) {
+      String key = getRouteKey( newContext.getContextPath() );
+      if( key != null ) {
+        List<ContextHandler> contexts = new ArrayList<ContextHandler>();
+        ContextHandler[] current = updated.get( key );
+        if( current != null ) {
+          contexts.addAll( Arrays.asList( current ) );
+        }
+        contexts.add( newContext );
+        Collections.sort( contexts, LONGEST_PATH_FIRST );
+        updated.put( key, contexts.toArray( new ContextHandler[ contexts.size() ] ) );
+      }
+    }
+    routes = updated;
+  }
+
+  @Override
+  public void handle( String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response ) throws IOException, ServletException {
+    if( isStarted() && target.startsWith( "/" ) ) {
+      String topologyPath = getVirtualHostTopologyPath( target, request );
+      String routed = target;
+      if( topologyPath != null && !isContextTarget( target, topologyPath ) ) {
+        routed = topologyPath + target.substring( gatewayPath.length() );
+      }
+      ContextHandler[] contexts = routes.get( getRouteKey( routed ) );
+      if( contexts != null ) {
+        for( ContextHandler context : contexts ) {
+          if( isContextTarget( routed, context.getContextPath() ) ) {
+            context.handle( routed, baseRequest, request, response );
+            return;
+          }
+        }
+      }
+      // A mapped host only reaches its own topology, never another one through the collection.
+      if( topologyPath != null ) {
+        baseRequest.setHandled( true );
+        response.sendError( HttpServletResponse.SC_NOT_FOUND );
+        return;
+      }
+    }
+    super.handle( target, baseRequest, request, response );
+  }
+
+  // Returns the path of the topology the host of the request is mapped to, or null if the host is not mapped
+  // or the target is outside the gateway path.
+  private String getVirtualHostTopologyPath( String target, HttpServletRequest request ) {
+    if( virtualHosts.isEmpty() || request.getServerName() == null ) {
+      return null;
+    }
+    String topology = virtualHosts.get( request.getServerName().toLowerCase( Locale.ROOT ) );
+    if( topology == null || !isContextTarget( target, gatewayPath ) ) {
+      return null;
+    }
+    return gatewayPath + "/" + topology;
+  }
+
+  // Returns the path of the topology a target or context path falls under, e.g. /gateway/sandbox.
+  private String getRouteKey( String path ) {
+    if( path == null || !isContextTarget( path, gatewayPath ) || path.length() <= gatewayPath.length() + 1 ) {
+      return null;
+    }
+    int end = path.indexOf( '/', gatewayPath.length() + 1 );
+    return ( end < 0 ) ? path : path.substring( 0, end );
+  }
+
+  private static boolean isContextTarget( String target, String contextPath ) {
+    return target.startsWith( contextPath )
+        && ( target.length() == contextPath.length() || target.charAt( contextPath.length() ) == '/' );
+  }
+
+}
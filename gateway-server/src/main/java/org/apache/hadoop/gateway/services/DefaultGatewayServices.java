@@ -26,6 +26,7 @@ import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.services.registry.impl.DefaultServiceDefinitionRegistry;
 import org.apache.hadoop.gateway.services.metrics.impl.DefaultMetricsService;
 import org.apache.hadoop.gateway.services.topology.impl.DefaultTopologyService;
+import org.apache.hadoop.gateway.services.trace.impl.DefaultTraceService;
 import org.apache.hadoop.gateway.services.hostmap.impl.DefaultHostMapperService;
 import org.apache.hadoop.gateway.services.registry.impl.DefaultServiceRegistryService;
 import org.apache.hadoop.gateway.services.security.KeystoreServiceException;
@@ -104,6 +105,10 @@ public class DefaultGatewayServices implements GatewayServices {
     sis.init( config, options );
     services.put( SERVER_INFO_SERVICE, sis );
 
+    DefaultTraceService trace = new DefaultTraceService();
+    trace.init( config, options );
+    services.put( TRACE_SERVICE, trace );
+
     DefaultTopologyService tops = new DefaultTopologyService();
     tops.init(  config, options  );
     services.put(  TOPOLOGY_SERVICE, tops  );
@@ -130,6 +135,9 @@ public class DefaultGatewayServices implements GatewayServices {
     SSLService ssl = (SSLService) services.get(SSL_SERVICE);
     ssl.start();
 
+    DefaultServiceRegistryService sr = (DefaultServiceRegistryService) services.get(SERVICE_REGISTRY_SERVICE);
+    sr.start();
+
     ServerInfoService sis = (ServerInfoService) services.get(SERVER_INFO_SERVICE);
     sis.start();
 
@@ -151,6 +159,9 @@ public class DefaultGatewayServices implements GatewayServices {
     SSLService ssl = (SSLService) services.get(SSL_SERVICE);
     ssl.stop();
 
+    DefaultServiceRegistryService sr = (DefaultServiceRegistryService) services.get(SERVICE_REGISTRY_SERVICE);
+    sr.stop();
+
     ServerInfoService sis = (ServerInfoService) services.get(SERVER_INFO_SERVICE);
     sis.stop();
 
@@ -40,7 +40,7 @@ public class DefaultMetricsService implements MetricsService {
 
   private final MetricRegistry metrics = new MetricRegistry();
 
-  public static final String METRICS_REGISTRY = "metrics-registry";
+  public static final String METRICS_REGISTRY = MetricsContext.METRICS_REGISTRY;
 
   private Map<Class<?>, InstrumentationProvider> instrumentationProviders;
 
@@ -19,7 +19,6 @@ package org.apache.hadoop.gateway.services.metrics.impl.instr;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.httpclient.HttpClientMetricNameStrategy;
-import com.codahale.metrics.httpclient.InstrumentedHttpClientConnectionManager;
 import com.codahale.metrics.httpclient.InstrumentedHttpRequestExecutor;
 import org.apache.hadoop.gateway.services.metrics.InstrumentationProvider;
 import org.apache.hadoop.gateway.services.metrics.MetricsContext;
@@ -29,17 +28,19 @@ import org.apache.http.HttpRequest;
 import org.apache.http.RequestLine;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
 import java.net.URISyntaxException;
 
 public class InstrHttpClientBuilderProvider implements InstrumentationProvider<HttpClientBuilder> {
 
+  /**
+   * The builder times the requests, the factory gives it a {@link org.apache.hadoop.gateway.dispatch.HttpClientConnectionPool}
+   * that reports its connections.
+   */
   @Override
   public HttpClientBuilder getInstrumented(MetricsContext metricsContext) {
     MetricRegistry registry = (MetricRegistry) metricsContext.getProperty(DefaultMetricsService.METRICS_REGISTRY);
-    return  HttpClientBuilder.create().setRequestExecutor(new InstrumentedHttpRequestExecutor(registry, TOPOLOGY_URL_AND_METHOD)).
-        setConnectionManager(new PoolingHttpClientConnectionManager());
+    return HttpClientBuilder.create().setRequestExecutor(new InstrumentedHttpRequestExecutor(registry, TOPOLOGY_URL_AND_METHOD));
   }
 
   @Override
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.metrics.impl.instr;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.hadoop.gateway.dispatch.HttpClientConnectionPool;
+import org.apache.hadoop.gateway.services.metrics.InstrumentationProvider;
+import org.apache.hadoop.gateway.services.metrics.MetricsContext;
+import org.apache.hadoop.gateway.services.metrics.impl.DefaultMetricsService;
+import org.apache.http.pool.PoolStats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Reports the connection pools of a dispatched service as gauges named
+ * {@code http-client.connections.<topology>.<service>.*}, summed over the dispatch filters of the service.
+ * The gauges are removed when the last pool of the service is shut down.
+ */
+public class InstrHttpClientConnectionPoolProvider implements InstrumentationProvider<HttpClientConnectionPool> {
+
+  static final String PREFIX = "http-client.connections";
+
+  private static final String[] STATISTICS = { "leased", "available", "pending", "max" };
+
+  /* The live pools by the prefix of their gauges */
+  private final Map<String, Set<HttpClientConnectionPool>> pools = new HashMap<>();
+
+  @Override
+  public HttpClientConnectionPool getInstrumented(MetricsContext metricsContext) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public HttpClientConnectionPool getInstrumented(final HttpClientConnectionPool pool, MetricsContext metricsContext) {
+    final MetricRegistry registry = (MetricRegistry) metricsContext.getProperty(DefaultMetricsService.METRICS_REGISTRY);
+    final String prefix = MetricRegistry.name(PREFIX, pool.getTopology(), pool.getService());
+    synchronized (pools) {
+      Set<HttpClientConnectionPool> group = pools.get(prefix);
+      if (group == null) {
+        group = new CopyOnWriteArraySet<>();
+        pools.put(prefix, group);
+        register(registry, prefix, group);
+      }
+      group.add(pool);
+    }
+    pool.addShutdownListener(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (pools) {
+          Set<HttpClientConnectionPool> group = pools.get(prefix);
+          if (group != null && group.remove(pool) && group.isEmpty()) {
+            pools.remove(prefix);
+            synchronized (registry) {
+              for (String statistic : STATISTICS) {
+                registry.remove(MetricRegistry.name(prefix, statistic));
+              }
+            }
+          }
+        }
+      }
+    });
+    return pool;
+  }
+
+  private static void register(MetricRegistry registry, String prefix, Set<HttpClientConnectionPool> group) {
+    synchronized (registry) {
+      for (int i = 0; i < STATISTICS.length; i++) {
+        String name = MetricRegistry.name(prefix, STATISTICS[i]);
+        registry.remove(name);
+        registry.register(name, new PoolGauge(group, i));
+      }
+    }
+  }
+
+  /**
+   * Sums one statistic over the pools of a service.
+   */
+  private static class PoolGauge implements Gauge<Integer> {
+    private final Set<HttpClientConnectionPool> group;
+    private final int statistic;
+
+    PoolGauge(Set<HttpClientConnectionPool> group, int statistic) {
+      this.group = group;
+      this.statistic = statistic;
+    }
+
+    @Override
+    public Integer getValue() {
+      int total = 0;
+      for (HttpClientConnectionPool pool : group) {
+        PoolStats stats = pool.getTotalStats();
+        switch (statistic) {
+          case 0:
+            total += stats.getLeased();
+            break;
+          case 1:
+            total += stats.getAvailable();
+            break;
+          case 2:
+            total += stats.getPending();
+            break;
+          default:
+            total += stats.getMax();
+        }
+      }
+      return total;
+    }
+  }
+}
@@ -17,6 +17,7 @@
  */
 package org.apache.hadoop.gateway.services.metrics.impl.instr;
 
+import org.apache.hadoop.gateway.dispatch.HttpClientConnectionPool;
 import org.apache.hadoop.gateway.services.metrics.InstrumentationProvider;
 import org.apache.hadoop.gateway.services.metrics.InstrumentationProviderDescriptor;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -31,6 +32,7 @@ public class InstrHttpClientProviderDescriptor implements InstrumentationProvide
   public InstrHttpClientProviderDescriptor() {
     providers = new HashMap<>();
     providers.put(HttpClientBuilder.class, new InstrHttpClientBuilderProvider());
+    providers.put(HttpClientConnectionPool.class, new InstrHttpClientConnectionPoolProvider());
   }
 
   @Override
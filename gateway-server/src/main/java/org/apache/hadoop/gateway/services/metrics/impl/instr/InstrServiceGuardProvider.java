@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.metrics.impl.instr;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.hadoop.gateway.dispatch.ServiceGuard;
+import org.apache.hadoop.gateway.services.metrics.InstrumentationProvider;
+import org.apache.hadoop.gateway.services.metrics.MetricsContext;
+import org.apache.hadoop.gateway.services.metrics.impl.DefaultMetricsService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reports the bulkhead and circuit breaker of a dispatched service as gauges named
+ * {@code dispatch-guard.<topology>.<service>.*}. A redeployed topology replaces the gauges of its previous guards.
+ * The gauges are removed when the guard is closed, unless a redeployment has replaced them already.
+ */
+public class InstrServiceGuardProvider implements InstrumentationProvider<ServiceGuard> {
+
+  static final String PREFIX = "dispatch-guard";
+
+  @Override
+  public ServiceGuard getInstrumented(MetricsContext metricsContext) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public ServiceGuard getInstrumented(final ServiceGuard guard, MetricsContext metricsContext) {
+    final MetricRegistry registry = (MetricRegistry) metricsContext.getProperty(DefaultMetricsService.METRICS_REGISTRY);
+    String prefix = MetricRegistry.name(PREFIX, guard.getTopology(), guard.getService());
+    final Map<String, Gauge<?>> gauges = new HashMap<>();
+    gauges.put(MetricRegistry.name(prefix, "state"), new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return guard.getState().ordinal();
+      }
+    });
+    gauges.put(MetricRegistry.name(prefix, "state-transitions"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return guard.getStateTransitions();
+      }
+    });
+    gauges.put(MetricRegistry.name(prefix, "in-flight"), new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return guard.getInFlight();
+      }
+    });
+    gauges.put(MetricRegistry.name(prefix, "rejected"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return guard.getRejected();
+      }
+    });
+    gauges.put(MetricRegistry.name(prefix, "short-circuited"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return guard.getShortCircuited();
+      }
+    });
+    synchronized (registry) {
+      for (Map.Entry<String, Gauge<?>> gauge : gauges.entrySet()) {
+        registry.remove(gauge.getKey());
+        registry.register(gauge.getKey(), gauge.getValue());
+      }
+    }
+    guard.addCloseListener(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (registry) {
+          Map<String, Metric> metrics = registry.getMetrics();
+          for (Map.Entry<String, Gauge<?>> gauge : gauges.entrySet()) {
+            if (metrics.get(gauge.getKey()) == gauge.getValue()) {
+              registry.remove(gauge.getKey());
+            }
+          }
+        }
+      }
+    });
+    return guard;
+  }
+}
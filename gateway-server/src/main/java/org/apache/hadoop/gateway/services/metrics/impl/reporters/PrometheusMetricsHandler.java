@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.metrics.impl.reporters;
+
+import com.codahale.metrics.MetricRegistry;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Serves the metric registry in Prometheus text format on {@link #METRICS_PATH}.
+ */
+public class PrometheusMetricsHandler extends AbstractHandler {
+
+  public static final String METRICS_PATH = "/metrics";
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final MetricRegistry registry;
+
+  private final PrometheusTextWriter textWriter = new PrometheusTextWriter();
+
+  public PrometheusMetricsHandler( MetricRegistry registry ) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void handle( String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response )
+      throws IOException, ServletException {
+    if( !METRICS_PATH.equals( target ) || !"GET".equals( request.getMethod() ) ) {
+      return;
+    }
+    baseRequest.setHandled( true );
+    response.setStatus( HttpServletResponse.SC_OK );
+    response.setContentType( PrometheusTextWriter.CONTENT_TYPE );
+    Writer writer = new BufferedWriter( response.getWriter(), BUFFER_SIZE );
+    textWriter.write( registry, writer );
+  }
+
+}
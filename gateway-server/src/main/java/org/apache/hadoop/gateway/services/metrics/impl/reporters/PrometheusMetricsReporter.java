@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.metrics.impl.reporters;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.jvm.ClassLoadingGaugeSet;
+import com.codahale.metrics.jvm.GarbageCollectorMetricSet;
+import com.codahale.metrics.jvm.MemoryUsageGaugeSet;
+import com.codahale.metrics.jvm.ThreadStatesGaugeSet;
+import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.services.metrics.MetricsContext;
+import org.apache.hadoop.gateway.services.metrics.MetricsReporterException;
+import org.apache.hadoop.gateway.services.metrics.impl.DefaultMetricsService;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+/**
+ * Exposes the metric registry, including JVM metrics, on a dedicated port for Prometheus to scrape.
+ */
+public class PrometheusMetricsReporter extends AbstractMetricsReporter {
+
+  public static String NAME = "prometheus-reporter";
+
+  static final String JVM_PREFIX = "jvm";
+
+  private static final int MAX_THREADS = 4;
+
+  private String host;
+  private int port;
+  private Server server;
+  private ServerConnector connector;
+  private MetricRegistry registry;
+
+  @Override
+  public void init(GatewayConfig config) throws MetricsReporterException {
+    if (config.isMetricsEnabled() && config.isPrometheusMetricsReportingEnabled()) {
+      host = config.getPrometheusHost();
+      port = config.getPrometheusPort();
+      setEnabled(true);
+    }
+  }
+
+  @Override
+  public void start(MetricsContext metricsContext) throws MetricsReporterException {
+    registry = (MetricRegistry) metricsContext.getProperty(DefaultMetricsService.METRICS_REGISTRY);
+    registerJvmMetrics(registry);
+    QueuedThreadPool threadPool = new QueuedThreadPool(MAX_THREADS, 1);
+    threadPool.setName(NAME);
+    server = new Server(threadPool);
+    connector = new ServerConnector(server, 1, 1);
+    connector.setHost(host);
+    connector.setPort(port);
+    server.addConnector(connector);
+    server.setHandler(new PrometheusMetricsHandler(registry));
+    try {
+      server.start();
+    } catch (Exception e) {
+      throw new MetricsReporterException("Failed to start Prometheus endpoint on " + host + ":" + port, e);
+    }
+  }
+
+  @Override
+  public void stop() throws MetricsReporterException {
+    try {
+      if (server != null) {
+        server.stop();
+      }
+    } catch (Exception e) {
+      throw new MetricsReporterException("Failed to stop Prometheus endpoint", e);
+    } finally {
+      if (registry != null) {
+        registry.removeMatching(JVM_METRICS);
+      }
+    }
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * @return the port the endpoint is bound to, which differs from the configured one when that is 0.
+   */
+  public int getLocalPort() {
+    return connector == null ? -1 : connector.getLocalPort();
+  }
+
+  private static void registerJvmMetrics(MetricRegistry registry) {
+    registry.removeMatching(JVM_METRICS);
+    registry.register(MetricRegistry.name(JVM_PREFIX, "memory"), new MemoryUsageGaugeSet());
+    registry.register(MetricRegistry.name(JVM_PREFIX, "gc"), new GarbageCollectorMetricSet());
+    registry.register(MetricRegistry.name(JVM_PREFIX, "threads"), new ThreadStatesGaugeSet());
+    registry.register(MetricRegistry.name(JVM_PREFIX, "classloader"), new ClassLoadingGaugeSet());
+  }
+
+  private static final MetricFilter JVM_METRICS = new MetricFilter() {
+    @Override
+    public boolean matches(String name, Metric metric) {
+      return name.startsWith(JVM_PREFIX + ".");
+    }
+  };
+}
@@ -0,0 +1,438 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.metrics.impl.reporters;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Sampling;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.apache.hadoop.gateway.GatewayMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams the content of a {@link MetricRegistry} in the Prometheus text exposition format (version 0.0.4).
+ * <p>
+ * Dotted Codahale names are translated once into a family name and a pre-rendered label block that are
+ * cached across scrapes, so a scrape only walks the registry, groups the series of each family and writes
+ * straight to the supplied writer. The gateway naming conventions are recognised so that series carry
+ * topology and service labels:
+ * <ul>
+ *   <li>{@code client.<context-path><path-info>.<METHOD>-requests} timers become {@code knox_client_requests_seconds}</li>
+ *   <li>{@code service.<context-path><backend-url>.<method>-requests} timers become {@code knox_dispatch_requests_seconds}</li>
+ *   <li>{@code http-client.connections.<topology>.<service>.<statistic>} gauges become {@code knox_http_client_connections_<statistic>}</li>
+ *   <li>{@code dispatch-guard.<topology>.<service>.<statistic>} gauges become {@code knox_dispatch_guard_<statistic>}</li>
+ *   <li>{@code hadoopauth-token-cache.<topology>.<statistic>} gauges become {@code knox_hadoopauth_token_cache_<statistic>}</li>
+ * </ul>
+ * All other names are sanitized into a family of their own without labels. Different names can end up as the
+ * same series, or as families of different types with the same name. Only the first of them in the order of
+ * gauges, counters, meters, histograms and timers is exported and each of the others is logged once.
+ */
+public class PrometheusTextWriter {
+
+  private static GatewayMessages LOG = MessagesFactory.get( GatewayMessages.class );
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  static final String CLIENT_PREFIX = "client.";
+  static final String CLIENT_FAMILY = "knox_client_requests";
+  static final String DISPATCH_PREFIX = "service.";
+  static final String DISPATCH_FAMILY = "knox_dispatch_requests";
+
+  private static final String[][] LABELLED_PREFIXES = {
+      { "http-client.connections.", "knox_http_client_connections_", "topology", "service" },
+      { "dispatch-guard.", "knox_dispatch_guard_", "topology", "service" },
+      { "hadoopauth-token-cache.", "knox_hadoopauth_token_cache_", "topology" } };
+
+  private static final String REQUESTS_SUFFIX = "-requests";
+  private static final String SCHEME_SEPARATOR = "://";
+  private static final String[] SCHEMES = { "https", "http", "wss", "ws" };
+  private static final int MAX_CACHED_NAMES = 65536;
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos( 1 );
+
+  private static final double[] QUANTILES = { 0.5, 0.75, 0.95, 0.98, 0.99, 0.999 };
+  private static final String[] QUANTILE_LABELS = { "quantile=\"0.5\"", "quantile=\"0.75\"", "quantile=\"0.95\"",
+      "quantile=\"0.98\"", "quantile=\"0.99\"", "quantile=\"0.999\"" };
+
+  private static final Comparator<Series<?>> BY_FAMILY = new Comparator<Series<?>>() {
+    @Override
+    public int compare( Series<?> s1, Series<?> s2 ) {
+      return s1.name.family.compareTo( s2.name.family );
+    }
+  };
+
+  private final ConcurrentMap<String, Name> names = new ConcurrentHashMap<>();
+
+  private final Set<String> collisions = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+
+  public void write( MetricRegistry registry, Writer out ) throws IOException {
+    if( names.size() > MAX_CACHED_NAMES ) {
+      names.clear();
+    }
+    Scrape scrape = new Scrape();
+
+    List<Series<Double>> gauges = new ArrayList<>();
+    for( Map.Entry<String, Gauge> entry : registry.getGauges().entrySet() ) {
+      Object value = entry.getValue().getValue();
+      if( value instanceof Number ) {
+        gauges.add( new Series<>( entry.getKey(), name( entry.getKey() ), ((Number)value).doubleValue() ) );
+      } else if( value instanceof Boolean ) {
+        gauges.add( new Series<>( entry.getKey(), name( entry.getKey() ), ((Boolean)value) ? 1.0d : 0.0d ) );
+      }
+    }
+    String family = null;
+    for( Series<Double> series : claim( scrape, gauges, "", "gauge" ) ) {
+      family = type( out, family, series.name.family, "", "gauge" );
+      sample( out, series.name.family, "", series.name.labels, null, series.metric );
+    }
+
+    family = null;
+    for( Series<Counter> series : claim( scrape, series( registry.getCounters() ), "", "gauge" ) ) {
+      family = type( out, family, series.name.family, "", "gauge" );
+      sample( out, series.name.family, "", series.name.labels, null, series.metric.getCount() );
+    }
+
+    family = null;
+    for( Series<Meter> series : claim( scrape, series( registry.getMeters() ), "_total", "counter" ) ) {
+      family = type( out, family, series.name.family, "_total", "counter" );
+      sample( out, series.name.family, "_total", series.name.labels, null, series.metric.getCount() );
+    }
+
+    family = null;
+    for( Series<Histogram> series : claim( scrape, series( registry.getHistograms() ), "", "summary" ) ) {
+      family = type( out, family, series.name.family, "", "summary" );
+      summary( out, series.name, "", series.metric, series.metric.getCount(), 1.0d );
+    }
+
+    family = null;
+    for( Series<Timer> series : claim( scrape, series( registry.getTimers() ), "_seconds", "summary" ) ) {
+      family = type( out, family, series.name.family, "_seconds", "summary" );
+      summary( out, series.name, "_seconds", series.metric, series.metric.getCount(), NANOS_PER_SECOND );
+    }
+    out.flush();
+  }
+
+  private <T> List<Series<T>> series( Map<String, T> metrics ) {
+    List<Series<T>> series = new ArrayList<>( metrics.size() );
+    for( Map.Entry<String, T> entry : metrics.entrySet() ) {
+      series.add( new Series<>( entry.getKey(), name( entry.getKey() ), entry.getValue() ) );
+    }
+    return series;
+  }
+
+  /*
+   * Groups the series by family, as the format requires, and drops those that would repeat a series or a family
+   * already exported. A summary also claims the _count and _sum families of its own.
+   */
+  private <T> List<Series<T>> claim( Scrape scrape, List<Series<T>> series, String suffix, String type ) {
+    Collections.sort( series, BY_FAMILY );
+    List<Series<T>> claimed = new ArrayList<>( series.size() );
+    Map<String, String> families = new HashMap<>();
+    for( Series<T> s : series ) {
+      String family = s.name.family + suffix;
+      String other = scrape.families.get( family );
+      if( other == null ) {
+        other = scrape.series.get( family + '{' + s.name.labels + '}' );
+      }
+      if( other != null ) {
+        if( collisions.add( s.key ) ) {
+          LOG.prometheusMetricNameCollision( s.key, other );
+        }
+        continue;
+      }
+      scrape.series.put( family + '{' + s.name.labels + '}', s.key );
+      families.put( family, s.key );
+      if( "summary".equals( type ) ) {
+        families.put( family + "_count", s.key );
+        families.put( family + "_sum", s.key );
+      }
+      claimed.add( s );
+    }
+    for( Map.Entry<String, String> entry : families.entrySet() ) {
+      if( !scrape.families.containsKey( entry.getKey() ) ) {
+        scrape.families.put( entry.getKey(), entry.getValue() );
+      }
+    }
+    return claimed;
+  }
+
+  Name name( String metric ) {
+    Name name = names.get( metric );
+    if( name == null ) {
+      name = parse( metric );
+      names.put( metric, name );
+    }
+    return name;
+  }
+
+  private static String type( Writer out, String current, String family, String suffix, String type ) throws IOException {
+    if( !family.equals( current ) ) {
+      out.write( "# TYPE " );
+      out.write( family );
+      out.write( suffix );
+      out.write( ' ' );
+      out.write( type );
+      out.write( '\n' );
+    }
+    return family;
+  }
+
+  /*
+   * Codahale does not keep the total of the recorded values, so the _sum is estimated from the mean of the
+   * sampled values.
+   */
+  private static void summary( Writer out, Name name, String suffix, Sampling sampling, long count, double divisor )
+      throws IOException {
+    Snapshot snapshot = sampling.getSnapshot();
+    for( int i = 0; i < QUANTILES.length; i++ ) {
+      sample( out, name.family, suffix, name.labels, QUANTILE_LABELS[ i ], snapshot.getValue( QUANTILES[ i ] ) / divisor );
+    }
+    sample( out, name.family, suffix + "_sum", name.labels, null, snapshot.getMean() * count / divisor );
+    out.write( name.family );
+    out.write( suffix );
+    out.write( "_count" );
+    labels( out, name.labels, null );
+    out.write( ' ' );
+    out.write( Long.toString( count ) );
+    out.write( '\n' );
+  }
+
+  private static void sample( Writer out, String family, String suffix, String labels, String extra, double value )
+      throws IOException {
+    out.write( family );
+    out.write( suffix );
+    labels( out, labels, extra );
+    out.write( ' ' );
+    if( value == (long)value ) {
+      out.write( Long.toString( (long)value ) );
+    } else if( Double.isNaN( value ) ) {
+      out.write( "NaN" );
+    } else if( Double.isInfinite( value ) ) {
+      out.write( value > 0 ? "+Inf" : "-Inf" );
+    } else {
+      out.write( Double.toString( value ) );
+    }
+    out.write( '\n' );
+  }
+
+  private static void labels( Writer out, String labels, String extra ) throws IOException {
+    if( labels == null && extra == null ) {
+      return;
+    }
+    out.write( '{' );
+    if( labels != null ) {
+      out.write( labels );
+      if( extra != null ) {
+        out.write( ',' );
+      }
+    }
+    if( extra != null ) {
+      out.write( extra );
+    }
+    out.write( '}' );
+  }
+
+  static Name parse( String metric ) {
+    if( metric.startsWith( CLIENT_PREFIX ) ) {
+      return parseClient( metric.substring( CLIENT_PREFIX.length() ) );
+    } else if( metric.startsWith( DISPATCH_PREFIX ) ) {
+      return parseDispatch( metric.substring( DISPATCH_PREFIX.length() ) );
+    }
+    for( String[] prefix : LABELLED_PREFIXES ) {
+      if( metric.startsWith( prefix[ 0 ] ) ) {
+        Name name = parseLabelled( metric.substring( prefix[ 0 ].length() ), prefix );
+        if( name != null ) {
+          return name;
+        }
+      }
+    }
+    return new Name( sanitize( metric ), null );
+  }
+
+  // <label-value>.[<label-value>.]<statistic>, the statistic is the last segment and the first label the first one
+  private static Name parseLabelled( String rest, String[] prefix ) {
+    int labelCount = prefix.length - 2;
+    int first = rest.indexOf( '.' );
+    int last = rest.lastIndexOf( '.' );
+    if( first <= 0 || last == rest.length() - 1 || ( labelCount == 1 && first != last )
+        || ( labelCount == 2 && first == last ) ) {
+      return null;
+    }
+    StringBuilder labels = new StringBuilder();
+    label( labels, prefix[ 2 ], rest.substring( 0, first ) );
+    if( labelCount == 2 ) {
+      label( labels, prefix[ 3 ], rest.substring( first + 1, last ) );
+    }
+    return new Name( prefix[ 1 ] + sanitize( rest.substring( last + 1 ) ), labels.toString() );
+  }
+
+  // <context-path><path-info>.<METHOD>-requests, where context-path is /<gateway-path>/<topology>
+  private static Name parseClient( String rest ) {
+    String method = "";
+    String path = stripRequests( rest );
+    int dot = path.lastIndexOf( '.' );
+    if( dot >= 0 ) {
+      method = path.substring( dot + 1 );
+      path = path.substring( 0, dot );
+    }
+    String topology = "";
+    String service = "";
+    int start = path.indexOf( '/', 1 );
+    if( path.startsWith( "/" ) && start > 0 ) {
+      int end = path.indexOf( '/', start + 1 );
+      if( end < 0 ) {
+        topology = path.substring( start + 1 );
+        path = "";
+      } else {
+        topology = path.substring( start + 1, end );
+        int next = path.indexOf( '/', end + 1 );
+        service = next < 0 ? path.substring( end + 1 ) : path.substring( end + 1, next );
+        path = next < 0 ? "" : path.substring( next );
+      }
+    }
+    StringBuilder labels = new StringBuilder();
+    label( labels, "topology", topology );
+    label( labels, "service", service );
+    label( labels, "method", method.toUpperCase() );
+    label( labels, "path", path );
+    return new Name( CLIENT_FAMILY, labels.toString() );
+  }
+
+  // <context-path><backend-url>.<method>-requests, the context path may be absent
+  private static Name parseDispatch( String rest ) {
+    String method = "";
+    String target = stripRequests( rest );
+    int dot = target.lastIndexOf( '.' );
+    if( dot >= 0 ) {
+      method = target.substring( dot + 1 );
+      target = target.substring( 0, dot );
+    }
+    String context = "";
+    String backend = "";
+    String path = target;
+    int separator = target.indexOf( SCHEME_SEPARATOR );
+    if( separator > 0 ) {
+      int scheme = separator;
+      for( String candidate : SCHEMES ) {
+        if( target.startsWith( candidate, separator - candidate.length() ) ) {
+          scheme = separator - candidate.length();
+          break;
+        }
+      }
+      context = target.substring( 0, scheme );
+      int end = target.indexOf( '/', separator + SCHEME_SEPARATOR.length() );
+      backend = end < 0 ? target.substring( scheme ) : target.substring( scheme, end );
+      path = end < 0 ? "" : target.substring( end );
+    }
+    String topology = context.substring( context.lastIndexOf( '/' ) + 1 );
+    StringBuilder labels = new StringBuilder();
+    label( labels, "topology", topology );
+    label( labels, "backend", backend );
+    label( labels, "method", method.toUpperCase() );
+    label( labels, "path", path );
+    return new Name( DISPATCH_FAMILY, labels.toString() );
+  }
+
+  private static String stripRequests( String name ) {
+    return name.endsWith( REQUESTS_SUFFIX ) ? name.substring( 0, name.length() - REQUESTS_SUFFIX.length() ) : name;
+  }
+
+  private static void label( StringBuilder labels, String name, String value ) {
+    if( labels.length() > 0 ) {
+      labels.append( ',' );
+    }
+    labels.append( name ).append( "=\"" );
+    for( int i = 0; i < value.length(); i++ ) {
+      char c = value.charAt( i );
+      switch( c ) {
+        case '\\':
+          labels.append( "\\\\" );
+          break;
+        case '"':
+          labels.append( "\\\"" );
+          break;
+        case '\n':
+          labels.append( "\\n" );
+          break;
+        default:
+          labels.append( c );
+      }
+    }
+    labels.append( '"' );
+  }
+
+  static String sanitize( String name ) {
+    StringBuilder builder = new StringBuilder( name.length() + 1 );
+    for( int i = 0; i < name.length(); i++ ) {
+      char c = name.charAt( i );
+      boolean valid = ( c >= 'a' && c <= 'z' ) || ( c >= 'A' && c <= 'Z' ) || c == '_' || c == ':'
+          || ( i > 0 && c >= '0' && c <= '9' );
+      if( !valid && i == 0 && c >= '0' && c <= '9' ) {
+        builder.append( '_' );
+        valid = true;
+      }
+      builder.append( valid ? c : '_' );
+    }
+    return builder.toString();
+  }
+
+  static class Name {
+    final String family;
+    final String labels;
+
+    Name( String family, String labels ) {
+      this.family = family;
+      this.labels = labels;
+    }
+  }
+
+  private static class Series<T> {
+    final String key;
+    final Name name;
+    final T metric;
+
+    Series( String key, Name name, T metric ) {
+      this.key = key;
+      this.name = name;
+      this.metric = metric;
+    }
+  }
+
+  // The families and series exported so far, mapped to the Codahale names they were exported for
+  private static class Scrape {
+    final Map<String, String> families = new HashMap<>();
+    final Map<String, String> series = new HashMap<>();
+  }
+
+}
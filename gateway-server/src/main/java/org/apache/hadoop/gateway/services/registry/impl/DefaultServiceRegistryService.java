@@ -17,31 +17,43 @@
  */
 package org.apache.hadoop.gateway.services.registry.impl;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.gateway.GatewayMessages;
 import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.services.Service;
 import org.apache.hadoop.gateway.services.ServiceLifecycleException;
 import org.apache.hadoop.gateway.services.registry.ServiceRegistry;
+import org.apache.hadoop.gateway.services.registry.ServiceRegistryListener;
 import org.apache.hadoop.gateway.services.security.CryptoService;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Service registry whose lookups read an immutable snapshot of the registered services.
+ * Registrations build a new snapshot and swap it in, so lookups never block. Changes are
+ * persisted in the background by appending them to a {@link RegistryJournal}.
+ */
 public class DefaultServiceRegistryService implements ServiceRegistry, Service {
   private static GatewayMessages LOG = MessagesFactory.get( GatewayMessages.class );
+
+  private static final long FLUSH_DELAY_MS = 500;
+
+  private static final int VERIFIED_CODES_LIMIT = 1024;
   
   protected char[] chars = { 'a', 'b', 'c', 'd', 'e', 'f', 'g',
   'h', 'j', 'k', 'm', 'n', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w',
@@ -50,9 +62,22 @@ public class DefaultServiceRegistryService implements ServiceRegistry, Service {
   '2', '3', '4', '5', '6', '7', '8', '9',};
 
   private CryptoService crypto;
-  private Registry registry = new Registry();
+  private volatile Registry registry = new Registry();
+  private List<ServiceRegistryListener> listeners = new CopyOnWriteArrayList<ServiceRegistryListener>();
 
   private String registryFileName;
+  private RegistryJournal journal;
+  private List<RegEntry> pendingRecords = new ArrayList<RegEntry>();
+  private ScheduledExecutorService flushExecutor;
+  private boolean flushScheduled;
+
+  // registration codes whose signature has already been verified, least recently used first
+  private final Map<String, Boolean> verifiedCodes = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+      return size() > VERIFIED_CODES_LIMIT;
+    }
+  };
   
   public DefaultServiceRegistryService() {
   }
@@ -65,8 +90,12 @@ public class DefaultServiceRegistryService implements ServiceRegistry, Service {
     String code = generateRegCode(16);
     byte[] signature = crypto.sign("SHA256withRSA","gateway-identity",code);
     String encodedSig = Base64.encodeBase64URLSafeString(signature);
-    
-    return code + "::" + encodedSig;
+    String regCode = code + "::" + encodedSig;
+    // the code was just signed by this gateway, so there is no need to verify it again
+    synchronized (verifiedCodes) {
+      verifiedCodes.put(regCode, Boolean.TRUE);
+    }
+    return regCode;
   }
   
   private String generateRegCode(int length) {
@@ -79,59 +108,132 @@ public class DefaultServiceRegistryService implements ServiceRegistry, Service {
   }
   
   public void removeClusterServices(String clusterName) {
-    registry.remove(clusterName);
+    boolean flush = false;
+    synchronized (this) {
+      if (registry.containsKey(clusterName)) {
+        Registry updated = new Registry();
+        updated.putAll(registry);
+        updated.remove(clusterName);
+        registry = updated;
+        RegEntry record = new RegEntry();
+        record.setClusterName(clusterName);
+        flush = persist(record);
+      }
+    }
+    if (flush) {
+      flush();
+    }
   }
 
   public boolean registerService(String regCode, String clusterName, String serviceName, List<String> urls) {
-    boolean rc = false;
     // verify the signature of the regCode
     if (regCode == null) {
       throw new IllegalArgumentException("Registration Code must not be null.");
     }
+    if (!isVerified(regCode)) {
+      return false;
+    }
+    RegEntry regEntry = new RegEntry();
+    regEntry.setClusterName(clusterName);
+    regEntry.setServiceName(serviceName);
+    regEntry.setUrls(urls == null ? null : Collections.unmodifiableList(new ArrayList<String>(urls)));
+    boolean flush;
+    synchronized (this) {
+      Registry updated = new Registry();
+      updated.putAll(registry);
+      HashMap<String,RegEntry> clusterServices = updated.get(clusterName);
+      clusterServices = clusterServices == null ? new HashMap<String,RegEntry>() : new HashMap<String,RegEntry>(clusterServices);
+      clusterServices.put(serviceName, regEntry);
+      updated.put(clusterName, clusterServices);
+      registry = updated;
+      flush = persist(regEntry);
+    }
+    if (flush) {
+      flush();
+    }
+    for (ServiceRegistryListener listener : listeners) {
+      listener.serviceRegistered(clusterName, serviceName, regEntry.getUrls());
+    }
+    return true;
+  }
+
+  private boolean isVerified(String regCode) {
+    synchronized (verifiedCodes) {
+      if (verifiedCodes.containsKey(regCode)) {
+        return true;
+      }
+    }
     String[] parts = regCode.split("::");
-    
+
     // part one is the code and part two is the signature
     boolean verified = crypto.verify("SHA256withRSA", "gateway-identity", parts[0], Base64.decodeBase64(parts[1]));
     if (verified) {
-      HashMap<String,RegEntry> clusterServices = registry.get(clusterName);
-      if (clusterServices == null) {
-        synchronized(this) {
-          clusterServices = new HashMap<String,RegEntry>();
-          registry.put(clusterName, clusterServices);
+      synchronized (verifiedCodes) {
+        verifiedCodes.put(regCode, Boolean.TRUE);
+      }
+    }
+    return verified;
+  }
+
+  // must be called while holding the lock of this registry, after the new snapshot is published;
+  // returns true if the caller has to flush once it released the lock
+  private boolean persist(RegEntry record) {
+    if (journal == null) {
+      return false;
+    }
+    pendingRecords.add(record);
+    if (flushExecutor == null) {
+      return true;
+    }
+    if (!flushScheduled) {
+      flushScheduled = true;
+      flushExecutor.schedule(new Runnable() {
+        @Override
+        public void run() {
+          flush();
+        }
+      }, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+    return false;
+  }
+
+  /**
+   * Writes the pending registry changes to the journal.
+   */
+  void flush() {
+    if (journal == null) {
+      return;
+    }
+    synchronized (journal) {
+      List<RegEntry> records;
+      Registry snapshot;
+      synchronized (this) {
+        flushScheduled = false;
+        if (pendingRecords.isEmpty()) {
+          return;
         }
+        records = pendingRecords;
+        pendingRecords = new ArrayList<RegEntry>();
+        snapshot = registry;
       }
-      RegEntry regEntry = new RegEntry();
-      regEntry.setClusterName(clusterName);
-      regEntry.setServiceName(serviceName);
-      regEntry.setUrls(urls);
-      clusterServices.put(serviceName , regEntry);
-      String json = renderAsJsonString(registry);
       try {
-        FileUtils.write(new File(registryFileName), json);
-        rc = true;
+        journal.write(records, snapshot);
       } catch (IOException e) {
-        // log appropriately
-        e.printStackTrace(); //TODO: I18N
+        LOG.failedToPersistServiceRegistry(registryFileName, e);
       }
     }
-    
-    return rc;
   }
   
-  private String renderAsJsonString(HashMap<String,HashMap<String,RegEntry>> registry) {
-    String json = null;
-    ObjectMapper mapper = new ObjectMapper();
-    
-    try {
-      // write JSON to a file
-      json = mapper.writeValueAsString((Object)registry);
-    
-    } catch ( JsonProcessingException e ) {
-      e.printStackTrace(); //TODO: I18N
-    }
-    return json;
+  @Override
+  public void addServiceRegistryListener(ServiceRegistryListener listener) {
+    listeners.add(listener);
   }
-  
+
+  @Override
+  public void removeServiceRegistryListener(ServiceRegistryListener listener) {
+    listeners.remove(listener);
+  }
+
   @Override
   public String lookupServiceURL(String clusterName, String serviceName) {
     List<String> urls = lookupServiceURLs( clusterName, serviceName );
@@ -143,34 +245,15 @@ public class DefaultServiceRegistryService implements ServiceRegistry, Service {
 
   @Override
   public List<String> lookupServiceURLs( String clusterName, String serviceName ) {
-    RegEntry entry = null;
-    HashMap clusterServices = registry.get(clusterName);
+    HashMap<String,RegEntry> clusterServices = registry.get(clusterName);
     if (clusterServices != null) {
-      entry = (RegEntry) clusterServices.get(serviceName);
+      RegEntry entry = clusterServices.get(serviceName);
       if( entry != null ) {
         return entry.getUrls();
       }
     }
     return null;
   }
-  
-  private HashMap<String, HashMap<String,RegEntry>> getMapFromJsonString(String json) {
-    Registry map = null;
-    JsonFactory factory = new JsonFactory(); 
-    ObjectMapper mapper = new ObjectMapper(factory); 
-    TypeReference<Registry> typeRef 
-          = new TypeReference<Registry>() {}; 
-    try {
-      map = mapper.readValue(json, typeRef);
-    } catch (JsonParseException e) {
-      LOG.failedToGetMapFromJsonString( json, e );
-    } catch (JsonMappingException e) {
-      LOG.failedToGetMapFromJsonString( json, e );
-    } catch (IOException e) {
-      LOG.failedToGetMapFromJsonString( json, e );
-    } 
-    return map;
-  }   
 
   @Override
   public void init(GatewayConfig config, Map<String, String> options)
@@ -182,26 +265,55 @@ public class DefaultServiceRegistryService implements ServiceRegistry, Service {
 
   protected void setupRegistryFile(String securityDir, String filename) throws ServiceLifecycleException {
     File registryFile = new File(securityDir, filename);
-    if (registryFile.exists()) {
-      try {
-        String json = FileUtils.readFileToString(registryFile);
-        Registry reg = (Registry) getMapFromJsonString(json);
-        if (reg != null) {
-          registry = reg;
+    RegistryJournal registryJournal = new RegistryJournal(registryFile);
+    try {
+      Registry reg = registryJournal.load();
+      for (HashMap<String,RegEntry> clusterServices : reg.values()) {
+        for (RegEntry entry : clusterServices.values()) {
+          // resolve legacy single url entries before the snapshot is shared with readers
+          entry.getUrls();
         }
-      } catch (Exception e) {
-        throw new ServiceLifecycleException("Unable to load the persisted registry.", e);
       }
+      registry = reg;
+    } catch (JsonProcessingException e) {
+      LOG.failedToGetMapFromJsonString( registryFile.getAbsolutePath(), e );
+    } catch (Exception e) {
+      throw new ServiceLifecycleException("Unable to load the persisted registry.", e);
     }
     registryFileName = registryFile.getAbsolutePath();
+    journal = registryJournal;
   }
 
   @Override
-  public void start() throws ServiceLifecycleException {
+  public synchronized void start() throws ServiceLifecycleException {
+    if (flushExecutor == null) {
+      flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "service-registry-flush");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
   }
 
   @Override
   public void stop() throws ServiceLifecycleException {
+    ScheduledExecutorService executor;
+    synchronized (this) {
+      executor = flushExecutor;
+      flushExecutor = null;
+    }
+    if (executor != null) {
+      executor.shutdownNow();
+      try {
+        executor.awaitTermination(FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    flush();
   }
 
 }
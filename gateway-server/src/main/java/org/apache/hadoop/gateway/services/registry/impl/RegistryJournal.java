@@ -0,0 +1,206 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.registry.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.gateway.GatewayMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Persists the service registry as a snapshot file plus an append-only journal of the
+ * registrations and removals made since the snapshot was written. Once the journal holds
+ * more than a threshold of records it is compacted into a new snapshot.
+ */
+class RegistryJournal {
+
+  static final String JOURNAL_EXTENSION = ".journal";
+
+  static final int COMPACTION_THRESHOLD = 256;
+
+  private static final GatewayMessages LOG = MessagesFactory.get(GatewayMessages.class);
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final File snapshotFile;
+  private final File journalFile;
+  private int journalRecords;
+  private boolean compactionRequired;
+
+  RegistryJournal(File snapshotFile) {
+    this.snapshotFile = snapshotFile;
+    this.journalFile = new File(snapshotFile.getPath() + JOURNAL_EXTENSION);
+  }
+
+  /**
+   * Reads the snapshot and replays the journal on top of it. A record left incomplete at the
+   * end of the journal by a crash during an append is dropped and cut off the journal. A
+   * malformed record anywhere else means the journal is corrupt.
+   *
+   * @return the persisted registry, empty if nothing has been persisted yet
+   */
+  synchronized Registry load() throws IOException {
+    Registry registry = null;
+    if (snapshotFile.exists()) {
+      registry = mapper.readValue(snapshotFile, Registry.class);
+    }
+    if (registry == null) {
+      registry = new Registry();
+    }
+    journalRecords = 0;
+    if (journalFile.exists()) {
+      byte[] data = Files.readAllBytes(journalFile.toPath());
+      int start = 0;
+      while (start < data.length) {
+        int end = indexOf(data, '\n', start);
+        boolean terminated = end >= 0;
+        if (!terminated) {
+          end = data.length;
+        }
+        String line = new String(data, start, end - start, StandardCharsets.UTF_8);
+        if (!line.trim().isEmpty()) {
+          RegEntry entry;
+          try {
+            entry = mapper.readValue(line, RegEntry.class);
+          } catch (JsonProcessingException e) {
+            if (!isBlank(data, end)) {
+              throw e;
+            }
+            LOG.droppedIncompleteRegistryJournalRecord(journalFile.getAbsolutePath(), e);
+            truncate(start);
+            break;
+          }
+          apply(registry, entry);
+          journalRecords++;
+          if (!terminated) {
+            // the record is complete but its line is not, finish it before anything is appended
+            appendLineEnd();
+          }
+        }
+        start = end + 1;
+      }
+    }
+    return registry;
+  }
+
+  private static int indexOf(byte[] data, char c, int from) {
+    for (int i = from; i < data.length; i++) {
+      if (data[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isBlank(byte[] data, int from) {
+    for (int i = from; i < data.length; i++) {
+      if (!Character.isWhitespace(data[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void truncate(long length) throws IOException {
+    RandomAccessFile file = new RandomAccessFile(journalFile, "rw");
+    try {
+      file.setLength(length);
+    } finally {
+      file.close();
+    }
+  }
+
+  private void appendLineEnd() throws IOException {
+    OutputStream out = new FileOutputStream(journalFile, true);
+    try {
+      out.write('\n');
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Appends records to the journal. An entry without a service name records the removal
+   * of all services of its cluster. When the journal has grown past the compaction
+   * threshold, or a previous append failed, the given registry is written as the new
+   * snapshot instead.
+   *
+   * @param records the records to persist, in the order they were applied
+   * @param registry the current registry, which must already reflect the records
+   */
+  synchronized void write(List<RegEntry> records, Registry registry) throws IOException {
+    if (compactionRequired || journalRecords + records.size() > COMPACTION_THRESHOLD) {
+      compact(registry);
+      return;
+    }
+    StringBuilder lines = new StringBuilder();
+    for (RegEntry entry : records) {
+      lines.append(mapper.writeValueAsString(entry)).append('\n');
+    }
+    compactionRequired = true;
+    OutputStream out = new FileOutputStream(journalFile, true);
+    try {
+      out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+      out.flush();
+    } finally {
+      out.close();
+    }
+    compactionRequired = false;
+    journalRecords += records.size();
+  }
+
+  /**
+   * Writes the given registry as the new snapshot and removes the journal. The snapshot
+   * is moved into place before the journal is removed, and replaying records is
+   * idempotent, so a journal left behind by a crash yields the same registry.
+   */
+  synchronized void compact(Registry registry) throws IOException {
+    compactionRequired = true;
+    File temp = new File(snapshotFile.getPath() + ".tmp");
+    FileUtils.writeStringToFile(temp, mapper.writeValueAsString(registry), StandardCharsets.UTF_8);
+    Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    Files.deleteIfExists(journalFile.toPath());
+    compactionRequired = false;
+    journalRecords = 0;
+  }
+
+  static void apply(Registry registry, RegEntry entry) {
+    if (entry.getServiceName() == null) {
+      registry.remove(entry.getClusterName());
+    } else {
+      HashMap<String, RegEntry> services = registry.get(entry.getClusterName());
+      if (services == null) {
+        services = new HashMap<>();
+        registry.put(entry.getClusterName(), services);
+      }
+      services.put(entry.getServiceName(), entry);
+    }
+  }
+}
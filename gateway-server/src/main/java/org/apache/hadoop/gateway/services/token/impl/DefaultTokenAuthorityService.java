@@ -17,11 +17,20 @@
  */
 package org.apache.hadoop.gateway.services.token.impl;
 
+import java.io.File;
+import java.security.Key;
+import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.Principal;
+import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
@@ -39,17 +48,31 @@ import org.apache.hadoop.gateway.services.security.token.JWTokenAuthority;
 import org.apache.hadoop.gateway.services.security.token.TokenServiceException;
 import org.apache.hadoop.gateway.services.security.token.impl.JWTToken;
 
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSSigner;
 import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
 import com.nimbusds.jose.crypto.RSASSASigner;
 import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
 
 public class DefaultTokenAuthorityService implements JWTokenAuthority, Service {
 
   private static final String SIGNING_KEY_PASSPHRASE = "signing.key.passphrase";
+  // How often the signing keystore file is checked for changes.
+  private static final long KEYSTORE_CHECK_INTERVAL = 1000;
   private AliasService as = null;
   private KeystoreService ks = null;
   String signingKeyAlias = null;
+  private List<String> previousSigningKeyAliases = Collections.emptyList();
+  private File signingKeystoreFile = null;
+  private volatile SigningKey signingKey = null;
 
   public void setKeystoreService(KeystoreService ks) {
     this.ks = ks;
@@ -117,28 +140,10 @@ public class DefaultTokenAuthorityService implements JWTokenAuthority, Service {
       claimArray[3] = String.valueOf(expires);
     }
 
-    JWTToken token = null;
-    if ("RS256".equals(algorithm)) {
-      token = new JWTToken("RS256", claimArray, audiences);
-      RSAPrivateKey key;
-      char[] passphrase = null;
-      try {
-        passphrase = getSigningKeyPassphrase();
-      } catch (AliasServiceException e) {
-        throw new TokenServiceException(e);
-      }
-      try {
-        key = (RSAPrivateKey) ks.getSigningKey(getSigningKeyAlias(),
-            passphrase);
-        JWSSigner signer = new RSASSASigner(key);
-        token.sign(signer);
-      } catch (KeystoreServiceException e) {
-        throw new TokenServiceException(e);
-      }
-    }
-    else {
-      throw new TokenServiceException("Cannot issue token - Unsupported algorithm");
-    }
+    SigningKey key = getSigningKey();
+    JWSSigner signer = key.getSigner(algorithm);
+    JWTToken token = new JWTToken(algorithm, claimArray, audiences, key.keyId);
+    token.sign(signer);
 
     return token;
   }
@@ -158,23 +163,128 @@ public class DefaultTokenAuthorityService implements JWTokenAuthority, Service {
     return signingKeyAlias;
   }
 
+  /**
+   * Tokens naming a key with a kid header are verified with that key, so tokens signed
+   * before a key rotation remain valid for as long as the old certificate is kept under one
+   * of the configured previous signing key aliases.  Tokens without a kid are verified with
+   * the current signing key.
+   */
   @Override
   public boolean verifyToken(JWTToken token)
       throws TokenServiceException {
-    boolean rc = false;
-    PublicKey key;
+    SigningKey key = getSigningKey();
+    String keyId = token.getKeyId();
+    if (keyId == null) {
+      return token.verify(key.verifier);
+    }
+    JWSVerifier verifier = key.verifiers.get(keyId);
+    return verifier != null && token.verify(verifier);
+  }
+
+  @Override
+  public JWKSet getJWKSet() throws TokenServiceException {
+    return getSigningKey().jwks;
+  }
+
+  /**
+   * Returns the cached signing key, reloading it when the signing keystore has changed
+   * since it was loaded.  The file is checked at most once every KEYSTORE_CHECK_INTERVAL.
+   */
+  private SigningKey getSigningKey() throws TokenServiceException {
+    SigningKey key = signingKey;
+    long now = System.currentTimeMillis();
+    if (key != null && (now < key.nextCheck || !key.isStale())) {
+      key.nextCheck = now + KEYSTORE_CHECK_INTERVAL;
+      return key;
+    }
+    synchronized (this) {
+      key = signingKey;
+      if (key == null || key.isStale()) {
+        key = loadSigningKey();
+        signingKey = key;
+      }
+      return key;
+    }
+  }
+
+  private SigningKey loadSigningKey() throws TokenServiceException {
+    File file = signingKeystoreFile;
+    long lastModified = file == null ? 0 : file.lastModified();
+    long length = file == null ? 0 : file.length();
     try {
-      key = ks.getSigningKeystore().getCertificate(getSigningKeyAlias()).getPublicKey();
-      JWSVerifier verifier = new RSASSAVerifier((RSAPublicKey) key);
-      // TODO: interrogate the token for issuer claim in order to determine the public key to use for verification
-      // consider jwk for specifying the key too
-      rc = token.verify(verifier);
+      KeyStore keystore = ks.getSigningKeystore();
+      Certificate cert = keystore.getCertificate(getSigningKeyAlias());
+      if (cert == null) {
+        throw new TokenServiceException("Cannot find signing key " + getSigningKeyAlias());
+      }
+      // A key that cannot be recovered still allows verification, so the failure is
+      // only reported when a token is issued.
+      Key key = null;
+      TokenServiceException failure = null;
+      try {
+        key = ks.getSigningKey(getSigningKeyAlias(), getSigningKeyPassphrase());
+      } catch (AliasServiceException e) {
+        failure = new TokenServiceException(e);
+      } catch (KeystoreServiceException e) {
+        failure = new TokenServiceException(e);
+      }
+      return new SigningKey(file, lastModified, length, cert.getPublicKey(),
+          key instanceof PrivateKey ? (PrivateKey) key : null, failure, loadPublicKeys(keystore, cert));
     } catch (KeyStoreException e) {
-      throw new TokenServiceException("Cannot verify token.", e);
+      throw new TokenServiceException("Cannot load signing key.", e);
     } catch (KeystoreServiceException e) {
-      throw new TokenServiceException("Cannot verify token.", e);
+      throw new TokenServiceException("Cannot load signing key.", e);
+    }
+  }
+
+  /**
+   * Collects the RSA and EC public keys of the signing certificate and of the certificates
+   * under the configured previous signing key aliases, keyed by their JWK thumbprint.  Other
+   * certificates in the keystore, such as trusted certificates, are never used for tokens.
+   */
+  private Map<String, JWK> loadPublicKeys(KeyStore keystore, Certificate signingCert) throws KeyStoreException {
+    Map<String, JWK> keys = new HashMap<String, JWK>();
+    addPublicKey(keys, signingCert);
+    for (String alias : previousSigningKeyAliases) {
+      addPublicKey(keys, keystore.getCertificate(alias));
     }
-    return rc;
+    return keys;
+  }
+
+  private static void addPublicKey(Map<String, JWK> keys, Certificate cert) {
+    if (cert != null) {
+      JWK jwk = toJWK(cert.getPublicKey());
+      if (jwk != null) {
+        keys.put(jwk.getKeyID(), jwk);
+      }
+    }
+  }
+
+  private static JWK toJWK(PublicKey publicKey) {
+    try {
+      if (publicKey instanceof RSAPublicKey) {
+        return new RSAKey.Builder((RSAPublicKey) publicKey)
+            .keyUse(KeyUse.SIGNATURE).keyIDFromThumbprint().build();
+      }
+      if (publicKey instanceof ECPublicKey) {
+        ECPublicKey ecKey = (ECPublicKey) publicKey;
+        ECKey.Curve curve = ECKey.Curve.forECParameterSpec(ecKey.getParams());
+        if (curve != null) {
+          return new ECKey.Builder(curve, ecKey)
+              .keyUse(KeyUse.SIGNATURE).keyIDFromThumbprint().build();
+        }
+      }
+    } catch (JOSEException e) {
+      // Not a key tokens can be verified with.
+    }
+    return null;
+  }
+
+  private static JWSVerifier createVerifier(PublicKey publicKey) throws JOSEException {
+    if (publicKey instanceof ECPublicKey) {
+      return new ECDSAVerifier((ECPublicKey) publicKey);
+    }
+    return new RSASSAVerifier((RSAPublicKey) publicKey);
   }
 
   @Override
@@ -184,16 +294,25 @@ public class DefaultTokenAuthorityService implements JWTokenAuthority, Service {
       throw new ServiceLifecycleException("Alias or Keystore service is not set");
     }
     signingKeyAlias = config.getSigningKeyAlias();
+    List<String> previousAliases = config.getSigningKeyPreviousAliases();
+    previousSigningKeyAliases = previousAliases == null
+        ? Collections.<String>emptyList() : new ArrayList<String>(previousAliases);
+    String keystorePath = ks.getKeystorePath();
+    if (keystorePath != null) {
+      File keystoreFile = new File(keystorePath);
+      String signingKeystoreName = config.getSigningKeystoreName();
+      signingKeystoreFile = signingKeystoreName == null
+          ? keystoreFile : new File(keystoreFile.getParentFile(), signingKeystoreName);
+    }
+    signingKey = null;
 
-    @SuppressWarnings("unused")
-    RSAPrivateKey key;
     char[] passphrase = null;
     try {
       passphrase = as.getPasswordFromAliasForGateway(SIGNING_KEY_PASSPHRASE);
       if (passphrase != null) {
-        key = (RSAPrivateKey) ks.getSigningKey(getSigningKeyAlias(),
-            passphrase);
-        if (key == null) {
+        // RSA and EC signing keys are both accepted, see SigningKey.
+        Key key = ks.getSigningKey(getSigningKeyAlias(), passphrase);
+        if (!(key instanceof PrivateKey)) {
           throw new ServiceLifecycleException("Provisioned passphrase cannot be used to acquire signing key.");
         }
       }
@@ -212,4 +331,72 @@ public class DefaultTokenAuthorityService implements JWTokenAuthority, Service {
   public void stop() throws ServiceLifecycleException {
   }
 
+  /**
+   * The signing key pair with its signer and verifier, built once per keystore version.
+   * RSA keys sign RS256, RS384 and RS512; EC keys sign the ES algorithm matching their curve.
+   * Also holds a verifier for each published public key, looked up by kid.
+   */
+  private static final class SigningKey {
+    private final File file;
+    private final long lastModified;
+    private final long length;
+    private final JWSSigner signer;
+    private final JWSVerifier verifier;
+    private final TokenServiceException signerFailure;
+    private final String keyId;
+    private final Map<String, JWSVerifier> verifiers;
+    private final JWKSet jwks;
+    private volatile long nextCheck;
+
+    private SigningKey(File file, long lastModified, long length, PublicKey publicKey, PrivateKey privateKey,
+        TokenServiceException failure, Map<String, JWK> publicKeys) throws TokenServiceException {
+      this.file = file;
+      this.lastModified = lastModified;
+      this.length = length;
+      this.nextCheck = System.currentTimeMillis() + KEYSTORE_CHECK_INTERVAL;
+      try {
+        verifier = createVerifier(publicKey);
+        JWK jwk = toJWK(publicKey);
+        keyId = jwk == null ? null : jwk.getKeyID();
+        Map<String, JWSVerifier> keyed = new HashMap<String, JWSVerifier>();
+        for (JWK key : publicKeys.values()) {
+          if (key.getKeyID().equals(keyId)) {
+            keyed.put(keyId, verifier);
+          } else if (key instanceof RSAKey) {
+            keyed.put(key.getKeyID(), new RSASSAVerifier(((RSAKey) key).toRSAPublicKey()));
+          } else {
+            keyed.put(key.getKeyID(), new ECDSAVerifier(((ECKey) key).toECPublicKey()));
+          }
+        }
+        verifiers = Collections.unmodifiableMap(keyed);
+        jwks = new JWKSet(new ArrayList<JWK>(publicKeys.values()));
+        if (privateKey instanceof ECPrivateKey) {
+          signer = new ECDSASigner((ECPrivateKey) privateKey);
+        } else if (privateKey instanceof RSAPrivateKey) {
+          signer = new RSASSASigner((RSAPrivateKey) privateKey);
+        } else {
+          signer = null;
+        }
+      } catch (JOSEException | ClassCastException e) {
+        throw new TokenServiceException("Unsupported signing key type.", e);
+      }
+      this.signerFailure = signer == null && failure == null
+          ? new TokenServiceException("Cannot find signing key.") : failure;
+    }
+
+    private boolean isStale() {
+      return file != null && (file.lastModified() != lastModified || file.length() != length);
+    }
+
+    private JWSSigner getSigner(String algorithm) throws TokenServiceException {
+      if (signer == null) {
+        throw signerFailure;
+      }
+      if (algorithm == null || !signer.supportedJWSAlgorithms().contains(JWSAlgorithm.parse(algorithm))) {
+        throw new TokenServiceException("Cannot issue token - Unsupported algorithm");
+      }
+      return signer;
+    }
+  }
+
 }
@@ -19,14 +19,11 @@
 package org.apache.hadoop.gateway.services.topology.impl;
 
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.digester3.Digester;
 import org.apache.commons.digester3.binder.DigesterLoader;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.monitor.FileAlterationListener;
-import org.apache.commons.io.monitor.FileAlterationListenerAdaptor;
-import org.apache.commons.io.monitor.FileAlterationMonitor;
-import org.apache.commons.io.monitor.FileAlterationObserver;
 import org.apache.hadoop.gateway.GatewayMessages;
 import org.apache.hadoop.gateway.audit.api.Action;
 import org.apache.hadoop.gateway.audit.api.ActionOutcome;
@@ -39,6 +36,7 @@ import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.service.definition.ServiceDefinition;
 import org.apache.hadoop.gateway.services.ServiceLifecycleException;
 import org.apache.hadoop.gateway.services.topology.TopologyService;
+import org.apache.hadoop.gateway.topology.Service;
 import org.apache.hadoop.gateway.topology.Topology;
 import org.apache.hadoop.gateway.topology.TopologyEvent;
 import org.apache.hadoop.gateway.topology.TopologyListener;
@@ -55,8 +53,10 @@ import org.xml.sax.SAXException;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FilenameFilter;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -72,8 +72,7 @@ import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
 
 
 public class DefaultTopologyService
-    extends FileAlterationListenerAdaptor
-    implements TopologyService, TopologyMonitor, TopologyProvider, FileFilter, FileAlterationListener {
+    implements TopologyService, TopologyMonitor, TopologyProvider, FileFilter {
   private static Auditor auditor = AuditServiceFactory.getAuditService().getAuditor(
     AuditConstants.DEFAULT_AUDITOR_NAME, AuditConstants.KNOX_SERVICE_NAME,
     AuditConstants.KNOX_COMPONENT_NAME);
@@ -84,44 +83,36 @@ public class DefaultTopologyService
   }
   private static GatewayMessages log = MessagesFactory.get(GatewayMessages.class);
   private static DigesterLoader digesterLoader = newLoader(new KnoxFormatXmlTopologyRules(), new AmbariFormatXmlTopologyRules());
-  private FileAlterationMonitor monitor;
+  // Marks a topology file that must be redeployed even though its content is unchanged.
+  static final String REDEPLOY_MARKER_EXTENSION = "redeploy";
+  private TopologyDirectoryWatcher monitor;
   private File directory;
   private Set<TopologyListener> listeners;
   private volatile Map<File, Topology> topologies;
-
-  private Topology loadTopology(File file) throws IOException, SAXException, URISyntaxException, InterruptedException {
-    final long TIMEOUT = 250; //ms
-    final long DELAY = 50; //ms
-    log.loadingTopologyFile(file.getAbsolutePath());
-    Topology topology;
-    long start = System.currentTimeMillis();
-    while (true) {
-      try {
-        topology = loadTopologyAttempt(file);
-        break;
-      } catch (IOException e) {
-        if (System.currentTimeMillis() - start < TIMEOUT) {
-          log.failedToLoadTopologyRetrying(file.getAbsolutePath(), Long.toString(DELAY), e);
-          Thread.sleep(DELAY);
-        } else {
-          throw e;
-        }
-      } catch (SAXException e) {
-        if (System.currentTimeMillis() - start < TIMEOUT) {
-          log.failedToLoadTopologyRetrying(file.getAbsolutePath(), Long.toString(DELAY), e);
-          Thread.sleep(DELAY);
-        } else {
-          throw e;
-        }
-      }
+  private Map<File, TopologyFileState> states;
+  private Set<File> redeployed;
+
+  /**
+   * The state of a topology file when it was last loaded.
+   * A file whose size and timestamp are unchanged is not read again and one whose content is unchanged is not parsed again.
+   */
+  private static class TopologyFileState {
+    private final long lastModified;
+    private final long length;
+    private final String digest;
+
+    private TopologyFileState(long lastModified, long length, String digest) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.digest = digest;
     }
-    return topology;
   }
 
-  private Topology loadTopologyAttempt(File file) throws IOException, SAXException, URISyntaxException {
+  private Topology loadTopology(File file, byte[] content) throws IOException, SAXException, URISyntaxException {
+    log.loadingTopologyFile(file.getAbsolutePath());
     Topology topology;
     Digester digester = digesterLoader.newDigester();
-    TopologyBuilder topologyBuilder = digester.parse(FileUtils.openInputStream(file));
+    TopologyBuilder topologyBuilder = digester.parse(new ByteArrayInputStream(content));
     if (null == topologyBuilder) {
       return null;
     }
@@ -141,6 +132,10 @@ public class DefaultTopologyService
         throw new SAXException(tv.getErrorString());
       }
 
+      // The marker makes the monitoring gateway, possibly in another process, reload the
+      // topology even though its content is unchanged. The timestamp change below wakes it up.
+      FileUtils.touch(getRedeployMarker(topologyFile));
+
       long start = System.currentTimeMillis();
       long limit = 1000L; // One second.
       long elapsed = 1;
@@ -170,7 +165,7 @@ public class DefaultTopologyService
           e.printStackTrace();
         }
       }
-    } catch (SAXException e) {
+    } catch (SAXException | IOException e) {
       auditor.audit(Action.REDEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.FAILURE);
       log.failedToRedeployTopology(topology.getName(), e);
     }
@@ -191,8 +186,15 @@ public class DefaultTopologyService
       if (oldTopologies.containsKey(file)) {
         Topology oldTopology = oldTopologies.get(file);
         Topology newTopology = newTopologies.get(file);
-        if (newTopology.getTimestamp() > oldTopology.getTimestamp()) {
-          events.add(new TopologyEvent(TopologyEvent.Type.UPDATED, newTopologies.get(file)));
+        // Unchanged files keep their previously loaded topology.
+        if (newTopology != oldTopology) {
+          // An explicit redeploy always deploys the whole topology again.
+          List<Service> changed = redeployed.contains(file) ? null : TopologyDiff.findChangedServiceUrls(oldTopology, newTopology);
+          if (changed != null) {
+            events.add(new TopologyEvent(newTopology, changed));
+          } else {
+            events.add(new TopologyEvent(TopologyEvent.Type.UPDATED, newTopology));
+          }
         }
       } else {
         events.add(new TopologyEvent(TopologyEvent.Type.CREATED, newTopologies.get(file)));
@@ -208,33 +210,69 @@ public class DefaultTopologyService
     return topoDir;
   }
 
-  private void initListener(FileAlterationMonitor monitor, File directory) {
+  private void initListener(File directory, boolean polling) throws IOException, SAXException {
     this.directory = directory;
-    this.monitor = monitor;
-
-
-    FileAlterationObserver observer = new FileAlterationObserver(this.directory, this);
-    observer.addListener(this);
-    monitor.addObserver(observer);
+    this.monitor = new TopologyDirectoryWatcher(directory, new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        String extension = FilenameUtils.getExtension(name);
+        return SUPPORTED_TOPOLOGY_FILE_EXTENSIONS.contains(extension) || REDEPLOY_MARKER_EXTENSION.equals(extension);
+      }
+    }, polling, new Runnable() {
+      @Override
+      public void run() {
+        reloadTopologies();
+      }
+    });
 
     this.listeners = new HashSet<TopologyListener>();
     this.topologies = new HashMap<File, Topology>(); //loadTopologies( this.directory );
+    this.states = new HashMap<File, TopologyFileState>();
+    this.redeployed = new HashSet<File>();
   }
 
-  private void initListener(File directory) throws IOException, SAXException {
-    // Increasing the monitoring interval to 5 seconds as profiling has shown
-    // this is rather expensive in terms of generated garbage objects.
-    initListener(new FileAlterationMonitor(5000L), directory);
+  private static File getRedeployMarker(File file) {
+    return new File(file.getPath() + "." + REDEPLOY_MARKER_EXTENSION);
   }
 
   private Map<File, Topology> loadTopologies(File directory) {
     Map<File, Topology> map = new HashMap<File, Topology>();
+    Map<File, TopologyFileState> loaded = new HashMap<File, TopologyFileState>();
+    redeployed = new HashSet<File>();
     if (directory.exists() && directory.canRead()) {
       for (File file : directory.listFiles(this)) {
+        Topology previous = topologies.get(file);
+        TopologyFileState state = states.get(file);
+        File marker = getRedeployMarker(file);
+        boolean redeploy = marker.exists();
         try {
-          Topology loadTopology = loadTopology(file);
+          long lastModified = file.lastModified();
+          long length = file.length();
+          if (!redeploy && previous != null && state != null
+              && state.lastModified == lastModified && state.length == length) {
+            map.put(file, previous);
+            loaded.put(file, state);
+            continue;
+          }
+          // A file replaced by an atomic rename is always seen complete. One still being written is
+          // picked up again by the change event that completes it, so there is no need to wait here.
+          byte[] content = FileUtils.readFileToByteArray(file);
+          String digest = DigestUtils.sha256Hex(content);
+          if (!redeploy && previous != null && state != null && state.digest.equals(digest)) {
+            // Touched but not changed.
+            map.put(file, previous);
+            loaded.put(file, new TopologyFileState(lastModified, length, digest));
+            continue;
+          }
+          Topology loadTopology = loadTopology(file, content);
           if (null != loadTopology) {
             map.put(file, loadTopology);
+            loaded.put(file, new TopologyFileState(lastModified, length, digest));
+            if (redeploy) {
+              redeployed.add(file);
+              FileUtils.deleteQuietly(marker);
+            }
+            continue;
           } else {
             auditor.audit(Action.LOAD, file.getAbsolutePath(), ResourceType.TOPOLOGY,
               ActionOutcome.FAILURE);
@@ -256,8 +294,29 @@ public class DefaultTopologyService
             ActionOutcome.FAILURE);
           log.failedToLoadTopology(file.getAbsolutePath(), e);
         }
+        // A file that cannot be loaded does not take down the deployment of its previous content.
+        if (previous != null && state != null) {
+          log.keepingPreviousTopology(file.getAbsolutePath());
+          map.put(file, previous);
+          loaded.put(file, state);
+        }
+      }
+      // Drop redeploy markers left behind for topologies that no longer exist.
+      File[] markers = directory.listFiles(new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+          return REDEPLOY_MARKER_EXTENSION.equals(FilenameUtils.getExtension(name));
+        }
+      });
+      if (markers != null) {
+        for (File marker : markers) {
+          if (!new File(directory, FilenameUtils.removeExtension(marker.getName())).exists()) {
+            FileUtils.deleteQuietly(marker);
+          }
+        }
       }
     }
+    states = loaded;
     return map;
   }
 
@@ -405,21 +464,6 @@ public class DefaultTopologyService
     return accept;
   }
 
-  @Override
-  public void onFileCreate(File file) {
-    onFileChange(file);
-  }
-
-  @Override
-  public void onFileDelete(java.io.File file) {
-    onFileChange(file);
-  }
-
-  @Override
-  public void onFileChange(File file) {
-    reloadTopologies();
-  }
-
   @Override
   public void stop() {
 
@@ -434,7 +478,7 @@ public class DefaultTopologyService
   public void init(GatewayConfig config, Map<String, String> options) throws ServiceLifecycleException {
 
     try {
-      initListener(calculateAbsoluteTopologiesDir(config));
+      initListener(calculateAbsoluteTopologiesDir(config), config.isTopologyMonitorPollingEnabled());
     } catch (IOException io) {
       throw new ServiceLifecycleException(io.getMessage());
     } catch (SAXException sax) {
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.topology.impl;
+
+import org.apache.hadoop.gateway.topology.Application;
+import org.apache.hadoop.gateway.topology.Provider;
+import org.apache.hadoop.gateway.topology.Service;
+import org.apache.hadoop.gateway.topology.Topology;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compares two versions of a topology to find changes that can be applied to its running deployment.
+ * Providers, applications and service parameters are compiled into the deployment so any change
+ * to them requires the topology to be deployed again. Service URLs are only looked up at request time.
+ */
+class TopologyDiff {
+
+  private TopologyDiff() {
+  }
+
+  /**
+   * Returns the services of the new topology whose URLs changed, if that is the only difference.
+   *
+   * @return the changed services or null if the topologies differ in any other way or not at all
+   */
+  static List<Service> findChangedServiceUrls( Topology oldTopology, Topology newTopology ) {
+    if( !Objects.equals( oldTopology.getName(), newTopology.getName() )
+        || !sameProviders( oldTopology.getProviders(), newTopology.getProviders() )
+        || !sameApplications( oldTopology.getApplications(), newTopology.getApplications() )
+        || oldTopology.getServices().size() != newTopology.getServices().size() ) {
+      return null;
+    }
+    List<Service> changed = new ArrayList<Service>();
+    Iterator<Service> oldServices = oldTopology.getServices().iterator();
+    for( Service newService : newTopology.getServices() ) {
+      // Services keep their order since it determines the order of their filters.
+      Service oldService = oldServices.next();
+      if( !sameService( oldService, newService ) || !Objects.equals( oldService.getParams(), newService.getParams() ) ) {
+        return null;
+      }
+      if( !Objects.equals( oldService.getUrls(), newService.getUrls() ) ) {
+        changed.add( newService );
+      }
+    }
+    return changed.isEmpty() ? null : changed;
+  }
+
+  private static boolean sameService( Service oldService, Service newService ) {
+    return Objects.equals( oldService.getRole(), newService.getRole() )
+        && Objects.equals( oldService.getName(), newService.getName() )
+        && Objects.equals( oldService.getVersion(), newService.getVersion() );
+  }
+
+  private static boolean sameProviders( Collection<Provider> oldProviders, Collection<Provider> newProviders ) {
+    if( oldProviders.size() != newProviders.size() ) {
+      return false;
+    }
+    Iterator<Provider> iterator = oldProviders.iterator();
+    for( Provider newProvider : newProviders ) {
+      Provider oldProvider = iterator.next();
+      if( !Objects.equals( oldProvider.getRole(), newProvider.getRole() )
+          || !Objects.equals( oldProvider.getName(), newProvider.getName() )
+          || oldProvider.isEnabled() != newProvider.isEnabled()
+          || !Objects.equals( oldProvider.getParams(), newProvider.getParams() ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean sameApplications( Collection<Application> oldApplications, Collection<Application> newApplications ) {
+    if( oldApplications.size() != newApplications.size() ) {
+      return false;
+    }
+    Iterator<Application> iterator = oldApplications.iterator();
+    for( Application newApplication : newApplications ) {
+      Application oldApplication = iterator.next();
+      if( !sameService( oldApplication, newApplication )
+          || !Objects.equals( oldApplication.getUrls(), newApplication.getUrls() )
+          || !Objects.equals( oldApplication.getParams(), newApplication.getParams() ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
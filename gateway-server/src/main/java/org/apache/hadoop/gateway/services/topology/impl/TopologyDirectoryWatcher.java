@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.topology.impl;
+
+import org.apache.commons.io.monitor.FileAlterationListenerAdaptor;
+import org.apache.commons.io.monitor.FileAlterationMonitor;
+import org.apache.commons.io.monitor.FileAlterationObserver;
+import org.apache.hadoop.gateway.GatewayMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the topologies directory and runs a callback once a burst of changes to it has settled.
+ * The platform WatchService is used where it is event driven so nothing is done while the directory is idle.
+ * Directories that cannot be watched that way are polled instead.
+ */
+class TopologyDirectoryWatcher {
+
+  private static GatewayMessages log = MessagesFactory.get(GatewayMessages.class);
+
+  static final long DEBOUNCE_DELAY = 50L; //ms
+  static final long POLLING_INTERVAL = 5000L; //ms
+
+  private final File directory;
+  private final FilenameFilter filter;
+  private final Runnable callback;
+  private final boolean polling;
+  private ScheduledExecutorService scheduler;
+  private ScheduledFuture<?> pending;
+  private WatchService watchService;
+  private Thread watcher;
+  private FileAlterationMonitor monitor;
+
+  TopologyDirectoryWatcher(File directory, FilenameFilter filter, boolean polling, Runnable callback) {
+    this.directory = directory;
+    this.filter = filter;
+    this.polling = polling;
+    this.callback = callback;
+  }
+
+  synchronized void start() throws Exception {
+    scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "topology-monitor-notifier");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    if (polling || !startWatching()) {
+      startPolling();
+    }
+  }
+
+  synchronized void stop() throws Exception {
+    // Closing the service ends the watching thread.
+    if (watchService != null) {
+      watchService.close();
+      watchService = null;
+    }
+    watcher = null;
+    if (monitor != null) {
+      monitor.stop();
+      monitor = null;
+    }
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  boolean isPolling() {
+    return monitor != null;
+  }
+
+  private boolean startWatching() {
+    final WatchService service;
+    try {
+      service = directory.toPath().getFileSystem().newWatchService();
+      // The JDK falls back to a slow polling implementation where the platform has no native notification.
+      if (service.getClass().getName().endsWith("PollingWatchService")) {
+        service.close();
+        return false;
+      }
+      directory.toPath().register(service,
+          StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_DELETE,
+          StandardWatchEventKinds.ENTRY_MODIFY);
+      watchService = service;
+    } catch (IOException | UnsupportedOperationException e) {
+      log.topologyDirectoryWatchUnavailable(directory.getAbsolutePath(), e);
+      return false;
+    }
+    watcher = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        watch(service);
+      }
+    }, "topology-monitor");
+    watcher.setDaemon(true);
+    watcher.start();
+    return true;
+  }
+
+  private void watch(WatchService service) {
+    try {
+      while (true) {
+        WatchKey key = service.take();
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            relevant = true;
+          } else if (filter.accept(directory, ((Path)event.context()).toString())) {
+            relevant = true;
+          }
+        }
+        if (relevant) {
+          changed();
+        }
+        if (!key.reset()) {
+          // The directory is gone or no longer accessible.
+          log.topologyDirectoryWatchLost(directory.getAbsolutePath());
+          synchronized (this) {
+            if (scheduler != null && monitor == null) {
+              startPolling();
+            }
+          }
+          return;
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // Stopped.
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      log.failedToMonitorTopologyDirectory(directory.getAbsolutePath(), e);
+    }
+  }
+
+  private void startPolling() {
+    log.pollingTopologyDirectory(directory.getAbsolutePath(), POLLING_INTERVAL);
+    FileAlterationObserver observer = new FileAlterationObserver(directory, new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return filter.accept(file.getParentFile(), file.getName());
+      }
+    });
+    observer.addListener(new FileAlterationListenerAdaptor() {
+      @Override
+      public void onFileCreate(File file) {
+        changed();
+      }
+
+      @Override
+      public void onFileChange(File file) {
+        changed();
+      }
+
+      @Override
+      public void onFileDelete(File file) {
+        changed();
+      }
+    });
+    monitor = new FileAlterationMonitor(POLLING_INTERVAL, observer);
+    try {
+      monitor.start();
+    } catch (Exception e) {
+      log.failedToMonitorTopologyDirectory(directory.getAbsolutePath(), e);
+    }
+  }
+
+  /**
+   * Schedules the callback once no further change arrives within the debounce delay.
+   * Writers that update a file in several steps therefore cause a single reload.
+   */
+  synchronized void changed() {
+    if (scheduler == null) {
+      return;
+    }
+    if (pending != null) {
+      pending.cancel(false);
+    }
+    pending = scheduler.schedule(new Runnable() {
+      @Override
+      public void run() {
+        callback.run();
+      }
+    }, DEBOUNCE_DELAY, TimeUnit.MILLISECONDS);
+  }
+
+}
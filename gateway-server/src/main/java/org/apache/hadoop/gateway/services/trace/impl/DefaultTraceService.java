@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.trace.impl;
+
+import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.services.ServiceLifecycleException;
+import org.apache.hadoop.gateway.services.trace.TraceSample;
+import org.apache.hadoop.gateway.services.trace.TraceService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Decides which requests are sampled and keeps the most recent samples in a ring buffer.
+ * With a sample rate of 0 no request is sampled and the trace handler installs no wrappers.
+ */
+public class DefaultTraceService implements TraceService {
+
+  private int rate;
+  private List<String> paths;
+  private int bodyLimit;
+  private AtomicReferenceArray<TraceSample> samples;
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong recorded = new AtomicLong();
+
+  @Override
+  public void init( GatewayConfig config, Map<String, String> options ) throws ServiceLifecycleException {
+    rate = Math.max( 0, config.getTraceSampleRate() );
+    paths = new ArrayList<String>();
+    if( config.getTraceSamplePaths() != null ) {
+      paths.addAll( config.getTraceSamplePaths() );
+    }
+    bodyLimit = Math.max( 0, config.getTraceSampleBodyLimit() );
+    samples = new AtomicReferenceArray<TraceSample>( Math.max( 1, config.getTraceSampleBufferSize() ) );
+  }
+
+  @Override
+  public void start() throws ServiceLifecycleException {
+  }
+
+  @Override
+  public void stop() throws ServiceLifecycleException {
+  }
+
+  @Override
+  public boolean isSampled( String path ) {
+    if( rate == 0 ) {
+      return false;
+    }
+    if( !paths.isEmpty() ) {
+      boolean matched = false;
+      for( String prefix : paths ) {
+        if( path != null && path.startsWith( prefix ) ) {
+          matched = true;
+          break;
+        }
+      }
+      if( !matched ) {
+        return false;
+      }
+    }
+    return requests.incrementAndGet() % rate == 0;
+  }
+
+  @Override
+  public int getBodyLimit() {
+    return bodyLimit;
+  }
+
+  @Override
+  public void addSample( TraceSample sample ) {
+    long index = recorded.getAndIncrement();
+    samples.set( (int)( index % samples.length() ), sample );
+  }
+
+  @Override
+  public List<TraceSample> getSamples() {
+    long end = recorded.get();
+    long start = Math.max( 0, end - samples.length() );
+    List<TraceSample> list = new ArrayList<TraceSample>( (int)( end - start ) );
+    for( long i = start; i < end; i++ ) {
+      TraceSample sample = samples.get( (int)( i % samples.length() ) );
+      if( sample != null ) {
+        list.add( sample );
+      }
+    }
+    return list;
+  }
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Collects the leading bytes of a body and the headers of a sampled request or response.
+ */
+class TraceCapture {
+
+  private static final Set<String> MASKED_HEADERS = new HashSet<String>( Arrays.asList(
+      "authorization", "proxy-authorization", "cookie", "set-cookie" ) );
+
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+  private final int limit;
+
+  TraceCapture( int limit ) {
+    this.limit = limit;
+  }
+
+  synchronized void capture( int b ) {
+    if( body.size() < limit ) {
+      body.write( b );
+    }
+  }
+
+  synchronized void capture( byte[] b, int off, int len ) {
+    int n = Math.min( len, limit - body.size() );
+    if( n > 0 ) {
+      body.write( b, off, n );
+    }
+  }
+
+  synchronized String getBody() {
+    return new String( body.toByteArray(), StandardCharsets.ISO_8859_1 );
+  }
+
+  static void addHeader( List<String> headers, String name, String value ) {
+    if( MASKED_HEADERS.contains( name.toLowerCase( Locale.ROOT ) ) ) {
+      value = "****";
+    }
+    headers.add( name + ": " + value );
+  }
+
+}
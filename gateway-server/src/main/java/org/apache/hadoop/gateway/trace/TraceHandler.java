@@ -17,6 +17,9 @@
  */
 package org.apache.hadoop.gateway.trace;
 
+import org.apache.hadoop.gateway.services.trace.TraceSample;
+import org.apache.hadoop.gateway.services.trace.TraceService;
+import org.apache.log4j.Logger;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.handler.HandlerWrapper;
 
@@ -37,18 +40,57 @@ public class TraceHandler extends HandlerWrapper {
   static final String HTTP_RESPONSE_HEADER_LOGGER = HTTP_RESPONSE_LOGGER + ".headers";
   static final String HTTP_RESPONSE_BODY_LOGGER = HTTP_RESPONSE_LOGGER + ".body";
 
+  private static Logger requestLog = Logger.getLogger( HTTP_REQUEST_LOGGER );
+  private static Logger requestHeaderLog = Logger.getLogger( HTTP_REQUEST_HEADER_LOGGER );
+  private static Logger requestBodyLog = Logger.getLogger( HTTP_REQUEST_BODY_LOGGER );
+  private static Logger responseLog = Logger.getLogger( HTTP_RESPONSE_LOGGER );
+  private static Logger responseHeaderLog = Logger.getLogger( HTTP_RESPONSE_HEADER_LOGGER );
+  private static Logger responseBodyLog = Logger.getLogger( HTTP_RESPONSE_BODY_LOGGER );
+
   private Set<Integer> bodyFilter;
+  private TraceService traceService;
 
   public void setTracedBodyFilter( String s ) {
     bodyFilter = TraceUtil.parseIntegerSet( s );
   }
 
+  public void setTraceService( TraceService traceService ) {
+    this.traceService = traceService;
+  }
+
+  // Wrappers are only installed while one of their loggers is enabled or the request is sampled.
+  // Logger levels are checked per request so that reconfiguring log4j applies without a restart.
   @Override
   public void handle( String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response )
       throws IOException, ServletException {
-    HttpServletRequest newRequest = new TraceRequest( request );
-    HttpServletResponse newResponse = new TraceResponse( response, bodyFilter );
-    super.handle( target, baseRequest, newRequest, newResponse );
+    HttpServletRequest newRequest = request;
+    HttpServletResponse newResponse = response;
+    if( isTraceEnabled( requestLog, requestHeaderLog, requestBodyLog ) ) {
+      newRequest = new TraceRequest( newRequest );
+    }
+    if( isTraceEnabled( responseLog, responseHeaderLog, responseBodyLog ) ) {
+      newResponse = new TraceResponse( newResponse, bodyFilter );
+    }
+    if( traceService == null || !traceService.isSampled( target ) ) {
+      super.handle( target, baseRequest, newRequest, newResponse );
+      return;
+    }
+    long start = System.currentTimeMillis();
+    TraceSampleRequest sampleRequest = new TraceSampleRequest( newRequest, traceService.getBodyLimit() );
+    TraceSampleResponse sampleResponse = new TraceSampleResponse( newResponse, traceService.getBodyLimit() );
+    try {
+      super.handle( target, baseRequest, sampleRequest, sampleResponse );
+    } finally {
+      traceService.addSample( new TraceSample(
+          start, TraceUtil.getRequestId(), sampleRequest.getMethod(), sampleRequest.getUri(),
+          sampleRequest.getCapturedHeaders(), sampleRequest.getCapturedBody(),
+          sampleResponse.getStatus(), sampleResponse.getCapturedHeaders(), sampleResponse.getCapturedBody(),
+          System.currentTimeMillis() - start ) );
+    }
+  }
+
+  private static boolean isTraceEnabled( Logger log, Logger headerLog, Logger bodyLog ) {
+    return log.isTraceEnabled() || headerLog.isTraceEnabled() || bodyLog.isTraceEnabled();
   }
 
 }
@@ -46,7 +46,7 @@ class TraceResponse extends HttpServletResponseWrapper {
       if( output == null && ( filter == null || filter.isEmpty() || filter.contains( getStatus() ) ) ) {
         output = new TraceOutput( super.getOutputStream() );
       }
-      return output;
+      return ( output == null ) ? super.getOutputStream() : output;
     } else {
       return super.getOutputStream();
     }
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+import org.apache.hadoop.gateway.servlet.SynchronousServletInputStreamAdapter;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Captures the headers and a bounded prefix of the body of a sampled request.
+ */
+class TraceSampleRequest extends HttpServletRequestWrapper {
+
+  private final TraceCapture capture;
+  private ServletInputStream input;
+
+  TraceSampleRequest( HttpServletRequest request, int bodyLimit ) {
+    super( request );
+    this.capture = new TraceCapture( bodyLimit );
+  }
+
+  public synchronized ServletInputStream getInputStream() throws IOException {
+    if( input == null ) {
+      input = new CaptureInput( super.getInputStream(), capture );
+    }
+    return input;
+  }
+
+  String getUri() {
+    String qs = getQueryString();
+    return ( qs == null ) ? getRequestURI() : getRequestURI() + "?" + qs;
+  }
+
+  List<String> getCapturedHeaders() {
+    List<String> headers = new ArrayList<String>();
+    Enumeration<String> names = getHeaderNames();
+    while( names != null && names.hasMoreElements() ) {
+      String name = names.nextElement();
+      Enumeration<String> values = getHeaders( name );
+      while( values.hasMoreElements() ) {
+        TraceCapture.addHeader( headers, name, values.nextElement() );
+      }
+    }
+    return headers;
+  }
+
+  String getCapturedBody() {
+    return capture.getBody();
+  }
+
+  private static class CaptureInput extends SynchronousServletInputStreamAdapter {
+
+    private final ServletInputStream delegate;
+    private final TraceCapture capture;
+
+    CaptureInput( ServletInputStream delegate, TraceCapture capture ) {
+      this.delegate = delegate;
+      this.capture = capture;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = delegate.read();
+      if( b >= 0 ) {
+        capture.capture( b );
+      }
+      return b;
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException {
+      int n = delegate.read( b, off, len );
+      if( n > 0 ) {
+        capture.capture( b, off, n );
+      }
+      return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return delegate.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+
+  }
+
+}
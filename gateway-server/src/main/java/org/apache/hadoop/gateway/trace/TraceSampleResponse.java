@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+import org.apache.hadoop.gateway.servlet.SynchronousServletOutputStreamAdapter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Captures the headers and a bounded prefix of the body of a sampled response.
+ */
+class TraceSampleResponse extends HttpServletResponseWrapper {
+
+  private final TraceCapture capture;
+  private ServletOutputStream output;
+
+  TraceSampleResponse( HttpServletResponse response, int bodyLimit ) {
+    super( response );
+    this.capture = new TraceCapture( bodyLimit );
+  }
+
+  public synchronized ServletOutputStream getOutputStream() throws IOException {
+    if( output == null ) {
+      output = new CaptureOutput( super.getOutputStream(), capture );
+    }
+    return output;
+  }
+
+  List<String> getCapturedHeaders() {
+    List<String> headers = new ArrayList<String>();
+    for( String name : getHeaderNames() ) {
+      for( String value : getHeaders( name ) ) {
+        TraceCapture.addHeader( headers, name, value );
+      }
+    }
+    return headers;
+  }
+
+  String getCapturedBody() {
+    return capture.getBody();
+  }
+
+  private static class CaptureOutput extends SynchronousServletOutputStreamAdapter {
+
+    private final ServletOutputStream delegate;
+    private final TraceCapture capture;
+
+    CaptureOutput( ServletOutputStream delegate, TraceCapture capture ) {
+      this.delegate = delegate;
+      this.capture = capture;
+    }
+
+    @Override
+    public void write( int b ) throws IOException {
+      capture.capture( b );
+      delegate.write( b );
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException {
+      capture.capture( b, off, len );
+      delegate.write( b, off, len );
+    }
+
+    @Override
+    public void flush() throws IOException {
+      delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+
+  }
+
+}
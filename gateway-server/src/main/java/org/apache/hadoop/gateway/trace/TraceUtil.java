@@ -42,6 +42,11 @@ public class TraceUtil {
     }
   }
 
+  static final String getRequestId() {
+    CorrelationContext cc = cs.getContext();
+    return ( cc == null ) ? null : cc.getRequestId();
+  }
+
   private static final void append( final StringBuilder sb, final String s ) {
     if( s != null ) {
       sb.append( s );
@@ -38,8 +38,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class ServiceDefinitionsLoader {
@@ -49,48 +54,91 @@ public class ServiceDefinitionsLoader {
 
   private static final String REWRITE_FILE = "rewrite.xml";
 
+  private static final Map<File, Catalog> catalogs = new HashMap<>();
+
+  private static JAXBContext jaxbContext;
+
   public static Set<ServiceDeploymentContributor> loadServiceDefinitions(File servicesDir) {
     Set<ServiceDeploymentContributor> contributors = new HashSet<ServiceDeploymentContributor>();
-    if ( servicesDir.exists() && servicesDir.isDirectory() ) {
-      try {
-        JAXBContext context = JAXBContext.newInstance(ServiceDefinition.class);
-        Unmarshaller unmarshaller = context.createUnmarshaller();
-
-        for ( File file : getFileList(servicesDir) ) {
-          try {
-            FileInputStream inputStream = new FileInputStream(file);
-            ServiceDefinition definition = (ServiceDefinition) unmarshaller.unmarshal(inputStream);
-            //look for rewrite rules as a sibling (for now)
-            UrlRewriteRulesDescriptor rewriteRulesDescriptor = loadRewriteRules(file.getParentFile());
-            contributors.add(new ServiceDefinitionDeploymentContributor(definition, rewriteRulesDescriptor));
-            log.addedServiceDefinition(definition.getName(), definition.getRole(), definition.getVersion());
-          } catch ( FileNotFoundException e ) {
-            log.failedToFindServiceDefinitionFile(file.getAbsolutePath(), e);
-          }
-        }
-      } catch ( JAXBException e ) {
-        log.failedToLoadServiceDefinition(SERVICE_FILE_NAME, e);
-      }
+    for ( CatalogEntry entry : getCatalog(servicesDir).entries.values() ) {
+      ServiceDefinition definition = entry.definition;
+      //look for rewrite rules as a sibling (for now)
+      UrlRewriteRulesDescriptor rewriteRulesDescriptor = entry.getRewriteRules();
+      contributors.add(new ServiceDefinitionDeploymentContributor(definition, rewriteRulesDescriptor));
+      log.addedServiceDefinition(definition.getName(), definition.getRole(), definition.getVersion());
     }
     return contributors;
   }
 
   public static Set<ServiceDefinition> getServiceDefinitions(File servicesDir) {
     Set<ServiceDefinition> definitions = new HashSet<>();
-    try {
-      JAXBContext context = JAXBContext.newInstance(ServiceDefinition.class);
-      Unmarshaller unmarshaller = context.createUnmarshaller();
+    for ( CatalogEntry entry : getCatalog(servicesDir).entries.values() ) {
+      definitions.add(entry.definition);
+    }
+    return definitions;
+  }
 
-      for (File f : getFileList(servicesDir)){
-        ServiceDefinition definition = (ServiceDefinition) unmarshaller.unmarshal(f);
-        definitions.add( definition );
+  /**
+   * Looks up a service definition by role and, optionally, by name and version.
+   *
+   * @param servicesDir the directory the service definitions are loaded from
+   * @param role the role of the service
+   * @param name the name of the service or null to match any name
+   * @param version the version of the service or null to match any version
+   * @return the first matching service definition or null if there is none
+   */
+  public static ServiceDefinition getServiceDefinition(File servicesDir, String role, String name, String version) {
+    List<ServiceDefinition> definitions = getCatalog(servicesDir).roles.get(role);
+    if ( definitions != null ) {
+      for ( ServiceDefinition definition : definitions ) {
+        if ( (name == null || name.equals(definition.getName()))
+            && (version == null || version.equals(definition.getVersion())) ) {
+          return definition;
+        }
       }
+    }
+    return null;
+  }
 
-    } catch (JAXBException e) {
-      log.failedToLoadServiceDefinition(SERVICE_FILE_NAME, e);
+  /**
+   * Returns the catalog of the service definitions found in the given directory. Each
+   * service file is only unmarshalled again once its modification time or length change,
+   * so repeated loads of an unchanged directory cost a directory walk and a stat per file.
+   */
+  private static synchronized Catalog getCatalog(File servicesDir) {
+    File key = servicesDir.getAbsoluteFile();
+    Catalog previous = catalogs.get(key);
+    Map<File, CatalogEntry> entries = new LinkedHashMap<>();
+    boolean changed = previous == null;
+    Unmarshaller unmarshaller = null;
+    for ( File file : getFileList(servicesDir) ) {
+      CatalogEntry entry = previous == null ? null : previous.entries.get(file);
+      if ( entry == null || !entry.isCurrent() ) {
+        changed = true;
+        try {
+          if ( unmarshaller == null ) {
+            unmarshaller = getJAXBContext().createUnmarshaller();
+          }
+          entry = new CatalogEntry(file, unmarshaller);
+        } catch ( JAXBException e ) {
+          log.failedToLoadServiceDefinition(file.getAbsolutePath(), e);
+          continue;
+        }
+      }
+      entries.put(file, entry);
+    }
+    if ( changed || entries.size() != previous.entries.size() ) {
+      previous = new Catalog(entries);
+      catalogs.put(key, previous);
     }
+    return previous;
+  }
 
-    return definitions;
+  private static synchronized JAXBContext getJAXBContext() throws JAXBException {
+    if ( jaxbContext == null ) {
+      jaxbContext = JAXBContext.newInstance(ServiceDefinition.class);
+    }
+    return jaxbContext;
   }
 
   private static Collection<File> getFileList(File servicesDir) {
@@ -135,4 +183,56 @@ public class ServiceDefinitionsLoader {
     log.noRewriteFileFound(servicesDir.getAbsolutePath());
     return null;
   }
+  private static class Catalog {
+    private final Map<File, CatalogEntry> entries;
+    private final Map<String, List<ServiceDefinition>> roles = new HashMap<>();
+
+    private Catalog(Map<File, CatalogEntry> entries) {
+      this.entries = entries;
+      for ( CatalogEntry entry : entries.values() ) {
+        String role = entry.definition.getRole();
+        List<ServiceDefinition> definitions = roles.get(role);
+        if ( definitions == null ) {
+          definitions = new ArrayList<>();
+          roles.put(role, definitions);
+        }
+        definitions.add(entry.definition);
+      }
+    }
+  }
+
+  private static class CatalogEntry {
+    private final File file;
+    private final long lastModified;
+    private final long length;
+    private final File rewriteFile;
+    private final long rewriteLastModified;
+    private final long rewriteLength;
+    private final ServiceDefinition definition;
+    private UrlRewriteRulesDescriptor rewriteRules;
+    private boolean rewriteRulesLoaded;
+
+    private CatalogEntry(File file, Unmarshaller unmarshaller) throws JAXBException {
+      this.file = file;
+      this.lastModified = file.lastModified();
+      this.length = file.length();
+      this.rewriteFile = new File(file.getParentFile(), REWRITE_FILE);
+      this.rewriteLastModified = rewriteFile.lastModified();
+      this.rewriteLength = rewriteFile.length();
+      this.definition = (ServiceDefinition) unmarshaller.unmarshal(file);
+    }
+
+    private boolean isCurrent() {
+      return file.lastModified() == lastModified && file.length() == length
+          && rewriteFile.lastModified() == rewriteLastModified && rewriteFile.length() == rewriteLength;
+    }
+
+    private synchronized UrlRewriteRulesDescriptor getRewriteRules() {
+      if ( !rewriteRulesLoaded ) {
+        rewriteRules = loadRewriteRules(file.getParentFile());
+        rewriteRulesLoaded = true;
+      }
+      return rewriteRules;
+    }
+  }
 }
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.websockets;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.SuspendToken;
+
+/**
+ * Flow control for one direction of a proxied Websocket connection.
+ * <p>
+ * Counts the bytes that were read from one side and are still queued for an
+ * asynchronous write to the other side, text messages by their UTF-8 encoded size. Reading from the source is suspended
+ * when too much is queued, and resumed once half of it has been written.
+ *
+ * @since 0.12
+ */
+class FlowControl {
+
+  private final long highWatermark;
+
+  private final long lowWatermark;
+
+  /* Session the relayed messages are read from */
+  private Session source;
+
+  private long pending;
+
+  private SuspendToken suspended;
+
+  FlowControl(final long highWatermark) {
+    super();
+    this.highWatermark = highWatermark;
+    this.lowWatermark = highWatermark / 2;
+  }
+
+  synchronized void setSource(final Session source) {
+    this.source = source;
+  }
+
+  /**
+   * Called before a message is queued for writing.
+   */
+  synchronized void queued(final long bytes) {
+    pending += bytes;
+    if (pending > highWatermark && suspended == null && source != null) {
+      suspended = source.suspend();
+    }
+  }
+
+  /**
+   * Called once a queued message was written, or failed to be written.
+   */
+  void written(final long bytes) {
+    final SuspendToken resume;
+    synchronized (this) {
+      pending -= bytes;
+      if (suspended == null || pending > lowWatermark) {
+        return;
+      }
+      resume = suspended;
+      suspended = null;
+    }
+    resume.resume();
+  }
+
+  /**
+   * Returns the number of bytes the text takes on the wire, encoded as UTF-8.
+   */
+  static long utf8Length(final CharSequence text) {
+    long bytes = 0;
+    final int length = text.length();
+    for (int i = 0; i < length; i++) {
+      final char c = text.charAt(i);
+      if (c < 0x80) {
+        bytes += 1;
+      } else if (c < 0x800) {
+        bytes += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(text.charAt(i + 1))) {
+        bytes += 4;
+        i++;
+      } else {
+        bytes += 3;
+      }
+    }
+    return bytes;
+  }
+
+  synchronized long getPending() {
+    return pending;
+  }
+
+  synchronized boolean isSuspended() {
+    return suspended != null;
+  }
+
+}
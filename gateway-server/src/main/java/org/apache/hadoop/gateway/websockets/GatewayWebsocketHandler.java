@@ -17,21 +17,21 @@
  */
 package org.apache.hadoop.gateway.websockets;
 
-import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
-import java.util.Set;
+
+import javax.websocket.ContainerProvider;
+import javax.websocket.WebSocketContainer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
-import org.apache.hadoop.gateway.service.definition.ServiceDefinition;
 import org.apache.hadoop.gateway.services.GatewayServices;
 import org.apache.hadoop.gateway.services.registry.ServiceDefEntry;
 import org.apache.hadoop.gateway.services.registry.ServiceDefinitionRegistry;
 import org.apache.hadoop.gateway.services.registry.ServiceRegistry;
-import org.apache.hadoop.gateway.util.ServiceDefinitionsLoader;
+import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.websocket.server.WebSocketHandler;
 import org.eclipse.jetty.websocket.servlet.ServletUpgradeRequest;
 import org.eclipse.jetty.websocket.servlet.ServletUpgradeResponse;
@@ -60,6 +60,9 @@ public class GatewayWebsocketHandler extends WebSocketHandler
   final GatewayConfig config;
   final GatewayServices services;
 
+  /* Client container shared by the backend connections of all proxied sockets */
+  private WebSocketContainer container;
+
   /**
    * Create an instance
    * 
@@ -75,6 +78,27 @@ public class GatewayWebsocketHandler extends WebSocketHandler
 
   }
 
+  @Override
+  protected void doStart() throws Exception {
+    container = ContainerProvider.getWebSocketContainer();
+    if (config.getWebsocketAsyncWriteTimeout() > 0) {
+      container.setAsyncSendTimeout(config.getWebsocketAsyncWriteTimeout());
+    }
+    if (config.getWebsocketIdleTimeout() > 0) {
+      container.setDefaultMaxSessionIdleTimeout(config.getWebsocketIdleTimeout());
+    }
+    super.doStart();
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    super.doStop();
+    if (container instanceof LifeCycle) {
+      ((LifeCycle) container).stop();
+    }
+    container = null;
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -124,7 +148,7 @@ public class GatewayWebsocketHandler extends WebSocketHandler
       final String backendURL = getMatchedBackendURL(path);
 
       /* Upgrade happens here */
-      return new ProxyWebSocketAdapter(URI.create(backendURL));
+      return new ProxyWebSocketAdapter(URI.create(backendURL), container);
     } catch (final Exception e) {
       LOG.failedCreatingWebSocket(e);
       throw e;
@@ -159,14 +183,9 @@ public class GatewayWebsocketHandler extends WebSocketHandler
           String.format("Cannot find service for the given path: %s", path));
     }
 
-    final File servicesDir = new File(config.getGatewayServicesDir());
-
-    final Set<ServiceDefinition> serviceDefs = ServiceDefinitionsLoader
-        .getServiceDefinitions(servicesDir);
-
     /* URL used to connect to websocket backend */
-    String backendURL = urlFromServiceDefinition(serviceDefs,
-        serviceRegistryService, entry, path);
+    String backendURL = urlFromServiceDefinition(serviceRegistryService,
+        entry, path);
 
     try {
 
@@ -197,7 +216,6 @@ public class GatewayWebsocketHandler extends WebSocketHandler
   }
 
   private static String urlFromServiceDefinition(
-      final Set<ServiceDefinition> serviceDefs,
       final ServiceRegistry serviceRegistry, final ServiceDefEntry entry,
       final String path) {
 
@@ -49,14 +49,15 @@ public interface MessageEventCallback {
   void onError(final Throwable cause);
   
   /**
-   * Callback when a text message is received.
+   * Callback when a text message, or a fragment of one, is received.
    * @param message
+   * @param last
    * @param session
    */
-  void onMessageText(final String message, final Object session);
+  void onMessageText(final String message, final boolean last, final Object session);
   
   /**
-   * Callback when a binary message is received.
+   * Callback when a binary message, or a fragment of one, is received.
    * @param message
    * @param last
    * @param session
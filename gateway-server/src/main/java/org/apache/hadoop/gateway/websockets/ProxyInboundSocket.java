@@ -64,10 +64,10 @@ public class ProxyInboundSocket {
   }
 
   @OnMessage(maxMessageSize = Integer.MAX_VALUE)
-  public void onBackendMessage(final String message,
+  public void onBackendMessage(final String message, final boolean last,
       final javax.websocket.Session session) {
 
-    callback.onMessageText(message, session);
+    callback.onMessageText(message, last, session);
 
   }
 
@@ -19,23 +19,38 @@ package org.apache.hadoop.gateway.websockets;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 import javax.websocket.CloseReason;
 import javax.websocket.ContainerProvider;
 import javax.websocket.DeploymentException;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
 import javax.websocket.WebSocketContainer;
 
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.eclipse.jetty.io.RuntimeIOException;
-import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.websocket.api.BatchMode;
 import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.StatusCode;
 import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.common.WebSocketFrame;
+import org.eclipse.jetty.websocket.common.WebSocketRemoteEndpoint;
+import org.eclipse.jetty.websocket.common.frames.BinaryFrame;
+import org.eclipse.jetty.websocket.common.frames.ContinuationFrame;
+import org.eclipse.jetty.websocket.common.frames.TextFrame;
 
 /**
  * Handles outbound/inbound Websocket connections and sessions.
+ * <p>
+ * Text and binary messages are relayed in both directions with asynchronous
+ * writes, so a slow peer does not hold up the thread reading from the other
+ * one. When too much data is queued for a peer, reading from the other side
+ * is suspended until the queue drains. Fragmented messages from the backend
+ * are relayed fragment by fragment, each as an asynchronously written frame.
  *
  * @since 0.10
  */
@@ -44,23 +59,55 @@ public class ProxyWebSocketAdapter extends WebSocketAdapter {
   private static final WebsocketLogMessages LOG = MessagesFactory
       .get(WebsocketLogMessages.class);
 
+  private static final String FROM_FRONTEND = "[From Frontend --->]";
+
+  private static final String FROM_BACKEND = "[From Backend <---]";
+
+  /* Bytes queued for a peer before reading from the other side is suspended */
+  static final long MAX_PENDING_BYTES = 1024 * 1024;
+
+  /* Client container used when none is given, shared by all connections */
+  private static WebSocketContainer defaultContainer;
+
   /* URI for the backend */
   private final URI backend;
 
+  private final WebSocketContainer container;
+
   /* Session between the frontend (browser) and Knox */
   private Session frontendSession;
 
   /* Session between the backend (outbound) and Knox */
   private javax.websocket.Session backendSession;
 
-  private WebSocketContainer container;
+  private final FlowControl toBackend = new FlowControl(MAX_PENDING_BYTES);
+
+  private final FlowControl toFrontend = new FlowControl(MAX_PENDING_BYTES);
 
   /**
    * Create an instance
    */
   public ProxyWebSocketAdapter(URI backend) {
+    this(backend, getDefaultContainer());
+  }
+
+  /**
+   * Create an instance connecting to the backend with the given client
+   * container
+   *
+   * @since 0.12
+   */
+  public ProxyWebSocketAdapter(URI backend, WebSocketContainer container) {
     super();
     this.backend = backend;
+    this.container = container;
+  }
+
+  private static synchronized WebSocketContainer getDefaultContainer() {
+    if (defaultContainer == null) {
+      defaultContainer = ContainerProvider.getWebSocketContainer();
+    }
+    return defaultContainer;
   }
 
   @Override
@@ -70,12 +117,9 @@ public class ProxyWebSocketAdapter extends WebSocketAdapter {
      * Let's connect to the backend, this is where the Backend-to-frontend
      * plumbing takes place
      */
-    container = ContainerProvider.getWebSocketContainer();
     final ProxyInboundSocket backendSocket = new ProxyInboundSocket(
         getMessageCallback());
 
-    /* build the configuration */
-
     /* Attempt Connect */
     try {
       backendSession = container.connectToServer(backendSocket, backend);
@@ -92,6 +136,12 @@ public class ProxyWebSocketAdapter extends WebSocketAdapter {
     super.onWebSocketConnect(frontEndSession);
     this.frontendSession = frontEndSession;
 
+    toBackend.setSource(frontEndSession);
+    /* the Jetty client session can be suspended like the frontend one */
+    if (backendSession instanceof Session) {
+      toFrontend.setSource((Session) backendSession);
+    }
+
   }
 
   @Override
@@ -102,8 +152,13 @@ public class ProxyWebSocketAdapter extends WebSocketAdapter {
       return;
     }
 
-    throw new UnsupportedOperationException(
-        "Websocket support for binary messages is not supported at this time.");
+    LOG.logBinaryMessage(FROM_FRONTEND, length);
+
+    /* Proxy message to backend, the payload array belongs to this message */
+    toBackend.queued(length);
+    backendSession.getAsyncRemote().sendBinary(
+        ByteBuffer.wrap(payload, offset, length), backendSendHandler(length));
+
   }
 
   @Override
@@ -113,16 +168,26 @@ public class ProxyWebSocketAdapter extends WebSocketAdapter {
       return;
     }
 
-    LOG.logMessage("[From Frontend --->]" + message);
+    LOG.logMessage(FROM_FRONTEND, message);
 
     /* Proxy message to backend */
-    try {
-      backendSession.getBasicRemote().sendText(message);
+    final long bytes = FlowControl.utf8Length(message);
+    toBackend.queued(bytes);
+    backendSession.getAsyncRemote().sendText(message,
+        backendSendHandler(bytes));
 
-    } catch (IOException e) {
-      LOG.connectionFailed(e);
-    }
+  }
 
+  private SendHandler backendSendHandler(final long bytes) {
+    return new SendHandler() {
+      @Override
+      public void onResult(final SendResult result) {
+        toBackend.written(bytes);
+        if (!result.isOK()) {
+          LOG.onError(String.valueOf(result.getException()));
+        }
+      }
+    };
   }
 
   @Override
@@ -161,6 +226,9 @@ public class ProxyWebSocketAdapter extends WebSocketAdapter {
 
     return new MessageEventCallback() {
 
+      /* true while a fragmented message is being relayed to the frontend */
+      private boolean fragmented;
+
       @Override
       public void doCallback(String message) {
         /* do nothing */
@@ -190,14 +258,22 @@ public class ProxyWebSocketAdapter extends WebSocketAdapter {
       }
 
       @Override
-      public void onMessageText(String message, Object session) {
+      public void onMessageText(String message, boolean last, Object session) {
         final RemoteEndpoint remote = getRemote();
 
-        LOG.logMessage("[From Backend <---]" + message);
+        LOG.logMessage(FROM_BACKEND, message);
 
         /* Proxy message to frontend */
         try {
-          remote.sendString(message);
+          if (fragmented || !last) {
+            sendFragment(remote, fragmented ? new ContinuationFrame() : new TextFrame(),
+                StandardCharsets.UTF_8.encode(message), last);
+            fragmented = !last;
+          } else {
+            final long bytes = FlowControl.utf8Length(message);
+            toFrontend.queued(bytes);
+            remote.sendString(message, frontendWriteCallback(bytes));
+          }
           if (remote.getBatchMode() == BatchMode.ON) {
             remote.flush();
           }
@@ -211,8 +287,28 @@ public class ProxyWebSocketAdapter extends WebSocketAdapter {
       @Override
       public void onMessageBinary(byte[] message, boolean last,
           Object session) {
-        throw new UnsupportedOperationException(
-            "Websocket support for binary messages is not supported at this time.");
+        final RemoteEndpoint remote = getRemote();
+
+        LOG.logBinaryMessage(FROM_BACKEND, message.length);
+
+        /* Proxy message to frontend */
+        try {
+          if (fragmented || !last) {
+            sendFragment(remote, fragmented ? new ContinuationFrame() : new BinaryFrame(),
+                ByteBuffer.wrap(message), last);
+            fragmented = !last;
+          } else {
+            toFrontend.queued(message.length);
+            remote.sendBytes(ByteBuffer.wrap(message),
+                frontendWriteCallback(message.length));
+          }
+          if (remote.getBatchMode() == BatchMode.ON) {
+            remote.flush();
+          }
+        } catch (IOException e) {
+          LOG.connectionFailed(e);
+          throw new RuntimeIOException(e);
+        }
 
       }
 
@@ -220,23 +316,49 @@ public class ProxyWebSocketAdapter extends WebSocketAdapter {
 
   }
 
-  private void closeQuietly() {
+  /**
+   * Relays a fragment of a backend message to the frontend as a frame of its
+   * own. The Jetty API only has blocking writes for partial messages, so the
+   * frame is queued on the endpoint directly, in order with the other frames.
+   */
+  private void sendFragment(final RemoteEndpoint remote,
+      final WebSocketFrame frame, final ByteBuffer payload, final boolean last) {
+    final int bytes = payload.remaining();
+    frame.setPayload(payload);
+    frame.setFin(last);
+    toFrontend.queued(bytes);
+    ((WebSocketRemoteEndpoint) remote).uncheckedSendFrame(frame,
+        frontendWriteCallback(bytes));
+  }
 
-    try {
-      backendSession.close();
-    } catch (IOException e) {
-      LOG.connectionFailed(e);
-    }
+  private WriteCallback frontendWriteCallback(final long bytes) {
+    return new WriteCallback() {
+      @Override
+      public void writeSuccess() {
+        toFrontend.written(bytes);
+      }
 
-    if (container instanceof LifeCycle) {
+      @Override
+      public void writeFailed(final Throwable x) {
+        toFrontend.written(bytes);
+        LOG.onError(x.toString());
+      }
+    };
+  }
+
+  private void closeQuietly() {
+
+    if (backendSession != null) {
       try {
-        ((LifeCycle) container).stop();
-      } catch (Exception e) {
+        backendSession.close();
+      } catch (IOException e) {
         LOG.connectionFailed(e);
       }
     }
 
-    frontendSession.close();
+    if (frontendSession != null) {
+      frontendSession.close();
+    }
 
   }
 
@@ -50,8 +50,11 @@ public interface WebsocketLogMessages {
       text = "Websocket connection to backend server {0} opened")
   void onConnectionOpen(final String backend);
 
-  @Message(level = MessageLevel.DEBUG, text = "Message: {0}")
-  void logMessage(final String message);
+  @Message(level = MessageLevel.DEBUG, text = "{0} Message: {1}")
+  void logMessage(final String direction, final String message);
+
+  @Message(level = MessageLevel.DEBUG, text = "{0} Binary message of {1} bytes")
+  void logBinaryMessage(final String direction, final int length);
 
   @Message(level = MessageLevel.DEBUG,
       text = "Websocket connection to backend server {0} closed")
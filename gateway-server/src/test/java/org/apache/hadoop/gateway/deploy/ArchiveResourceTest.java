@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.deploy;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.test.TestUtils;
+import org.eclipse.jetty.server.NetworkConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.webapp.WebAppContext;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.collection.IsArrayContainingInAnyOrder.arrayContainingInAnyOrder;
+
+public class ArchiveResourceTest {
+
+  private static WebArchive createArchive() {
+    WebArchive war = ShrinkWrap.create( WebArchive.class, "%2F" );
+    war.setWebXML( new StringAsset(
+        "<web-app>" +
+        "<servlet><servlet-name>echo</servlet-name><servlet-class>" + ResourceEchoServlet.class.getName() + "</servlet-class></servlet>" +
+        "<servlet-mapping><servlet-name>echo</servlet-name><url-pattern>/*</url-pattern></servlet-mapping>" +
+        "</web-app>" ) );
+    war.addAsWebInfResource( new StringAsset( "test-content" ), "test.txt" );
+    return war;
+  }
+
+  @Test( timeout = TestUtils.SHORT_TIMEOUT )
+  public void testResourceNavigation() throws Exception {
+    Resource root = new ArchiveResource( createArchive() );
+    assertThat( root.exists(), is( true ) );
+    assertThat( root.isDirectory(), is( true ) );
+    assertThat( root.list(), arrayContainingInAnyOrder( "WEB-INF/" ) );
+
+    Resource webInf = root.addPath( "WEB-INF/" );
+    assertThat( webInf.isDirectory(), is( true ) );
+    assertThat( Arrays.asList( webInf.list() ).contains( "test.txt" ), is( true ) );
+
+    Resource file = root.addPath( "/WEB-INF/test.txt" );
+    assertThat( file.exists(), is( true ) );
+    assertThat( file.isDirectory(), is( false ) );
+    assertThat( file.length(), is( 12L ) );
+    assertThat( file, equalTo( webInf.addPath( "test.txt" ) ) );
+    assertThat( IOUtils.toString( file.getInputStream(), "UTF-8" ), is( "test-content" ) );
+    InputStream stream = file.getURL().openStream();
+    try {
+      assertThat( IOUtils.toString( stream, "UTF-8" ), is( "test-content" ) );
+    } finally {
+      stream.close();
+    }
+
+    Resource missing = root.addPath( "WEB-INF/missing.txt" );
+    assertThat( missing.exists(), is( false ) );
+    assertThat( missing.list(), nullValue() );
+    assertThat( file.getFile(), nullValue() );
+  }
+
+  @Test( timeout = TestUtils.MEDIUM_TIMEOUT )
+  public void testServeWebAppFromArchive() throws Exception {
+    Server server = new Server( 0 );
+    WebAppContext context = new WebAppContext();
+    context.setContextPath( "/test" );
+    context.setBaseResource( new ArchiveResource( createArchive() ) );
+    server.setHandler( context );
+    server.start();
+    try {
+      int port = ((NetworkConnector)server.getConnectors()[ 0 ]).getLocalPort();
+      URL url = new URL( "http://localhost:" + port + "/test/echo" );
+      InputStream stream = url.openStream();
+      try {
+        assertThat( IOUtils.toString( stream, "UTF-8" ), is( "test-content" ) );
+      } finally {
+        stream.close();
+      }
+    } finally {
+      server.stop();
+    }
+  }
+
+  public static class ResourceEchoServlet extends HttpServlet {
+    @Override
+    protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws IOException {
+      InputStream stream = getServletContext().getResourceAsStream( "/WEB-INF/test.txt" );
+      try {
+        IOUtils.copy( stream, response.getOutputStream() );
+      } finally {
+        stream.close();
+      }
+    }
+  }
+
+}
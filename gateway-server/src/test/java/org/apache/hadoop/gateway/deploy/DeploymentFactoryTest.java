@@ -18,6 +18,12 @@
 package org.apache.hadoop.gateway.deploy;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 
@@ -28,6 +34,7 @@ import org.apache.hadoop.gateway.topology.Service;
 import org.apache.hadoop.gateway.topology.Topology;
 import org.apache.hadoop.gateway.util.XmlUtils;
 import org.apache.hadoop.test.TestUtils;
+import org.easymock.EasyMock;
 import org.jboss.shrinkwrap.api.spec.EnterpriseArchive;
 import org.junit.Test;
 import org.w3c.dom.Document;
@@ -54,6 +61,41 @@ public class DeploymentFactoryTest {
     assertThat( xml, hasXPath( "/topology/name", equalTo( "test-topology" ) ) );
   }
 
+  @Test( timeout = TestUtils.LONG_TIMEOUT )
+  public void testParallelDeployments() throws Exception {
+    final GatewayConfig config = EasyMock.createNiceMock( GatewayConfig.class );
+    EasyMock.expect( config.getGatewayServicesDir() )
+        .andReturn( ClassLoader.getSystemResource( "websocket-services" ).getFile() ).anyTimes();
+    EasyMock.replay( config );
+
+    // Each deployment reloads the service definitions while the others look up their contributors.
+    ExecutorService executor = Executors.newFixedThreadPool( 4 );
+    try {
+      List<Future<EnterpriseArchive>> deployments = new ArrayList<>();
+      for( int i = 0; i < 16; i++ ) {
+        final Topology topology = new Topology();
+        topology.setName( "parallel-topology-" + i );
+        Service service = new Service();
+        service.setRole( "WEBSOCKET" );
+        service.addUrl( "ws://localhost:9999/ws" );
+        topology.addService( service );
+        deployments.add( executor.submit( new Callable<EnterpriseArchive>() {
+          @Override
+          public EnterpriseArchive call() {
+            return DeploymentFactory.createDeployment( config, topology );
+          }
+        } ) );
+      }
+      for( Future<EnterpriseArchive> deployment : deployments ) {
+        EnterpriseArchive archive = deployment.get();
+        Document gateway = XmlUtils.readXml( archive.get( "%2F/WEB-INF/gateway.xml" ).getAsset().openStream() );
+        assertThat( gateway, hasXPath( "/gateway/resource/role", equalTo( "WEBSOCKET" ) ) );
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test( timeout = TestUtils.SHORT_TIMEOUT )
   public void test_validateNoAppsWithRootUrlsInServicesTopology() {
     DeploymentFactory.validateNoAppsWithRootUrlsInServicesTopology( null );
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter;
+
+import java.io.IOException;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.hadoop.gateway.audit.api.CorrelationContext;
+import org.apache.hadoop.gateway.audit.api.CorrelationServiceFactory;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class CorrelationHandlerTest {
+
+  private Server server;
+  private LocalConnector connector;
+  private CorrelationHandler handler;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new Server();
+    connector = new LocalConnector( server );
+    server.addConnector( connector );
+    handler = new CorrelationHandler();
+    handler.setHandler( new AbstractHandler() {
+      @Override
+      public void handle( String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response )
+          throws IOException, ServletException {
+        CorrelationContext context = CorrelationServiceFactory.getCorrelationService().getContext();
+        response.getWriter().print( "ids=" + context.getRootRequestId() + "|" + context.getParentRequestId() + "|" + context.getRequestId() + ";" );
+        baseRequest.setHandled( true );
+      }
+    } );
+    server.setHandler( handler );
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.stop();
+  }
+
+  @Test
+  public void testGeneratesRequestId() throws Exception {
+    String response = get( "" );
+    assertThat( response.matches( "(?s).*ids=null\\|null\\|[0-9A-Z]{26};.*" ), is( true ) );
+  }
+
+  @Test
+  public void testPropagatesRequestHeaders() throws Exception {
+    String response = get(
+        "X-Request-Id: client-request-1\r\n" +
+        "traceparent: 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01\r\n" );
+    assertThat( response, containsString( "ids=4bf92f3577b34da6a3ce929d0e0e4736|00f067aa0ba902b7|client-request-1;" ) );
+
+    // Ids from one request must not leak into the next request on the same thread.
+    response = get( "" );
+    assertThat( response, containsString( "ids=null|null|" ) );
+  }
+
+  @Test
+  public void testIgnoresMalformedHeaders() throws Exception {
+    String response = get(
+        "X-Request-Id: bad id <script>\r\n" +
+        "traceparent: 00-00000000000000000000000000000000-00f067aa0ba902b7-01\r\n" );
+    assertThat( response, containsString( "ids=null|null|" ) );
+    assertThat( response, not( containsString( "script" ) ) );
+  }
+
+  @Test
+  public void testIgnoresHeadersWhenDisabled() throws Exception {
+    handler.setAcceptRequestHeaders( false );
+    String response = get( "X-Request-Id: client-request-1\r\n" );
+    assertThat( response, not( containsString( "client-request-1" ) ) );
+  }
+
+  private String get( String headers ) throws Exception {
+    return connector.getResponses( "GET / HTTP/1.1\r\nHost: localhost\r\n" + headers + "Connection: close\r\n\r\n" );
+  }
+
+}
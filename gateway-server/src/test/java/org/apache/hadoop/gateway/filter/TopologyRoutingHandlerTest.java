@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter;
+
+import java.io.IOException;
+import java.util.Collections;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+
+public class TopologyRoutingHandlerTest {
+
+  private Server server;
+  private LocalConnector connector;
+  private TopologyRoutingHandler router;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new Server();
+    connector = new LocalConnector( server );
+    server.addConnector( connector );
+    router = new TopologyRoutingHandler( "gateway", Collections.singletonMap( "Sandbox.Example.com", "sandbox" ) );
+    server.setHandler( router );
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.stop();
+  }
+
+  @Test
+  public void testRoutesToLongestMatchingContextOfTopology() throws Exception {
+    ContextHandler sandbox = deploy( "/gateway/sandbox" );
+    ContextHandler app = deploy( "/gateway/sandbox/app" );
+    deploy( "/gateway/other" );
+
+    assertThat( get( "/gateway/sandbox/webhdfs/v1", "localhost" ), containsString( "context=/gateway/sandbox path=/webhdfs/v1" ) );
+    assertThat( get( "/gateway/sandbox/app/index.html", "localhost" ), containsString( "context=/gateway/sandbox/app path=/index.html" ) );
+    assertThat( get( "/gateway/sandbox/application", "localhost" ), containsString( "context=/gateway/sandbox path=/application" ) );
+    assertThat( get( "/gateway/other/x", "localhost" ), containsString( "context=/gateway/other path=/x" ) );
+    assertThat( get( "/gateway/missing/x", "localhost" ), containsString( "404" ) );
+
+    ContextHandler replacement = createContext( "/gateway/sandbox" );
+    replacement.setServer( server );
+    replacement.start();
+    router.setHandlers( new Handler[] { replacement, app } );
+    router.swapRoute( sandbox, replacement );
+    assertThat( get( "/gateway/sandbox/webhdfs/v1", "localhost" ), containsString( "context=/gateway/sandbox path=/webhdfs/v1" ) );
+
+    router.swapRoute( app, null );
+    router.setHandlers( new Handler[] { replacement } );
+    assertThat( get( "/gateway/sandbox/app/index.html", "localhost" ), containsString( "context=/gateway/sandbox path=/app/index.html" ) );
+  }
+
+  @Test
+  public void testRoutesVirtualHostToTopology() throws Exception {
+    deploy( "/gateway/sandbox" );
+    deploy( "/gateway/other" );
+
+    assertThat( get( "/gateway/webhdfs/v1", "sandbox.example.com" ), containsString( "context=/gateway/sandbox path=/webhdfs/v1" ) );
+    assertThat( get( "/gateway/sandbox/webhdfs/v1", "sandbox.example.com:8443" ), containsString( "context=/gateway/sandbox path=/webhdfs/v1" ) );
+    assertThat( get( "/gateway/other/x", "sandbox.example.com" ), containsString( "context=/gateway/sandbox path=/other/x" ) );
+    assertThat( get( "/gateway/webhdfs/v1", "localhost" ), containsString( "404" ) );
+  }
+
+  @Test
+  public void testVirtualHostDoesNotReachOtherTopologies() throws Exception {
+    deploy( "/gateway/sandbox/app" );
+    deploy( "/gateway/other" );
+
+    assertThat( get( "/gateway/sandbox/app/index.html", "sandbox.example.com" ), containsString( "context=/gateway/sandbox/app path=/index.html" ) );
+    assertThat( get( "/gateway/other/x", "sandbox.example.com" ), containsString( "404" ) );
+    assertThat( get( "/gateway/sandbox/other/x", "sandbox.example.com" ), containsString( "404" ) );
+    assertThat( get( "/gateway/other/x", "localhost" ), containsString( "context=/gateway/other path=/x" ) );
+  }
+
+  private ContextHandler deploy( String path ) throws Exception {
+    ContextHandler context = createContext( path );
+    context.setServer( server );
+    context.start();
+    router.addHandler( context );
+    router.swapRoute( null, context );
+    return context;
+  }
+
+  private ContextHandler createContext( final String path ) {
+    ContextHandler context = new ContextHandler( path );
+    context.setHandler( new AbstractHandler() {
+      @Override
+      public void handle( String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response ) throws IOException, ServletException {
+        response.getWriter().print( "context=" + request.getContextPath() + " path=" + request.getPathInfo() );
+        baseRequest.setHandled( true );
+      }
+    } );
+    return context;
+  }
+
+  private String get( String path, String host ) throws Exception {
+    return connector.getResponses( "GET " + path + " HTTP/1.1\r\nHost: " + host + "\r\nConnection: close\r\n\r\n" );
+  }
+
+}
@@ -19,6 +19,8 @@ package org.apache.hadoop.gateway.services.metrics.impl;
 
 import com.codahale.metrics.MetricRegistry;
 import org.apache.hadoop.gateway.config.impl.GatewayConfigImpl;
+import org.apache.hadoop.gateway.dispatch.HttpClientConnectionPool;
+import org.apache.hadoop.gateway.dispatch.ServiceGuard;
 import org.apache.hadoop.gateway.services.metrics.InstrumentationProvider;
 import org.apache.hadoop.gateway.services.metrics.MetricsReporter;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -50,11 +52,40 @@ public class DefaultMetricsServiceTest {
     DefaultMetricsService service = new DefaultMetricsService();
     service.init(new GatewayConfigImpl(), null);
     Map<Class<?>, InstrumentationProvider> map = service.getInstrumentationProviders();
-    Assert.assertTrue(map.entrySet().size() >= 2);
+    Assert.assertTrue(map.entrySet().size() >= 3);
     Assert.assertNotNull(service.getInstrumented(HttpClientBuilder.class));
+    ServiceGuard guard = new ServiceGuard("sandbox", "OOZIE", 10, 0, null);
+    Assert.assertSame(guard, service.getInstrumented(guard));
+    // instrumenting a redeployed service again replaces its gauges
+    ServiceGuard redeployed = new ServiceGuard("sandbox", "OOZIE", 10, 0, null);
+    service.getInstrumented(redeployed);
+    Assert.assertEquals(0, service.getMetricRegistry().getGauges().get("dispatch-guard.sandbox.OOZIE.in-flight").getValue());
+    // closing the replaced guard leaves the gauges of the redeployed one, closing that removes them
+    guard.close();
+    Assert.assertNotNull(service.getMetricRegistry().getGauges().get("dispatch-guard.sandbox.OOZIE.in-flight"));
+    redeployed.close();
+    Assert.assertNull(service.getMetricRegistry().getGauges().get("dispatch-guard.sandbox.OOZIE.in-flight"));
 
   }
 
+  @Test
+  public void connectionPoolGauges() throws Exception {
+    DefaultMetricsService service = new DefaultMetricsService();
+    service.init(new GatewayConfigImpl(), null);
+    HttpClientConnectionPool first = new HttpClientConnectionPool("sandbox", "WEBHDFS");
+    first.setMaxTotal(10);
+    HttpClientConnectionPool second = new HttpClientConnectionPool("sandbox", "WEBHDFS");
+    second.setMaxTotal(5);
+    Assert.assertSame(first, service.getInstrumented(first));
+    service.getInstrumented(second);
+    String max = "http-client.connections.sandbox.WEBHDFS.max";
+    Assert.assertEquals(15, service.getMetricRegistry().getGauges().get(max).getValue());
+    first.shutdown();
+    Assert.assertEquals(5, service.getMetricRegistry().getGauges().get(max).getValue());
+    second.shutdown();
+    Assert.assertNull(service.getMetricRegistry().getGauges().get(max));
+  }
+
   @Test
   public void reportersLoading() throws Exception {
     DefaultMetricsService service = new DefaultMetricsService();
@@ -62,12 +93,14 @@ public class DefaultMetricsServiceTest {
     config.set(GatewayConfigImpl.JMX_METRICS_REPORTING_ENABLED, "false");
     service.init(config, null);
     List<MetricsReporter> reporters = service.getMetricsReporters();
-    Assert.assertTrue(reporters.size() >= 2);
+    Assert.assertTrue(reporters.size() >= 3);
     for (MetricsReporter reporter : reporters) {
       Assert.assertFalse(reporter.isEnabled());
     }
     config.set(GatewayConfigImpl.JMX_METRICS_REPORTING_ENABLED, "true");
     config.set(GatewayConfigImpl.GRAPHITE_METRICS_REPORTING_ENABLED, "true");
+    config.set(GatewayConfigImpl.PROMETHEUS_METRICS_REPORTING_ENABLED, "true");
+    config.set(GatewayConfigImpl.PROMETHEUS_METRICS_REPORTING_PORT, "0");
     service.init(config, null);
     reporters = service.getMetricsReporters();
     for (MetricsReporter reporter : reporters) {
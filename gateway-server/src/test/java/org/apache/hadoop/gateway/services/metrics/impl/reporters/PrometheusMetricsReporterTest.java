@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.metrics.impl.reporters;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.gateway.config.impl.GatewayConfigImpl;
+import org.apache.hadoop.gateway.services.metrics.impl.DefaultMetricsService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+public class PrometheusMetricsReporterTest {
+
+  @Test
+  public void clientTimerLabels() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    registry.timer("client./gateway/sandbox/webhdfs/v1/tmp.GET-requests").update(2, TimeUnit.SECONDS);
+    registry.timer("client./gateway/sandbox/webhdfs/v1/user.PUT-requests").update(1, TimeUnit.SECONDS);
+    String text = write(registry);
+    assertThat(text, containsString("# TYPE knox_client_requests_seconds summary\n"));
+    assertThat(text, containsString(
+        "knox_client_requests_seconds_count{topology=\"sandbox\",service=\"webhdfs\",method=\"GET\",path=\"/v1/tmp\"} 1\n"));
+    assertThat(text, containsString(
+        "knox_client_requests_seconds{topology=\"sandbox\",service=\"webhdfs\",method=\"GET\",path=\"/v1/tmp\",quantile=\"0.5\"} 2\n"));
+    Assert.assertEquals(text.indexOf("# TYPE knox_client_requests_seconds"), text.lastIndexOf("# TYPE knox_client_requests_seconds"));
+  }
+
+  @Test
+  public void dispatchTimerLabels() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    registry.timer("service./gateway/sandboxhttp://localhost:50070/webhdfs/v1/tmp.get-requests").update(500, TimeUnit.MILLISECONDS);
+    registry.timer("service.http://localhost:8080/api.post-requests");
+    String text = write(registry);
+    assertThat(text, containsString(
+        "knox_dispatch_requests_seconds_count{topology=\"sandbox\",backend=\"http://localhost:50070\",method=\"GET\",path=\"/webhdfs/v1/tmp\"} 1\n"));
+    assertThat(text, containsString(
+        "knox_dispatch_requests_seconds_count{topology=\"\",backend=\"http://localhost:8080\",method=\"POST\",path=\"/api\"} 0\n"));
+    assertThat(text, containsString("quantile=\"0.99\"} 0.5\n"));
+  }
+
+  @Test
+  public void genericNames() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    registry.counter("1st.counter-name").inc(3);
+    registry.meter("some.meter").mark(2);
+    registry.register("some.flag", new Gauge<Boolean>() {
+      @Override
+      public Boolean getValue() {
+        return Boolean.TRUE;
+      }
+    });
+    registry.register("some.text", new Gauge<String>() {
+      @Override
+      public String getValue() {
+        return "ignored";
+      }
+    });
+    String text = write(registry);
+    assertThat(text, containsString("# TYPE _1st_counter_name gauge\n_1st_counter_name 3\n"));
+    assertThat(text, containsString("# TYPE some_meter_total counter\nsome_meter_total 2\n"));
+    assertThat(text, containsString("some_flag 1\n"));
+    assertThat(text, not(containsString("some_text")));
+  }
+
+  @Test
+  public void timerSum() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    Timer timer = registry.register("client./gateway/sandbox/webhdfs/v1/tmp.GET-requests", new Timer(new UniformReservoir()));
+    timer.update(2, TimeUnit.SECONDS);
+    timer.update(4, TimeUnit.SECONDS);
+    String text = write(registry);
+    assertThat(text, containsString(
+        "knox_client_requests_seconds_sum{topology=\"sandbox\",service=\"webhdfs\",method=\"GET\",path=\"/v1/tmp\"} 6\n"));
+  }
+
+  @Test
+  public void labelledGauges() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    registry.register("http-client.connections.sandbox.WEBHDFS.leased", constant(3));
+    registry.register("http-client.connections.sandbox.OOZIE.leased", constant(1));
+    registry.register("dispatch-guard.sandbox.OOZIE.in-flight", constant(2));
+    registry.register("http-client.connections.sandbox.OOZIE.max", constant(32));
+    String text = write(registry);
+    assertThat(text, containsString("knox_http_client_connections_leased{topology=\"sandbox\",service=\"OOZIE\"} 1\n"
+        + "knox_http_client_connections_leased{topology=\"sandbox\",service=\"WEBHDFS\"} 3\n"));
+    assertThat(text, containsString("knox_http_client_connections_max{topology=\"sandbox\",service=\"OOZIE\"} 32\n"));
+    assertThat(text, containsString("knox_dispatch_guard_in_flight{topology=\"sandbox\",service=\"OOZIE\"} 2\n"));
+    Assert.assertEquals(text.indexOf("# TYPE knox_http_client_connections_leased"),
+        text.lastIndexOf("# TYPE knox_http_client_connections_leased"));
+  }
+
+  @Test
+  public void collidingNames() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    registry.register("some.gauge", constant(1));
+    registry.register("some-gauge", constant(2));
+    registry.counter("some_gauge").inc(3);
+    registry.register("other_total", constant(4));
+    registry.meter("other").mark();
+    String text = write(registry);
+    assertThat(text, containsString("# TYPE some_gauge gauge\nsome_gauge 2\n"));
+    assertThat(text, not(containsString("some_gauge 1\n")));
+    assertThat(text, not(containsString("some_gauge 3\n")));
+    assertThat(text, containsString("other_total 4\n"));
+    assertThat(text, not(containsString("# TYPE other_total counter")));
+  }
+
+  @Test
+  public void localhostByDefault() throws Exception {
+    Assert.assertEquals("localhost", new GatewayConfigImpl().getPrometheusHost());
+  }
+
+  @Test
+  public void scrapeEndpoint() throws Exception {
+    DefaultMetricsService service = new DefaultMetricsService();
+    GatewayConfigImpl config = new GatewayConfigImpl();
+    config.set(GatewayConfigImpl.JMX_METRICS_REPORTING_ENABLED, "false");
+    config.set(GatewayConfigImpl.PROMETHEUS_METRICS_REPORTING_ENABLED, "true");
+    config.set(GatewayConfigImpl.PROMETHEUS_METRICS_REPORTING_HOST, "localhost");
+    config.set(GatewayConfigImpl.PROMETHEUS_METRICS_REPORTING_PORT, "0");
+    service.init(config, null);
+    service.getMetricRegistry().timer("client./gateway/sandbox/webhdfs/v1/tmp.GET-requests").update(1, TimeUnit.SECONDS);
+    service.start();
+    try {
+      PrometheusMetricsReporter reporter = null;
+      for (Object candidate : service.getMetricsReporters()) {
+        if (candidate instanceof PrometheusMetricsReporter) {
+          reporter = (PrometheusMetricsReporter) candidate;
+        }
+      }
+      Assert.assertNotNull(reporter);
+      URL url = new URL("http://localhost:" + reporter.getLocalPort() + PrometheusMetricsHandler.METRICS_PATH);
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      Assert.assertEquals(200, connection.getResponseCode());
+      assertThat(connection.getContentType(), containsString("version=0.0.4"));
+      String body = IOUtils.toString(connection.getInputStream(), "UTF-8");
+      assertThat(body, containsString("knox_client_requests_seconds_count{topology=\"sandbox\""));
+      assertThat(body, containsString("jvm_memory_heap_used "));
+    } finally {
+      service.stop();
+    }
+    Assert.assertTrue(service.getMetricRegistry().getNames().headSet("jvm/").tailSet("jvm.").isEmpty());
+  }
+
+  private static Gauge<Integer> constant(final int value) {
+    return new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return value;
+      }
+    };
+  }
+
+  private static String write(MetricRegistry registry) throws Exception {
+    StringWriter writer = new StringWriter();
+    new PrometheusTextWriter().write(registry, writer);
+    return writer.toString();
+  }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.registry;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.services.registry.impl.DefaultServiceRegistryService;
+import org.apache.hadoop.gateway.services.security.CryptoService;
+import org.apache.hadoop.test.TestUtils;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class DefaultServiceRegistryServiceTest {
+
+  @Test
+  public void testRegistrationsArePersistedAndVerifiedOnce() throws Exception {
+    File securityDir = TestUtils.createTempDir(getClass().getSimpleName());
+    try {
+      GatewayConfig config = EasyMock.createNiceMock(GatewayConfig.class);
+      EasyMock.expect(config.getGatewaySecurityDir()).andReturn(securityDir.getAbsolutePath()).anyTimes();
+      CryptoService crypto = EasyMock.createMock(CryptoService.class);
+      EasyMock.expect(crypto.verify(EasyMock.eq("SHA256withRSA"), EasyMock.eq("gateway-identity"), EasyMock.eq("code"), EasyMock.anyObject(byte[].class))).andReturn(true).once();
+      EasyMock.replay(config, crypto);
+
+      DefaultServiceRegistryService registry = new DefaultServiceRegistryService();
+      registry.setCryptoService(crypto);
+      registry.init(config, null);
+      registry.start();
+      String regCode = "code::c2ln";
+      assertThat(registry.registerService(regCode, "sandbox", "WEBHDFS", Arrays.asList("http://host1:50070/webhdfs")), is(true));
+      assertThat(registry.registerService(regCode, "sandbox", "OOZIE", Arrays.asList("http://host1:11000/oozie")), is(true));
+      assertThat(registry.registerService(regCode, "other", "OOZIE", Arrays.asList("http://host2:11000/oozie")), is(true));
+      registry.removeClusterServices("other");
+      assertThat(registry.lookupServiceURL("sandbox", "WEBHDFS"), is("http://host1:50070/webhdfs"));
+      assertThat(registry.lookupServiceURLs("other", "OOZIE"), nullValue());
+      registry.stop();
+      EasyMock.verify(crypto);
+
+      DefaultServiceRegistryService reloaded = new DefaultServiceRegistryService();
+      reloaded.init(config, null);
+      assertThat(reloaded.lookupServiceURL("sandbox", "WEBHDFS"), is("http://host1:50070/webhdfs"));
+      assertThat(reloaded.lookupServiceURL("sandbox", "OOZIE"), is("http://host1:11000/oozie"));
+      assertThat(reloaded.lookupServiceURLs("other", "OOZIE"), nullValue());
+    } finally {
+      FileUtils.deleteQuietly(securityDir);
+    }
+  }
+
+}
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.registry.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.test.TestUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class RegistryJournalTest {
+
+  @Test
+  public void testTornTailIsDropped() throws Exception {
+    File dir = TestUtils.createTempDir(getClass().getSimpleName());
+    try {
+      File snapshot = new File(dir, "registry");
+      RegistryJournal journal = new RegistryJournal(snapshot);
+      Registry registry = journal.load();
+      RegEntry webhdfs = entry("sandbox", "WEBHDFS", "http://host1:50070/webhdfs");
+      RegistryJournal.apply(registry, webhdfs);
+      journal.compact(registry);
+      RegEntry oozie = entry("sandbox", "OOZIE", "http://host1:11000/oozie");
+      RegistryJournal.apply(registry, oozie);
+      journal.write(Collections.singletonList(oozie), registry);
+
+      // a crash in the middle of the next append
+      File journalFile = new File(snapshot.getPath() + RegistryJournal.JOURNAL_EXTENSION);
+      FileUtils.writeStringToFile(journalFile, "{\"clusterName\":\"sandbox\",\"serviceName\":\"HIVE\",\"ur", StandardCharsets.UTF_8, true);
+
+      RegistryJournal reloaded = new RegistryJournal(snapshot);
+      Registry loaded = reloaded.load();
+      assertThat(loaded.get("sandbox").get("WEBHDFS").getUrls().get(0), is("http://host1:50070/webhdfs"));
+      assertThat(loaded.get("sandbox").get("OOZIE").getUrls().get(0), is("http://host1:11000/oozie"));
+      assertThat(loaded.get("sandbox").get("HIVE"), nullValue());
+      assertThat(FileUtils.readFileToString(journalFile, StandardCharsets.UTF_8), endsWith("}\n"));
+
+      // appends after the recovery are read back
+      RegEntry hive = entry("sandbox", "HIVE", "http://host1:10001/cliservice");
+      RegistryJournal.apply(loaded, hive);
+      reloaded.write(Collections.singletonList(hive), loaded);
+      assertThat(new RegistryJournal(snapshot).load().get("sandbox").get("HIVE").getUrls().get(0), is("http://host1:10001/cliservice"));
+    } finally {
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  @Test( expected = IOException.class )
+  public void testMalformedRecordInsideJournalIsCorruption() throws Exception {
+    File dir = TestUtils.createTempDir(getClass().getSimpleName());
+    try {
+      File snapshot = new File(dir, "registry");
+      File journalFile = new File(snapshot.getPath() + RegistryJournal.JOURNAL_EXTENSION);
+      FileUtils.writeStringToFile(journalFile, "{\"clusterName\":\"sand\n"
+          + "{\"clusterName\":\"sandbox\",\"serviceName\":\"OOZIE\",\"urls\":[\"http://host1:11000/oozie\"]}\n", StandardCharsets.UTF_8);
+      new RegistryJournal(snapshot).load();
+    } finally {
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  private static RegEntry entry(String cluster, String service, String url) {
+    RegEntry entry = new RegEntry();
+    entry.setClusterName(cluster);
+    entry.setServiceName(service);
+    entry.setUrls(Arrays.asList(url));
+    return entry;
+  }
+
+}
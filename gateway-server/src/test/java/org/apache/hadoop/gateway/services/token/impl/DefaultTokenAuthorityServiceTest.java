@@ -0,0 +1,277 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.token.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.cert.Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.services.security.AliasService;
+import org.apache.hadoop.gateway.services.security.KeystoreService;
+import org.apache.hadoop.gateway.services.security.impl.X509CertificateUtil;
+import org.apache.hadoop.gateway.services.security.token.TokenServiceException;
+import org.apache.hadoop.gateway.services.security.token.impl.JWTToken;
+import org.apache.hadoop.test.TestUtils;
+import org.apache.hadoop.test.category.ManualTests;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.nimbusds.jose.jwk.JWKSet;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+public class DefaultTokenAuthorityServiceTest {
+
+  private static final char[] PASSWORD = "horton".toCharArray();
+  private static final String ALIAS = "gateway-identity";
+  private static final String PREVIOUS_ALIAS = "gateway-identity-previous";
+
+  private File keystoreFile;
+  private AtomicInteger keystoreLoads;
+  private DefaultTokenAuthorityService authority;
+  private Principal principal = new Principal() {
+    @Override
+    public String getName() {
+      return "john.doe";
+    }
+  };
+
+  @Before
+  public void setUp() throws Exception {
+    keystoreFile = new File( TestUtils.createTempDir( getClass().getSimpleName() ), "gateway.jks" );
+    keystoreLoads = new AtomicInteger();
+    authority = createAuthority( null );
+  }
+
+  private DefaultTokenAuthorityService createAuthority( char[] signingKeyPassphrase ) throws Exception {
+    KeystoreService ks = EasyMock.createNiceMock( KeystoreService.class );
+    EasyMock.expect( ks.getKeystorePath() ).andReturn( keystoreFile.getAbsolutePath() ).anyTimes();
+    EasyMock.expect( ks.getSigningKeystore() ).andAnswer( new IAnswer<KeyStore>() {
+      @Override
+      public KeyStore answer() throws Throwable {
+        return loadKeystore();
+      }
+    } ).anyTimes();
+    EasyMock.expect( ks.getSigningKey( ALIAS, PASSWORD ) ).andAnswer( new IAnswer<java.security.Key>() {
+      @Override
+      public java.security.Key answer() throws Throwable {
+        return loadKeystore().getKey( ALIAS, PASSWORD );
+      }
+    } ).anyTimes();
+    AliasService as = EasyMock.createNiceMock( AliasService.class );
+    EasyMock.expect( as.getGatewayIdentityPassphrase() ).andReturn( PASSWORD ).anyTimes();
+    EasyMock.expect( as.getPasswordFromAliasForGateway( "signing.key.passphrase" ) ).andReturn( signingKeyPassphrase ).anyTimes();
+    GatewayConfig config = EasyMock.createNiceMock( GatewayConfig.class );
+    EasyMock.expect( config.getSigningKeyAlias() ).andReturn( ALIAS ).anyTimes();
+    EasyMock.expect( config.getSigningKeyPreviousAliases() ).andReturn( Arrays.asList( PREVIOUS_ALIAS ) ).anyTimes();
+    EasyMock.replay( ks, as, config );
+
+    DefaultTokenAuthorityService service = new DefaultTokenAuthorityService();
+    service.setKeystoreService( ks );
+    service.setAliasService( as );
+    service.init( config, null );
+    return service;
+  }
+
+  @Test
+  public void testECSigningKeyWithProvisionedPassphrase() throws Exception {
+    writeKeystore( "EC" );
+    DefaultTokenAuthorityService service = createAuthority( PASSWORD );
+    JWTToken token = service.issueToken( principal, "ES256" );
+    assertThat( service.verifyToken( token ), is( true ) );
+  }
+
+  @Test
+  public void testSigningKeyIsCachedUntilKeystoreChanges() throws Exception {
+    writeKeystore( "RSA" );
+    for( int i = 0; i < 10; i++ ) {
+      JWTToken token = authority.issueToken( principal, "RS256" );
+      assertThat( authority.verifyToken( token ), is( true ) );
+    }
+    // One load for the public key and one for the private key.
+    assertThat( keystoreLoads.get(), is( 2 ) );
+
+    writeKeystore( "EC" );
+    keystoreFile.setLastModified( keystoreFile.lastModified() + 10000 );
+    Thread.sleep( 1100 );
+    JWTToken token = authority.issueToken( principal, "ES256" );
+    assertThat( token.getHeader().contains( "ES256" ), is( true ) );
+    assertThat( authority.verifyToken( token ), is( true ) );
+    assertThat( keystoreLoads.get(), is( 4 ) );
+  }
+
+  @Test
+  public void testAlgorithmMustMatchKeyType() throws Exception {
+    writeKeystore( "EC" );
+    JWTToken token = authority.issueToken( principal, "ES256" );
+    assertThat( authority.verifyToken( token ), is( true ) );
+    try {
+      authority.issueToken( principal, "RS256" );
+      fail( "Expected RS256 to be rejected for an EC signing key" );
+    } catch( TokenServiceException e ) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testTamperedTokenIsRejected() throws Exception {
+    writeKeystore( "EC" );
+    JWTToken token = authority.issueToken( principal, "ES256" );
+    String[] parts = token.toString().split( "\\." );
+    JWTToken other = authority.issueToken( new Principal() {
+      @Override
+      public String getName() {
+        return "mallory";
+      }
+    }, "ES256" );
+    String forged = other.toString().split( "\\." )[ 0 ] + "." + other.toString().split( "\\." )[ 1 ] + "." + parts[ 2 ];
+    assertThat( authority.verifyToken( new JWTToken( forged ) ), is( false ) );
+  }
+
+  @Test
+  public void testTokensSignedBeforeKeyRotationStillVerify() throws Exception {
+    writeKeystore( "RSA" );
+    JWTToken before = authority.issueToken( principal, "RS256" );
+    assertThat( before.getKeyId(), notNullValue() );
+
+    Certificate previous = loadKeystore().getCertificate( ALIAS );
+    writeKeystore( "EC", previous );
+    keystoreFile.setLastModified( keystoreFile.lastModified() + 10000 );
+    Thread.sleep( 1100 );
+    JWTToken after = authority.issueToken( principal, "ES256" );
+    assertThat( after.getKeyId(), not( before.getKeyId() ) );
+    assertThat( authority.verifyToken( before ), is( true ) );
+    assertThat( authority.verifyToken( after ), is( true ) );
+
+    JWKSet jwks = authority.getJWKSet();
+    assertThat( jwks.getKeys().size(), is( 2 ) );
+    assertThat( jwks.getKeyByKeyId( before.getKeyId() ), notNullValue() );
+    assertThat( jwks.getKeyByKeyId( after.getKeyId() ).isPrivate(), is( false ) );
+
+    // Once the previous certificate is removed its tokens no longer verify.
+    writeKeystore( "EC" );
+    keystoreFile.setLastModified( keystoreFile.lastModified() + 20000 );
+    Thread.sleep( 1100 );
+    assertThat( authority.verifyToken( before ), is( false ) );
+  }
+
+  @Test
+  public void testOnlySigningKeysAreTrusted() throws Exception {
+    writeKeystore( "RSA" );
+    JWTToken foreign = authority.issueToken( principal, "RS256" );
+
+    // The old key is still in the keystore but only as a trusted certificate, not a previous signing key.
+    Certificate trusted = loadKeystore().getCertificate( ALIAS );
+    writeKeystore( "EC", "some-trusted-cert", trusted );
+    keystoreFile.setLastModified( keystoreFile.lastModified() + 10000 );
+    Thread.sleep( 1100 );
+    JWTToken current = authority.issueToken( principal, "ES256" );
+    assertThat( authority.verifyToken( current ), is( true ) );
+    assertThat( authority.verifyToken( foreign ), is( false ) );
+
+    JWKSet jwks = authority.getJWKSet();
+    assertThat( jwks.getKeys().size(), is( 1 ) );
+    assertThat( jwks.getKeyByKeyId( current.getKeyId() ), notNullValue() );
+    assertThat( jwks.getKeyByKeyId( foreign.getKeyId() ), nullValue() );
+  }
+
+  @Test
+  @Category( ManualTests.class )
+  public void testIssuanceThroughput() throws Exception {
+    for( String type : new String[]{ "RSA", "EC" } ) {
+      writeKeystore( type );
+      keystoreFile.setLastModified( keystoreFile.lastModified() + 10000 );
+      Thread.sleep( 1100 );
+      String algorithm = "RSA".equals( type ) ? "RS256" : "ES256";
+      for( int i = 0; i < 1000; i++ ) {
+        authority.issueToken( principal, algorithm );
+      }
+      int count = 10000;
+      long start = System.nanoTime();
+      for( int i = 0; i < count; i++ ) {
+        authority.issueToken( principal, algorithm );
+      }
+      long elapsed = System.nanoTime() - start;
+      System.out.println( algorithm + ": " + ( count * 1000000000L / elapsed ) + " tokens/sec" );
+    }
+  }
+
+  private void writeKeystore( String type ) throws Exception {
+    writeKeystore( type, null );
+  }
+
+  private void writeKeystore( String type, Certificate previous ) throws Exception {
+    writeKeystore( type, PREVIOUS_ALIAS, previous );
+  }
+
+  private void writeKeystore( String type, String previousAlias, Certificate previous ) throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance( type );
+    if( "EC".equals( type ) ) {
+      generator.initialize( new ECGenParameterSpec( "secp256r1" ) );
+    } else {
+      generator.initialize( 2048 );
+    }
+    KeyPair pair = generator.generateKeyPair();
+    Certificate cert = X509CertificateUtil.generateCertificate(
+        "CN=localhost", pair, 1, "EC".equals( type ) ? "SHA256withECDSA" : "SHA256withRSA" );
+    KeyStore keystore = KeyStore.getInstance( "JKS" );
+    keystore.load( null, null );
+    keystore.setKeyEntry( ALIAS, pair.getPrivate(), PASSWORD, new Certificate[]{ cert } );
+    if( previous != null ) {
+      keystore.setCertificateEntry( previousAlias, previous );
+    }
+    OutputStream out = new FileOutputStream( keystoreFile );
+    try {
+      keystore.store( out, PASSWORD );
+    } finally {
+      out.close();
+    }
+  }
+
+  private KeyStore loadKeystore() throws Exception {
+    keystoreLoads.incrementAndGet();
+    KeyStore keystore = KeyStore.getInstance( "JKS" );
+    InputStream in = new FileInputStream( keystoreFile );
+    try {
+      keystore.load( in, PASSWORD );
+    } finally {
+      in.close();
+    }
+    return keystore;
+  }
+
+}
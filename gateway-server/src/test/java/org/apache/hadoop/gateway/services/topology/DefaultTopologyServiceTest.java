@@ -37,8 +37,10 @@ import java.io.OutputStream;
 import java.util.*;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -158,6 +160,135 @@ public class DefaultTopologyServiceTest {
     }
   }
 
+  @Test
+  public void testUnchangedTopologyIsNotReloaded() throws Exception {
+    File dir = createDir();
+    long time = dir.lastModified();
+    try {
+      File one = createFile(dir, "one.xml", "org/apache/hadoop/gateway/topology/file/topology-one.xml", time);
+
+      TestTopologyListener topoListener = new TestTopologyListener();
+      TopologyService provider = new DefaultTopologyService();
+      GatewayConfig config = EasyMock.createNiceMock(GatewayConfig.class);
+      EasyMock.expect(config.getGatewayTopologyDir()).andReturn(dir.toString()).anyTimes();
+      EasyMock.replay(config);
+      provider.init(config, new HashMap<String, String>());
+      provider.addTopologyChangeListener(topoListener);
+      provider.reloadTopologies();
+      Topology topology = provider.getTopologies().iterator().next();
+      topoListener.events.clear();
+
+      // Touch the file without changing its content.
+      one.setLastModified(time + 10000L);
+      provider.reloadTopologies();
+      assertThat(countEvents(topoListener), is(0));
+      assertThat(provider.getTopologies().iterator().next(), sameInstance(topology));
+
+      // A redeploy marker forces the topology to be reloaded.
+      File marker = new File(dir, "one.xml.redeploy");
+      FileUtils.touch(marker);
+      provider.reloadTopologies();
+      assertThat(countEvents(topoListener), is(1));
+      assertThat(topoListener.events.get(topoListener.events.size() - 1).get(0).getType(), is(TopologyEvent.Type.UPDATED));
+      assertThat(marker.exists(), is(false));
+      topology = provider.getTopologies().iterator().next();
+      topoListener.events.clear();
+
+      // A broken file keeps the previous topology deployed.
+      FileUtils.writeStringToFile(one, "<topology><gateway>");
+      provider.reloadTopologies();
+      assertThat(countEvents(topoListener), is(0));
+      assertThat(provider.getTopologies().iterator().next(), sameInstance(topology));
+
+      // Markers of removed topologies are dropped.
+      one.delete();
+      FileUtils.touch(marker);
+      provider.reloadTopologies();
+      assertThat(provider.getTopologies().size(), is(0));
+      assertThat(marker.exists(), is(false));
+    } finally {
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  @Test
+  public void testServiceUrlChangesAreReported() throws Exception {
+    File dir = createDir();
+    long time = dir.lastModified();
+    try {
+      File one = createFile(dir, "one.xml", "org/apache/hadoop/gateway/topology/file/topology-one.xml", time);
+
+      TestTopologyListener topoListener = new TestTopologyListener();
+      TopologyService provider = new DefaultTopologyService();
+      GatewayConfig config = EasyMock.createNiceMock(GatewayConfig.class);
+      EasyMock.expect(config.getGatewayTopologyDir()).andReturn(dir.toString()).anyTimes();
+      EasyMock.replay(config);
+      provider.init(config, new HashMap<String, String>());
+      provider.addTopologyChangeListener(topoListener);
+      provider.reloadTopologies();
+      topoListener.events.clear();
+
+      // Only the URL of a service changes.
+      String xml = FileUtils.readFileToString(one);
+      FileUtils.writeStringToFile(one, xml.replace("host-one", "host-two"));
+      one.setLastModified(time + 10000L);
+      provider.reloadTopologies();
+      TopologyEvent event = topoListener.events.get(0).get(0);
+      assertThat(event.getType(), is(TopologyEvent.Type.UPDATED));
+      assertThat(event.getChangedServices().size(), is(1));
+      Service service = event.getChangedServices().iterator().next();
+      assertThat(service.getRole(), is("WEBHDFS"));
+      assertThat(service.getUrl(), is("http://host-two:80/webhdfs"));
+      topoListener.events.clear();
+
+      // A new service changes the structure of the topology.
+      FileUtils.writeStringToFile(one, xml.replace("</topology>", "<service><role>OOZIE</role><url>http://host-one:11000/oozie</url></service></topology>"));
+      one.setLastModified(time + 20000L);
+      provider.reloadTopologies();
+      event = topoListener.events.get(0).get(0);
+      assertThat(event.getType(), is(TopologyEvent.Type.UPDATED));
+      assertThat(event.getChangedServices(), nullValue());
+    } finally {
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  @Test
+  public void testMonitorNotifiesChanges() throws Exception {
+    File dir = createDir();
+    try {
+      TestTopologyListener topoListener = new TestTopologyListener();
+      TopologyService provider = new DefaultTopologyService();
+      GatewayConfig config = EasyMock.createNiceMock(GatewayConfig.class);
+      EasyMock.expect(config.getGatewayTopologyDir()).andReturn(dir.toString()).anyTimes();
+      EasyMock.replay(config);
+      provider.init(config, new HashMap<String, String>());
+      provider.addTopologyChangeListener(topoListener);
+      provider.reloadTopologies();
+      provider.startMonitor();
+      try {
+        createFile(dir, "one.xml", "org/apache/hadoop/gateway/topology/file/topology-one.xml", System.currentTimeMillis());
+        long limit = System.currentTimeMillis() + 10000L;
+        while (provider.getTopologies().isEmpty() && System.currentTimeMillis() < limit) {
+          Thread.sleep(20);
+        }
+        assertThat(provider.getTopologies().size(), is(1));
+      } finally {
+        provider.stopMonitor();
+      }
+    } finally {
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  private int countEvents(TestTopologyListener listener) {
+    int count = 0;
+    for (List<TopologyEvent> events : listener.events) {
+      count += events.size();
+    }
+    return count;
+  }
+
   private void kickMonitor(FileAlterationMonitor monitor) {
     for (FileAlterationObserver observer : monitor.getObservers()) {
       observer.checkAndNotify();
@@ -196,7 +327,7 @@ public class DefaultTopologyServiceTest {
 
   private class TestTopologyListener implements TopologyListener {
 
-    public ArrayList<List<TopologyEvent>> events = new ArrayList<List<TopologyEvent>>();
+    public List<List<TopologyEvent>> events = Collections.synchronizedList(new ArrayList<List<TopologyEvent>>());
 
     @Override
     public void handleTopologyEvent(List<TopologyEvent> events) {
@@ -17,7 +17,10 @@
  */
 package org.apache.hadoop.gateway.util;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.gateway.deploy.ServiceDeploymentContributor;
+import org.apache.hadoop.gateway.service.definition.ServiceDefinition;
+import org.apache.hadoop.test.TestUtils;
 import org.junit.Test;
 
 import java.io.File;
@@ -46,4 +49,33 @@ public class ServiceDefinitionsLoaderTest {
       }
     }
   }
+
+  @Test
+  public void testServiceDefinitionsAreCachedUntilChanged() throws Exception {
+    File servicesDir = new File(TestUtils.createTempDir(getClass().getSimpleName()), "services");
+    try {
+      FileUtils.copyDirectory(new File(ClassLoader.getSystemResource("services").getFile()), servicesDir);
+
+      ServiceDefinition foo = ServiceDefinitionsLoader.getServiceDefinition(servicesDir, "FOO", "foo", "1.0.0");
+      assertNotNull(foo);
+      assertNull(ServiceDefinitionsLoader.getServiceDefinition(servicesDir, "FOO", "foo", "9.9.9"));
+      assertSame(foo, ServiceDefinitionsLoader.getServiceDefinition(servicesDir, "FOO", null, null));
+      assertEquals(2, ServiceDefinitionsLoader.getServiceDefinitions(servicesDir).size());
+      assertTrue(ServiceDefinitionsLoader.getServiceDefinitions(servicesDir).contains(foo));
+
+      File fooFile = new File(servicesDir, "foo/1.0.0/service.xml");
+      FileUtils.writeStringToFile(fooFile, FileUtils.readFileToString(fooFile).replace("1.0.0", "1.1.0"));
+      fooFile.setLastModified(fooFile.lastModified() + 2000);
+      assertNull(ServiceDefinitionsLoader.getServiceDefinition(servicesDir, "FOO", "foo", "1.0.0"));
+      ServiceDefinition updated = ServiceDefinitionsLoader.getServiceDefinition(servicesDir, "FOO", "foo", "1.1.0");
+      assertNotNull(updated);
+      assertNotSame(foo, updated);
+
+      FileUtils.deleteDirectory(new File(servicesDir, "bar"));
+      assertNull(ServiceDefinitionsLoader.getServiceDefinition(servicesDir, "BAR", null, null));
+      assertEquals(1, ServiceDefinitionsLoader.loadServiceDefinitions(servicesDir).size());
+    } finally {
+      FileUtils.deleteQuietly(servicesDir.getParentFile());
+    }
+  }
 }
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.websockets;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.easymock.EasyMock;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.SuspendToken;
+import org.junit.Test;
+
+/**
+ * Test reading is suspended and resumed around the high and low watermarks,
+ * and text is counted by its encoded size.
+ */
+public class FlowControlTest {
+
+  @Test
+  public void testSuspendAndResume() {
+    final SuspendToken token = EasyMock.createMock(SuspendToken.class);
+    token.resume();
+    EasyMock.expectLastCall().once();
+    final Session source = EasyMock.createMock(Session.class);
+    EasyMock.expect(source.suspend()).andReturn(token).once();
+    EasyMock.replay(token, source);
+
+    final FlowControl flowControl = new FlowControl(100);
+    flowControl.setSource(source);
+
+    flowControl.queued(60);
+    flowControl.queued(40);
+    assertThat(flowControl.isSuspended(), is(false));
+    flowControl.queued(10);
+    assertThat(flowControl.isSuspended(), is(true));
+    flowControl.queued(10);
+
+    flowControl.written(60);
+    assertThat(flowControl.isSuspended(), is(true));
+    flowControl.written(10);
+    assertThat(flowControl.isSuspended(), is(false));
+    assertThat(flowControl.getPending(), is(50L));
+
+    EasyMock.verify(token, source);
+  }
+
+  @Test
+  public void testTextIsCountedInEncodedBytes() {
+    assertThat(FlowControl.utf8Length("knox"), is(4L));
+    /* two, three and four (a surrogate pair) bytes per character */
+    assertThat(FlowControl.utf8Length("\u00e9\u20ac\ud83d\ude00"), is(9L));
+    assertThat(FlowControl.utf8Length("\u00e9\u20ac\ud83d\ude00"),
+        is((long) "\u00e9\u20ac\ud83d\ude00".getBytes(StandardCharsets.UTF_8).length));
+  }
+
+}
@@ -18,6 +18,7 @@
 package org.apache.hadoop.gateway.websockets;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -60,6 +61,11 @@ public class WebsocketClient {
     this.messageQueue.offer(message);
   }
 
+  @OnMessage
+  public void onMessage(byte[] message) {
+    this.messageQueue.offer(new String(message, StandardCharsets.UTF_8));
+  }
+
   @OnOpen
   public void onOpen(Session session) {
     this.session = session;
@@ -25,6 +25,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -173,6 +175,27 @@ public class WebsocketEchoTest {
 
   }
 
+  /**
+   * Test binary messages are proxied through gateway.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testGatewayEchoBinary() throws Exception {
+    WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+
+    WebsocketClient client = new WebsocketClient();
+    Session session = container.connectToServer(client,
+        new URI(serverUri.toString() + "gateway/websocket/ws"));
+
+    session.getBasicRemote().sendBinary(
+        ByteBuffer.wrap("Binary Echo".getBytes(StandardCharsets.UTF_8)));
+    client.messageQueue.awaitMessages(1, 1000, TimeUnit.MILLISECONDS);
+
+    assertThat(client.messageQueue.get(0), is("Binary Echo"));
+
+  }
+
   /**
    * Start Mock Websocket server that acts as backend.
    * 
@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.apache.hadoop.gateway.services.GatewayServices;
+import org.apache.hadoop.gateway.services.trace.TraceSample;
+import org.apache.hadoop.gateway.services.trace.TraceService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+
+@Path( "/api/v1" )
+public class TraceResource {
+  @Context
+  private HttpServletRequest request;
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "trace/samples" )
+  public Response getSamples() {
+    GatewayServices services = (GatewayServices)request.getServletContext().
+        getAttribute(GatewayServices.GATEWAY_SERVICES_ATTRIBUTE);
+
+    TraceService ts = services.getService(GatewayServices.TRACE_SERVICE);
+    if (ts == null) {
+      return status(NOT_FOUND).build();
+    }
+    Samples samples = new Samples();
+    for (TraceSample sample : ts.getSamples()) {
+      samples.samples.add(new Sample(sample));
+    }
+    return ok(samples).build();
+  }
+
+  @XmlRootElement(name="samples")
+  public static class Samples {
+
+    @XmlElement(name="sample")
+    private List<Sample> samples = new ArrayList<Sample>();
+
+    public List<Sample> getSamples() {
+      return samples;
+    }
+  }
+
+  public static class Sample {
+
+    @XmlElement
+    private long timestamp;
+    @XmlElement
+    private String requestId;
+    @XmlElement
+    private String method;
+    @XmlElement
+    private String uri;
+    @XmlElementWrapper(name="requestHeaders")
+    @XmlElement(name="header")
+    private List<String> requestHeaders;
+    @XmlElement
+    private String requestBody;
+    @XmlElement
+    private int status;
+    @XmlElementWrapper(name="responseHeaders")
+    @XmlElement(name="header")
+    private List<String> responseHeaders;
+    @XmlElement
+    private String responseBody;
+    @XmlElement
+    private long duration;
+
+    public Sample() { }
+
+    public Sample(TraceSample sample) {
+      this.timestamp = sample.getTimestamp();
+      this.requestId = sample.getRequestId();
+      this.method = sample.getMethod();
+      this.uri = sample.getUri();
+      this.requestHeaders = sample.getRequestHeaders();
+      this.requestBody = sample.getRequestBody();
+      this.status = sample.getStatus();
+      this.responseHeaders = sample.getResponseHeaders();
+      this.responseBody = sample.getResponseBody();
+      this.duration = sample.getDuration();
+    }
+  }
+}
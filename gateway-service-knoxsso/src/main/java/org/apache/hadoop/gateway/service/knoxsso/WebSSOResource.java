@@ -44,7 +44,7 @@ import org.apache.hadoop.gateway.services.GatewayServices;
 import org.apache.hadoop.gateway.services.security.token.JWTokenAuthority;
 import org.apache.hadoop.gateway.services.security.token.TokenServiceException;
 import org.apache.hadoop.gateway.services.security.token.impl.JWT;
-import org.apache.hadoop.gateway.util.RegExUtils;
+import org.apache.hadoop.gateway.util.WhitelistMatcher;
 import org.apache.hadoop.gateway.util.Urls;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
@@ -60,21 +60,26 @@ public class WebSSOResource {
   private static final String SSO_COOKIE_TOKEN_AUDIENCES_PARAM = "knoxsso.token.audiences";
   private static final String SSO_COOKIE_TOKEN_WHITELIST_PARAM = "knoxsso.redirect.whitelist.regex";
   private static final String SSO_ENABLE_SESSION_PARAM = "knoxsso.enable.session";
+  private static final String SSO_SIGNATURE_ALGORITHM_PARAM = "knoxsso.token.sigalg";
   private static final String ORIGINAL_URL_REQUEST_PARAM = "originalUrl";
   private static final String ORIGINAL_URL_COOKIE_NAME = "original-url";
   private static final String DEFAULT_SSO_COOKIE_NAME = "hadoop-jwt";
   // default for the whitelist - open up for development - relative paths and localhost only
   private static final String DEFAULT_WHITELIST = "^/.*$;^https?://(localhost|127.0.0.1|0:0:0:0:0:0:0:1|::1):\\d{0,9}/.*$";
   static final String RESOURCE_PATH = "/api/v1/websso";
+  // The compiled whitelist is shared by the resource instances created for each request.
+  static final String WHITELIST_MATCHER_ATTRIBUTE = "org.apache.knox.gateway.knoxsso.whitelist.matcher";
   private static KnoxSSOMessages log = MessagesFactory.get( KnoxSSOMessages.class );
   private String cookieName = null;
   private boolean secureOnly = true;
   private int maxAge = -1;
   private long tokenTTL = 30000l;
   private String whitelist = null;
+  private WhitelistMatcher whitelistMatcher = null;
   private String domainSuffix = null;
   private String[] targetAudiences = null;
   private boolean enableSession = false;
+  private String signatureAlgorithm = "RS256";
 
   @Context
   private HttpServletRequest request;
@@ -120,6 +125,7 @@ public class WebSSOResource {
       // default to local/relative targets
       whitelist = DEFAULT_WHITELIST;
     }
+    whitelistMatcher = getWhitelistMatcher(context, whitelist);
 
     String audiences = context.getInitParameter(SSO_COOKIE_TOKEN_AUDIENCES_PARAM);
     if (audiences != null) {
@@ -138,6 +144,20 @@ public class WebSSOResource {
 
     String enableSession = context.getInitParameter(SSO_ENABLE_SESSION_PARAM);
     this.enableSession = ("true".equals(enableSession));
+
+    String sigAlg = context.getInitParameter(SSO_SIGNATURE_ALGORITHM_PARAM);
+    if (sigAlg != null) {
+      signatureAlgorithm = sigAlg;
+    }
+  }
+
+  private static WhitelistMatcher getWhitelistMatcher(ServletContext context, String whitelist) {
+    WhitelistMatcher matcher = (WhitelistMatcher) context.getAttribute(WHITELIST_MATCHER_ATTRIBUTE);
+    if (matcher == null || !whitelist.equals(matcher.toString())) {
+      matcher = WhitelistMatcher.compile(whitelist);
+      context.setAttribute(WHITELIST_MATCHER_ATTRIBUTE, matcher);
+    }
+    return matcher;
   }
 
   @GET
@@ -166,7 +186,7 @@ public class WebSSOResource {
         log.originalURLNotFound();
         throw new WebApplicationException("Original URL not found in the request.", Response.Status.BAD_REQUEST);
       }
-      boolean validRedirect = RegExUtils.checkWhitelist(whitelist, original);
+      boolean validRedirect = whitelistMatcher.matches(original);
       if (!validRedirect) {
         log.whiteListMatchFail(original, whitelist);
         throw new WebApplicationException("Original URL not valid according to the configured whitelist.",
@@ -180,13 +200,13 @@ public class WebSSOResource {
     try {
       JWT token = null;
       if (targetAudiences == null || targetAudiences.length == 0) {
-        token = ts.issueToken(p, "RS256", getExpiry());
+        token = ts.issueToken(p, signatureAlgorithm, getExpiry());
       } else {
         ArrayList<String> aud = new ArrayList<String>();
         for (int i = 0; i < targetAudiences.length; i++) {
           aud.add(targetAudiences[i]);
         }
-        token = ts.issueToken(p, aud, "RS256", getExpiry());
+        token = ts.issueToken(p, aud, signatureAlgorithm, getExpiry());
       }
 
       // Coverity CID 1327959
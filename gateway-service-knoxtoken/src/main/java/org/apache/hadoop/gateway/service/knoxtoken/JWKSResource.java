@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.knoxtoken;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.services.GatewayServices;
+import org.apache.hadoop.gateway.services.security.token.JWTokenAuthority;
+import org.apache.hadoop.gateway.services.security.token.TokenServiceException;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+/**
+ * Publishes the public keys issued tokens are signed with as a JSON Web Key Set.
+ * Each key is named by the kid carried in the header of the tokens it signed, so
+ * services validating tokens can cache the set and only fetch it again when they
+ * meet a kid they do not know.
+ */
+@Path( JWKSResource.RESOURCE_PATH )
+public class JWKSResource {
+  static final String RESOURCE_PATH = "knoxtoken/api/v1/jwks.json";
+  // How long clients may cache the key set, in seconds.
+  private static final int MAX_AGE = 300;
+  private static TokenServiceMessages log = MessagesFactory.get( TokenServiceMessages.class );
+
+  @Context
+  private HttpServletRequest request;
+
+  @GET
+  @Produces({APPLICATION_JSON})
+  public Response doGet() {
+    GatewayServices services = (GatewayServices) request.getServletContext()
+            .getAttribute(GatewayServices.GATEWAY_SERVICES_ATTRIBUTE);
+    JWTokenAuthority ts = services.getService(GatewayServices.TOKEN_SERVICE);
+    try {
+      CacheControl cacheControl = new CacheControl();
+      cacheControl.setMaxAge(MAX_AGE);
+      return Response.ok(ts.getJWKSet().toString(), APPLICATION_JSON)
+          .cacheControl(cacheControl).build();
+    }
+    catch (TokenServiceException e) {
+      log.unableToPublishKeys(e);
+    }
+    return Response.serverError().build();
+  }
+}
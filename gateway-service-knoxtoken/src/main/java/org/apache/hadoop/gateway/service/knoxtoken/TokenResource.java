@@ -50,11 +50,13 @@ public class TokenResource {
   private static final String TOKEN_TTL_PARAM = "knox.token.ttl";
   private static final String TOKEN_AUDIENCES_PARAM = "knox.token.audiences";
   private static final String TOKEN_TARGET_URL = "knox.token.target.url";
+  private static final String TOKEN_SIGNATURE_ALGORITHM_PARAM = "knox.token.sigalg";
   static final String RESOURCE_PATH = "knoxtoken/api/v1/token";
   private static TokenServiceMessages log = MessagesFactory.get( TokenServiceMessages.class );
   private long tokenTTL = 30000l;
   private String[] targetAudiences = null;
   private String tokenTargetUrl = null;
+  private String signatureAlgorithm = "RS256";
 
   @Context
   private HttpServletRequest request;
@@ -84,6 +86,11 @@ public class TokenResource {
     }
     
     tokenTargetUrl = context.getInitParameter(TOKEN_TARGET_URL);
+
+    String sigAlg = context.getInitParameter(TOKEN_SIGNATURE_ALGORITHM_PARAM);
+    if (sigAlg != null) {
+      signatureAlgorithm = sigAlg;
+    }
   }
 
   @GET
@@ -109,13 +116,13 @@ public class TokenResource {
     try {
       JWT token = null;
       if (targetAudiences == null || targetAudiences.length == 0) {
-        token = ts.issueToken(p, "RS256", getExpiry());
+        token = ts.issueToken(p, signatureAlgorithm, getExpiry());
       } else {
         ArrayList<String> aud = new ArrayList<String>();
         for (int i = 0; i < targetAudiences.length; i++) {
           aud.add(targetAudiences[i]);
         }
-        token = ts.issueToken(p, aud, "RS256", expires);
+        token = ts.issueToken(p, aud, signatureAlgorithm, expires);
       }
 
       if (token != null) {
@@ -48,6 +48,9 @@ public interface TokenServiceMessages {
   @Message( level = MessageLevel.ERROR, text = "Unable to issue token.")
   void unableToIssueToken(@StackTrace( level = MessageLevel.DEBUG) Exception e);
 
+  @Message( level = MessageLevel.ERROR, text = "Unable to publish the token signing keys.")
+  void unableToPublishKeys(@StackTrace( level = MessageLevel.DEBUG) Exception e);
+
   @Message( level = MessageLevel.WARN, text = "The SSO cookie SecureOnly flag is set to FALSE and is therefore insecure.")
   void cookieSecureOnly(boolean secureOnly);
 
@@ -19,6 +19,7 @@ package org.apache.hadoop.gateway.hdfs.dispatch;
 
 import org.apache.hadoop.gateway.config.Configure;
 import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
+import org.apache.hadoop.gateway.ha.provider.FailoverBackoff;
 import org.apache.hadoop.gateway.ha.provider.HaProvider;
 import org.apache.hadoop.gateway.ha.provider.HaServiceConfig;
 import org.apache.hadoop.gateway.ha.provider.impl.HaServiceConfigConstants;
@@ -55,6 +56,8 @@ public class WebHdfsHaDispatch extends HdfsHttpClientDispatch {
 
    private int retrySleep = HaServiceConfigConstants.DEFAULT_RETRY_SLEEP;
 
+   private FailoverBackoff backoff = new FailoverBackoff(HaServiceConfigConstants.DEFAULT_MAX_CONCURRENT_RETRIES);
+
    private HaProvider haProvider;
 
    /**
@@ -73,6 +76,7 @@ public class WebHdfsHaDispatch extends HdfsHttpClientDispatch {
        failoverSleep = serviceConfig.getFailoverSleep();
        maxRetryAttempts = serviceConfig.getMaxRetryAttempts();
        retrySleep = serviceConfig.getRetrySleep();
+       backoff = haProvider.getFailoverBackoff(RESOURCE_ROLE);
      }
    }
 
@@ -87,19 +91,47 @@ public class WebHdfsHaDispatch extends HdfsHttpClientDispatch {
 
   @Override
    protected void executeRequest(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse) throws IOException {
+      if (!acquireServiceGuard(outboundRequest)) {
+         writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, createServiceUnavailableResponse());
+         return;
+      }
       HttpResponse inboundResponse = null;
+      Exception failure = null;
       try {
-         inboundResponse = executeOutboundRequest(outboundRequest);
+         inboundResponse = executeTrackedRequest(outboundRequest);
          writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
-      } catch (StandbyException e) {
-         LOG.errorReceivedFromStandbyNode(e);
-         failoverRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, e);
-      } catch (SafeModeException e) {
-         LOG.errorReceivedFromSafeModeNode(e);
-         retryRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, e);
       } catch (IOException e) {
-         LOG.errorConnectingToServer(outboundRequest.getURI().toString(), e);
-         failoverRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, e);
+         failure = e;
+      } finally {
+         releaseServiceGuard();
+      }
+      // retry or fail over only after giving back the guard slot, the next attempt takes its own
+      if (failure instanceof StandbyException) {
+         LOG.errorReceivedFromStandbyNode(failure);
+         failoverRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
+      } else if (failure instanceof SafeModeException) {
+         LOG.errorReceivedFromSafeModeNode(failure);
+         retryRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
+      } else if (failure != null) {
+         LOG.errorConnectingToServer(outboundRequest.getURI().toString(), failure);
+         failoverRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
+      }
+   }
+
+   private HttpResponse executeTrackedRequest(HttpUriRequest outboundRequest) throws IOException {
+      if (haProvider == null) {
+         return executeGuardedRequest(outboundRequest);
+      }
+      String url = outboundRequest.getURI().toString();
+      haProvider.markRequestStarted(RESOURCE_ROLE, url);
+      long start = System.currentTimeMillis();
+      boolean failed = true;
+      try {
+         HttpResponse inboundResponse = executeGuardedRequest(outboundRequest);
+         failed = isServerError(inboundResponse);
+         return inboundResponse;
+      } finally {
+         haProvider.markRequestCompleted(RESOURCE_ROLE, url, System.currentTimeMillis() - start, failed);
       }
    }
 
@@ -137,22 +169,25 @@ public class WebHdfsHaDispatch extends HdfsHttpClientDispatch {
          inboundRequest.setAttribute(AbstractGatewayFilter.TARGET_REQUEST_URL_ATTRIBUTE_NAME, null);
          URI uri = getDispatchUrl(inboundRequest);
          ((HttpRequestBase) outboundRequest).setURI(uri);
-         if (failoverSleep > 0) {
-            try {
-               Thread.sleep(failoverSleep);
-            } catch (InterruptedException e) {
-               LOG.failoverSleepFailed(RESOURCE_ROLE, e);
+         boolean proceed;
+         try {
+            proceed = backoff.await(failoverSleep, counter.get());
+            if (!proceed) {
+               LOG.retryBudgetExhausted(RESOURCE_ROLE, uri.toString());
             }
+         } catch (InterruptedException e) {
+            LOG.failoverSleepFailed(RESOURCE_ROLE, e);
+            Thread.currentThread().interrupt();
+            proceed = false;
+         }
+         if (proceed) {
+            executeRequest(outboundRequest, inboundRequest, outboundResponse);
+            return;
          }
-         executeRequest(outboundRequest, inboundRequest, outboundResponse);
       } else {
          LOG.maxFailoverAttemptsReached(maxFailoverAttempts, RESOURCE_ROLE);
-         if (inboundResponse != null) {
-            writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
-         } else {
-            throw new IOException(exception);
-         }
       }
+      writeFailedResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse, exception);
    }
 
    private void retryRequest(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse, Exception exception) throws IOException {
@@ -163,21 +198,32 @@ public class WebHdfsHaDispatch extends HdfsHttpClientDispatch {
       }
       inboundRequest.setAttribute(RETRY_COUNTER_ATTRIBUTE, counter);
       if (counter.incrementAndGet() <= maxRetryAttempts) {
-         if (retrySleep > 0) {
-            try {
-               Thread.sleep(retrySleep);
-            } catch (InterruptedException e) {
-               LOG.retrySleepFailed(RESOURCE_ROLE, e);
+         boolean proceed;
+         try {
+            proceed = backoff.await(retrySleep, counter.get());
+            if (!proceed) {
+               LOG.retryBudgetExhausted(RESOURCE_ROLE, outboundRequest.getURI().toString());
             }
+         } catch (InterruptedException e) {
+            LOG.retrySleepFailed(RESOURCE_ROLE, e);
+            Thread.currentThread().interrupt();
+            proceed = false;
+         }
+         if (proceed) {
+            executeRequest(outboundRequest, inboundRequest, outboundResponse);
+            return;
          }
-         executeRequest(outboundRequest, inboundRequest, outboundResponse);
       } else {
          LOG.maxRetryAttemptsReached(maxRetryAttempts, RESOURCE_ROLE, outboundRequest.getURI().toString());
-         if (inboundResponse != null) {
-            writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
-         } else {
-            throw new IOException(exception);
-         }
+      }
+      writeFailedResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse, exception);
+   }
+
+   private void writeFailedResponse(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse, Exception exception) throws IOException {
+      if (inboundResponse != null) {
+         writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
+      } else {
+         throw new IOException(exception);
       }
    }
 
@@ -99,7 +99,7 @@ public class WebHdfsHaDispatchTest {
       }
       long elapsedTime = System.currentTimeMillis() - startTime;
       Assert.assertEquals(uri2.toString(), provider.getActiveURL(serviceName));
-      //test to make sure the sleep took place
-      Assert.assertTrue(elapsedTime > 1000);
+      //test to make sure the sleep took place, the first failover waits an eighth to a quarter of the sleep
+      Assert.assertTrue(elapsedTime >= 125);
    }
 }
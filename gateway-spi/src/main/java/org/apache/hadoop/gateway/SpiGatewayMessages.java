@@ -38,6 +38,12 @@ public interface SpiGatewayMessages {
   @Message( level = MessageLevel.WARN, text = "Connection exception dispatching request: {0} {1}" )
   void dispatchServiceConnectionException( URI uri, @StackTrace(level=MessageLevel.WARN) Exception e );
 
+  @Message( level = MessageLevel.WARN, text = "Dispatch to service {1} of topology {0} refused ({2}): {3}" )
+  void dispatchRefused( String topology, String service, String reason, URI uri );
+
+  @Message( level = MessageLevel.INFO, text = "Circuit breaker for service {1} of topology {0} changed from {2} to {3}" )
+  void circuitBreakerStateChanged( String topology, String service, String from, String to );
+
   @Message( level = MessageLevel.DEBUG, text = "Dispatch response status: {0}" )
   void dispatchResponseStatusCode(int statusCode);
 
@@ -67,4 +73,7 @@ public interface SpiGatewayMessages {
 
   @Message( level = MessageLevel.DEBUG, text = "Inbound response entity content type: {0}" )
   void inboundResponseEntityContentType( String fullContentType );
+
+  @Message( level = MessageLevel.DEBUG, text = "Failed to preemptively authenticate to {0} with SPNEGO: {1}" )
+  void failedToPreemptSpnego( String host, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
 }
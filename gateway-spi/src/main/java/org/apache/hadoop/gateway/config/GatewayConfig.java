@@ -20,6 +20,7 @@ package org.apache.hadoop.gateway.config;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.util.List;
+import java.util.Map;
 
 public interface GatewayConfig {
 
@@ -40,6 +41,7 @@ public interface GatewayConfig {
   public static final String KRB5_USE_SUBJECT_CREDS_ONLY = "javax.security.auth.useSubjectCredsOnly";
   public static final String SIGNING_KEYSTORE_NAME = "gateway.signing.keystore.name";
   public static final String SIGNING_KEY_ALIAS = "gateway.signing.key.alias";
+  public static final String SIGNING_KEY_PREVIOUS_ALIASES = "gateway.signing.key.previous.aliases";
 
   /**
    * The location of the gateway configuration.
@@ -143,6 +145,13 @@ public interface GatewayConfig {
 
   String getSigningKeyAlias();
 
+  /**
+   * Returns the aliases of signing keys that were rotated out but whose tokens are still
+   * accepted. Only these and the current signing key are published and used for verification.
+   * @return the aliases of previous signing keys, never null
+   */
+  List<String> getSigningKeyPreviousAliases();
+
   List<String> getGlobalRulesServices();
 
   /**
@@ -214,10 +223,115 @@ public interface GatewayConfig {
 
   int getGraphiteReportingFrequency();
 
+  /**
+   * Whether the registry is served in Prometheus text format.
+   * @since 0.12
+   */
+  boolean isPrometheusMetricsReportingEnabled();
+
+  /**
+   * Host the Prometheus scrape endpoint binds to, localhost by default as the endpoint is not authenticated.
+   * @since 0.12
+   */
+  String getPrometheusHost();
+
+  /**
+   * Port the Prometheus scrape endpoint listens on.
+   * @since 0.12
+   */
+  int getPrometheusPort();
+
   /**
    * List of MIME Type to be compressed.
    * @since 0.12
    */
   List<String> getMimeTypesToCompress();
 
+  /**
+   * Number of topology deployments assembled in parallel.
+   * @since 0.12
+   */
+  int getGatewayDeploymentThreads();
+
+  /**
+   * Maximum time in milliseconds a replaced deployment is given to complete its in-flight requests before it is stopped.
+   * @since 0.12
+   */
+  long getGatewayDeploymentDrainTimeout();
+
+  /**
+   * Indicates whether topologies are activated straight from their assembled deployment
+   * instead of from an archive exported to the deployment directory.
+   * @since 0.12
+   */
+  boolean isInMemoryDeploymentEnabled();
+
+  /**
+   * Indicates whether the topology directory is polled for changes instead of being watched
+   * through file system events, for file systems that do not deliver them.
+   * @since 0.12
+   */
+  boolean isTopologyMonitorPollingEnabled();
+
+  /**
+   * Host names mapped to the topology that serves requests addressed to them.
+   * Requests for such a host reach the topology without naming it in the path.
+   * @since 0.12
+   */
+  Map<String, String> getTopologyVirtualHosts();
+
+  /**
+   * One in how many requests is captured by the trace service, 0 to capture none.
+   * @since 0.12
+   */
+  int getTraceSampleRate();
+
+  /**
+   * Path prefixes that limit which requests may be sampled; empty to sample any path.
+   * @since 0.12
+   */
+  List<String> getTraceSamplePaths();
+
+  /**
+   * Number of sampled requests kept by the trace service.
+   * @since 0.12
+   */
+  int getTraceSampleBufferSize();
+
+  /**
+   * Number of leading body bytes captured for each sampled request and response.
+   * @since 0.12
+   */
+  int getTraceSampleBodyLimit();
+
+  /**
+   * Number of audit records that can be queued for asynchronous delivery, 0 to audit synchronously.
+   * @since 0.12
+   */
+  int getAuditQueueSize();
+
+  /**
+   * What to do with an audit record when the queue is full: block, drop or spill.
+   * @since 0.12
+   */
+  String getAuditOverflowPolicy();
+
+  /**
+   * Whether the audit events of a request are written as a single record when it completes.
+   * @since 0.12
+   */
+  boolean isAuditCoalescingEnabled();
+
+  /**
+   * Class name of the generator used for new correlation request ids, null for the default.
+   * @since 0.12
+   */
+  String getCorrelationIdGenerator();
+
+  /**
+   * Whether X-Request-Id and traceparent request headers are used for the correlation context.
+   * @since 0.12
+   */
+  boolean isCorrelationHeadersEnabled();
+
 }
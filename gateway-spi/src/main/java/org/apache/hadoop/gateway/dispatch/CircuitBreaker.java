@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+/**
+ * Circuit breaker over a sliding window of the most recent dispatched requests.
+ * <p>
+ * The breaker opens when the share of failed requests in the window reaches the failure rate
+ * threshold, or when the configured latency percentile of the window exceeds the latency
+ * threshold (that is, when more than {@code 100 - percentile} percent of the requests took
+ * longer than the threshold). While open every request is refused. Once the open duration has
+ * elapsed a single probe request is let through; its outcome closes or re-opens the breaker.
+ */
+public class CircuitBreaker {
+
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  public interface Listener {
+    void stateChanged( State from, State to );
+  }
+
+  private final int failureRateThreshold;
+  private final long latencyThreshold;
+  private final int latencyPercentile;
+  private final long openDuration;
+
+  private final boolean[] failed;
+  private final boolean[] slow;
+  private int count;
+  private int next;
+  private int failedCount;
+  private int slowCount;
+
+  private volatile State state = State.CLOSED;
+  private long openedAt;
+  private boolean probing;
+  private Listener listener;
+
+  /**
+   * @param failureRateThreshold percentage of failed requests that opens the breaker, disabled if not positive
+   * @param latencyThreshold     latency in milliseconds that the latency percentile must stay below, disabled if not positive
+   * @param latencyPercentile    the latency percentile compared with the latency threshold
+   * @param windowSize           the number of most recent requests the rates are computed over
+   * @param openDuration         milliseconds the breaker stays open before letting a probe through
+   */
+  public CircuitBreaker( int failureRateThreshold, long latencyThreshold, int latencyPercentile, int windowSize, long openDuration ) {
+    this.failureRateThreshold = failureRateThreshold;
+    this.latencyThreshold = latencyThreshold;
+    this.latencyPercentile = Math.min( Math.max( latencyPercentile, 1 ), 100 );
+    this.openDuration = openDuration;
+    failed = new boolean[ Math.max( windowSize, 1 ) ];
+    slow = new boolean[ failed.length ];
+  }
+
+  public void setListener( Listener listener ) {
+    this.listener = listener;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * @return milliseconds until an open breaker lets a probe through, 0 if it is not open
+   */
+  public synchronized long getRemainingOpenTime() {
+    return state == State.OPEN ? Math.max( openedAt + openDuration - now(), 0 ) : 0;
+  }
+
+  /**
+   * Decides whether a request may be dispatched. Every admitted request must be followed by a call to
+   * {@link #record(long, boolean)}.
+   */
+  public boolean allowRequest() {
+    if( state == State.CLOSED ) {
+      return true;
+    }
+    synchronized( this ) {
+      switch( state ) {
+        case CLOSED:
+          return true;
+        case OPEN:
+          if( now() - openedAt < openDuration ) {
+            return false;
+          }
+          transition( State.HALF_OPEN );
+          probing = true;
+          return true;
+        default:
+          if( probing ) {
+            return false;
+          }
+          probing = true;
+          return true;
+      }
+    }
+  }
+
+  /**
+   * Records the outcome of an admitted request.
+   *
+   * @param elapsed     time in milliseconds until the response was received
+   * @param wasFailure  true if the request failed or the backend answered with a server error
+   */
+  public synchronized void record( long elapsed, boolean wasFailure ) {
+    boolean wasSlow = latencyThreshold > 0 && elapsed > latencyThreshold;
+    switch( state ) {
+      case HALF_OPEN:
+        probing = false;
+        if( wasFailure || wasSlow ) {
+          open();
+        } else {
+          clearWindow();
+          transition( State.CLOSED );
+        }
+        break;
+      case OPEN:
+        // outcome of a request admitted before the breaker opened
+        break;
+      default:
+        if( count == failed.length ) {
+          failedCount -= failed[ next ] ? 1 : 0;
+          slowCount -= slow[ next ] ? 1 : 0;
+        } else {
+          count++;
+        }
+        failed[ next ] = wasFailure;
+        slow[ next ] = wasSlow;
+        failedCount += wasFailure ? 1 : 0;
+        slowCount += wasSlow ? 1 : 0;
+        next = ( next + 1 ) % failed.length;
+        if( count == failed.length && isTripped() ) {
+          open();
+        }
+    }
+  }
+
+  private boolean isTripped() {
+    if( failureRateThreshold > 0 && failedCount * 100 >= failureRateThreshold * count ) {
+      return true;
+    }
+    return latencyThreshold > 0 && slowCount * 100 > ( 100 - latencyPercentile ) * count;
+  }
+
+  private void open() {
+    openedAt = now();
+    clearWindow();
+    transition( State.OPEN );
+  }
+
+  private void clearWindow() {
+    count = 0;
+    next = 0;
+    failedCount = 0;
+    slowCount = 0;
+  }
+
+  private void transition( State to ) {
+    State from = state;
+    state = to;
+    if( listener != null && from != to ) {
+      listener.stateChanged( from, to );
+    }
+  }
+
+  long now() {
+    return System.currentTimeMillis();
+  }
+
+}
@@ -34,6 +34,7 @@ import org.apache.hadoop.gateway.util.MimeTypes;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpOptions;
@@ -41,6 +42,7 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -70,6 +72,8 @@ public class DefaultDispatch extends AbstractGatewayDispatch {
   //Buffer size in bytes
   private int replayBufferSize = -1;
 
+  private ServiceGuard serviceGuard;
+
   @Override
   public void init() {
     super.init();
@@ -83,6 +87,14 @@ public class DefaultDispatch extends AbstractGatewayDispatch {
 
   }
 
+  public ServiceGuard getServiceGuard() {
+    return serviceGuard;
+  }
+
+  public void setServiceGuard(ServiceGuard serviceGuard) {
+    this.serviceGuard = serviceGuard;
+  }
+
   protected int getReplayBufferSize() {
     if (replayBufferSize > 0) {
       return Math.abs(replayBufferSize/1024);
@@ -112,10 +124,80 @@ public class DefaultDispatch extends AbstractGatewayDispatch {
          HttpServletRequest inboundRequest,
          HttpServletResponse outboundResponse)
          throws IOException {
-      HttpResponse inboundResponse = executeOutboundRequest(outboundRequest);
-      writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
+      if( !acquireServiceGuard( outboundRequest ) ) {
+        writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, createServiceUnavailableResponse());
+        return;
+      }
+      try {
+        HttpResponse inboundResponse = executeGuardedRequest(outboundRequest);
+        writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
+      } finally {
+        releaseServiceGuard();
+      }
    }
 
+  /**
+   * Takes a slot of the service guard for one exchange with the backend, which lasts until the
+   * response body has been streamed back. Every admitted exchange must be completed with
+   * {@link #releaseServiceGuard()}.
+   *
+   * @return false if the guard refused the request, which should then be answered with
+   * {@link #createServiceUnavailableResponse()}
+   */
+  protected boolean acquireServiceGuard( HttpUriRequest outboundRequest ) {
+    if( serviceGuard == null ) {
+      return true;
+    }
+    ServiceGuard.Admission admission = serviceGuard.acquire();
+    if( admission != ServiceGuard.Admission.ADMITTED ) {
+      LOG.dispatchRefused( serviceGuard.getTopology(), serviceGuard.getService(), admission.name(), outboundRequest.getURI() );
+      auditor.audit( Action.DISPATCH, outboundRequest.getURI().toString(), ResourceType.URI, ActionOutcome.UNAVAILABLE, RES.responseStatus( HttpServletResponse.SC_SERVICE_UNAVAILABLE ) );
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Executes the outbound request of an exchange admitted by {@link #acquireServiceGuard(HttpUriRequest)} and
+   * reports to the circuit breaker how long the backend took to answer with the response headers and whether
+   * it failed. Streaming the response body back to the client is not part of the outcome.
+   */
+  protected HttpResponse executeGuardedRequest( HttpUriRequest outboundRequest ) throws IOException {
+    if( serviceGuard == null ) {
+      return executeOutboundRequest( outboundRequest );
+    }
+    long start = System.currentTimeMillis();
+    boolean failed = true;
+    try {
+      HttpResponse inboundResponse = executeOutboundRequest( outboundRequest );
+      failed = isServerError( inboundResponse );
+      return inboundResponse;
+    } finally {
+      serviceGuard.record( System.currentTimeMillis() - start, failed );
+    }
+  }
+
+  /**
+   * Completes an exchange admitted by {@link #acquireServiceGuard(HttpUriRequest)}.
+   */
+  protected void releaseServiceGuard() {
+    if( serviceGuard != null ) {
+      serviceGuard.release();
+    }
+  }
+
+  protected static boolean isServerError( HttpResponse inboundResponse ) {
+    return inboundResponse.getStatusLine().getStatusCode() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+  }
+
+  protected HttpResponse createServiceUnavailableResponse() {
+    BasicHttpResponse response = new BasicHttpResponse( HttpVersion.HTTP_1_1, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable" );
+    if( serviceGuard != null ) {
+      response.setHeader( "Retry-After", Long.toString( serviceGuard.getRetryAfter() ) );
+    }
+    return response;
+  }
+
   protected HttpResponse executeOutboundRequest( HttpUriRequest outboundRequest ) throws IOException {
     LOG.dispatchRequest( outboundRequest.getMethod(), outboundRequest.getURI() );
     HttpResponse inboundResponse;
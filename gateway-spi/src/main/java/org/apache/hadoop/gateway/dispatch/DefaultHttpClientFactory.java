@@ -59,12 +59,14 @@ public class DefaultHttpClientFactory implements HttpClientFactory {
   @Override
   public HttpClient createHttpClient(FilterConfig filterConfig) {
     HttpClientBuilder builder = null;
+    int maxConnections = getMaxConnections( filterConfig );
     GatewayConfig gatewayConfig = (GatewayConfig) filterConfig.getServletContext().getAttribute(GatewayConfig.GATEWAY_CONFIG_ATTRIBUTE);
     if (gatewayConfig != null && gatewayConfig.isMetricsEnabled()) {
       GatewayServices services = (GatewayServices) filterConfig.getServletContext()
           .getAttribute(GatewayServices.GATEWAY_SERVICES_ATTRIBUTE);
       MetricsService metricsService = services.getService(GatewayServices.METRICS_SERVICE);
       builder = metricsService.getInstrumented(HttpClientBuilder.class);
+      builder.setConnectionManager(createConnectionPool(filterConfig, maxConnections, metricsService));
     } else {
       builder = HttpClients.custom();
     }
@@ -76,9 +78,13 @@ public class DefaultHttpClientFactory implements HttpClientFactory {
           .register(AuthSchemes.SPNEGO, new KnoxSpnegoAuthSchemeFactory(true))
           .build();
 
+      // The hadoop.auth cookies are shared by all clients through the requests' context.
+      HadoopAuthCache authCache = HadoopAuthCache.getInstance();
       builder = builder.setDefaultAuthSchemeRegistry(authSchemeRegistry)
           .setDefaultCookieStore(new HadoopAuthCookieStore())
-          .setDefaultCredentialsProvider(credentialsProvider);
+          .setDefaultCredentialsProvider(credentialsProvider)
+          .addInterceptorFirst(authCache.getRequestInterceptor())
+          .addInterceptorLast(authCache.getResponseInterceptor());
     } else {
       builder = builder.setDefaultCookieStore(new NoCookieStore());
     }
@@ -88,7 +94,6 @@ public class DefaultHttpClientFactory implements HttpClientFactory {
     builder.setRedirectStrategy( new NeverRedirectStrategy() );
     builder.setRetryHandler( new NeverRetryHandler() );
 
-    int maxConnections = getMaxConnections( filterConfig );
     builder.setMaxConnTotal( maxConnections );
     builder.setMaxConnPerRoute( maxConnections );
 
@@ -98,6 +103,21 @@ public class DefaultHttpClientFactory implements HttpClientFactory {
     return client;
   }
 
+  // The builder does not size a connection manager it is given.
+  private static HttpClientConnectionPool createConnectionPool( FilterConfig filterConfig, int maxConnections,
+      MetricsService metricsService ) {
+    String topology = (String)filterConfig.getServletContext().getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE );
+    String service = filterConfig.getInitParameter( ServiceGuard.SERVICE_ROLE_PARAM );
+    if( service == null ) {
+      service = filterConfig.getFilterName();
+    }
+    HttpClientConnectionPool pool = new HttpClientConnectionPool( topology, service );
+    pool.setMaxTotal( maxConnections );
+    pool.setDefaultMaxPerRoute( maxConnections );
+    metricsService.getInstrumented( pool );
+    return pool;
+  }
+
   private static RequestConfig getRequestConfig( FilterConfig config ) {
     RequestConfig.Builder builder = RequestConfig.custom();
     int connectionTimeout = getConnectionTimeout( config );
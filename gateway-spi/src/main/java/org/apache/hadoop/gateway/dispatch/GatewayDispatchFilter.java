@@ -18,8 +18,11 @@
 package org.apache.hadoop.gateway.dispatch;
 
 import org.apache.hadoop.gateway.SpiGatewayMessages;
+import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.services.GatewayServices;
+import org.apache.hadoop.gateway.services.metrics.MetricsService;
 import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.CloseableHttpClient;
 
@@ -47,6 +50,8 @@ public class GatewayDispatchFilter extends AbstractGatewayFilter {
 
   private HttpClient httpClient;
 
+  private ServiceGuard serviceGuard;
+
   private static Map<String, Adapter> createMethodAdapters() {
     Map<String, Adapter> map = new HashMap<>();
     map.put("GET", new GetAdapter());
@@ -74,12 +79,33 @@ public class GatewayDispatchFilter extends AbstractGatewayFilter {
     }
     httpClient = httpClientFactory.createHttpClient(filterConfig);
     dispatch.setHttpClient(httpClient);
+    if (dispatch instanceof DefaultDispatch) {
+      serviceGuard = createServiceGuard(filterConfig);
+      ((DefaultDispatch) dispatch).setServiceGuard(serviceGuard);
+    }
     dispatch.init();
   }
 
+  private ServiceGuard createServiceGuard(FilterConfig filterConfig) {
+    ServiceGuard guard = ServiceGuard.get(filterConfig);
+    if (guard != null) {
+      GatewayConfig gatewayConfig = (GatewayConfig) filterConfig.getServletContext().getAttribute(GatewayConfig.GATEWAY_CONFIG_ATTRIBUTE);
+      if (gatewayConfig != null && gatewayConfig.isMetricsEnabled()) {
+        GatewayServices services = (GatewayServices) filterConfig.getServletContext()
+            .getAttribute(GatewayServices.GATEWAY_SERVICES_ATTRIBUTE);
+        MetricsService metricsService = services.getService(GatewayServices.METRICS_SERVICE);
+        metricsService.getInstrumented(guard);
+      }
+    }
+    return guard;
+  }
+
   @Override
   public void destroy() {
     dispatch.destroy();
+    if (serviceGuard != null) {
+      serviceGuard.close();
+    }
     try {
       if (httpClient instanceof  CloseableHttpClient) {
         ((CloseableHttpClient) httpClient).close();
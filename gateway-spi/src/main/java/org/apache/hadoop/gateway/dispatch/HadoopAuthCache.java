@@ -0,0 +1,189 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.hadoop.gateway.SpiGatewayMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AUTH;
+import org.apache.http.auth.AuthScheme;
+import org.apache.http.auth.AuthSchemeProvider;
+import org.apache.http.auth.AuthState;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.AuthenticationException;
+import org.apache.http.auth.ContextAwareAuthScheme;
+import org.apache.http.auth.Credentials;
+import org.apache.http.auth.MalformedChallengeException;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.AuthSchemes;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Lookup;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares the Kerberos authentication state of the backends between all the HTTP clients of the gateway.
+ * <p>
+ * Each backend, identified by scheme, host and port, gets one {@link HadoopAuthCookieStore} used by every
+ * client, so a hadoop.auth cookie obtained by one service's dispatch saves the others a SPNEGO handshake.
+ * Backends that have challenged for SPNEGO before are sent a Negotiate token with the first request made
+ * without a valid cookie, which avoids the 401 round trip otherwise needed to learn that they require it.
+ * The service tickets behind these tokens are already cached by the JAAS subject of the gateway.
+ * <p>
+ * The cookies identify the gateway's principal rather than the user a request is made for, which is
+ * passed separately as doAs, so they can be shared by all the requests to a backend.
+ */
+public class HadoopAuthCache {
+
+  private static final SpiGatewayMessages LOG = MessagesFactory.get( SpiGatewayMessages.class );
+
+  private static final HadoopAuthCache INSTANCE = new HadoopAuthCache();
+
+  private final ConcurrentMap<HttpHost, Backend> backends = new ConcurrentHashMap<>();
+
+  HadoopAuthCache() {
+  }
+
+  /**
+   * @return the cache shared by the gateway
+   */
+  public static HadoopAuthCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @return the interceptor to add first to a client's request interceptors
+   */
+  public HttpRequestInterceptor getRequestInterceptor() {
+    return new HttpRequestInterceptor() {
+      @Override
+      public void process( HttpRequest request, HttpContext context ) throws HttpException, IOException {
+        processRequest( request, HttpClientContext.adapt( context ) );
+      }
+    };
+  }
+
+  /**
+   * @return the interceptor to add to a client's response interceptors
+   */
+  public HttpResponseInterceptor getResponseInterceptor() {
+    return new HttpResponseInterceptor() {
+      @Override
+      public void process( HttpResponse response, HttpContext context ) throws HttpException, IOException {
+        processResponse( response, HttpClientContext.adapt( context ) );
+      }
+    };
+  }
+
+  private Backend getBackend( HttpHost target ) {
+    Backend backend = backends.get( target );
+    if( backend == null ) {
+      backend = new Backend();
+      Backend existing = backends.putIfAbsent( target, backend );
+      if( existing != null ) {
+        backend = existing;
+      }
+    }
+    return backend;
+  }
+
+  private void processRequest( HttpRequest request, HttpClientContext context ) {
+    HttpHost target = context.getTargetHost();
+    if( target == null ) {
+      return;
+    }
+    Backend backend = getBackend( target );
+    context.setCookieStore( backend.cookies );
+    if( backend.negotiate && !request.containsHeader( AUTH.WWW_AUTH_RESP )
+        && !hasValidCookie( backend.cookies ) ) {
+      Header authorization = negotiate( target, request, context );
+      if( authorization != null ) {
+        request.addHeader( authorization );
+      }
+    }
+  }
+
+  private void processResponse( HttpResponse response, HttpClientContext context ) {
+    HttpHost target = context.getTargetHost();
+    if( target == null ) {
+      return;
+    }
+    // Challenges answered by the client are only visible through the state of the handshake.
+    AuthState authState = context.getTargetAuthState();
+    if( authState != null && authState.getAuthScheme() != null
+        && AuthSchemes.SPNEGO.equalsIgnoreCase( authState.getAuthScheme().getSchemeName() ) ) {
+      getBackend( target ).negotiate = true;
+    }
+    if( response.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED ) {
+      for( Header challenge : response.getHeaders( AUTH.WWW_AUTH ) ) {
+        if( challenge.getValue().regionMatches( true, 0, AuthSchemes.SPNEGO, 0, AuthSchemes.SPNEGO.length() ) ) {
+          Backend backend = getBackend( target );
+          backend.negotiate = true;
+          // A cookie the backend no longer accepts must not keep preempting the handshake.
+          backend.cookies.clear();
+          return;
+        }
+      }
+    }
+  }
+
+  private static boolean hasValidCookie( HadoopAuthCookieStore cookies ) {
+    cookies.clearExpired( new Date() );
+    return !cookies.getCookies().isEmpty();
+  }
+
+  private static Header negotiate( HttpHost target, HttpRequest request, HttpClientContext context ) {
+    Lookup<AuthSchemeProvider> registry = context.getAuthSchemeRegistry();
+    CredentialsProvider credentialsProvider = context.getCredentialsProvider();
+    AuthSchemeProvider provider = registry == null ? null : registry.lookup( AuthSchemes.SPNEGO );
+    if( provider == null || credentialsProvider == null ) {
+      return null;
+    }
+    Credentials credentials = credentialsProvider.getCredentials( new AuthScope( target ) );
+    AuthScheme scheme = provider.create( context );
+    if( credentials == null || !( scheme instanceof ContextAwareAuthScheme ) ) {
+      return null;
+    }
+    try {
+      scheme.processChallenge( new BasicHeader( AUTH.WWW_AUTH, AuthSchemes.SPNEGO ) );
+      return ( (ContextAwareAuthScheme)scheme ).authenticate( credentials, request, context );
+    } catch( MalformedChallengeException | AuthenticationException e ) {
+      // Fall back to answering the backend's challenge.
+      LOG.failedToPreemptSpnego( target.toHostString(), e );
+      return null;
+    }
+  }
+
+  private static class Backend {
+    private final HadoopAuthCookieStore cookies = new HadoopAuthCookieStore();
+    private volatile boolean negotiate;
+  }
+
+}
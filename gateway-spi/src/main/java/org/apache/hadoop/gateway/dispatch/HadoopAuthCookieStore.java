@@ -18,14 +18,43 @@
 package org.apache.hadoop.gateway.dispatch;
 
 import org.apache.http.cookie.Cookie;
+import org.apache.http.cookie.SetCookie;
 import org.apache.http.impl.client.BasicCookieStore;
 
+import java.util.Date;
+
 public class HadoopAuthCookieStore extends BasicCookieStore {
 
   @Override
   public void addCookie(Cookie cookie) {
     if (cookie.getName().equals("hadoop.auth") || cookie.getName().equals("hive.server2.auth")) {
+      // Without an Expires attribute the cookie is valid until the expiry of the token it holds.
+      if (cookie.getExpiryDate() == null && cookie instanceof SetCookie) {
+        long expires = getTokenExpiry(cookie.getValue());
+        if (expires > 0) {
+          ((SetCookie) cookie).setExpiryDate(new Date(expires));
+        }
+      }
       super.addCookie(cookie);
     }
   }
+
+  /**
+   * @return the e= expiry of a signed hadoop.auth token such as "u=knox&amp;p=knox/host@REALM&amp;t=kerberos&amp;e=...&amp;s=..."
+   * or 0 if there is none
+   */
+  private static long getTokenExpiry(String value) {
+    if (value != null) {
+      for (String attribute : value.replace("\"", "").split("&")) {
+        if (attribute.startsWith("e=")) {
+          try {
+            return Long.parseLong(attribute.substring(2));
+          } catch (NumberFormatException e) {
+            return 0;
+          }
+        }
+      }
+    }
+    return 0;
+  }
 }
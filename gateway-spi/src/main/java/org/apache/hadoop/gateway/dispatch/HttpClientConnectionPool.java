@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The connection pool of the HttpClient one service of one topology dispatches with.
+ * <p>
+ * The pool is shut down with its client, which runs the listeners added with {@link #addShutdownListener(Runnable)},
+ * e.g. to unregister its metrics.
+ */
+public class HttpClientConnectionPool extends PoolingHttpClientConnectionManager {
+
+  private final String topology;
+  private final String service;
+  private final List<Runnable> shutdownListeners = new CopyOnWriteArrayList<>();
+
+  public HttpClientConnectionPool( String topology, String service ) {
+    this.topology = topology;
+    this.service = service;
+  }
+
+  public String getTopology() {
+    return topology;
+  }
+
+  public String getService() {
+    return service;
+  }
+
+  public void addShutdownListener( Runnable listener ) {
+    shutdownListeners.add( listener );
+  }
+
+  @Override
+  public void shutdown() {
+    try {
+      super.shutdown();
+    } finally {
+      for( Runnable listener : shutdownListeners ) {
+        listener.run();
+      }
+      shutdownListeners.clear();
+    }
+  }
+
+}
@@ -17,6 +17,7 @@
  */
 package org.apache.hadoop.gateway.dispatch;
 
+import org.apache.http.auth.Credentials;
 import org.apache.http.impl.auth.SPNegoScheme;
 import org.ietf.jgss.GSSException;
 
@@ -36,19 +37,32 @@ public class KnoxSpnegoAuthScheme extends SPNegoScheme {
   protected byte[] generateToken(final byte[] input, final String authServer) throws GSSException {
     // This is done to avoid issues with Keberos service ticket replay detection on the service side.
     synchronized( KnoxSpnegoAuthScheme.class ) {
-      long now;
-      // This just insures that the system clock has advanced to a different nanosecond.
-      // Kerberos uses microsecond resolution and 1ms=1000ns.
-      while( ( now = System.nanoTime() ) == nano ) {
-        try {
-          Thread.sleep( 0 );
-        } catch( InterruptedException e ) {
-          // Ignore it.
-        }
-      }
-      nano = now;
+      awaitClockAdvance();
       return super.generateToken( input, authServer );
     }
   }
 
+  // The scheme generates its tokens through this variant since HttpClient 4.4.
+  @Override
+  protected byte[] generateToken(final byte[] input, final String authServer, final Credentials credentials) throws GSSException {
+    synchronized( KnoxSpnegoAuthScheme.class ) {
+      awaitClockAdvance();
+      return super.generateToken( input, authServer, credentials );
+    }
+  }
+
+  private static void awaitClockAdvance() {
+    long now;
+    // This just insures that the system clock has advanced to a different nanosecond.
+    // Kerberos uses microsecond resolution and 1ms=1000ns.
+    while( ( now = System.nanoTime() ) == nano ) {
+      try {
+        Thread.sleep( 0 );
+      } catch( InterruptedException e ) {
+        // Ignore it.
+      }
+    }
+    nano = now;
+  }
+
 }
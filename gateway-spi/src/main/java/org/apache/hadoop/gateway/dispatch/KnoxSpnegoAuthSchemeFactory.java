@@ -20,6 +20,7 @@ package org.apache.hadoop.gateway.dispatch;
 import org.apache.http.auth.AuthScheme;
 import org.apache.http.impl.auth.SPNegoSchemeFactory;
 import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
 
 public class KnoxSpnegoAuthSchemeFactory extends SPNegoSchemeFactory {
 
@@ -35,4 +36,9 @@ public class KnoxSpnegoAuthSchemeFactory extends SPNegoSchemeFactory {
     return new KnoxSpnegoAuthScheme( isStripPort() );
   }
 
+  @Override
+  public AuthScheme create( final HttpContext context ) {
+    return new KnoxSpnegoAuthScheme( isStripPort() );
+  }
+
 }
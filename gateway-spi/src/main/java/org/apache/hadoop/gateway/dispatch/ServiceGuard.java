@@ -0,0 +1,274 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.hadoop.gateway.SpiGatewayMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.services.GatewayServices;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Isolates the dispatches to one service of one topology from the rest of the gateway.
+ * <p>
+ * A bulkhead caps the number of requests in flight to the service, so a hung backend can only
+ * tie up that many gateway threads. Requests over the cap wait up to a configured time for a slot
+ * and are refused after that. An optional {@link CircuitBreaker} refuses requests outright while
+ * the service is failing or too slow.
+ * <p>
+ * Both are configured with parameters of the topology service, e.g.
+ * <pre>
+ * &lt;service&gt;
+ *   &lt;role&gt;OOZIE&lt;/role&gt;
+ *   &lt;url&gt;http://localhost:11000/oozie&lt;/url&gt;
+ *   &lt;param&gt;&lt;name&gt;dispatch.maxConcurrentRequests&lt;/name&gt;&lt;value&gt;50&lt;/value&gt;&lt;/param&gt;
+ *   &lt;param&gt;&lt;name&gt;dispatch.circuitBreaker.failureRateThreshold&lt;/name&gt;&lt;value&gt;50&lt;/value&gt;&lt;/param&gt;
+ * &lt;/service&gt;
+ * </pre>
+ * All dispatch filters of a service in a deployed topology share one guard. The guard is closed when the
+ * topology is undeployed, which runs the listeners added with {@link #addCloseListener(Runnable)},
+ * e.g. to unregister its metrics.
+ */
+public class ServiceGuard {
+
+  public static final String MAX_CONCURRENT_REQUESTS_PARAM = "dispatch.maxConcurrentRequests";
+  public static final String MAX_WAIT_PARAM = "dispatch.maxWait";
+  public static final String FAILURE_RATE_THRESHOLD_PARAM = "dispatch.circuitBreaker.failureRateThreshold";
+  public static final String LATENCY_THRESHOLD_PARAM = "dispatch.circuitBreaker.latencyThreshold";
+  public static final String LATENCY_PERCENTILE_PARAM = "dispatch.circuitBreaker.latencyPercentile";
+  public static final String WINDOW_SIZE_PARAM = "dispatch.circuitBreaker.windowSize";
+  public static final String OPEN_DURATION_PARAM = "dispatch.circuitBreaker.openDuration";
+
+  public static final String SERVICE_ROLE_PARAM = "serviceRole";
+
+  static final String GUARDS_ATTRIBUTE = "org.apache.hadoop.gateway.dispatch.guards";
+
+  private static final int DEFAULT_LATENCY_PERCENTILE = 99;
+  private static final int DEFAULT_WINDOW_SIZE = 20;
+  private static final int DEFAULT_OPEN_DURATION = 30000;
+
+  private static SpiGatewayMessages LOG = MessagesFactory.get( SpiGatewayMessages.class );
+
+  public enum Admission { ADMITTED, REJECTED, SHORT_CIRCUITED }
+
+  private final String topology;
+  private final String service;
+  private final int maxConcurrentRequests;
+  private final long maxWait;
+  private final Semaphore permits;
+  private final CircuitBreaker breaker;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong shortCircuited = new AtomicLong();
+  private final AtomicLong transitions = new AtomicLong();
+  private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+
+  public ServiceGuard( final String topology, final String service, int maxConcurrentRequests, long maxWait, CircuitBreaker breaker ) {
+    this.topology = topology;
+    this.service = service;
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    this.maxWait = maxWait;
+    this.permits = maxConcurrentRequests > 0 ? new Semaphore( maxConcurrentRequests, true ) : null;
+    this.breaker = breaker;
+    if( breaker != null ) {
+      breaker.setListener( new CircuitBreaker.Listener() {
+        @Override
+        public void stateChanged( CircuitBreaker.State from, CircuitBreaker.State to ) {
+          transitions.incrementAndGet();
+          LOG.circuitBreakerStateChanged( topology, service, from.name(), to.name() );
+        }
+      } );
+    }
+  }
+
+  /**
+   * Returns the guard shared by the dispatch filters of the configured service, creating it on first use.
+   *
+   * @return the guard or null if the service params configure neither a bulkhead nor a circuit breaker
+   */
+  public static ServiceGuard get( FilterConfig filterConfig ) {
+    int maxConcurrentRequests = getIntParam( filterConfig, MAX_CONCURRENT_REQUESTS_PARAM, 0 );
+    int failureRateThreshold = getIntParam( filterConfig, FAILURE_RATE_THRESHOLD_PARAM, 0 );
+    int latencyThreshold = getIntParam( filterConfig, LATENCY_THRESHOLD_PARAM, 0 );
+    if( maxConcurrentRequests <= 0 && failureRateThreshold <= 0 && latencyThreshold <= 0 ) {
+      return null;
+    }
+    ServletContext context = filterConfig.getServletContext();
+    String service = filterConfig.getInitParameter( SERVICE_ROLE_PARAM );
+    if( service == null ) {
+      service = filterConfig.getFilterName();
+    }
+    synchronized( context ) {
+      @SuppressWarnings("unchecked")
+      Map<String, ServiceGuard> guards = (Map<String, ServiceGuard>)context.getAttribute( GUARDS_ATTRIBUTE );
+      if( guards == null ) {
+        guards = new ConcurrentHashMap<>();
+        context.setAttribute( GUARDS_ATTRIBUTE, guards );
+      }
+      ServiceGuard guard = guards.get( service );
+      if( guard == null ) {
+        CircuitBreaker breaker = null;
+        if( failureRateThreshold > 0 || latencyThreshold > 0 ) {
+          breaker = new CircuitBreaker( failureRateThreshold, latencyThreshold,
+              getIntParam( filterConfig, LATENCY_PERCENTILE_PARAM, DEFAULT_LATENCY_PERCENTILE ),
+              getIntParam( filterConfig, WINDOW_SIZE_PARAM, DEFAULT_WINDOW_SIZE ),
+              getIntParam( filterConfig, OPEN_DURATION_PARAM, DEFAULT_OPEN_DURATION ) );
+        }
+        String topology = (String)context.getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE );
+        guard = new ServiceGuard( topology, service, maxConcurrentRequests,
+            getIntParam( filterConfig, MAX_WAIT_PARAM, 0 ), breaker );
+        guards.put( service, guard );
+      }
+      return guard;
+    }
+  }
+
+  private static int getIntParam( FilterConfig filterConfig, String name, int defaultValue ) {
+    String str = filterConfig.getInitParameter( name );
+    if( str != null ) {
+      try {
+        return Integer.parseInt( str.trim() );
+      } catch ( NumberFormatException e ) {
+        // Ignore it and use the default.
+      }
+    }
+    return defaultValue;
+  }
+
+  /**
+   * Asks to dispatch a request. An admitted request must be followed by a call to {@link #release()}
+   * and should report the outcome of its exchange with the backend with {@link #record(long, boolean)}.
+   */
+  public Admission acquire() {
+    if( permits != null && !tryAcquirePermit() ) {
+      rejected.incrementAndGet();
+      return Admission.REJECTED;
+    }
+    if( breaker != null && !breaker.allowRequest() ) {
+      if( permits != null ) {
+        permits.release();
+      }
+      shortCircuited.incrementAndGet();
+      return Admission.SHORT_CIRCUITED;
+    }
+    inFlight.incrementAndGet();
+    return Admission.ADMITTED;
+  }
+
+  private boolean tryAcquirePermit() {
+    if( permits.tryAcquire() ) {
+      return true;
+    }
+    if( maxWait <= 0 ) {
+      return false;
+    }
+    try {
+      return permits.tryAcquire( maxWait, TimeUnit.MILLISECONDS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Reports the outcome of an admitted request to the circuit breaker.
+   *
+   * @param elapsed time in milliseconds until the backend answered with the response headers
+   * @param failed  true if the request failed or the backend answered with a server error
+   */
+  public void record( long elapsed, boolean failed ) {
+    if( breaker != null ) {
+      breaker.record( elapsed, failed );
+    }
+  }
+
+  /**
+   * Completes an admitted request, once its response has been streamed back, giving back its bulkhead slot.
+   */
+  public void release() {
+    inFlight.decrementAndGet();
+    if( permits != null ) {
+      permits.release();
+    }
+  }
+
+  /**
+   * @return seconds a client should wait before retrying a refused request
+   */
+  public long getRetryAfter() {
+    long remaining = breaker != null ? breaker.getRemainingOpenTime() : 0;
+    return Math.max( TimeUnit.MILLISECONDS.toSeconds( remaining + 999 ), 1 );
+  }
+
+  public String getTopology() {
+    return topology;
+  }
+
+  public String getService() {
+    return service;
+  }
+
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  public long getShortCircuited() {
+    return shortCircuited.get();
+  }
+
+  public long getStateTransitions() {
+    return transitions.get();
+  }
+
+  /**
+   * @return the circuit breaker state, {@link CircuitBreaker.State#CLOSED} when no breaker is configured
+   */
+  public CircuitBreaker.State getState() {
+    return breaker != null ? breaker.getState() : CircuitBreaker.State.CLOSED;
+  }
+
+  public void addCloseListener( Runnable listener ) {
+    closeListeners.add( listener );
+  }
+
+  public void close() {
+    for( Runnable listener : closeListeners ) {
+      listener.run();
+    }
+    closeListeners.clear();
+  }
+
+}
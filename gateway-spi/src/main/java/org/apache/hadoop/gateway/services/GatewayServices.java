@@ -38,6 +38,7 @@ public interface GatewayServices extends Service, ProviderDeploymentContributor
   public static final String TOPOLOGY_SERVICE = "TopologyService";
   public static final String SERVICE_DEFINITION_REGISTRY = "ServiceDefinitionRegistry";
   public static final String METRICS_SERVICE = "MetricsService";
+  public static final String TRACE_SERVICE = "TraceService";
 
   public abstract Collection<String> getServiceNames();
 
@@ -19,6 +19,11 @@ package org.apache.hadoop.gateway.services.metrics;
 
 public interface MetricsContext {
 
+  /**
+   * The property holding the {@code com.codahale.metrics.MetricRegistry} instrumentation providers register with.
+   */
+  String METRICS_REGISTRY = "metrics-registry";
+
   MetricsService getMetricsService();
 
   void setProperty(String name, Object value);
@@ -31,4 +31,8 @@ public interface ServiceRegistry {
   
   void removeClusterServices(String clusterName);
 
+  void addServiceRegistryListener( ServiceRegistryListener listener );
+
+  void removeServiceRegistryListener( ServiceRegistryListener listener );
+
 }
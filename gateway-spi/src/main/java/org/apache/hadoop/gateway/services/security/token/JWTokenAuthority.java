@@ -25,6 +25,8 @@ import javax.security.auth.Subject;
 import org.apache.hadoop.gateway.services.security.token.impl.JWT;
 import org.apache.hadoop.gateway.services.security.token.impl.JWTToken;
 
+import com.nimbusds.jose.jwk.JWKSet;
+
 public interface JWTokenAuthority {
 
   JWTToken issueToken(Subject subject, String algorithm)
@@ -45,4 +47,10 @@ public interface JWTokenAuthority {
 
   JWTToken issueToken(Principal p, List<String> audience, String algorithm,
       long expires) throws TokenServiceException;
-}
\ No newline at end of file
+
+  /**
+   * @return the public keys tokens may be verified with, each named by the kid
+   * that tokens signed with it carry
+   */
+  JWKSet getJWKSet() throws TokenServiceException;
+}
@@ -62,7 +62,15 @@ public class JWTToken implements JWT {
   }
 
   public JWTToken(String alg, String[] claimsArray, List<String> audiences) {
-    JWSHeader header = new JWSHeader(new JWSAlgorithm(alg));
+    this(alg, claimsArray, audiences, null);
+  }
+
+  /**
+   * Creates an unsigned token whose header names the signing key with a kid so that
+   * verifiers holding several keys can select the right one.
+   */
+  public JWTToken(String alg, String[] claimsArray, List<String> audiences, String keyId) {
+    JWSHeader header = new JWSHeader.Builder(new JWSAlgorithm(alg)).keyID(keyId).build();
 
     if (claimsArray[2] != null) {
       if (audiences == null) {
@@ -93,6 +101,13 @@ public class JWTToken implements JWT {
     return header.toString();
   }
 
+  /**
+   * @return the kid header naming the key the token was signed with, or null
+   */
+  public String getKeyId() {
+    return jwt.getHeader().getKeyID();
+  }
+
   /* (non-Javadoc)
    * @see org.apache.hadoop.gateway.services.security.token.impl.JWT#getPayloadToSign()
    */
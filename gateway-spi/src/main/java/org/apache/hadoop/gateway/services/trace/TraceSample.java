@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.trace;
+
+import java.util.List;
+
+/**
+ * A request and response captured by the {@link TraceService}. Bodies are truncated to a
+ * configured limit and the values of credential headers are masked.
+ */
+public class TraceSample {
+
+  private final long timestamp;
+  private final String requestId;
+  private final String method;
+  private final String uri;
+  private final List<String> requestHeaders;
+  private final String requestBody;
+  private final int status;
+  private final List<String> responseHeaders;
+  private final String responseBody;
+  private final long duration;
+
+  public TraceSample( long timestamp, String requestId, String method, String uri,
+                      List<String> requestHeaders, String requestBody,
+                      int status, List<String> responseHeaders, String responseBody, long duration ) {
+    this.timestamp = timestamp;
+    this.requestId = requestId;
+    this.method = method;
+    this.uri = uri;
+    this.requestHeaders = requestHeaders;
+    this.requestBody = requestBody;
+    this.status = status;
+    this.responseHeaders = responseHeaders;
+    this.responseBody = responseBody;
+    this.duration = duration;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public String getRequestId() {
+    return requestId;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public String getUri() {
+    return uri;
+  }
+
+  /**
+   * @return The request headers formatted as "name: value".
+   */
+  public List<String> getRequestHeaders() {
+    return requestHeaders;
+  }
+
+  public String getRequestBody() {
+    return requestBody;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  /**
+   * @return The response headers formatted as "name: value".
+   */
+  public List<String> getResponseHeaders() {
+    return responseHeaders;
+  }
+
+  public String getResponseBody() {
+    return responseBody;
+  }
+
+  /**
+   * @return The time taken to handle the request in milliseconds.
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+}
@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.trace;
+
+import org.apache.hadoop.gateway.services.Service;
+
+import java.util.List;
+
+/**
+ * Keeps a bounded history of sampled requests for diagnostics.
+ */
+public interface TraceService extends Service {
+
+  /**
+   * Returns the requests captured so far, oldest first. Only the most recent
+   * samples are kept.
+   */
+  List<TraceSample> getSamples();
+
+  /**
+   * @param path The path of the request.
+   * @return True if the request should be captured.
+   */
+  boolean isSampled( String path );
+
+  /**
+   * @return The number of leading body bytes to capture.
+   */
+  int getBodyLimit();
+
+  void addSample( TraceSample sample );
+
+}
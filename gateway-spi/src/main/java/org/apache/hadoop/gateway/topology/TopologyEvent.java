@@ -17,18 +17,30 @@
  */
 package org.apache.hadoop.gateway.topology;
 
+import java.util.Collection;
+
 public class TopologyEvent {
 
   public enum Type { CREATED, UPDATED, DELETED }
 
   private Type type;
   private Topology topology;
+  private Collection<Service> changedServices;
 
   public TopologyEvent( Type type, Topology topology ) {
     this.type = type;
     this.topology = topology;
   }
 
+  /**
+   * Creates an UPDATED event for a topology that differs from its previous version
+   * only in the URLs of the given services.
+   */
+  public TopologyEvent( Topology topology, Collection<Service> changedServices ) {
+    this( Type.UPDATED, topology );
+    this.changedServices = changedServices;
+  }
+
   public Type getType() {
     return type;
   }
@@ -37,4 +49,14 @@ public class TopologyEvent {
     return topology;
   }
 
+  /**
+   * Returns the services whose URLs are the only change to an updated topology.
+   * The deployment of the topology can then be kept and pointed at the new URLs.
+   *
+   * @return the changed services or null if the topology needs to be deployed again
+   */
+  public Collection<Service> getChangedServices() {
+    return changedServices;
+  }
+
 }
@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.hadoop.test.category.FastTests;
+import org.apache.hadoop.test.category.UnitTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@Category( { UnitTests.class, FastTests.class } )
+public class CircuitBreakerTest {
+
+  private static class TestCircuitBreaker extends CircuitBreaker {
+    long time = 1000;
+
+    TestCircuitBreaker( int failureRateThreshold, long latencyThreshold, int latencyPercentile, int windowSize, long openDuration ) {
+      super( failureRateThreshold, latencyThreshold, latencyPercentile, windowSize, openDuration );
+    }
+
+    @Override
+    long now() {
+      return time;
+    }
+  }
+
+  @Test
+  public void testOpensOnFailureRate() {
+    TestCircuitBreaker breaker = new TestCircuitBreaker( 50, 0, 99, 4, 5000 );
+    record( breaker, 10, false );
+    record( breaker, 10, true );
+    record( breaker, 10, false );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.CLOSED ) );
+    record( breaker, 10, true );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.OPEN ) );
+    assertThat( breaker.allowRequest(), is( false ) );
+    assertThat( breaker.getRemainingOpenTime(), is( 5000L ) );
+  }
+
+  @Test
+  public void testOpensOnLatencyPercentile() {
+    TestCircuitBreaker breaker = new TestCircuitBreaker( 0, 100, 90, 10, 5000 );
+    for( int i = 0; i < 9; i++ ) {
+      record( breaker, 50, false );
+    }
+    record( breaker, 500, false );
+    // 10% slow calls keep the 90th percentile at the threshold
+    assertThat( breaker.getState(), is( CircuitBreaker.State.CLOSED ) );
+    record( breaker, 500, false );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.OPEN ) );
+  }
+
+  @Test
+  public void testHalfOpenProbe() {
+    TestCircuitBreaker breaker = new TestCircuitBreaker( 50, 0, 99, 2, 5000 );
+    record( breaker, 10, true );
+    record( breaker, 10, true );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.OPEN ) );
+
+    breaker.time += 5000;
+    assertThat( breaker.allowRequest(), is( true ) );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.HALF_OPEN ) );
+    // only one probe at a time
+    assertThat( breaker.allowRequest(), is( false ) );
+    breaker.record( 10, true );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.OPEN ) );
+
+    breaker.time += 5000;
+    assertThat( breaker.allowRequest(), is( true ) );
+    breaker.record( 10, false );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.CLOSED ) );
+    assertThat( breaker.allowRequest(), is( true ) );
+  }
+
+  private static void record( CircuitBreaker breaker, long elapsed, boolean failed ) {
+    assertThat( breaker.allowRequest(), is( true ) );
+    breaker.record( elapsed, failed );
+  }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.hadoop.test.mock.MockServer;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScheme;
+import org.apache.http.auth.AuthSchemeProvider;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.Credentials;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.AuthSchemes;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class HadoopAuthCacheTest {
+
+  private static final String NEGOTIATE = "Negotiate dG9rZW4=";
+
+  private MockServer backend;
+  private HadoopAuthCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    backend = new MockServer( "backend", true );
+    cache = new HadoopAuthCache();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    backend.stop();
+  }
+
+  @Test
+  public void testCookiesAndNegotiationAreSharedByClients() throws Exception {
+    // The first request learns that the backend requires SPNEGO, but the cookie it gets has expired.
+    backend.expect().method( "GET" ).header( "Authorization", nullValue() )
+        .respond().status( HttpStatus.SC_UNAUTHORIZED ).header( "WWW-Authenticate", "Negotiate" );
+    backend.expect().method( "GET" ).header( "Authorization", is( NEGOTIATE ) )
+        .respond().status( HttpStatus.SC_OK ).header( "Set-Cookie", hadoopAuthCookie( System.currentTimeMillis() - 1000 ) );
+    // Another client authenticates without waiting for a challenge.
+    backend.expect().method( "GET" ).header( "Authorization", is( NEGOTIATE ) )
+        .respond().status( HttpStatus.SC_OK ).header( "Set-Cookie", hadoopAuthCookie( System.currentTimeMillis() + 60000 ) );
+    // And the cookie it got is used by the first client.
+    backend.expect().method( "GET" ).header( "Authorization", nullValue() ).header( "Cookie", containsString( "hadoop.auth=" ) )
+        .respond().status( HttpStatus.SC_OK );
+
+    CloseableHttpClient first = createClient();
+    CloseableHttpClient second = createClient();
+    try {
+      assertThat( get( first ), is( HttpStatus.SC_OK ) );
+      assertThat( get( second ), is( HttpStatus.SC_OK ) );
+      assertThat( get( first ), is( HttpStatus.SC_OK ) );
+    } finally {
+      first.close();
+      second.close();
+    }
+    assertThat( backend.isEmpty(), is( true ) );
+  }
+
+  private int get( CloseableHttpClient client ) throws Exception {
+    HttpResponse response = client.execute( new HttpGet( "http://localhost:" + backend.getPort() + "/webhdfs/v1/?op=LISTSTATUS&doAs=guest" ) );
+    EntityUtils.consume( response.getEntity() );
+    return response.getStatusLine().getStatusCode();
+  }
+
+  private static String hadoopAuthCookie( long expires ) {
+    return "hadoop.auth=\"u=knox&p=knox/localhost@EXAMPLE.COM&t=kerberos&e=" + expires + "&s=c2lnbmF0dXJl\"; Path=/; HttpOnly";
+  }
+
+  private CloseableHttpClient createClient() {
+    // Generates a fixed token instead of a Kerberos one.
+    Registry<AuthSchemeProvider> authSchemeRegistry = RegistryBuilder.<AuthSchemeProvider>create()
+        .register( AuthSchemes.SPNEGO, new AuthSchemeProvider() {
+          @Override
+          public AuthScheme create( HttpContext context ) {
+            return new KnoxSpnegoAuthScheme( true ) {
+              @Override
+              protected byte[] generateToken( byte[] input, String authServer, Credentials credentials ) {
+                return "token".getBytes( StandardCharsets.US_ASCII );
+              }
+            };
+          }
+        } ).build();
+    CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+    credentialsProvider.setCredentials( AuthScope.ANY, new UsernamePasswordCredentials( "knox", null ) );
+    return HttpClients.custom()
+        .setDefaultAuthSchemeRegistry( authSchemeRegistry )
+        .setDefaultCookieStore( new HadoopAuthCookieStore() )
+        .setDefaultCredentialsProvider( credentialsProvider )
+        .addInterceptorFirst( cache.getRequestInterceptor() )
+        .addInterceptorLast( cache.getResponseInterceptor() )
+        .build();
+  }
+
+}
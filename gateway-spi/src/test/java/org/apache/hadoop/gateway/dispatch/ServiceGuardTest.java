@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.hadoop.gateway.services.GatewayServices;
+import org.apache.hadoop.test.category.FastTests;
+import org.apache.hadoop.test.category.UnitTests;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+@Category( { UnitTests.class, FastTests.class } )
+public class ServiceGuardTest {
+
+  @Test
+  public void testBulkhead() {
+    ServiceGuard guard = new ServiceGuard( "sandbox", "OOZIE", 2, 0, null );
+    assertThat( guard.acquire(), is( ServiceGuard.Admission.ADMITTED ) );
+    assertThat( guard.acquire(), is( ServiceGuard.Admission.ADMITTED ) );
+    assertThat( guard.getInFlight(), is( 2 ) );
+    assertThat( guard.acquire(), is( ServiceGuard.Admission.REJECTED ) );
+    assertThat( guard.getRejected(), is( 1L ) );
+    guard.release();
+    assertThat( guard.acquire(), is( ServiceGuard.Admission.ADMITTED ) );
+  }
+
+  @Test
+  public void testCircuitBreaker() {
+    ServiceGuard guard = new ServiceGuard( "sandbox", "OOZIE", 1, 0, new CircuitBreaker( 100, 0, 99, 1, 60000 ) );
+    assertThat( guard.acquire(), is( ServiceGuard.Admission.ADMITTED ) );
+    guard.record( 10, true );
+    guard.release();
+    assertThat( guard.getState(), is( CircuitBreaker.State.OPEN ) );
+    assertThat( guard.getStateTransitions(), is( 1L ) );
+    assertThat( guard.acquire(), is( ServiceGuard.Admission.SHORT_CIRCUITED ) );
+    assertThat( guard.getShortCircuited(), is( 1L ) );
+    assertThat( guard.getInFlight(), is( 0 ) );
+    assertThat( guard.getRetryAfter(), is( 60L ) );
+  }
+
+  @Test
+  public void testGuardSharedPerService() {
+    ServletContext context = EasyMock.createNiceMock( ServletContext.class );
+    final Map<String, Object> attributes = new HashMap<>();
+    attributes.put( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE, "sandbox" );
+    EasyMock.expect( context.getAttribute( EasyMock.<String>anyObject() ) ).andAnswer( new IAnswer<Object>() {
+      @Override
+      public Object answer() throws Throwable {
+        return attributes.get( (String)EasyMock.getCurrentArguments()[0] );
+      }
+    } ).anyTimes();
+    context.setAttribute( EasyMock.<String>anyObject(), EasyMock.anyObject() );
+    EasyMock.expectLastCall().andAnswer( new IAnswer<Object>() {
+      @Override
+      public Object answer() throws Throwable {
+        attributes.put( (String)EasyMock.getCurrentArguments()[0], EasyMock.getCurrentArguments()[1] );
+        return null;
+      }
+    } ).anyTimes();
+    EasyMock.replay( context );
+
+    ServiceGuard first = ServiceGuard.get( filterConfig( context, "OOZIE", "10" ) );
+    ServiceGuard second = ServiceGuard.get( filterConfig( context, "OOZIE", "10" ) );
+    ServiceGuard other = ServiceGuard.get( filterConfig( context, "HBASE", "10" ) );
+    assertThat( second, sameInstance( first ) );
+    assertThat( other.getService(), is( "HBASE" ) );
+    assertThat( first.getTopology(), is( "sandbox" ) );
+    assertThat( first.getMaxConcurrentRequests(), is( 10 ) );
+    assertThat( ServiceGuard.get( filterConfig( context, "WEBHDFS", null ) ), nullValue() );
+  }
+
+  @Test
+  public void testRefusedDispatchIsServiceUnavailable() throws Exception {
+    HttpClient client = EasyMock.createMock( HttpClient.class );
+    HttpServletResponse outboundResponse = EasyMock.createMock( HttpServletResponse.class );
+    outboundResponse.setStatus( 503 );
+    outboundResponse.addHeader( "Retry-After", "1" );
+    EasyMock.replay( client, outboundResponse );
+    DefaultDispatch dispatch = new DefaultDispatch();
+    dispatch.setHttpClient( client );
+    ServiceGuard guard = new ServiceGuard( "sandbox", "OOZIE", 1, 0, null );
+    dispatch.setServiceGuard( guard );
+    assertThat( guard.acquire(), is( ServiceGuard.Admission.ADMITTED ) );
+
+    dispatch.executeRequest( new HttpGet( "http://localhost:11000/oozie" ),
+        EasyMock.createNiceMock( HttpServletRequest.class ), outboundResponse );
+    EasyMock.verify( client, outboundResponse );
+  }
+
+  @Test
+  public void testBreakerIgnoresResponseStreaming() throws Exception {
+    final ServiceGuard guard = new ServiceGuard( "sandbox", "WEBHDFS", 1, 0, new CircuitBreaker( 100, 0, 99, 1, 60000 ) );
+    final AtomicInteger inFlightWhileStreaming = new AtomicInteger( -1 );
+    BasicHttpEntity entity = new BasicHttpEntity();
+    entity.setContent( new InputStream() {
+      @Override
+      public int read() throws IOException {
+        inFlightWhileStreaming.set( guard.getInFlight() );
+        throw new IOException( "connection reset" );
+      }
+    } );
+    BasicHttpResponse inboundResponse = new BasicHttpResponse( HttpVersion.HTTP_1_1, 200, "OK" );
+    inboundResponse.setEntity( entity );
+    HttpClient client = EasyMock.createNiceMock( HttpClient.class );
+    EasyMock.expect( client.execute( EasyMock.<HttpUriRequest>anyObject() ) ).andReturn( inboundResponse ).once();
+    EasyMock.replay( client );
+    DefaultDispatch dispatch = new DefaultDispatch();
+    dispatch.setHttpClient( client );
+    dispatch.setServiceGuard( guard );
+
+    try {
+      dispatch.executeRequest( new HttpGet( "http://localhost:50070/webhdfs/v1/big" ),
+          EasyMock.createNiceMock( HttpServletRequest.class ), EasyMock.createNiceMock( HttpServletResponse.class ) );
+      fail( "Should have thrown IOException" );
+    } catch ( IOException e ) {
+      // expected
+    }
+    // the bulkhead slot is held while streaming, but the backend answered fine as far as the breaker is concerned
+    assertThat( inFlightWhileStreaming.get(), is( 1 ) );
+    assertThat( guard.getInFlight(), is( 0 ) );
+    assertThat( guard.getState(), is( CircuitBreaker.State.CLOSED ) );
+  }
+
+  @Test
+  public void testServerErrorOpensBreaker() throws Exception {
+    ServiceGuard guard = new ServiceGuard( "sandbox", "WEBHDFS", 1, 0, new CircuitBreaker( 100, 0, 99, 1, 60000 ) );
+    HttpClient client = EasyMock.createNiceMock( HttpClient.class );
+    EasyMock.expect( client.execute( EasyMock.<HttpUriRequest>anyObject() ) )
+        .andReturn( new BasicHttpResponse( HttpVersion.HTTP_1_1, 500, "Internal Server Error" ) ).once();
+    EasyMock.replay( client );
+    DefaultDispatch dispatch = new DefaultDispatch();
+    dispatch.setHttpClient( client );
+    dispatch.setServiceGuard( guard );
+
+    dispatch.executeRequest( new HttpGet( "http://localhost:50070/webhdfs/v1/tmp" ),
+        EasyMock.createNiceMock( HttpServletRequest.class ), EasyMock.createNiceMock( HttpServletResponse.class ) );
+    assertThat( guard.getInFlight(), is( 0 ) );
+    assertThat( guard.getState(), is( CircuitBreaker.State.OPEN ) );
+  }
+
+  @Test
+  public void testCloseRunsListenersOnce() {
+    ServiceGuard guard = new ServiceGuard( "sandbox", "OOZIE", 1, 0, null );
+    final AtomicInteger closed = new AtomicInteger();
+    guard.addCloseListener( new Runnable() {
+      @Override
+      public void run() {
+        closed.incrementAndGet();
+      }
+    } );
+    guard.close();
+    guard.close();
+    assertThat( closed.get(), is( 1 ) );
+  }
+
+  private static FilterConfig filterConfig( ServletContext context, String role, String maxConcurrentRequests ) {
+    FilterConfig config = EasyMock.createNiceMock( FilterConfig.class );
+    EasyMock.expect( config.getServletContext() ).andReturn( context ).anyTimes();
+    EasyMock.expect( config.getInitParameter( ServiceGuard.SERVICE_ROLE_PARAM ) ).andReturn( role ).anyTimes();
+    EasyMock.expect( config.getInitParameter( ServiceGuard.MAX_CONCURRENT_REQUESTS_PARAM ) ).andReturn( maxConcurrentRequests ).anyTimes();
+    EasyMock.replay( config );
+    return config;
+  }
+
+}
@@ -25,6 +25,7 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class GatewayTestConfig extends Configuration implements GatewayConfig {
 
@@ -356,6 +357,11 @@ public class GatewayTestConfig extends Configuration implements GatewayConfig {
     return null;
   }
 
+  @Override
+  public List<String> getSigningKeyPreviousAliases() {
+    return Collections.emptyList();
+  }
+
   @Override
   public List<String> getGlobalRulesServices() {
     return Collections.EMPTY_LIST;
@@ -462,4 +468,89 @@ public class GatewayTestConfig extends Configuration implements GatewayConfig {
   public int getGraphiteReportingFrequency() {
     return 0;
   }
+
+  @Override
+  public boolean isPrometheusMetricsReportingEnabled() {
+    return false;
+  }
+
+  @Override
+  public String getPrometheusHost() {
+    return null;
+  }
+
+  @Override
+  public int getPrometheusPort() {
+    return 0;
+  }
+
+  @Override
+  public int getGatewayDeploymentThreads() {
+    return 1;
+  }
+
+  @Override
+  public long getGatewayDeploymentDrainTimeout() {
+    return 0;
+  }
+
+  @Override
+  public boolean isInMemoryDeploymentEnabled() {
+    return false;
+  }
+
+  @Override
+  public boolean isTopologyMonitorPollingEnabled() {
+    return false;
+  }
+
+  @Override
+  public Map<String, String> getTopologyVirtualHosts() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public int getTraceSampleRate() {
+    return 0;
+  }
+
+  @Override
+  public List<String> getTraceSamplePaths() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public int getTraceSampleBufferSize() {
+    return 100;
+  }
+
+  @Override
+  public int getTraceSampleBodyLimit() {
+    return 1024;
+  }
+
+  @Override
+  public int getAuditQueueSize() {
+    return 0;
+  }
+
+  @Override
+  public String getAuditOverflowPolicy() {
+    return "block";
+  }
+
+  @Override
+  public boolean isAuditCoalescingEnabled() {
+    return false;
+  }
+
+  @Override
+  public String getCorrelationIdGenerator() {
+    return null;
+  }
+
+  @Override
+  public boolean isCorrelationHeadersEnabled() {
+    return true;
+  }
 }
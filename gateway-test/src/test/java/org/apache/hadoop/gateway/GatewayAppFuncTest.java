@@ -18,6 +18,7 @@
 package org.apache.hadoop.gateway;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -517,7 +518,7 @@ public class GatewayAppFuncTest {
           .when().get( clusterUrl + "/dynamic-app-path" );
 
       TestUtils.waitUntilNextSecond();
-      FileUtils.touch( topoFile );
+      forceRedeploy( topoFile );
 
       topos.reloadTopologies();
       String[] topoDirs2 = deployDir.list();
@@ -534,7 +535,7 @@ public class GatewayAppFuncTest {
           .when().get( clusterUrl + "/dynamic-app-path" );
 
       TestUtils.waitUntilNextSecond();
-      FileUtils.touch( topoFile );
+      forceRedeploy( topoFile );
       topos.reloadTopologies();
 
       String[] topoDirs3 = deployDir.list();
@@ -559,6 +560,12 @@ public class GatewayAppFuncTest {
     LOG_EXIT();
   }
 
+  // A touched topology whose content is unchanged is only deployed again when a redeploy marker asks for it.
+  private static void forceRedeploy( File topoFile ) throws IOException {
+    FileUtils.touch( new File( topoFile.getPath() + ".redeploy" ) );
+    FileUtils.touch( topoFile );
+  }
+
   @Test( timeout = TestUtils.MEDIUM_TIMEOUT )
   public void testDefaultTopology() throws Exception {
     LOG_ENTER();
@@ -23,7 +23,9 @@ import org.apache.hadoop.gateway.config.GatewayConfig;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class GatewayTestConfig extends Configuration implements GatewayConfig {
 
@@ -407,6 +409,11 @@ public class GatewayTestConfig extends Configuration implements GatewayConfig {
     return null;
   }
 
+  @Override
+  public List<String> getSigningKeyPreviousAliases() {
+    return Collections.emptyList();
+  }
+
   @Override
   public List<String> getGlobalRulesServices() {
     ArrayList<String> services = new ArrayList<>();
@@ -513,6 +520,21 @@ public class GatewayTestConfig extends Configuration implements GatewayConfig {
     return 0;
   }
 
+  @Override
+  public boolean isPrometheusMetricsReportingEnabled() {
+    return false;
+  }
+
+  @Override
+  public String getPrometheusHost() {
+    return null;
+  }
+
+  @Override
+  public int getPrometheusPort() {
+    return 0;
+  }
+
   /* (non-Javadoc)
    * @see org.apache.hadoop.gateway.config.GatewayConfig#getMimeTypesToCompress()
    */
@@ -520,4 +542,74 @@ public class GatewayTestConfig extends Configuration implements GatewayConfig {
   public List<String> getMimeTypesToCompress() {
     return new ArrayList<String>();
   }
+
+  @Override
+  public int getGatewayDeploymentThreads() {
+    return 1;
+  }
+
+  @Override
+  public long getGatewayDeploymentDrainTimeout() {
+    return 0;
+  }
+
+  @Override
+  public boolean isInMemoryDeploymentEnabled() {
+    return false;
+  }
+
+  @Override
+  public boolean isTopologyMonitorPollingEnabled() {
+    return false;
+  }
+
+  @Override
+  public Map<String, String> getTopologyVirtualHosts() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public int getTraceSampleRate() {
+    return 0;
+  }
+
+  @Override
+  public List<String> getTraceSamplePaths() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public int getTraceSampleBufferSize() {
+    return 100;
+  }
+
+  @Override
+  public int getTraceSampleBodyLimit() {
+    return 1024;
+  }
+
+  @Override
+  public int getAuditQueueSize() {
+    return 0;
+  }
+
+  @Override
+  public String getAuditOverflowPolicy() {
+    return "block";
+  }
+
+  @Override
+  public boolean isAuditCoalescingEnabled() {
+    return false;
+  }
+
+  @Override
+  public String getCorrelationIdGenerator() {
+    return null;
+  }
+
+  @Override
+  public boolean isCorrelationHeadersEnabled() {
+    return true;
+  }
 }
@@ -18,6 +18,7 @@
 package org.apache.hadoop.gateway.audit.api;
 
 import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationService;
+import org.apache.hadoop.gateway.audit.log4j.correlation.TimeOrderedIdGenerator;
 
 
 public abstract class CorrelationServiceFactory {
@@ -25,6 +26,9 @@ public abstract class CorrelationServiceFactory {
   // The global correlation service instance.
   private static CorrelationService correlationService = null;
 
+  // The global request id generator.
+  private static volatile CorrelationIdGenerator idGenerator = new TimeOrderedIdGenerator();
+
   // To prevent instantiation.
   private CorrelationServiceFactory() {
   }
@@ -41,4 +45,20 @@ public abstract class CorrelationServiceFactory {
     return correlationService;
   }
 
+  /**
+   * Provides access to the generator used for new request ids.
+   * @return The request id generator.  Will not be null.
+   */
+  public static CorrelationIdGenerator getIdGenerator() {
+    return idGenerator;
+  }
+
+  /**
+   * Replaces the generator used for new request ids.
+   * @param generator The request id generator.  Null restores the default generator.
+   */
+  public static void setIdGenerator( CorrelationIdGenerator generator ) {
+    idGenerator = generator == null ? new TimeOrderedIdGenerator() : generator;
+  }
+
 }
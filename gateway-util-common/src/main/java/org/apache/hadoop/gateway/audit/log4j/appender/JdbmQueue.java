@@ -112,6 +112,10 @@ public class JdbmQueue<E> {
     return committed;
   }
 
+  public synchronized long size() throws IOException {
+    return getStat().size();
+  }
+
   public synchronized void stop() {
     open = false;
     notifyAll();
@@ -0,0 +1,285 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.audit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.hadoop.gateway.audit.log4j.appender.JdbmQueue;
+import org.apache.log4j.Logger;
+import org.apache.log4j.helpers.LogLog;
+
+/**
+ * Hands audit records from request threads to a single consumer thread that formats
+ * and writes them through the configured log4j appenders.
+ * <p>
+ * Producers claim a slot in a bounded ring with a compare-and-set on the tail and
+ * publish the record into it; no lock is taken on the request path.  The consumer
+ * drains the ring in batches and parks when it is empty.  A single consumer is used
+ * so that records reach the appenders in the order they were captured.
+ * <p>
+ * When the ring is full the {@link OverflowPolicy} decides whether the producer
+ * waits, the record is dropped and counted, or the record is spilled to a disk
+ * backed queue that the consumer replays once the ring has been drained.
+ */
+public class AuditDispatcher {
+
+  public enum OverflowPolicy {
+    BLOCK, DROP, SPILL;
+
+    public static OverflowPolicy parse( String value ) {
+      if ( value == null || value.trim().isEmpty() ) {
+        return BLOCK;
+      }
+      return valueOf( value.trim().toUpperCase( Locale.ROOT ) );
+    }
+  }
+
+  private static final int BATCH_SIZE = 256;
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos( 10 );
+  private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 50 );
+  private static final long DROP_REPORT_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis( 1 );
+  private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis( 30 );
+
+  private final AtomicReferenceArray<AuditRecord> ring;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private volatile long head;
+
+  private final OverflowPolicy policy;
+  private final JdbmQueue<AuditRecord> spill;
+  private final AtomicLong spilled = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private long reportedDropped;
+  private long lastDropReport;
+
+  private final Thread consumer;
+  private volatile boolean running = true;
+
+  /**
+   * @param capacity the ring size, rounded up to the next power of two
+   * @param policy what to do with a record when the ring is full
+   * @param spillFile base name of the disk queue; only used by {@link OverflowPolicy#SPILL}
+   */
+  public AuditDispatcher( int capacity, OverflowPolicy policy, File spillFile ) throws IOException {
+    if ( capacity < 1 ) {
+      throw new IllegalArgumentException( "capacity: " + capacity );
+    }
+    int size = Integer.highestOneBit( capacity );
+    if ( size < capacity ) {
+      size <<= 1;
+    }
+    this.ring = new AtomicReferenceArray<AuditRecord>( size );
+    this.mask = size - 1;
+    this.policy = policy == null ? OverflowPolicy.BLOCK : policy;
+    if ( this.policy == OverflowPolicy.SPILL ) {
+      if ( spillFile == null ) {
+        throw new IllegalArgumentException( "spillFile" );
+      }
+      spill = new JdbmQueue<AuditRecord>( spillFile );
+      // Records left over from a previous run are replayed first.
+      spilled.set( spill.size() );
+    } else {
+      spill = null;
+    }
+    consumer = new Thread( new Consumer(), "audit-dispatcher" );
+    consumer.setDaemon( true );
+    consumer.start();
+  }
+
+  /**
+   * Queues a record for the consumer.  Only blocks when the ring is full and the
+   * policy is {@link OverflowPolicy#BLOCK}.
+   */
+  public void dispatch( AuditRecord record ) {
+    if ( !running ) {
+      write( record );
+      return;
+    }
+    // Once records have been spilled, keep spilling until the consumer catches up
+    // so that newer records are not written ahead of older spilled ones.
+    if ( spill != null && spilled.get() > 0 ) {
+      spill( record );
+      return;
+    }
+    if ( offer( record ) ) {
+      return;
+    }
+    switch ( policy ) {
+      case DROP:
+        dropped.incrementAndGet();
+        break;
+      case SPILL:
+        spill( record );
+        break;
+      default:
+        while ( !offer( record ) ) {
+          if ( !running ) {
+            write( record );
+            return;
+          }
+          LockSupport.unpark( consumer );
+          LockSupport.parkNanos( FULL_PARK_NANOS );
+        }
+    }
+  }
+
+  /**
+   * @return the number of records discarded because the ring was full or the spill
+   * queue could not be written
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * @return the number of records queued but not yet handed to the appenders
+   */
+  public long getPendingCount() {
+    return ( tail.get() - head ) + spilled.get();
+  }
+
+  /**
+   * Stops accepting records, drains everything already queued and waits for the
+   * consumer thread to finish.  Records dispatched after this call are written
+   * synchronously by the calling thread.
+   */
+  public void stop() {
+    running = false;
+    LockSupport.unpark( consumer );
+    try {
+      consumer.join( STOP_TIMEOUT_MILLIS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    if ( spill != null ) {
+      try {
+        spill.close();
+      } catch ( IOException e ) {
+        LogLog.error( "Failed to close audit spill queue", e );
+      }
+    }
+    reportDropped( true );
+  }
+
+  private boolean offer( AuditRecord record ) {
+    long t;
+    do {
+      t = tail.get();
+      if ( t - head > mask ) {
+        return false;
+      }
+    } while ( !tail.compareAndSet( t, t + 1 ) );
+    ring.lazySet( (int)t & mask, record );
+    return true;
+  }
+
+  private void spill( AuditRecord record ) {
+    try {
+      spill.enqueue( record );
+      spilled.incrementAndGet();
+    } catch ( IOException e ) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  // Only called by the consumer thread.
+  private int drainRing() {
+    int count = 0;
+    long h = head;
+    while ( count < BATCH_SIZE && h < tail.get() ) {
+      int index = (int)h & mask;
+      AuditRecord record = ring.get( index );
+      if ( record == null ) {
+        // The slot was claimed but the producer has not published into it yet.
+        break;
+      }
+      ring.lazySet( index, null );
+      h++;
+      head = h;
+      write( record );
+      count++;
+    }
+    return count;
+  }
+
+  // Only called by the consumer thread.
+  private int drainSpill() {
+    int count = 0;
+    while ( count < BATCH_SIZE && spilled.get() > 0 ) {
+      try {
+        AuditRecord record = spill.dequeue();
+        spilled.decrementAndGet();
+        if ( record != null ) {
+          write( record );
+        }
+        count++;
+      } catch ( IOException | InterruptedException e ) {
+        LogLog.error( "Failed to read audit spill queue", e );
+        break;
+      }
+    }
+    return count;
+  }
+
+  private void write( AuditRecord record ) {
+    try {
+      Logger logger = Logger.getLogger( record.getLoggerName() );
+      logger.callAppenders( record.toLoggingEvent( logger ) );
+    } catch ( RuntimeException e ) {
+      LogLog.error( "Failed to write audit record", e );
+    }
+  }
+
+  private void reportDropped( boolean force ) {
+    long now = System.currentTimeMillis();
+    if ( force || now - lastDropReport >= DROP_REPORT_INTERVAL_MILLIS ) {
+      long total = dropped.get();
+      if ( total > reportedDropped ) {
+        LogLog.warn( "Dropped " + ( total - reportedDropped ) + " audit records because the audit queue was full" );
+        reportedDropped = total;
+      }
+      lastDropReport = now;
+    }
+  }
+
+  private class Consumer implements Runnable {
+    @Override
+    public void run() {
+      while ( true ) {
+        int count = drainRing();
+        if ( count == 0 && spill != null ) {
+          count = drainSpill();
+        }
+        if ( count == 0 ) {
+          if ( !running && tail.get() == head ) {
+            break;
+          }
+          reportDropped( false );
+          LockSupport.parkNanos( IDLE_PARK_NANOS );
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.audit;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.gateway.audit.api.AuditContext;
+import org.apache.hadoop.gateway.audit.api.CorrelationContext;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationContext;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationService;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+ * Immutable capture of a single audit event.  The record carries everything the
+ * layouts previously read from the thread's MDC so that it can be formatted on a
+ * thread other than the one that produced it, or spilled to disk and replayed later.
+ */
+public final class AuditRecord implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+  private static final String FQCN = Log4jAuditor.class.getName();
+
+  private final String loggerName;
+  private final long timeStamp;
+  private final String threadName;
+  private final String action;
+  private final String resourceName;
+  private final String resourceType;
+  private final String outcome;
+  private final String message;
+  private final String serviceName;
+  private final String componentName;
+  private final AuditContext auditContext;
+  private final CorrelationContext correlationContext;
+
+  public AuditRecord( String loggerName, String serviceName, String componentName,
+      CorrelationContext correlationContext, AuditContext auditContext,
+      String action, String resourceName, String resourceType, String outcome, String message ) {
+    this.loggerName = loggerName;
+    this.timeStamp = System.currentTimeMillis();
+    this.threadName = Thread.currentThread().getName();
+    this.serviceName = serviceName;
+    this.componentName = componentName;
+    this.correlationContext = copyOf( correlationContext );
+    this.auditContext = copyOf( auditContext );
+    this.action = action;
+    this.resourceName = resourceName;
+    this.resourceType = resourceType;
+    this.outcome = outcome;
+    this.message = message;
+  }
+
+  public String getLoggerName() {
+    return loggerName;
+  }
+
+  public long getTimeStamp() {
+    return timeStamp;
+  }
+
+  public String getAction() {
+    return action;
+  }
+
+  public String getResourceName() {
+    return resourceName;
+  }
+
+  public String getResourceType() {
+    return resourceType;
+  }
+
+  public String getOutcome() {
+    return outcome;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public AuditContext getAuditContext() {
+    return auditContext;
+  }
+
+  public CorrelationContext getCorrelationContext() {
+    return correlationContext;
+  }
+
+  /**
+   * Builds the log4j event for this record.  The audit fields are carried as event
+   * properties rather than thread MDC entries so layouts see the same values
+   * regardless of the thread doing the formatting.
+   */
+  public LoggingEvent toLoggingEvent( Logger logger ) {
+    Map<String, Object> properties = new HashMap<String, Object>();
+    put( properties, AuditConstants.MDC_ACTION_KEY, action );
+    put( properties, AuditConstants.MDC_RESOURCE_NAME_KEY, resourceName );
+    put( properties, AuditConstants.MDC_RESOURCE_TYPE_KEY, resourceType );
+    put( properties, AuditConstants.MDC_OUTCOME_KEY, outcome );
+    put( properties, AuditConstants.MDC_SERVICE_KEY, serviceName );
+    put( properties, AuditConstants.MDC_COMPONENT_KEY, componentName );
+    put( properties, Log4jAuditService.MDC_AUDIT_CONTEXT_KEY, auditContext );
+    put( properties, Log4jCorrelationService.MDC_CORRELATION_CONTEXT_KEY, correlationContext );
+    return new LoggingEvent( FQCN, logger, timeStamp, Level.INFO, message, threadName,
+        null, null, null, properties );
+  }
+
+  private static void put( Map<String, Object> properties, String key, Object value ) {
+    // The event properties end up in a Hashtable which does not accept null values.
+    if ( value != null ) {
+      properties.put( key, value );
+    }
+  }
+
+  private static CorrelationContext copyOf( CorrelationContext context ) {
+    if ( context == null ) {
+      return null;
+    }
+    return new Log4jCorrelationContext(
+        context.getRequestId(), context.getParentRequestId(), context.getRootRequestId() );
+  }
+
+  private static AuditContext copyOf( AuditContext context ) {
+    if ( context == null ) {
+      return null;
+    }
+    Log4jAuditContext copy = new Log4jAuditContext();
+    copy.setUsername( context.getUsername() );
+    copy.setProxyUsername( context.getProxyUsername() );
+    copy.setSystemUsername( context.getSystemUsername() );
+    copy.setTargetServiceName( context.getTargetServiceName() );
+    copy.setRemoteIp( context.getRemoteIp() );
+    copy.setRemoteHostname( context.getRemoteHostname() );
+    return copy;
+  }
+
+}
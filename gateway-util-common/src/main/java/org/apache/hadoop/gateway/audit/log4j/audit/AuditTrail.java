@@ -0,0 +1,210 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.gateway.audit.api.Action;
+import org.apache.hadoop.gateway.audit.api.ActionOutcome;
+import org.apache.hadoop.gateway.audit.api.AuditContext;
+import org.apache.hadoop.gateway.audit.log4j.layout.AuditJsonLayout;
+
+/**
+ * Collects the audit events of a single request so they can be written as one
+ * record when the request completes instead of one record per event.
+ * <p>
+ * A trail is bound to the request thread between {@link #begin()} and {@link #end()}.
+ * While it is bound, {@link Log4jAuditor} adds events to it rather than writing them.
+ * The phase timings in the summary are derived from when each event was captured:
+ * <ul>
+ *   <li>auth - until the last authentication or identity mapping event</li>
+ *   <li>rewrite - from auth until dispatch starts, the time spent in rewrite and the other filters</li>
+ *   <li>ttfb - from dispatch start until the backend response headers arrive, including the connect</li>
+ *   <li>response - from the backend response until the request completes</li>
+ *   <li>total - the whole request</li>
+ * </ul>
+ */
+public final class AuditTrail {
+
+  private static final ThreadLocal<AuditTrail> CURRENT = new ThreadLocal<AuditTrail>();
+
+  private final long startNanos = System.nanoTime();
+  private final List<Entry> entries = new ArrayList<Entry>();
+
+  private AuditTrail() {
+  }
+
+  /**
+   * Binds a new trail to the current thread.
+   */
+  public static AuditTrail begin() {
+    AuditTrail trail = new AuditTrail();
+    CURRENT.set( trail );
+    return trail;
+  }
+
+  /**
+   * Unbinds the trail from the current thread so that subsequent events are written directly.
+   */
+  public static AuditTrail end() {
+    AuditTrail trail = CURRENT.get();
+    CURRENT.remove();
+    return trail;
+  }
+
+  static AuditTrail current() {
+    return CURRENT.get();
+  }
+
+  void add( AuditRecord record ) {
+    entries.add( new Entry( record, System.nanoTime() - startNanos ) );
+  }
+
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  /**
+   * @return the resource of the first access event, normally the request URL
+   */
+  public String getResourceName() {
+    for ( Entry entry : entries ) {
+      if ( Action.ACCESS.equals( entry.record.getAction() ) ) {
+        return entry.record.getResourceName();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the outcome of the last access event, or failure if any access event failed
+   */
+  public String getOutcome() {
+    String outcome = null;
+    for ( Entry entry : entries ) {
+      if ( Action.ACCESS.equals( entry.record.getAction() ) ) {
+        if ( ActionOutcome.FAILURE.equals( entry.record.getOutcome() ) ) {
+          return ActionOutcome.FAILURE;
+        }
+        outcome = entry.record.getOutcome();
+      }
+    }
+    return outcome;
+  }
+
+  /**
+   * @return the audit context of the last event, which has the most complete identity
+   */
+  public AuditContext getAuditContext() {
+    return entries.isEmpty() ? null : entries.get( entries.size() - 1 ).record.getAuditContext();
+  }
+
+  /**
+   * Builds the JSON summary used as the message of the coalesced record.
+   */
+  public String toMessage( int status, long bytesIn, long bytesOut ) {
+    long totalNanos = System.nanoTime() - startNanos;
+    long authNanos = -1;
+    long dispatchNanos = -1;
+    long responseNanos = -1;
+    for ( Entry entry : entries ) {
+      String action = entry.record.getAction();
+      if ( Action.AUTHENTICATION.equals( action ) || Action.IDENTITY_MAPPING.equals( action ) ) {
+        authNanos = entry.nanos;
+      } else if ( Action.DISPATCH.equals( action ) ) {
+        if ( ActionOutcome.UNAVAILABLE.equals( entry.record.getOutcome() ) ) {
+          if ( dispatchNanos < 0 ) {
+            dispatchNanos = entry.nanos;
+          }
+        } else {
+          responseNanos = entry.nanos;
+        }
+      }
+    }
+
+    StringBuilder sb = new StringBuilder();
+    sb.append( "{\"status\":" ).append( status );
+    sb.append( ",\"bytes_in\":" ).append( bytesIn );
+    sb.append( ",\"bytes_out\":" ).append( bytesOut );
+    appendMillis( sb, "total_ms", totalNanos );
+    if ( authNanos >= 0 ) {
+      appendMillis( sb, "auth_ms", authNanos );
+    }
+    if ( dispatchNanos >= 0 ) {
+      appendMillis( sb, "rewrite_ms", dispatchNanos - Math.max( authNanos, 0 ) );
+      if ( responseNanos >= dispatchNanos ) {
+        appendMillis( sb, "ttfb_ms", responseNanos - dispatchNanos );
+        appendMillis( sb, "response_ms", totalNanos - responseNanos );
+      }
+    }
+    sb.append( ",\"events\":[" );
+    for ( int i = 0; i < entries.size(); i++ ) {
+      Entry entry = entries.get( i );
+      if ( i > 0 ) {
+        sb.append( ',' );
+      }
+      sb.append( '{' );
+      appendField( sb, "action", entry.record.getAction(), false );
+      appendField( sb, "resource_type", entry.record.getResourceType(), true );
+      appendField( sb, "resource_name", entry.record.getResourceName(), true );
+      appendField( sb, "outcome", entry.record.getOutcome(), true );
+      appendField( sb, "message", entry.record.getMessage(), true );
+      appendMillis( sb, "at_ms", entry.nanos );
+      sb.append( '}' );
+    }
+    sb.append( "]}" );
+    return sb.toString();
+  }
+
+  private static void appendField( StringBuilder sb, String name, String value, boolean separator ) {
+    if ( separator ) {
+      sb.append( ',' );
+    }
+    sb.append( '"' ).append( name ).append( "\":" );
+    if ( value == null ) {
+      sb.append( "null" );
+    } else {
+      AuditJsonLayout.appendString( sb, value );
+    }
+  }
+
+  private static void appendMillis( StringBuilder sb, String name, long nanos ) {
+    long micros = Math.max( nanos, 0 ) / 1000;
+    long fraction = micros % 1000;
+    sb.append( ",\"" ).append( name ).append( "\":" ).append( micros / 1000 ).append( '.' );
+    if ( fraction < 100 ) {
+      sb.append( '0' );
+    }
+    if ( fraction < 10 ) {
+      sb.append( '0' );
+    }
+    sb.append( fraction );
+  }
+
+  private static final class Entry {
+    private final AuditRecord record;
+    private final long nanos;
+
+    private Entry( AuditRecord record, long nanos ) {
+      this.record = record;
+      this.nanos = nanos;
+    }
+  }
+
+}
@@ -17,6 +17,8 @@
  */
 package org.apache.hadoop.gateway.audit.log4j.audit;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
@@ -29,8 +31,37 @@ import org.apache.log4j.MDC;
 public class Log4jAuditService implements AuditService {
 
   public static final String MDC_AUDIT_CONTEXT_KEY = "audit_context";
+  private static volatile AuditDispatcher dispatcher;
   private Map<String, Auditor> auditors = new ConcurrentHashMap<String, Auditor>();
 
+  /**
+   * Switches all auditors to asynchronous delivery through a bounded queue.
+   * Any previously started dispatcher is drained and stopped first.
+   *
+   * @param capacity the number of records that can be queued before the overflow policy applies
+   * @param policy what to do with a record when the queue is full
+   * @param spillFile base name of the disk queue used by {@link AuditDispatcher.OverflowPolicy#SPILL}
+   */
+  public static synchronized void startAsyncDispatch( int capacity, AuditDispatcher.OverflowPolicy policy, File spillFile ) throws IOException {
+    stopAsyncDispatch();
+    dispatcher = new AuditDispatcher( capacity, policy, spillFile );
+  }
+
+  /**
+   * Drains any queued records and returns all auditors to synchronous delivery.
+   */
+  public static synchronized void stopAsyncDispatch() {
+    AuditDispatcher current = dispatcher;
+    if ( current != null ) {
+      dispatcher = null;
+      current.stop();
+    }
+  }
+
+  static AuditDispatcher getDispatcher() {
+    return dispatcher;
+  }
+
   @Override
   public AuditContext createContext() {
     AuditContext context = getContext();
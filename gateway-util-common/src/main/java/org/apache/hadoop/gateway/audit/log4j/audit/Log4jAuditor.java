@@ -26,7 +26,6 @@ import org.apache.hadoop.gateway.audit.api.CorrelationContext;
 import org.apache.hadoop.gateway.audit.api.CorrelationService;
 import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationService;
 import org.apache.log4j.Logger;
-import org.apache.log4j.MDC;
 
 public class Log4jAuditor implements Auditor {
 
@@ -45,51 +44,34 @@ public class Log4jAuditor implements Auditor {
 
   @Override
   public void audit( CorrelationContext correlationContext, AuditContext auditContext, String action, String resourceName, String resourceType, String outcome, String message ) {
-    CorrelationContext previousCorrelationContext = null;
-    AuditContext previousAuditContext = null;
-    try {
-      previousCorrelationContext = correlationService.getContext();
-      previousAuditContext = auditService.getContext();
-      auditService.attachContext( auditContext );
-      correlationService.attachContext( correlationContext );
-      auditLog( action, resourceName, resourceType, outcome, message );
-    } finally {
-      if ( previousAuditContext != null ) {
-        auditService.attachContext( previousAuditContext );
-      }
-      if ( previousCorrelationContext != null ) {
-        correlationService.attachContext( previousCorrelationContext );
-      }
-    }
+    auditLog( correlationContext, auditContext, action, resourceName, resourceType, outcome, message );
   }
 
   @Override
   public void audit( String action, String resourceName, String resourceType, String outcome, String message ) {
-    auditLog( action, resourceName, resourceType, outcome, message );
+    auditLog( correlationService.getContext(), auditService.getContext(), action, resourceName, resourceType, outcome, message );
   }
   
   @Override
   public void audit( String action, String resourceName, String resourceType, String outcome ) {
-    auditLog( action, resourceName, resourceType, outcome, null );
+    auditLog( correlationService.getContext(), auditService.getContext(), action, resourceName, resourceType, outcome, null );
   }
 
-  private void auditLog( String action, String resourceName, String resourceType, String outcome, String message ) {
+  private void auditLog( CorrelationContext correlationContext, AuditContext auditContext, String action, String resourceName, String resourceType, String outcome, String message ) {
     if ( logger.isInfoEnabled() ) {
-      MDC.put( AuditConstants.MDC_ACTION_KEY, action );
-      MDC.put( AuditConstants.MDC_RESOURCE_NAME_KEY, resourceName );
-      MDC.put( AuditConstants.MDC_RESOURCE_TYPE_KEY, resourceType );
-      MDC.put( AuditConstants.MDC_OUTCOME_KEY, outcome );
-      MDC.put( AuditConstants.MDC_SERVICE_KEY, serviceName );
-      MDC.put( AuditConstants.MDC_COMPONENT_KEY, componentName );
-      
-      logger.info( message );
-      
-      MDC.remove( AuditConstants.MDC_ACTION_KEY );
-      MDC.remove( AuditConstants.MDC_RESOURCE_NAME_KEY );
-      MDC.remove( AuditConstants.MDC_RESOURCE_TYPE_KEY );
-      MDC.remove( AuditConstants.MDC_OUTCOME_KEY );
-      MDC.remove( AuditConstants.MDC_SERVICE_KEY );
-      MDC.remove( AuditConstants.MDC_COMPONENT_KEY );
+      AuditRecord record = new AuditRecord( logger.getName(), serviceName, componentName,
+          correlationContext, auditContext, action, resourceName, resourceType, outcome, message );
+      AuditTrail trail = AuditTrail.current();
+      if ( trail != null ) {
+        trail.add( record );
+        return;
+      }
+      AuditDispatcher dispatcher = Log4jAuditService.getDispatcher();
+      if ( dispatcher != null ) {
+        dispatcher.dispatch( record );
+      } else {
+        logger.callAppenders( record.toLoggingEvent( logger ) );
+      }
     }
   }
 
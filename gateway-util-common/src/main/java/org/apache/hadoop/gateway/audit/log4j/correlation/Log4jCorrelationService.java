@@ -27,11 +27,14 @@ import java.util.concurrent.Callable;
 
 import org.apache.hadoop.gateway.audit.api.CorrelationContext;
 import org.apache.hadoop.gateway.audit.api.CorrelationService;
-import org.apache.log4j.MDC;
 
 public class Log4jCorrelationService implements CorrelationService {
   
   public static final String MDC_CORRELATION_CONTEXT_KEY = "correlation_context";
+
+  // The context is kept in a plain thread local rather than the log4j MDC.  Audit records
+  // carry it explicitly under MDC_CORRELATION_CONTEXT_KEY so layouts still find it there.
+  private static final ThreadLocal<CorrelationContext> CONTEXT = new ThreadLocal<CorrelationContext>();
   
   @Override
   public CorrelationContext createContext() {
@@ -45,20 +48,20 @@ public class Log4jCorrelationService implements CorrelationService {
 
   @Override
   public CorrelationContext getContext() {
-    return (CorrelationContext) MDC.get( MDC_CORRELATION_CONTEXT_KEY );
+    return CONTEXT.get();
   }
 
   @Override
   public void attachContext( CorrelationContext context ) {
     if ( context != null ) {
-      MDC.put( MDC_CORRELATION_CONTEXT_KEY, context );
+      CONTEXT.set( context );
     }
   }
 
   @Override
   public CorrelationContext detachContext() {
-    CorrelationContext context = (CorrelationContext) MDC.get( MDC_CORRELATION_CONTEXT_KEY );
-    MDC.remove( MDC_CORRELATION_CONTEXT_KEY );
+    CorrelationContext context = CONTEXT.get();
+    CONTEXT.remove();
     return context;
   }
   
@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.correlation;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.hadoop.gateway.audit.api.CorrelationIdGenerator;
+
+/**
+ * Generates 128 bit ids made of a 48 bit millisecond timestamp followed by 80 random
+ * bits, encoded as 26 Crockford base32 characters (the ULID layout).  Ids sort by
+ * creation time and the random part comes from a per thread generator, so unlike
+ * {@link java.util.UUID#randomUUID()} there is no shared SecureRandom to contend on
+ * or wait for entropy.
+ */
+public class TimeOrderedIdGenerator implements CorrelationIdGenerator {
+
+  private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+  private static final int TIME_LENGTH = 10;
+  private static final int LENGTH = 26;
+
+  private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+    @Override
+    protected char[] initialValue() {
+      return new char[ LENGTH ];
+    }
+  };
+
+  @Override
+  public String generateId() {
+    char[] buffer = BUFFER.get();
+    long time = System.currentTimeMillis();
+    for ( int i = TIME_LENGTH - 1; i >= 0; i-- ) {
+      buffer[ i ] = ALPHABET[ (int)( time & 31 ) ];
+      time >>>= 5;
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long low = random.nextLong();
+    long high = random.nextInt() & 0xFFFFL;
+    for ( int i = LENGTH - 1; i >= TIME_LENGTH; i-- ) {
+      buffer[ i ] = ALPHABET[ (int)( low & 31 ) ];
+      low = ( low >>> 5 ) | ( ( high & 31 ) << 59 );
+      high >>>= 5;
+    }
+    return new String( buffer );
+  }
+
+}
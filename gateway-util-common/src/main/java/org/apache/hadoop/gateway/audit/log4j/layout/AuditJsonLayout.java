@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.layout;
+
+import org.apache.hadoop.gateway.audit.api.AuditContext;
+import org.apache.hadoop.gateway.audit.api.CorrelationContext;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
+import org.apache.hadoop.gateway.audit.log4j.audit.Log4jAuditService;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationService;
+import org.apache.log4j.Layout;
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+ * Formats each audit record as a single line JSON object with the same fields as
+ * {@link AuditLayout}, for sinks that ingest JSON lines.
+ */
+public class AuditJsonLayout extends Layout {
+
+  private StringBuilder sb = new StringBuilder();
+
+  @Override
+  public void activateOptions() {
+  }
+
+  @Override
+  public String format( LoggingEvent event ) {
+    sb.setLength( 0 );
+    CorrelationContext cc = (CorrelationContext)event.getMDC( Log4jCorrelationService.MDC_CORRELATION_CONTEXT_KEY );
+    AuditContext ac = (AuditContext)event.getMDC( Log4jAuditService.MDC_AUDIT_CONTEXT_KEY );
+    sb.append( "{\"timestamp\":" ).append( event.getTimeStamp() );
+    appendField( "root_request_id", cc == null ? null : cc.getRootRequestId() );
+    appendField( "parent_request_id", cc == null ? null : cc.getParentRequestId() );
+    appendField( "request_id", cc == null ? null : cc.getRequestId() );
+    appendField( "channel", event.getLoggerName() );
+    appendField( "target_service", ac == null ? null : ac.getTargetServiceName() );
+    appendField( "username", ac == null ? null : ac.getUsername() );
+    appendField( "proxy_username", ac == null ? null : ac.getProxyUsername() );
+    appendField( "system_username", ac == null ? null : ac.getSystemUsername() );
+    appendField( "remote_ip", ac == null ? null : ac.getRemoteIp() );
+    appendField( AuditConstants.MDC_ACTION_KEY, (String)event.getMDC( AuditConstants.MDC_ACTION_KEY ) );
+    appendField( AuditConstants.MDC_RESOURCE_TYPE_KEY, (String)event.getMDC( AuditConstants.MDC_RESOURCE_TYPE_KEY ) );
+    appendField( AuditConstants.MDC_RESOURCE_NAME_KEY, (String)event.getMDC( AuditConstants.MDC_RESOURCE_NAME_KEY ) );
+    appendField( AuditConstants.MDC_OUTCOME_KEY, (String)event.getMDC( AuditConstants.MDC_OUTCOME_KEY ) );
+    appendField( "message", event.getRenderedMessage() );
+    sb.append( '}' ).append( LINE_SEP );
+    return sb.toString();
+  }
+
+  @Override
+  public boolean ignoresThrowable() {
+    return true;
+  }
+
+  private void appendField( String name, String value ) {
+    if ( value == null ) {
+      return;
+    }
+    sb.append( ",\"" ).append( name ).append( "\":" );
+    appendString( sb, value );
+  }
+
+  /**
+   * Appends the value as a quoted and escaped JSON string.
+   */
+  public static void appendString( StringBuilder sb, String value ) {
+    sb.append( '"' );
+    for ( int i = 0; i < value.length(); i++ ) {
+      char c = value.charAt( i );
+      switch ( c ) {
+        case '"':
+          sb.append( "\\\"" );
+          break;
+        case '\\':
+          sb.append( "\\\\" );
+          break;
+        case '\n':
+          sb.append( "\\n" );
+          break;
+        case '\r':
+          sb.append( "\\r" );
+          break;
+        case '\t':
+          sb.append( "\\t" );
+          break;
+        default:
+          if ( c < 0x20 ) {
+            sb.append( String.format( "\\u%04x", (int)c ) );
+          } else {
+            sb.append( c );
+          }
+      }
+    }
+    sb.append( '"' );
+  }
+
+}
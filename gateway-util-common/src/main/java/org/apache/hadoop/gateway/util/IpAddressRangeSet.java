@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.util;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * A set of IPv4 and IPv6 address ranges in CIDR notation, such as 10.0.0.0/8 or fd00::/8.
+ * <p>
+ * The ranges are kept in a binary radix tree per address family so that looking up an address
+ * takes at most one step per bit of the address, however many ranges the set holds.
+ * Addresses are only ever parsed as literals, host names are never resolved.
+ */
+public class IpAddressRangeSet {
+
+  private final Node ipv4 = new Node();
+
+  private final Node ipv6 = new Node();
+
+  private boolean empty = true;
+
+  /**
+   * @param range an address, which is a range of one, or an address followed by /prefix-length
+   * @throws IllegalArgumentException if the range is not a valid IPv4 or IPv6 range
+   */
+  public void add(String range) {
+    String address = range.trim();
+    int prefixLength = -1;
+    int slash = address.indexOf('/');
+    if (slash >= 0) {
+      try {
+        prefixLength = Integer.parseInt(address.substring(slash + 1));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid prefix length: " + range);
+      }
+      address = address.substring(0, slash);
+    }
+    byte[] bytes = parse(address);
+    if (bytes == null) {
+      throw new IllegalArgumentException("Invalid IP address: " + range);
+    }
+    if (prefixLength < 0) {
+      prefixLength = bytes.length * 8;
+    } else if (prefixLength > bytes.length * 8) {
+      throw new IllegalArgumentException("Invalid prefix length: " + range);
+    }
+    Node node = bytes.length == 4 ? ipv4 : ipv6;
+    for (int i = 0; i < prefixLength && !node.terminal; i++) {
+      int bit = bit(bytes, i);
+      if (node.children[bit] == null) {
+        node.children[bit] = new Node();
+      }
+      node = node.children[bit];
+    }
+    // A shorter range already covers this one, or this one covers any longer ones.
+    node.terminal = true;
+    node.children[0] = null;
+    node.children[1] = null;
+    empty = false;
+  }
+
+  /**
+   * @param address an IPv4 or IPv6 address literal
+   * @return true if the address is in one of the ranges, false if it is not or is not an address
+   */
+  public boolean contains(String address) {
+    if (empty || address == null) {
+      return false;
+    }
+    byte[] bytes = parse(address);
+    return bytes != null && contains(bytes);
+  }
+
+  /**
+   * @param address the 4 or 16 bytes of an address
+   * @return true if the address is in one of the ranges
+   */
+  public boolean contains(byte[] address) {
+    Node node = address.length == 4 ? ipv4 : ipv6;
+    int bits = address.length * 8;
+    for (int i = 0; i < bits && !node.terminal; i++) {
+      node = node.children[bit(address, i)];
+      if (node == null) {
+        return false;
+      }
+    }
+    return node.terminal;
+  }
+
+  public boolean isEmpty() {
+    return empty;
+  }
+
+  private static int bit(byte[] bytes, int index) {
+    return (bytes[index >> 3] >> (7 - (index & 7))) & 1;
+  }
+
+  /**
+   * @param address an IPv4 or IPv6 address literal, IPv6 possibly in brackets or with a zone
+   * @return the 4 or 16 bytes of the address or null if it is not an address literal
+   */
+  static byte[] parse(String address) {
+    if (address.indexOf(':') < 0) {
+      return parseIpv4(address);
+    }
+    String literal = address;
+    if (literal.startsWith("[") && literal.endsWith("]")) {
+      literal = literal.substring(1, literal.length() - 1);
+    }
+    int zone = literal.indexOf('%');
+    if (zone >= 0) {
+      literal = literal.substring(0, zone);
+    }
+    // Only hex digits, colons and dots get this far so that InetAddress takes it as a literal.
+    for (int i = 0; i < literal.length(); i++) {
+      char c = literal.charAt(i);
+      if (c != ':' && c != '.' && Character.digit(c, 16) < 0) {
+        return null;
+      }
+    }
+    try {
+      return InetAddress.getByName(literal).getAddress();
+    } catch (UnknownHostException e) {
+      return null;
+    }
+  }
+
+  private static byte[] parseIpv4(String address) {
+    byte[] bytes = new byte[4];
+    int octet = 0;
+    int value = 0;
+    int digits = 0;
+    for (int i = 0; i < address.length(); i++) {
+      char c = address.charAt(i);
+      if (c >= '0' && c <= '9') {
+        value = value * 10 + (c - '0');
+        if (++digits > 3 || value > 255) {
+          return null;
+        }
+      } else if (c == '.' && digits > 0 && octet < 3) {
+        bytes[octet++] = (byte) value;
+        value = 0;
+        digits = 0;
+      } else {
+        return null;
+      }
+    }
+    if (digits == 0 || octet != 3) {
+      return null;
+    }
+    bytes[3] = (byte) value;
+    return bytes;
+  }
+
+  private static class Node {
+    private final Node[] children = new Node[2];
+    private boolean terminal;
+  }
+
+}
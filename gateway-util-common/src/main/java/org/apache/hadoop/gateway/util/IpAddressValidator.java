@@ -19,9 +19,14 @@ package org.apache.hadoop.gateway.util;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 /**
  * Validate a given IP Address against a list of comma separated list of addresses.
+ * Addresses may be given as a range in CIDR notation, such as 10.0.0.0/8, or with a trailing
+ * wildcard, such as 192.168.*.
  */
 public class IpAddressValidator {
   
@@ -34,6 +39,21 @@ public class IpAddressValidator {
    * IP addresses from the ipaddr list that contain a wildcard character '*'
    */
   private ArrayList<String> wildCardIPs = new ArrayList<String>();
+
+  /**
+   * The ip addresses of the ipaddr list, for lookups
+   */
+  private Set<String> ipaddrSet = new HashSet<String>();
+
+  /**
+   * The CIDR ranges, whole octet IPv4 wildcards and address literals of the ipaddr list
+   */
+  private final IpAddressRangeSet ranges = new IpAddressRangeSet();
+
+  /**
+   * Wildcards such as 192.168.* that are equivalent to a CIDR range
+   */
+  private static final Pattern IPV4_OCTETS_WILDCARD = Pattern.compile("(\\d{1,3}\\.){1,3}");
   
   /**
    * Optimization based on empty IP address list or an explicit '*' wildcard
@@ -60,17 +80,49 @@ public class IpAddressValidator {
     ipaddr = new ArrayList<String>();
     wildCardIPs = new ArrayList<String>();
     Collections.addAll(ipaddr, ips);
+    ipaddrSet = new HashSet<String>(ipaddr);
     if (!ipaddr.contains("*")) {
       anyIP = false;
       // check whether there are any wildcarded ip's - example: 192.* or 192.168.* or 192.168.1.*
       for (String addr : ipaddr) {
         if (addr.contains("*")) {
-          wildCardIPs.add(addr.substring(0, addr.lastIndexOf('*')));
+          String prefix = addr.substring(0, addr.lastIndexOf('*'));
+          if (!addIpv4WildcardRange(prefix)) {
+            wildCardIPs.add(prefix);
+          }
+        } else if (!addr.isEmpty()) {
+          try {
+            ranges.add(addr);
+          } catch (IllegalArgumentException e) {
+            // Not an address or range, it can still match exactly.
+          }
         }
       }
     }
   }
   
+  /**
+   * @param prefix a wildcard without its '*', such as 192.168.
+   * @return true if the wildcard was added as a CIDR range
+   */
+  private boolean addIpv4WildcardRange(String prefix) {
+    if (!IPV4_OCTETS_WILDCARD.matcher(prefix).matches()) {
+      return false;
+    }
+    String[] octets = prefix.split("\\.");
+    StringBuilder range = new StringBuilder(prefix);
+    for (int i = octets.length; i < 4; i++) {
+      range.append(i < 3 ? "0." : "0");
+    }
+    range.append('/').append(octets.length * 8);
+    try {
+      ranges.add(range.toString());
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
   public boolean validateIpAddress(String addr) {
     boolean valid = false;
     if (addr == null) {
@@ -82,7 +134,7 @@ public class IpAddressValidator {
       valid = true;
     }
     else {
-      if (ipaddr.contains(addr)) {
+      if (ipaddrSet.contains(addr) || ranges.contains(addr)) {
         valid = true;
       }
       else {
@@ -17,27 +17,18 @@
  */
 package org.apache.hadoop.gateway.util;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class RegExUtils {
   /**
    * Checks for a match of a given string against
    * a whitelist of semi-colon separated regex patterns.
+   * Callers checking against the same whitelist repeatedly should
+   * compile it once with {@link WhitelistMatcher#compile(String)}.
    * @param whitelist - semi-colon separated patterns
    * @param tomatch - the string to match against list
    * @return true for a match otherwise false
    */
   public static boolean checkWhitelist(String whitelist, String tomatch) {
-    String[] patterns = whitelist.split(";");
-    for (String patternString : patterns) {
-      Pattern pattern = Pattern.compile(patternString);
-      Matcher matcher = pattern.matcher(tomatch);
-      if (matcher.matches()) {
-        return true;
-      }
-    }
-    return false;
+    return WhitelistMatcher.compile(whitelist).matches(tomatch);
   }
 
 }
@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A whitelist of semi-colon separated regex patterns compiled once for repeated matching
+ * of URLs, such as redirect targets, callback URLs or origins.
+ * <p>
+ * Patterns of the common host form <code>^https?://(.*\.)?example\.com(:\d+)?/.*$</code>
+ * are matched by comparing the scheme, host and port directly instead of running the
+ * regex; they match exactly the strings the regex would.  All other patterns are
+ * matched with their precompiled regex.
+ */
+public class WhitelistMatcher {
+
+  // Recognizes the host form: scheme, optional any-subdomain prefix, literal host,
+  // optional any-port suffix and any path.
+  private static final Pattern HOST_FORM = Pattern.compile(
+      "\\^?(https\\??|http)://(\\((?:\\?:)?\\.\\*\\\\\\.\\)\\?)?((?:[A-Za-z0-9-]+\\\\\\.)*[A-Za-z0-9-]+)" +
+      "(\\((?:\\?:)?:\\\\d\\+\\)\\?)?/\\.\\*\\$?" );
+
+  private final String whitelist;
+  private final HostPattern[] hostPatterns;
+  private final Pattern[] patterns;
+
+  private WhitelistMatcher(String whitelist, List<HostPattern> hostPatterns, List<Pattern> patterns) {
+    this.whitelist = whitelist;
+    this.hostPatterns = hostPatterns.toArray(new HostPattern[hostPatterns.size()]);
+    this.patterns = patterns.toArray(new Pattern[patterns.size()]);
+  }
+
+  /**
+   * @param whitelist - semi-colon separated patterns
+   * @return the compiled whitelist
+   * @throws java.util.regex.PatternSyntaxException if one of the patterns is invalid
+   */
+  public static WhitelistMatcher compile(String whitelist) {
+    List<HostPattern> hostPatterns = new ArrayList<HostPattern>();
+    List<Pattern> patterns = new ArrayList<Pattern>();
+    for (String patternString : whitelist.split(";")) {
+      Matcher form = HOST_FORM.matcher(patternString);
+      if (form.matches()) {
+        String scheme = form.group(1);
+        hostPatterns.add(new HostPattern(
+            !"https".equals(scheme), !"http".equals(scheme),
+            form.group(2) != null, form.group(3).replace("\\.", "."), form.group(4) != null));
+      } else {
+        patterns.add(Pattern.compile(patternString));
+      }
+    }
+    return new WhitelistMatcher(whitelist, hostPatterns, patterns);
+  }
+
+  /**
+   * @param tomatch - the string to match against the whitelist
+   * @return true if any of the patterns matches the whole string otherwise false
+   */
+  public boolean matches(String tomatch) {
+    for (HostPattern hostPattern : hostPatterns) {
+      if (hostPattern.matches(tomatch)) {
+        return true;
+      }
+    }
+    for (Pattern pattern : patterns) {
+      if (pattern.matcher(tomatch).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Visible for testing.
+  int getRegexCount() {
+    return patterns.length;
+  }
+
+  @Override
+  public String toString() {
+    return whitelist;
+  }
+
+  private static final class HostPattern {
+    private final boolean http;
+    private final boolean https;
+    private final boolean anySubdomain;
+    private final String host;
+    private final boolean anyPort;
+
+    private HostPattern(boolean http, boolean https, boolean anySubdomain, String host, boolean anyPort) {
+      this.http = http;
+      this.https = https;
+      this.anySubdomain = anySubdomain;
+      this.host = host;
+      this.anyPort = anyPort;
+    }
+
+    private boolean matches(String s) {
+      int start;
+      if (https && s.startsWith("https://")) {
+        start = 8;
+      } else if (http && s.startsWith("http://")) {
+        start = 7;
+      } else {
+        return false;
+      }
+      // The regex .* never matches line terminators.
+      if (hasLineTerminator(s)) {
+        return false;
+      }
+      if (!anySubdomain) {
+        return s.startsWith(host, start) && matchesPortAndPath(s, start + host.length());
+      }
+      // (.*\.)? allows the host to follow any prefix ending with a dot.
+      for (int i = s.indexOf(host, start); i >= 0; i = s.indexOf(host, i + 1)) {
+        if ((i == start || s.charAt(i - 1) == '.') && matchesPortAndPath(s, i + host.length())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean matchesPortAndPath(String s, int i) {
+      int length = s.length();
+      if (anyPort && i < length && s.charAt(i) == ':') {
+        int digits = i + 1;
+        while (digits < length && s.charAt(digits) >= '0' && s.charAt(digits) <= '9') {
+          digits++;
+        }
+        if (digits == i + 1) {
+          return false;
+        }
+        i = digits;
+      }
+      return i < length && s.charAt(i) == '/';
+    }
+
+    private static boolean hasLineTerminator(String s) {
+      for (int i = 0; i < s.length(); i++) {
+        char c = s.charAt(i);
+        if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+}
@@ -25,6 +25,7 @@ import org.apache.hadoop.gateway.audit.api.CorrelationContext;
 import org.apache.hadoop.gateway.audit.api.CorrelationService;
 import org.apache.hadoop.gateway.audit.api.CorrelationServiceFactory;
 import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
+import org.apache.hadoop.gateway.audit.log4j.layout.AuditJsonLayout;
 import org.apache.hadoop.gateway.audit.log4j.layout.AuditLayout;
 import org.apache.hadoop.test.log.CollectAppender;
 import org.apache.log4j.LogManager;
@@ -153,4 +154,23 @@ public class AuditLayoutTest {
     assertThat( auditOutput, is( expectedOutput ) );
   }
 
+  @Test
+  public void testJsonAuditEvent() {
+    AuditContext auditContext = auditService.createContext();
+    auditContext.setUsername( USERNAME );
+    auditContext.setTargetServiceName( TARGET_SERVICE );
+    CorrelationContext correlationContext = correlationService.createContext();
+    correlationContext.setRequestId( REQUEST_ID );
+    auditor.audit( ACTION, RESOURCE_NAME, RESOURCE_TYPE, OUTCOME, "a \"quoted\"\nmessage" );
+
+    assertThat( CollectAppender.queue.size(), is( 1 ) );
+    LoggingEvent event = CollectAppender.queue.iterator().next();
+    String expectedOutput = "{\"timestamp\":" + event.getTimeStamp() +
+        ",\"request_id\":\"3\",\"channel\":\"audit.forward\",\"target_service\":\"WEBHDFS\"" +
+        ",\"username\":\"username\",\"action\":\"action\",\"resource_type\":\"resource_type\"" +
+        ",\"resource_name\":\"resource_name\",\"outcome\":\"outcome\"" +
+        ",\"message\":\"a \\\"quoted\\\"\\nmessage\"}" + AuditLayout.LINE_SEP;
+    assertThat( new AuditJsonLayout().format( event ), is( expectedOutput ) );
+  }
+
 }
@@ -17,6 +17,8 @@
  */
 package org.apache.hadoop.gateway.audit;
 
+import org.apache.hadoop.gateway.audit.api.Action;
+import org.apache.hadoop.gateway.audit.api.ActionOutcome;
 import org.apache.hadoop.gateway.audit.api.AuditContext;
 import org.apache.hadoop.gateway.audit.api.AuditService;
 import org.apache.hadoop.gateway.audit.api.AuditServiceFactory;
@@ -24,7 +26,10 @@ import org.apache.hadoop.gateway.audit.api.Auditor;
 import org.apache.hadoop.gateway.audit.api.CorrelationContext;
 import org.apache.hadoop.gateway.audit.api.CorrelationService;
 import org.apache.hadoop.gateway.audit.api.CorrelationServiceFactory;
+import org.apache.hadoop.gateway.audit.api.ResourceType;
 import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditDispatcher;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditTrail;
 import org.apache.hadoop.gateway.audit.log4j.audit.Log4jAuditService;
 import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationService;
 import org.apache.hadoop.test.log.CollectAppender;
@@ -39,6 +44,7 @@ import java.io.File;
 import java.util.Iterator;
 import java.util.UUID;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsNull.nullValue;
@@ -169,6 +175,93 @@ public class AuditServiceTest {
     checkLogEventContexts( event, cc, ac );
   }
   
+  @Test
+  public void testAsyncDispatchPreservesOrderAndContexts() throws Exception {
+    int iterations = 1000;
+    Log4jAuditService.startAsyncDispatch( 16, AuditDispatcher.OverflowPolicy.BLOCK, null );
+    try {
+      for( int i = 0; i < iterations; i++ ) {
+        AuditContext ac = auditService.createContext();
+        ac.setUsername( username + i );
+        CorrelationContext cc = correlationService.createContext();
+        cc.setRequestId( "request" + i );
+        auditor.audit( "action" + i, "resource" + i, "resource type" + i, "outcome" + i, "message" + i );
+        // The record must not see changes made to the contexts after it was captured.
+        ac.setUsername( null );
+        auditService.detachContext();
+        correlationService.detachContext();
+      }
+    } finally {
+      Log4jAuditService.stopAsyncDispatch();
+    }
+
+    assertThat( CollectAppender.queue.size(), is( iterations ) );
+    Iterator<LoggingEvent> iterator = CollectAppender.queue.iterator();
+    for( int i = 0; i < iterations; i++ ) {
+      LoggingEvent event = iterator.next();
+      AuditContext context = (AuditContext) event.getMDC( Log4jAuditService.MDC_AUDIT_CONTEXT_KEY );
+      CorrelationContext correlationContext = (CorrelationContext) event.getMDC( Log4jCorrelationService.MDC_CORRELATION_CONTEXT_KEY );
+      assertThat( context.getUsername(), is( username + i ) );
+      assertThat( correlationContext.getRequestId(), is( "request" + i ) );
+      assertThat( (String)event.getMDC( AuditConstants.MDC_ACTION_KEY ), is( "action" + i ) );
+      assertThat( event.getRenderedMessage(), is( "message" + i ) );
+    }
+  }
+
+  @Test
+  public void testAsyncDispatchSpillsWhenFull() throws Exception {
+    File spill = new File( "target/audit-spill" );
+    new File( spill.getPath() + ".db" ).delete();
+    new File( spill.getPath() + ".lg" ).delete();
+    int iterations = 200;
+    Log4jAuditService.startAsyncDispatch( 2, AuditDispatcher.OverflowPolicy.SPILL, spill );
+    try {
+      for( int i = 0; i < iterations; i++ ) {
+        auditor.audit( "action" + i, "resource", "resource type", "outcome", "message" );
+      }
+    } finally {
+      Log4jAuditService.stopAsyncDispatch();
+    }
+
+    assertThat( CollectAppender.queue.size(), is( iterations ) );
+    Iterator<LoggingEvent> iterator = CollectAppender.queue.iterator();
+    for( int i = 0; i < iterations; i++ ) {
+      assertThat( (String)iterator.next().getMDC( AuditConstants.MDC_ACTION_KEY ), is( "action" + i ) );
+    }
+  }
+
+  @Test
+  public void testCoalescedRequestEvents() {
+    AuditTrail trail = AuditTrail.begin();
+    try {
+      auditService.createContext();
+      auditor.audit( Action.ACCESS, "/gateway/sandbox/webhdfs", ResourceType.URI, ActionOutcome.UNAVAILABLE );
+      auditService.getContext().setUsername( username );
+      auditor.audit( Action.AUTHENTICATION, "webhdfs", ResourceType.URI, ActionOutcome.SUCCESS );
+      auditor.audit( Action.DISPATCH, "http://host:50070/webhdfs", ResourceType.URI, ActionOutcome.UNAVAILABLE, "Request method: GET" );
+      auditor.audit( Action.DISPATCH, "http://host:50070/webhdfs", ResourceType.URI, ActionOutcome.SUCCESS, "Response status: 200" );
+      auditor.audit( Action.ACCESS, "/gateway/sandbox/webhdfs", ResourceType.URI, ActionOutcome.SUCCESS, "Response status: 200" );
+      auditService.detachContext();
+    } finally {
+      assertThat( AuditTrail.end(), is( trail ) );
+    }
+    assertThat( CollectAppender.queue.size(), is( 0 ) );
+
+    assertThat( trail.getResourceName(), is( "/gateway/sandbox/webhdfs" ) );
+    assertThat( trail.getOutcome(), is( ActionOutcome.SUCCESS ) );
+    assertThat( trail.getAuditContext().getUsername(), is( username ) );
+    String message = trail.toMessage( 200, 0, 42 );
+    assertThat( message, containsString( "{\"status\":200,\"bytes_in\":0,\"bytes_out\":42,\"total_ms\":" ) );
+    assertThat( message, containsString( "\"auth_ms\":" ) );
+    assertThat( message, containsString( "\"rewrite_ms\":" ) );
+    assertThat( message, containsString( "\"ttfb_ms\":" ) );
+    assertThat( message, containsString( "\"response_ms\":" ) );
+    assertThat( message, containsString( "{\"action\":\"dispatch\",\"resource_type\":\"uri\",\"resource_name\":\"http://host:50070/webhdfs\",\"outcome\":\"success\",\"message\":\"Response status: 200\",\"at_ms\":" ) );
+
+    auditor.audit( Action.ACCESS, "/gateway/sandbox/webhdfs", ResourceType.URI, ActionOutcome.SUCCESS, message );
+    assertThat( CollectAppender.queue.size(), is( 1 ) );
+  }
+
   private void checkLogEventContexts( LoggingEvent event, CorrelationContext expectedCorrelationContext, AuditContext expectedAuditContext ) {
     AuditContext context = (AuditContext) event.getMDC( Log4jAuditService.MDC_AUDIT_CONTEXT_KEY );
     assertThat( context.getUsername(), is( expectedAuditContext.getUsername() ) );
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit;
+
+import org.apache.hadoop.gateway.audit.api.CorrelationIdGenerator;
+import org.apache.hadoop.gateway.audit.log4j.correlation.TimeOrderedIdGenerator;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+public class CorrelationIdGeneratorTest {
+
+  private CorrelationIdGenerator generator = new TimeOrderedIdGenerator();
+
+  @Test
+  public void testIdFormat() {
+    String id = generator.generateId();
+    assertThat( id.length(), is( 26 ) );
+    assertThat( id.matches( "[0-9A-HJKMNP-TV-Z]{26}" ), is( true ) );
+  }
+
+  @Test
+  public void testIdsAreOrderedByTime() throws Exception {
+    String first = generator.generateId();
+    Thread.sleep( 2 );
+    String second = generator.generateId();
+    assertThat( first.substring( 0, 10 ).compareTo( second.substring( 0, 10 ) ), lessThan( 0 ) );
+  }
+
+  @Test
+  public void testIdsAreUniqueAcrossThreads() throws Exception {
+    final int threadCount = 8;
+    final int idsPerThread = 10000;
+    final Set<String> ids = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+    Thread[] threads = new Thread[ threadCount ];
+    for( int t = 0; t < threadCount; t++ ) {
+      threads[ t ] = new Thread() {
+        @Override
+        public void run() {
+          Set<String> local = new HashSet<String>();
+          for( int i = 0; i < idsPerThread; i++ ) {
+            local.add( generator.generateId() );
+          }
+          ids.addAll( local );
+        }
+      };
+      threads[ t ].start();
+    }
+    for( Thread thread : threads ) {
+      thread.join();
+    }
+    assertThat( ids.size(), is( threadCount * idsPerThread ) );
+  }
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class IpAddressRangeSetTest {
+
+  @Test
+  public void testNestedRanges() {
+    IpAddressRangeSet ranges = new IpAddressRangeSet();
+    ranges.add("192.168.1.0/24");
+    ranges.add("192.168.0.0/16");
+    ranges.add("192.168.2.7");
+
+    assertTrue(ranges.contains("192.168.1.1"));
+    assertTrue(ranges.contains("192.168.200.1"));
+    assertTrue(ranges.contains("192.168.2.7"));
+    assertFalse(ranges.contains("192.169.0.1"));
+    // IPv4 ranges do not match IPv6 addresses.
+    assertFalse(ranges.contains("::1"));
+    assertTrue(ranges.contains("::ffff:192.168.3.4"));
+  }
+
+  @Test
+  public void testAllAddresses() {
+    IpAddressRangeSet ranges = new IpAddressRangeSet();
+    assertTrue(ranges.isEmpty());
+    assertFalse(ranges.contains("10.0.0.1"));
+    ranges.add("0.0.0.0/0");
+    assertTrue(ranges.contains("10.0.0.1"));
+    assertTrue(ranges.contains("255.255.255.255"));
+    assertFalse(ranges.contains("::2"));
+  }
+
+  @Test
+  public void testIpv6() {
+    IpAddressRangeSet ranges = new IpAddressRangeSet();
+    ranges.add("2001:db8::/32");
+    assertTrue(ranges.contains("2001:0db8:ffff::1"));
+    assertTrue(ranges.contains("[2001:db8::1]"));
+    assertTrue(ranges.contains("2001:db8::1%eth0"));
+    assertFalse(ranges.contains("2001:db9::1"));
+  }
+
+  @Test
+  public void testInvalidRanges() {
+    IpAddressRangeSet ranges = new IpAddressRangeSet();
+    for (String range : new String[] { "10.0.0.0/33", "10.0.0/8", "256.0.0.1", "10.0.0.0/x", "example.com", "::1/129" }) {
+      try {
+        ranges.add(range);
+        fail("Should not have accepted " + range);
+      } catch (IllegalArgumentException e) {
+        // Expected.
+      }
+    }
+    assertTrue(ranges.isEmpty());
+  }
+
+  @Test
+  public void testParse() {
+    assertArrayEquals(new byte[] { 10, 0, 0, 1 }, IpAddressRangeSet.parse("10.0.0.1"));
+    assertNull(IpAddressRangeSet.parse("10.0.0.1.1"));
+    assertNull(IpAddressRangeSet.parse("10..0.1"));
+    assertNull(IpAddressRangeSet.parse("1234.0.0.1"));
+    assertNull(IpAddressRangeSet.parse("localhost"));
+    assertNull(IpAddressRangeSet.parse("host:8443"));
+  }
+
+}
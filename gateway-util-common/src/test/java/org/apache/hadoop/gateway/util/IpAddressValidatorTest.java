@@ -75,4 +75,19 @@ public class IpAddressValidatorTest extends TestCase {
     assertTrue("Should have validated 293.168.1.1", ipv.validateIpAddress("293.168.1.1"));
   }
 
+  @Test
+  public void testCidrRanges() throws Exception {
+    IpAddressValidator ipv = new IpAddressValidator("10.0.0.0/8,172.16.0.0/12,fd00::/8,2001:db8::1");
+
+    assertTrue("Should have validated 10.1.2.3", ipv.validateIpAddress("10.1.2.3"));
+    assertFalse("Should not have validated 11.1.2.3", ipv.validateIpAddress("11.1.2.3"));
+    assertTrue("Should have validated 172.31.255.255", ipv.validateIpAddress("172.31.255.255"));
+    assertFalse("Should not have validated 172.32.0.1", ipv.validateIpAddress("172.32.0.1"));
+
+    assertTrue("Should have validated fd12:3456::1", ipv.validateIpAddress("fd12:3456::1"));
+    assertFalse("Should not have validated fe80::1", ipv.validateIpAddress("fe80::1"));
+    assertTrue("Should have validated 2001:db8:0:0:0:0:0:1", ipv.validateIpAddress("2001:db8:0:0:0:0:0:1"));
+    assertFalse("Should not have validated a host name", ipv.validateIpAddress("localhost"));
+  }
+
 }
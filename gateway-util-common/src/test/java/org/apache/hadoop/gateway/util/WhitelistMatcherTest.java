@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.util;
+
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WhitelistMatcherTest {
+
+  private static final String[] HOST_PATTERNS = {
+      "^https?://(.*\\.)?example\\.com(:\\d+)?/.*$",
+      "^https://(.*\\.)?example\\.com/.*$",
+      "^http://host-1\\.example\\.org(:\\d+)?/.*$",
+      "https?://(?:.*\\.)?example\\.net(?::\\d+)?/.*"
+  };
+
+  private static final String[] CANDIDATES = {
+      "http://example.com/",
+      "https://example.com/path?query#fragment",
+      "https://www.example.com/",
+      "https://www.example.com:8443/",
+      "https://www.example.com:/",
+      "https://www.example.com:84a3/",
+      "https://www.example.com",
+      "https://wwwexample.com/",
+      "https://www.example.com.evil.org/",
+      "https://evil.org/.example.com/",
+      "https://evil.org/a.example.com:1/",
+      "https://user@www.example.com/",
+      "https://www.example.com/\nevil",
+      "https://www.example.com\r.example.com/",
+      "https://www.example.com/ ",
+      "HTTPS://www.example.com/",
+      "https://www.EXAMPLE.com/",
+      "ftp://www.example.com/",
+      "http://host-1.example.org/",
+      "http://host-1.example.org:80/",
+      "http://a.host-1.example.org/",
+      "https://host-1.example.org/",
+      "http://host-1xexample.org/",
+      "https://a.b.example.net:1/x",
+      "https://example.net.example.net/",
+      "/relative/path",
+      ""
+  };
+
+  @Test
+  public void testHostPatternsMatchLikeTheirRegex() throws Exception {
+    for (String pattern : HOST_PATTERNS) {
+      WhitelistMatcher matcher = WhitelistMatcher.compile(pattern);
+      Assert.assertEquals(pattern, 0, matcher.getRegexCount());
+      Pattern regex = Pattern.compile(pattern);
+      for (String candidate : CANDIDATES) {
+        Assert.assertEquals(pattern + " " + candidate,
+            regex.matcher(candidate).matches(), matcher.matches(candidate));
+      }
+    }
+  }
+
+  @Test
+  public void testOtherPatternsUseRegex() throws Exception {
+    WhitelistMatcher matcher = WhitelistMatcher.compile(
+        "^/.*$;^https?://(localhost|127.0.0.1|0:0:0:0:0:0:0:1|::1):\\d{0,9}/.*$;^https?://(.*\\.)?example\\.com/.*$");
+    Assert.assertEquals(2, matcher.getRegexCount());
+    Assert.assertTrue(matcher.matches("/gateway/sandbox"));
+    Assert.assertTrue(matcher.matches("http://localhost:8443/"));
+    Assert.assertTrue(matcher.matches("https://www.example.com/"));
+    Assert.assertFalse(matcher.matches("https://www.example.org/"));
+  }
+
+}